@@ -0,0 +1,148 @@
+import benchmarks.Scenarios;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.sql.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.Date;
+
+/**
+ * The scenarios measured by benchmarks.AppBenchmark, run against a generated database
+ *   stockCheck   StockManager.checkStockAvailability for five random products
+ *   invoiceSave  InvoiceService.saveInvoice of a three-line draft, rolled back
+ *   invoiceList  the invoice list query of InvoicesPanel with its per-row totals
+ *   pdfRender    InvoicePDFGenerator.renderInvoicePDF of a random invoice
+ *   dateParse    DateUtils parsing and formatting of 1000 dates
+ * Random choices come from the seed, so two runs on the same data do the same work.
+ */
+public class AppScenarios implements Scenarios {
+    // Same query as InvoicesPanel.loadInvoices and recalculateInvoiceTotals
+    private static final String LIST_QUERY = """
+        SELECT i.number, i.date, i.customer_id, i.status,
+               c.first_name || ' ' || c.last_name as customer_name
+        FROM invoices i
+        LEFT JOIN customers c ON i.customer_id = c.id
+        WHERE c.deleted_at IS NULL
+        ORDER BY i.date DESC
+    """;
+    private static final String TOTALS_QUERY = """
+        SELECT SUM(d.quantity * d.unit_price) as taxable_amount_calc,
+               SUM(d.quantity * d.unit_price * d.vat_rate / 100) as vat_calc
+        FROM invoice_details d
+        WHERE d.invoice_id = (SELECT id FROM invoices WHERE number = ?)
+    """;
+
+    private Connection conn;
+    private Random random;
+    private int maxProductId;
+    private int maxCustomerId;
+    private int maxInvoiceId;
+    private final List<String> dateStrings = new ArrayList<>();
+
+    @Override
+    public void open(int size, long seed) throws Exception {
+        boolean generate = !new File(DatabaseProfile.DB_FILE).exists();
+        DatabaseManager.getInstance().openDatabase();
+        EventBus.getInstance().setDeliverOnEdt(false);
+        conn = DatabaseManager.getInstance().getConnection();
+        if (generate) {
+            new DatasetGenerator(conn, size, seed).generate();
+        }
+
+        random = new Random(seed);
+        maxProductId = maxId("products");
+        maxCustomerId = maxId("customers");
+        maxInvoiceId = maxId("invoices");
+        if (maxProductId == 0 || maxCustomerId == 0 || maxInvoiceId == 0) {
+            throw new SQLException(DatabaseProfile.DB_FILE + " is empty; delete it to have it generated again");
+        }
+
+        SimpleDateFormat format = new SimpleDateFormat("dd/MM/yyyy");
+        long start = 1672531200000L;
+        for (int i = 0; i < 1000; i++) {
+            dateStrings.add(format.format(new Date(start + random.nextInt(730) * 86_400_000L)));
+        }
+    }
+
+    private int maxId(String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        DatabaseManager.getInstance().closeConnection();
+    }
+
+    @Override
+    public void stockCheck(Blackhole blackhole) throws SQLException {
+        List<StockManager.StockItem> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int productId = 1 + random.nextInt(maxProductId);
+            items.add(new StockManager.StockItem(productId, "P" + productId, 1 + random.nextInt(10)));
+        }
+        blackhole.consume(StockManager.checkStockAvailability(conn, items, null, "ORDER"));
+    }
+
+    @Override
+    public void invoiceSave(Blackhole blackhole) throws SQLException {
+        Invoice invoice = new Invoice(0, null, new Date(), 1 + random.nextInt(maxCustomerId), "", 0, 0, 0, "Draft");
+        for (int i = 0; i < 3; i++) {
+            int productId = 1 + random.nextInt(maxProductId);
+            int quantity = 1 + random.nextInt(10);
+            invoice.getItems().add(new InvoiceItem(0, 0, productId, "", "", quantity, 10.0, 22.0, quantity * 10.0));
+        }
+        InvoiceService.computeTotals(invoice);
+
+        // Roll back so every run sees the same data
+        conn.setAutoCommit(false);
+        try {
+            blackhole.consume(InvoiceService.saveInvoice(conn, invoice));
+        } finally {
+            conn.rollback();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    @Override
+    public void invoiceList(Blackhole blackhole) throws SQLException {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LIST_QUERY);
+             PreparedStatement totals = conn.prepareStatement(TOTALS_QUERY)) {
+            while (rs.next()) {
+                totals.setString(1, rs.getString("number"));
+                try (ResultSet totalsRs = totals.executeQuery()) {
+                    if (totalsRs.next()) {
+                        blackhole.consume(totalsRs.getDouble("taxable_amount_calc"));
+                        blackhole.consume(totalsRs.getDouble("vat_calc"));
+                    }
+                }
+                Date date = DateUtils.parseDate(rs, "date");
+                blackhole.consume(DateUtils.formatDate(date, dateFormat));
+                blackhole.consume(rs.getString("customer_name"));
+            }
+        }
+    }
+
+    @Override
+    public void pdfRender(Blackhole blackhole) throws Exception {
+        Invoice invoice = InvoiceRepository.findById(conn, 1 + random.nextInt(maxInvoiceId));
+        if (invoice == null) {
+            return;
+        }
+        Customer customer = CustomerRepository.findById(conn, invoice.getCustomerId());
+        blackhole.consume(InvoicePDFGenerator.renderInvoicePDF(invoice, customer));
+    }
+
+    @Override
+    public void dateParse(Blackhole blackhole) throws Exception {
+        for (String value : dateStrings) {
+            Date date = DateUtils.parseDate(value, DateUtils.DEFAULT_FORMAT);
+            blackhole.consume(DateUtils.formatDate(date));
+        }
+    }
+}
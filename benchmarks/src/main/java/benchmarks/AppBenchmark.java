@@ -0,0 +1,81 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the application's hot paths against generated databases
+ * Each size gets its own database under benchmark-data/ in the working
+ * directory, created by DatasetGenerator on the first run and reused after
+ * that; delete the file to regenerate it. Query instrumentation is switched
+ * off in the forked JVMs so its bookkeeping is not part of the timings.
+ *
+ * mvn -B package && java -jar benchmarks/target/benchmarks.jar [AppBenchmark.pdfRender] [-p size=10000]
+ *
+ * Every fork must start with a fresh JVM: the database file is chosen through
+ * the db_file setting before the application's classes load, so -f 0 does not work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dquery_instrumentation=false"})
+public class AppBenchmark {
+    private static final String DATA_DIR = "benchmark-data";
+
+    // Rows per main table, as DatasetGenerator --size
+    @Param({"10000", "100000"})
+    public int size;
+
+    // Seed of the generated data and of the random choices of each scenario
+    @Param({"42"})
+    public long seed;
+
+    private Scenarios scenarios;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        File dir = new File(DATA_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + dir.getAbsolutePath());
+        }
+        System.setProperty("db_file", new File(dir, "gestionale-" + size + "-" + seed + ".db").getPath());
+
+        scenarios = (Scenarios) Class.forName("AppScenarios").getDeclaredConstructor().newInstance();
+        scenarios.open(size, seed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        scenarios.close();
+    }
+
+    @Benchmark
+    public void stockCheck(Blackhole blackhole) throws Exception {
+        scenarios.stockCheck(blackhole);
+    }
+
+    @Benchmark
+    public void invoiceSave(Blackhole blackhole) throws Exception {
+        scenarios.invoiceSave(blackhole);
+    }
+
+    @Benchmark
+    public void invoiceList(Blackhole blackhole) throws Exception {
+        scenarios.invoiceList(blackhole);
+    }
+
+    @Benchmark
+    public void pdfRender(Blackhole blackhole) throws Exception {
+        scenarios.pdfRender(blackhole);
+    }
+
+    @Benchmark
+    public void dateParse(Blackhole blackhole) throws Exception {
+        scenarios.dateParse(blackhole);
+    }
+}
@@ -0,0 +1,29 @@
+package benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The application's hot paths as seen by the benchmarks
+ * JMH refuses benchmark classes in the default package and a named package
+ * cannot refer to the application's classes, so AppScenarios implements this
+ * interface from the default package and AppBenchmark loads it by name.
+ */
+public interface Scenarios {
+    /**
+     * Open the database named by the db_file setting, generating it first
+     * with DatasetGenerator if the file does not exist yet
+     */
+    void open(int size, long seed) throws Exception;
+
+    void close() throws Exception;
+
+    void stockCheck(Blackhole blackhole) throws Exception;
+
+    void invoiceSave(Blackhole blackhole) throws Exception;
+
+    void invoiceList(Blackhole blackhole) throws Exception;
+
+    void pdfRender(Blackhole blackhole) throws Exception;
+
+    void dateParse(Blackhole blackhole) throws Exception;
+}
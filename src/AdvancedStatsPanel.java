@@ -77,7 +77,24 @@ public class AdvancedStatsPanel extends JPanel {
         tabbedPane.addTab("Sales Trend", salesPanel);
         tabbedPane.addTab("Product Analysis", productsPanel);
 
-        add(tabbedPane);
+        // Export of the active tab, streamed from the database
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton exportButton = new JButton("Export CSV/XLSX");
+        exportButton.setToolTipText("Export the data of the current tab for the selected period");
+        exportButton.addActionListener(e -> exportCurrentTab());
+        buttonPanel.add(exportButton);
+
+        add(tabbedPane, BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    private int getSelectedMonths() {
+        return switch(periodCombo.getSelectedIndex()) {
+            case 0 -> 6;
+            case 1 -> 12;
+            case 2 -> 24;
+            default -> 12;
+        };
     }
 
     private void loadData() {
@@ -90,12 +107,7 @@ public class AdvancedStatsPanel extends JPanel {
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
 
-            int months = switch(periodCombo.getSelectedIndex()) {
-                case 0 -> 6;
-                case 1 -> 12;
-                case 2 -> 24;
-                default -> 12;
-            };
+            int months = getSelectedMonths();
 
             // Query with proper period filtering
             String query = "SELECT strftime('%Y-%m', o.order_date) as month, " +
@@ -224,12 +236,7 @@ public class AdvancedStatsPanel extends JPanel {
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
 
-            int months = switch(periodCombo.getSelectedIndex()) {
-                case 0 -> 6;
-                case 1 -> 12;
-                case 2 -> 24;
-                default -> 12;
-            };
+            int months = getSelectedMonths();
 
             String query = "SELECT COALESCE(p.name, 'Product N/A') as name, " +
                           "SUM(d.quantity) as total_quantity, " +
@@ -360,4 +367,54 @@ public class AdvancedStatsPanel extends JPanel {
             startAngle += arcAngle;
         }
     }
+
+    private void exportCurrentTab() {
+        int months = getSelectedMonths();
+        String period = (String) periodCombo.getSelectedItem();
+
+        if (tabbedPane.getSelectedIndex() == 0) {
+            String query = "SELECT strftime('%Y-%m', o.order_date) as month, " +
+                          "SUM(o.total) as total, " +
+                          "COUNT(*) as num_orders " +
+                          "FROM orders o " +
+                          "WHERE o.order_date IS NOT NULL " +
+                          "AND o.order_date >= datetime('now', '-" + months + " months') " +
+                          "GROUP BY month " +
+                          "ORDER BY month";
+
+            List<ReportExporter.Column> columns = List.of(
+                new ReportExporter.Column("Month", ReportExporter.textColumn("month")),
+                new ReportExporter.Column("Total Sales", ReportExporter.decimalColumn("total")),
+                new ReportExporter.Column("Orders", ReportExporter.intColumn("num_orders"))
+            );
+
+            ReportExporter.exportWithDialog(this, "Export Sales Trend", "sales_trend",
+                query, List.of(), columns, List.<String[]>of(new String[]{"Sales Trend - " + period}), null);
+        } else {
+            // Every product sold in the period, not only the top 10 shown in the chart
+            String query = "SELECT COALESCE(p.code, '') as code, " +
+                          "COALESCE(p.name, 'Product N/A') as name, " +
+                          "SUM(d.quantity) as total_quantity, " +
+                          "SUM(d.quantity * d.unit_price) as revenue, " +
+                          "COUNT(DISTINCT o.id) as num_orders " +
+                          "FROM order_details d " +
+                          "LEFT JOIN products p ON d.product_id = p.id " +
+                          "LEFT JOIN orders o ON d.order_id = o.id " +
+                          "WHERE o.order_date IS NOT NULL " +
+                          "AND o.order_date >= datetime('now', '-" + months + " months') " +
+                          "GROUP BY d.product_id, p.name " +
+                          "ORDER BY revenue DESC";
+
+            List<ReportExporter.Column> columns = List.of(
+                new ReportExporter.Column("Code", ReportExporter.textColumn("code")),
+                new ReportExporter.Column("Product", ReportExporter.textColumn("name")),
+                new ReportExporter.Column("Quantity Sold", ReportExporter.intColumn("total_quantity")),
+                new ReportExporter.Column("Revenue", ReportExporter.decimalColumn("revenue")),
+                new ReportExporter.Column("Orders", ReportExporter.intColumn("num_orders"))
+            );
+
+            ReportExporter.exportWithDialog(this, "Export Product Analysis", "product_analysis",
+                query, List.of(), columns, List.<String[]>of(new String[]{"Product Analysis - " + period}), null);
+        }
+    }
 }
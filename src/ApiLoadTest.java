@@ -0,0 +1,167 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load-test harness for ApiServer
+ * Drives a running server with concurrent clients for a fixed time and prints
+ * throughput, error counts and latency percentiles per endpoint.
+ *
+ * java ApiLoadTest [--url http://127.0.0.1:8080] [--clients 32] [--seconds 30]
+ *                  [--write-ratio 0.1] [--customer 1] [--products 1,2,3]
+ *
+ * Writes create "New" orders, which do not touch stock, so the harness can run
+ * against a copy of production data without skewing availability.
+ */
+public class ApiLoadTest {
+    private static final String[] READ_PATHS = {"/api/products?limit=50", "/api/products/%d", "/api/stock/%d"};
+
+    private final String baseUrl;
+    private final int clients;
+    private final int seconds;
+    private final double writeRatio;
+    private final int customerId;
+    private final int[] productIds;
+    private final HttpClient client;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public ApiLoadTest(String baseUrl, int clients, int seconds, double writeRatio, int customerId, int[] productIds) {
+        this.baseUrl = baseUrl;
+        this.clients = clients;
+        this.seconds = seconds;
+        this.writeRatio = writeRatio;
+        this.customerId = customerId;
+        this.productIds = productIds;
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(clients))
+            .build();
+    }
+
+    public void run() throws InterruptedException {
+        System.out.printf("Running %d clients for %d s against %s (write ratio %.2f)%n",
+            clients, seconds, baseUrl, writeRatio);
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        for (int i = 0; i < clients; i++) {
+            long seed = i;
+            pool.execute(() -> clientLoop(new Random(seed), deadline));
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        report();
+    }
+
+    private void clientLoop(Random random, long deadline) {
+        while (System.nanoTime() < deadline) {
+            int productId = productIds[random.nextInt(productIds.length)];
+            HttpRequest request;
+            String name;
+            if (random.nextDouble() < writeRatio) {
+                name = "POST /api/orders";
+                String body = String.format(Locale.ROOT,
+                    "{\"customer_id\":%d,\"status\":\"New\",\"items\":[{\"product_id\":%d,\"quantity\":%d}]}",
+                    customerId, productId, 1 + random.nextInt(5));
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/orders"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            } else {
+                String template = READ_PATHS[random.nextInt(READ_PATHS.length)];
+                name = "GET " + template.replace("%d", "{id}");
+                request = HttpRequest.newBuilder(URI.create(baseUrl + String.format(template, productId)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            }
+
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                ok = response.statusCode() < 400;
+            } catch (Exception e) {
+                ok = false;
+            }
+            stats.computeIfAbsent(name, k -> new Stats()).record(System.nanoTime() - start, ok);
+        }
+    }
+
+    private void report() {
+        long totalRequests = 0;
+        System.out.printf("%-28s %9s %7s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms");
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(stats).entrySet()) {
+            Stats s = entry.getValue();
+            long[] latencies = s.sortedLatencies();
+            totalRequests += latencies.length;
+            System.out.printf(Locale.ROOT, "%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f%n",
+                entry.getKey(), latencies.length, s.errors.get(), latencies.length / (double) seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99));
+        }
+        System.out.printf(Locale.ROOT, "total: %d requests, %.1f req/s%n", totalRequests, totalRequests / (double) seconds);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    // Helper classes
+
+    private static class Stats {
+        private final List<Long> latencies = new ArrayList<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        synchronized void record(long nanos, boolean ok) {
+            latencies.add(nanos);
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+
+        synchronized long[] sortedLatencies() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String url = "http://127.0.0.1:8080";
+        int clients = 32;
+        int seconds = 30;
+        double writeRatio = 0.1;
+        int customerId = 1;
+        int[] productIds = {1};
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url": url = args[i + 1]; break;
+                case "--clients": clients = Integer.parseInt(args[i + 1]); break;
+                case "--seconds": seconds = Integer.parseInt(args[i + 1]); break;
+                case "--write-ratio": writeRatio = Double.parseDouble(args[i + 1]); break;
+                case "--customer": customerId = Integer.parseInt(args[i + 1]); break;
+                case "--products":
+                    productIds = Arrays.stream(args[i + 1].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        new ApiLoadTest(url, clients, seconds, writeRatio, customerId, productIds).run();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,704 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded JSON API over the order and invoice services, for the web shop
+ * Reads are served from a pool of read-only connections; writes go through
+ * the shared DatabaseWriter, which commits concurrent requests together.
+ *
+ * Endpoints:
+ *   GET  /api/health
+ *   GET  /api/products?search=&limit=&offset=
+ *   GET  /api/products/{id}
+ *   GET  /api/stock/{productId}
+ *   GET  /api/stock?ids=1,2,3
+ *   GET  /api/orders/{id}
+ *   POST /api/orders
+ *   GET  /api/invoices/{id}
+ *   POST /api/invoices
+ *
+ * A POST that is not committed within 30 seconds is answered with 503, but
+ * the write stays queued and may still be applied. Clients that retry should
+ * send an Idempotency-Key header: a POST whose key was already applied
+ * returns the saved document with 200 instead of saving it again. Keys are
+ * kept for 7 days.
+ *
+ * Run headless with: java ApiServer [--port 8080] [--bind 127.0.0.1] [--threads 16] [--readers 8]
+ */
+public class ApiServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+    private static final long WRITE_TIMEOUT_SECONDS = 30;
+    private static final int IDEMPOTENCY_KEY_DAYS = 7;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 200;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ConnectionPool readPool;
+    private final DatabaseWriter writer;
+
+    public ApiServer(String bindAddress, int port, int threads, int readers) throws IOException {
+        readPool = new ConnectionPool(readers);
+        writer = DatabaseWriter.getInstance();
+
+        // One platform thread per in-flight request; blocking JDBC calls park the thread
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "api-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/health", exchange -> handle(exchange, this::health));
+        server.createContext("/api/products", exchange -> handle(exchange, this::products));
+        server.createContext("/api/stock", exchange -> handle(exchange, this::stock));
+        server.createContext("/api/orders", exchange -> handle(exchange, this::orders));
+        server.createContext("/api/invoices", exchange -> handle(exchange, this::invoices));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("API server listening on " + server.getAddress());
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        writer.close();
+        readPool.close();
+        System.out.println("API server stopped");
+    }
+
+    // Routing
+
+    private interface Handler {
+        Response handle(Request request) throws Exception;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            response = handler.handle(new Request(exchange));
+        } catch (IllegalArgumentException e) {
+            response = Response.error(400, e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IllegalArgumentException) {
+                response = Response.error(400, cause.getMessage());
+            } else if (cause instanceof InsufficientStockException) {
+                response = new Response(409, ((InsufficientStockException) cause).toJson());
+            } else {
+                cause.printStackTrace();
+                response = Response.error(500, cause.getMessage());
+            }
+        } catch (TimeoutException e) {
+            // Not a rejection: the write is still queued and may commit after this answer
+            response = Response.error(503,
+                "Write queue is busy; the request may still be applied, retry with the same Idempotency-Key");
+        } catch (Exception e) {
+            e.printStackTrace();
+            response = Response.error(500, e.getMessage());
+        }
+
+        byte[] body = Json.write(response.body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private Response health(Request request) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "ok");
+        body.put("readers", readPool.getSize());
+        body.put("average_write_batch", writer.getAverageBatchSize());
+        return Response.ok(body);
+    }
+
+    private Response products(Request request) throws SQLException {
+        request.requireMethod("GET");
+        Integer id = request.pathId();
+        if (id != null) {
+            Map<String, Object> product = readPool.withConnection(conn -> findProduct(conn, id));
+            return product != null ? Response.ok(product) : Response.error(404, "Product not found");
+        }
+
+        String search = request.param("search");
+        int limit = Math.min(MAX_PAGE_SIZE, request.intParam("limit", 50));
+        int offset = request.intParam("offset", 0);
+        return Response.ok(readPool.withConnection(conn -> listProducts(conn, search, limit, offset)));
+    }
+
+    private Response stock(Request request) throws SQLException {
+        request.requireMethod("GET");
+        List<Integer> ids = new ArrayList<>();
+        Integer id = request.pathId();
+        if (id != null) {
+            ids.add(id);
+        } else {
+            String idsParam = request.param("ids");
+            if (idsParam == null || idsParam.isEmpty()) {
+                throw new IllegalArgumentException("Missing ids parameter");
+            }
+            for (String part : idsParam.split(",")) {
+                ids.add(parseId(part.trim()));
+            }
+            if (ids.size() > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("At most " + MAX_PAGE_SIZE + " ids per request");
+            }
+        }
+
+        List<Map<String, Object>> stock = readPool.withConnection(conn -> findStock(conn, ids));
+        if (id != null) {
+            return stock.isEmpty() ? Response.error(404, "Product not found") : Response.ok(stock.get(0));
+        }
+        return Response.ok(stock);
+    }
+
+    private Response orders(Request request) throws Exception {
+        if ("POST".equals(request.method)) {
+            Map<String, Object> json = request.jsonBody();
+            boolean allowNegative = Boolean.TRUE.equals(json.get("allow_negative_stock"));
+            String key = request.idempotencyKey();
+            boolean[] replayed = new boolean[1];
+
+            Order saved = writer.submit(conn -> {
+                Integer applied = findApplied(conn, key, "order");
+                if (applied != null) {
+                    replayed[0] = true;
+                    return OrderRepository.findById(conn, applied);
+                }
+                Order order = parseOrder(conn, json);
+                if (!allowNegative) {
+                    InsufficientStockException.check(OrderService.checkStock(conn, order));
+                }
+                OrderService.saveOrder(conn, order);
+                recordApplied(conn, key, "order", order.getId());
+                return order;
+            }).get(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            if (saved == null) {
+                return Response.error(404, "Order not found");
+            }
+            if (!replayed[0]) {
+                EventBus.getInstance().publish(new EventBus.OrderSaved(saved.getId()));
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("id", saved.getId());
+            body.put("total", saved.getTotal());
+            return new Response(replayed[0] ? 200 : 201, body);
+        }
+
+        request.requireMethod("GET");
+        Integer id = request.requirePathId();
+        Order order = readPool.withConnection(conn -> OrderRepository.findById(conn, id));
+        return order != null ? Response.ok(toJson(order)) : Response.error(404, "Order not found");
+    }
+
+    private Response invoices(Request request) throws Exception {
+        if ("POST".equals(request.method)) {
+            Map<String, Object> json = request.jsonBody();
+            boolean allowNegative = Boolean.TRUE.equals(json.get("allow_negative_stock"));
+            String key = request.idempotencyKey();
+            boolean[] replayed = new boolean[1];
+
+            Invoice saved = writer.submit(conn -> {
+                Integer applied = findApplied(conn, key, "invoice");
+                if (applied != null) {
+                    replayed[0] = true;
+                    return InvoiceRepository.findById(conn, applied);
+                }
+                Invoice invoice = parseInvoice(conn, json);
+                if (!allowNegative) {
+                    InsufficientStockException.check(InvoiceService.checkStock(conn, invoice));
+                }
+                InvoiceService.saveInvoice(conn, invoice);
+                recordApplied(conn, key, "invoice", invoice.getId());
+                return invoice;
+            }).get(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            if (saved == null) {
+                return Response.error(404, "Invoice not found");
+            }
+            if (!replayed[0]) {
+                EventBus.getInstance().publish(new EventBus.InvoiceSaved(saved.getId()));
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("id", saved.getId());
+            body.put("number", saved.getNumber());
+            body.put("total", saved.getTotal());
+            return new Response(replayed[0] ? 200 : 201, body);
+        }
+
+        request.requireMethod("GET");
+        Integer id = request.requirePathId();
+        Invoice invoice = readPool.withConnection(conn -> InvoiceRepository.findById(conn, id));
+        return invoice != null ? Response.ok(toJson(invoice)) : Response.error(404, "Invoice not found");
+    }
+
+    // Queries
+
+    private static final String PRODUCT_COLUMNS = """
+        p.id, p.code, p.name, p.description, p.price, p.quantity, p.reserved_quantity,
+        p.category, p.unit_of_measure, p.vat_rate, p.active
+    """;
+
+    private static Map<String, Object> productJson(ResultSet rs) throws SQLException {
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("id", rs.getInt("id"));
+        product.put("code", rs.getString("code"));
+        product.put("name", rs.getString("name"));
+        product.put("description", rs.getString("description"));
+        product.put("price", rs.getDouble("price"));
+        product.put("available", rs.getInt("quantity") - rs.getInt("reserved_quantity"));
+        product.put("category", rs.getString("category"));
+        product.put("unit_of_measure", rs.getString("unit_of_measure"));
+        product.put("vat_rate", rs.getDouble("vat_rate"));
+        product.put("active", rs.getInt("active") == 1);
+        return product;
+    }
+
+    private static Map<String, Object> findProduct(Connection conn, int id) throws SQLException {
+        String query = "SELECT " + PRODUCT_COLUMNS + " FROM products p WHERE p.id = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? productJson(rs) : null;
+            }
+        }
+    }
+
+    private static List<Map<String, Object>> listProducts(Connection conn, String search, int limit, int offset)
+            throws SQLException {
+        String query = "SELECT " + PRODUCT_COLUMNS + " FROM products p WHERE p.active = 1"
+            + (search != null && !search.isEmpty() ? " AND (p.code LIKE ? OR p.name LIKE ?)" : "")
+            + " ORDER BY p.name, p.id LIMIT ? OFFSET ?";
+
+        List<Map<String, Object>> products = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            int index = 1;
+            if (search != null && !search.isEmpty()) {
+                pstmt.setString(index++, "%" + search + "%");
+                pstmt.setString(index++, "%" + search + "%");
+            }
+            pstmt.setInt(index++, limit);
+            pstmt.setInt(index, Math.max(0, offset));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(productJson(rs));
+                }
+            }
+        }
+        return products;
+    }
+
+    private static List<Map<String, Object>> findStock(Connection conn, List<Integer> ids) throws SQLException {
+        List<Map<String, Object>> stock = new ArrayList<>();
+        for (StockRepository.StockLevel level : StockRepository.findLevels(conn, ids)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("product_id", level.getProductId());
+            row.put("code", level.getCode());
+            row.put("physical", level.getPhysical());
+            row.put("reserved", level.getReserved());
+            row.put("available", level.getAvailable());
+            stock.add(row);
+        }
+        return stock;
+    }
+
+    /**
+     * Id of the document already saved under the idempotency key, or null
+     * Runs in the writer's transaction, so a retry queued behind the first
+     * attempt sees its commit.
+     */
+    private static Integer findApplied(Connection conn, String key, String documentType) throws SQLException {
+        if (key == null) {
+            return null;
+        }
+        String query = "SELECT document_type, document_id FROM api_requests WHERE idempotency_key = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, key);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                if (!documentType.equals(rs.getString("document_type"))) {
+                    throw new IllegalArgumentException("Idempotency-Key already used for another request");
+                }
+                return rs.getInt("document_id");
+            }
+        }
+    }
+
+    private static void recordApplied(Connection conn, String key, String documentType, int documentId)
+            throws SQLException {
+        if (key == null) {
+            return;
+        }
+        String insert = "INSERT INTO api_requests (idempotency_key, document_type, document_id) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(insert)) {
+            pstmt.setString(1, key);
+            pstmt.setString(2, documentType);
+            pstmt.setInt(3, documentId);
+            pstmt.executeUpdate();
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "DELETE FROM api_requests WHERE created_at < datetime('now', ?)")) {
+            pstmt.setString(1, "-" + IDEMPOTENCY_KEY_DAYS + " days");
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Products referenced by the items, for fields the items leave out
+     */
+    private static Map<Integer, Product> loadProductDefaults(Connection conn, Collection<Integer> ids)
+            throws SQLException {
+        Map<Integer, Product> defaults = ProductRepository.findByIds(conn, ids);
+        for (int id : ids) {
+            if (!defaults.containsKey(id)) {
+                throw new IllegalArgumentException("Unknown product " + id);
+            }
+        }
+        return defaults;
+    }
+
+    // JSON mapping
+
+    private static Order parseOrder(Connection conn, Map<String, Object> json) throws SQLException {
+        List<Map<String, Object>> items = itemsOf(json);
+        Map<Integer, Product> defaults = loadProductDefaults(conn, productIdsOf(items));
+
+        Order order = new Order(0, requireInt(json, "customer_id"), null,
+            parseDate(json.get("date")), stringOr(json.get("status"), "New"), 0);
+        for (Map<String, Object> item : items) {
+            int productId = requireInt(item, "product_id");
+            Product product = defaults.get(productId);
+            order.getItems().add(new OrderItem(0, 0, productId, product.getName(),
+                requirePositive(item, "quantity"),
+                numberOr(item.get("unit_price"), product.getPrice())));
+        }
+        return order;
+    }
+
+    private static Invoice parseInvoice(Connection conn, Map<String, Object> json) throws SQLException {
+        List<Map<String, Object>> items = itemsOf(json);
+        Map<Integer, Product> defaults = loadProductDefaults(conn, productIdsOf(items));
+
+        Invoice invoice = new Invoice(0, null, parseDate(json.get("date")), requireInt(json, "customer_id"),
+            null, 0, 0, 0, stringOr(json.get("status"), "Draft"));
+        for (Map<String, Object> item : items) {
+            int productId = requireInt(item, "product_id");
+            Product product = defaults.get(productId);
+            int quantity = requirePositive(item, "quantity");
+            double unitPrice = numberOr(item.get("unit_price"), product.getPrice());
+            invoice.getItems().add(new InvoiceItem(0, 0, productId, product.getName(), product.getCode(),
+                quantity, unitPrice, numberOr(item.get("vat_rate"), product.getVatRate()), quantity * unitPrice));
+        }
+        InvoiceService.computeTotals(invoice);
+        return invoice;
+    }
+
+    private static Map<String, Object> toJson(Order order) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", order.getId());
+        json.put("customer_id", order.getCustomerId());
+        json.put("customer_name", order.getCustomerName());
+        json.put("date", order.getOrderDate());
+        json.put("status", order.getStatus());
+        json.put("total", order.getTotal());
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (OrderItem item : order.getItems()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("product_id", item.getProductId());
+            line.put("product_name", item.getProductName());
+            line.put("quantity", item.getQuantity());
+            line.put("unit_price", item.getUnitPrice());
+            line.put("total", item.getTotal());
+            items.add(line);
+        }
+        json.put("items", items);
+        return json;
+    }
+
+    private static Map<String, Object> toJson(Invoice invoice) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", invoice.getId());
+        json.put("number", invoice.getNumber());
+        json.put("customer_id", invoice.getCustomerId());
+        json.put("customer_name", invoice.getCustomerName());
+        json.put("date", invoice.getDate());
+        json.put("status", invoice.getStatus());
+        json.put("taxable_amount", invoice.getTaxableAmount());
+        json.put("vat", invoice.getVat());
+        json.put("total", invoice.getTotal());
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (InvoiceItem item : invoice.getItems()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("product_id", item.getProductId());
+            line.put("product_code", item.getProductCode());
+            line.put("product_name", item.getProductName());
+            line.put("quantity", item.getQuantity());
+            line.put("unit_price", item.getUnitPrice());
+            line.put("vat_rate", item.getVatRate());
+            line.put("total", item.getTotal());
+            items.add(line);
+        }
+        json.put("items", items);
+        return json;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> itemsOf(Map<String, Object> json) {
+        Object items = json.get("items");
+        if (!(items instanceof List) || ((List<?>) items).isEmpty()) {
+            throw new IllegalArgumentException("items must be a non-empty array");
+        }
+        for (Object item : (List<?>) items) {
+            if (!(item instanceof Map)) {
+                throw new IllegalArgumentException("items must contain objects");
+            }
+        }
+        return (List<Map<String, Object>>) items;
+    }
+
+    private static Set<Integer> productIdsOf(List<Map<String, Object>> items) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Map<String, Object> item : items) {
+            ids.add(requireInt(item, "product_id"));
+        }
+        return ids;
+    }
+
+    private static int requireInt(Map<String, Object> json, String field) {
+        Object value = json.get(field);
+        if (!(value instanceof Double) || (Double) value != Math.rint((Double) value)) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+        return ((Double) value).intValue();
+    }
+
+    private static int requirePositive(Map<String, Object> json, String field) {
+        int value = requireInt(json, field);
+        if (value <= 0) {
+            throw new IllegalArgumentException(field + " must be positive");
+        }
+        return value;
+    }
+
+    private static double numberOr(Object value, double fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        if (!(value instanceof Double)) {
+            throw new IllegalArgumentException("Expected a number, got " + value);
+        }
+        return (Double) value;
+    }
+
+    private static String stringOr(Object value, String fallback) {
+        return value instanceof String ? (String) value : fallback;
+    }
+
+    // ISO dates (yyyy-MM-dd); today when missing
+    private static Date parseDate(Object value) {
+        if (value == null) {
+            return new Date();
+        }
+        try {
+            return Date.from(LocalDate.parse(value.toString()).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("date must be yyyy-MM-dd");
+        }
+    }
+
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id: " + text);
+        }
+    }
+
+    // Helper classes
+
+    private static class Request {
+        private final HttpExchange exchange;
+        private final String method;
+        private final String[] pathParts;
+        private final Map<String, String> params = new HashMap<>();
+
+        Request(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+
+            String contextPath = exchange.getHttpContext().getPath();
+            String rest = exchange.getRequestURI().getPath().substring(contextPath.length());
+            this.pathParts = Arrays.stream(rest.split("/")).filter(p -> !p.isEmpty()).toArray(String[]::new);
+
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String pair : query.split("&")) {
+                    int eq = pair.indexOf('=');
+                    String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                    String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                    params.put(key, value);
+                }
+            }
+        }
+
+        void requireMethod(String expected) {
+            if (!expected.equals(method)) {
+                throw new IllegalArgumentException("Method " + method + " not allowed");
+            }
+        }
+
+        Integer pathId() {
+            if (pathParts.length == 0) {
+                return null;
+            }
+            if (pathParts.length > 1) {
+                throw new IllegalArgumentException("Unknown resource");
+            }
+            return parseId(pathParts[0]);
+        }
+
+        Integer requirePathId() {
+            Integer id = pathId();
+            if (id == null) {
+                throw new IllegalArgumentException("Missing id");
+            }
+            return id;
+        }
+
+        String param(String name) {
+            return params.get(name);
+        }
+
+        int intParam(String name, int fallback) {
+            String value = params.get(name);
+            return value == null || value.isEmpty() ? fallback : parseId(value);
+        }
+
+        String idempotencyKey() {
+            String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            if (key == null || key.isBlank()) {
+                return null;
+            }
+            if (key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                throw new IllegalArgumentException("Idempotency-Key longer than " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+            }
+            return key;
+        }
+
+        Map<String, Object> jsonBody() throws IOException {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (body.length > MAX_BODY_BYTES) {
+                    throw new IllegalArgumentException("Request body too large");
+                }
+                return Json.parseObject(new String(body, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static class Response {
+        private final int status;
+        private final Object body;
+
+        Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response ok(Object body) {
+            return new Response(200, body);
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, Map.of("error", message != null ? message : "Error"));
+        }
+    }
+
+    /**
+     * Rejects a document whose products are not available, unless the client
+     * explicitly allows negative stock
+     */
+    private static class InsufficientStockException extends SQLException {
+        private final Map<String, StockManager.StockAvailability> insufficient;
+
+        InsufficientStockException(Map<String, StockManager.StockAvailability> insufficient) {
+            super("Insufficient stock");
+            this.insufficient = insufficient;
+        }
+
+        static void check(Map<String, StockManager.StockAvailability> insufficient) throws InsufficientStockException {
+            if (!insufficient.isEmpty()) {
+                throw new InsufficientStockException(insufficient);
+            }
+        }
+
+        Map<String, Object> toJson() {
+            Map<String, Object> products = new LinkedHashMap<>();
+            for (Map.Entry<String, StockManager.StockAvailability> entry : insufficient.entrySet()) {
+                products.put(entry.getKey(), entry.getValue().getFormattedMessage());
+            }
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("error", "Insufficient stock");
+            json.put("products", products);
+            return json;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        String bind = "127.0.0.1";
+        int port = DEFAULT_PORT;
+        int threads = 16;
+        int readers = 8;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--bind": bind = args[i + 1]; break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--readers": readers = Integer.parseInt(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        System.setProperty("java.awt.headless", "true");
+        DatabaseManager.getInstance().openDatabase();
+        EventBus.getInstance().setDeliverOnEdt(false);
+        StockMonitor.getInstance().start();
+        InvoiceArchive.getInstance().start();
+
+        ApiServer apiServer = new ApiServer(bind, port, threads, readers);
+        Runtime.getRuntime().addShutdownHook(new Thread(apiServer::stop));
+        apiServer.start();
+    }
+}
@@ -0,0 +1,153 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for business operations
+ * The events cost nothing unless a recording is running; start one with
+ * -XX:StartFlightRecording or jcmd and they appear under "WorkGenio" next to
+ * the GC, I/O and lock events of the same interval. Duration is recorded by
+ * JFR between begin() and commit().
+ */
+public class AppEvents {
+    private AppEvents() {
+    }
+
+    @Name("workgenio.InvoiceSave")
+    @Label("Invoice Save")
+    @Category({"WorkGenio", "Documents"})
+    @StackTrace(false)
+    public static class InvoiceSave extends Event {
+        @Label("Invoice Id")
+        public int invoiceId;
+
+        @Label("Number")
+        public String number;
+
+        @Label("Status")
+        public String status;
+
+        @Label("Lines")
+        public int lines;
+
+        @Label("Created")
+        public boolean created;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name("workgenio.OrderSave")
+    @Label("Order Save")
+    @Category({"WorkGenio", "Documents"})
+    @StackTrace(false)
+    public static class OrderSave extends Event {
+        @Label("Order Id")
+        public int orderId;
+
+        @Label("Status")
+        public String status;
+
+        @Label("Lines")
+        public int lines;
+
+        @Label("Created")
+        public boolean created;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name("workgenio.StockCheck")
+    @Label("Stock Check")
+    @Category({"WorkGenio", "Stock"})
+    public static class StockCheck extends Event {
+        @Label("Document Type")
+        public String documentType;
+
+        @Label("Lines")
+        public int lines;
+
+        @Label("Rows Returned")
+        public int rowsReturned;
+
+        @Label("Shortages")
+        @Description("Products with less available stock than requested")
+        public int shortages;
+    }
+
+    @Name("workgenio.ReservationChange")
+    @Label("Reservation Change")
+    @Category({"WorkGenio", "Stock"})
+    @StackTrace(false)
+    public static class ReservationChange extends Event {
+        @Label("Action")
+        @Description("reserve, cancel or complete")
+        public String action;
+
+        @Label("Document Type")
+        public String documentType;
+
+        @Label("Document Id")
+        public int documentId;
+
+        @Label("Product Id")
+        @Description("0 when the change covers every product of the document")
+        public int productId;
+
+        @Label("Quantity")
+        public int quantity;
+
+        @Label("Rows Changed")
+        public int rowsChanged;
+    }
+
+    @Name("workgenio.Backup")
+    @Label("Backup")
+    @Category({"WorkGenio", "Maintenance"})
+    @StackTrace(false)
+    public static class Backup extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name("workgenio.PdfRender")
+    @Label("Invoice PDF Render")
+    @Category({"WorkGenio", "Documents"})
+    @StackTrace(false)
+    public static class PdfRender extends Event {
+        @Label("Invoice Number")
+        public String invoiceNumber;
+
+        @Label("Lines")
+        public int lines;
+
+        @Label("Size")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("workgenio.PanelLoad")
+    @Label("Panel Load")
+    @Category({"WorkGenio", "UI"})
+    @StackTrace(false)
+    public static class PanelLoad extends Event {
+        @Label("Panel")
+        public String panel;
+
+        @Label("Operation")
+        @Description("createPanel or showPanel")
+        public String operation;
+    }
+}
@@ -0,0 +1,57 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Read-only view of app_settings.properties for code that runs without the UI
+ * SettingsPanel keeps owning edits to the file; this class only reads it, so
+ * the database layer and the headless entry points never load Swing classes.
+ */
+public class AppSettings {
+    private static final String SETTINGS_FILE = "app_settings.properties";
+    private static Properties settings;
+
+    private AppSettings() {
+    }
+
+    /**
+     * The value of a setting; a -Dkey=value system property takes precedence
+     * over the file, so a single run (the benchmarks) can change a setting
+     * without editing it
+     */
+    public static synchronized String get(String key, String defaultValue) {
+        String override = System.getProperty(key);
+        if (override != null) {
+            return override;
+        }
+        if (settings == null) {
+            reload();
+        }
+        return settings.getProperty(key, defaultValue);
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(get(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(get(key, String.valueOf(defaultValue)).trim());
+    }
+
+    /**
+     * Read the file again, e.g. after SettingsPanel saved it
+     */
+    public static synchronized void reload() {
+        Properties loaded = new Properties();
+        try (FileInputStream fis = new FileInputStream(SETTINGS_FILE)) {
+            loaded.load(fis);
+        } catch (IOException e) {
+            // Use defaults
+        }
+        settings = loaded;
+    }
+}
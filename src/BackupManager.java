@@ -1,5 +1,6 @@
 import java.io.*;
 import java.nio.file.*;
+import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import javax.swing.*;
@@ -50,7 +51,17 @@ public class BackupManager {
         }
     }
     
+    /**
+     * Write a consistent copy of the database to the backup directory
+     * VACUUM INTO reads one snapshot through SQLite, including pages still in
+     * the WAL, so the copy is never torn by a concurrent commit the way a plain
+     * file copy can be. The movement archive files are copied next to it, in
+     * gestionale_<timestamp>.archive, since they hold the only detailed history
+     * of the archived years.
+     */
     public void performBackup() {
+        AppEvents.Backup event = new AppEvents.Backup();
+        event.begin();
         try {
             String backupDir = config.getProperty("backup.directory", DEFAULT_BACKUP_DIR);
             Files.createDirectories(Paths.get(backupDir));
@@ -60,17 +71,34 @@ public class BackupManager {
             String backupPath = Paths.get(backupDir, backupFileName).toString();
             
             // FIXED: Check if source database exists
-            Path sourceDb = Paths.get("gestionale.db");
+            Path sourceDb = Paths.get(DatabaseProfile.DB_FILE);
             if (!Files.exists(sourceDb)) {
-                throw new IOException("Database file 'gestionale.db' not found");
+                throw new IOException("Database file '" + DatabaseProfile.DB_FILE + "' not found");
             }
             
-            Files.copy(sourceDb, Paths.get(backupPath), StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(Paths.get(backupPath));
+            File archiveBackup = getArchiveBackup(new File(backupPath));
+            try (Connection conn = DatabaseManager.getInstance().openConnection()) {
+                try (PreparedStatement pstmt = conn.prepareStatement("VACUUM INTO ?")) {
+                    pstmt.setString(1, backupPath);
+                    pstmt.executeUpdate();
+                }
+                MovementArchive.backupTo(conn, archiveBackup);
+            } catch (SQLException | IOException e) {
+                Files.deleteIfExists(Paths.get(backupPath));
+                deleteDirectory(archiveBackup);
+                throw new IOException(e.getMessage(), e);
+            }
+            event.file = backupPath;
+            event.bytes = Files.size(Paths.get(backupPath));
+            event.succeeded = true;
             cleanOldBackups();
             
         } catch (IOException e) {
             e.printStackTrace();
             throw new RuntimeException("Error during backup: " + e.getMessage());
+        } finally {
+            event.commit();
         }
     }
     
@@ -89,6 +117,8 @@ public class BackupManager {
                             // FIXED: Check deletion success
                             if (!file.delete()) {
                                 System.err.println("Failed to delete old backup: " + file.getName());
+                            } else {
+                                deleteDirectory(getArchiveBackup(file));
                             }
                         }
                     }
@@ -99,6 +129,35 @@ public class BackupManager {
         }
     }
     
+    /**
+     * Directory holding the movement archive files of a backup
+     */
+    private static File getArchiveBackup(File backupFile) {
+        String name = backupFile.getName();
+        return new File(backupFile.getParentFile(), name.substring(0, name.length() - ".db".length()) + ".archive");
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                System.err.println("Failed to delete " + file.getPath());
+            }
+        }
+        if (!directory.delete()) {
+            System.err.println("Failed to delete " + directory.getPath());
+        }
+    }
+
+    /**
+     * Replace the database with a backup
+     * The current database is kept as gestionale_pre_restore_<timestamp>.db and
+     * its movement archive files in gestionale_pre_restore_<timestamp>.archive.
+     * The archive files are only replaced when the backup carries them.
+     */
     public void restoreBackup(String backupFile) {
         try {
             if (!Files.exists(Paths.get(backupFile))) {
@@ -116,12 +175,17 @@ public class BackupManager {
                 new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".db";
                 
             // FIXED: Check if current database exists
-            Path currentDb = Paths.get("gestionale.db");
+            Path currentDb = Paths.get(DatabaseProfile.DB_FILE);
             if (Files.exists(currentDb)) {
                 Files.copy(currentDb, Paths.get(currentBackup), StandardCopyOption.REPLACE_EXISTING);
             }
             
-            Files.copy(Paths.get(backupFile), Paths.get("gestionale.db"), StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(Paths.get(backupFile), Paths.get(DatabaseProfile.DB_FILE), StandardCopyOption.REPLACE_EXISTING);
+            
+            File archiveBackup = getArchiveBackup(new File(backupFile));
+            if (archiveBackup.isDirectory()) {
+                MovementArchive.restoreFrom(archiveBackup, getArchiveBackup(new File(currentBackup)));
+            }
             
             // FIXED: Handle reconnection failure
             try {
@@ -129,7 +193,7 @@ public class BackupManager {
             } catch (Exception e) {
                 // Restore previous backup if reconnection fails
                 if (Files.exists(Paths.get(currentBackup))) {
-                    Files.copy(Paths.get(currentBackup), Paths.get("gestionale.db"), StandardCopyOption.REPLACE_EXISTING);
+                    Files.copy(Paths.get(currentBackup), Paths.get(DatabaseProfile.DB_FILE), StandardCopyOption.REPLACE_EXISTING);
                     DatabaseManager.getInstance().initDatabase();
                 }
                 throw new RuntimeException("Failed to restore database: " + e.getMessage());
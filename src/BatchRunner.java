@@ -0,0 +1,278 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.Date;
+
+/**
+ * Headless entry point for scheduled jobs (cron, Task Scheduler)
+ * Only the database layer is initialized; no window, look and feel or other
+ * Swing class is touched, so the JVM starts in a fraction of the GUI time.
+ *
+ * java BatchRunner --job backup|reorder|export-invoices|vacuum|archive-movements [options]
+ *
+ *   reorder            [--create-orders]
+ *   export-invoices    --out <dir> [--from yyyy-MM-dd] [--to yyyy-MM-dd]
+ *   archive-movements  --year <yyyy>
+ *
+ * The last line on stdout is a JSON summary with the job name, status, exit
+ * code and timings in milliseconds.
+ */
+public class BatchRunner {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_JOB_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_DATABASE_UNAVAILABLE = 3;
+
+    private static final List<String> JOBS = List.of("backup", "reorder", "export-invoices", "vacuum", "archive-movements");
+
+    private final String job;
+    private final Map<String, String> options;
+    private final Map<String, Object> result = new LinkedHashMap<>();
+
+    public BatchRunner(String job, Map<String, String> options) {
+        this.job = job;
+        this.options = options;
+    }
+
+    /**
+     * Run the job and return the process exit code
+     */
+    public int run() {
+        long start = System.nanoTime();
+        result.put("job", job);
+
+        int exitCode;
+        try {
+            DatabaseManager.getInstance().openDatabase();
+            EventBus.getInstance().setDeliverOnEdt(false);
+            result.put("init_ms", elapsedMillis(start));
+
+            long jobStart = System.nanoTime();
+            try {
+                switch (job) {
+                    case "backup": backup(); break;
+                    case "reorder": reorder(); break;
+                    case "export-invoices": exportInvoices(); break;
+                    case "vacuum": vacuum(); break;
+                    case "archive-movements": archiveMovements(); break;
+                    default: throw new IllegalArgumentException("Unknown job: " + job);
+                }
+                exitCode = EXIT_OK;
+            } catch (IllegalArgumentException e) {
+                result.put("error", e.getMessage());
+                exitCode = EXIT_USAGE;
+            } catch (Exception e) {
+                e.printStackTrace();
+                result.put("error", e.getMessage());
+                exitCode = EXIT_JOB_FAILED;
+            }
+            result.put("job_ms", elapsedMillis(jobStart));
+
+        } catch (SQLException e) {
+            System.err.println("Database unavailable: " + e.getMessage());
+            result.put("error", e.getMessage());
+            exitCode = EXIT_DATABASE_UNAVAILABLE;
+        } finally {
+            DatabaseManager.getInstance().closeConnection();
+        }
+
+        result.put("status", exitCode == EXIT_OK ? "ok" : "failed");
+        result.put("exit_code", exitCode);
+        result.put("total_ms", elapsedMillis(start));
+        System.out.println(Json.write(result));
+        return exitCode;
+    }
+
+    // Jobs
+
+    private void backup() {
+        BackupManager.getInstance().performBackup();
+        result.put("directory", BackupManager.getInstance().getBackupDirectory());
+    }
+
+    private void reorder() throws SQLException {
+        Connection conn = DatabaseManager.getInstance().getConnection();
+        Date now = new Date();
+        List<ReorderPlanner.ReorderProposal> proposals = ReorderPlanner.plan(conn, now);
+        result.put("proposals", proposals.size());
+        result.put("suppliers", ReorderPlanner.groupBySupplier(proposals).size());
+
+        if (options.containsKey("create-orders")) {
+            List<String> numbers = ReorderPlanner.createDraftOrders(conn, proposals, now);
+            result.put("orders_created", numbers);
+        }
+    }
+
+    private void exportInvoices() throws SQLException, IOException {
+        String out = options.get("out");
+        if (out == null) {
+            throw new IllegalArgumentException("export-invoices needs --out <dir>");
+        }
+        File directory = new File(out);
+        Files.createDirectories(directory.toPath());
+
+        Date from = parseDate(options.get("from"), new Date(0));
+        Date to = parseDate(options.get("to"), new Date());
+        // The end date is inclusive
+        Date toExclusive = new Date(to.getTime() + 24L * 60 * 60 * 1000);
+
+        String query = """
+            SELECT i.*, c.first_name, c.last_name, c.email, c.phone, c.address
+            FROM invoices i
+            LEFT JOIN customers c ON i.customer_id = c.id
+            WHERE i.date >= ? AND i.date < ?
+            ORDER BY i.date, i.id
+        """;
+
+        int exported = 0;
+        int fromArchive = 0;
+        int failed = 0;
+        Connection conn = DatabaseManager.getInstance().getConnection();
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setDate(1, new java.sql.Date(from.getTime()));
+            pstmt.setDate(2, new java.sql.Date(toExclusive.getTime()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Invoice invoice = new Invoice(
+                        rs.getInt("id"),
+                        rs.getString("number"),
+                        DateUtils.parseDate(rs, "date"),
+                        rs.getInt("customer_id"),
+                        rs.getString("first_name") + " " + rs.getString("last_name"),
+                        rs.getDouble("taxable_amount"),
+                        rs.getDouble("vat"),
+                        rs.getDouble("total"),
+                        rs.getString("status")
+                    );
+                    Customer customer = new Customer(
+                        rs.getInt("customer_id"),
+                        rs.getString("first_name"),
+                        rs.getString("last_name"),
+                        rs.getString("email"),
+                        rs.getString("phone"),
+                        rs.getString("address")
+                    );
+
+                    File target = new File(directory, "Invoice_" + invoice.getNumber().replace("/", "_") + ".pdf");
+                    try {
+                        // Issued invoices are exported exactly as archived
+                        if (InvoicePDFGenerator.isArchivable(invoice.getStatus())
+                                && InvoiceArchive.getInstance().exportTo(invoice.getId(), target)) {
+                            fromArchive++;
+                        } else {
+                            Files.write(target.toPath(), InvoicePDFGenerator.renderInvoicePDF(invoice, customer));
+                        }
+                        exported++;
+                    } catch (IOException | SQLException e) {
+                        System.err.println("Error exporting invoice " + invoice.getNumber() + ": " + e.getMessage());
+                        failed++;
+                    }
+                }
+            }
+        }
+
+        result.put("exported", exported);
+        result.put("from_archive", fromArchive);
+        result.put("failed", failed);
+        if (failed > 0) {
+            throw new IOException(failed + " invoices could not be exported");
+        }
+    }
+
+    private void vacuum() throws SQLException {
+        File dbFile = new File(DatabaseProfile.DB_FILE);
+        long before = dbFile.length();
+
+        checkpoint("TRUNCATE");
+        try (Statement stmt = DatabaseManager.getInstance().getConnection().createStatement()) {
+            // Takes effect with this VACUUM; from then on the session frees pages incrementally
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            stmt.execute("VACUUM");
+            stmt.execute("PRAGMA optimize");
+        }
+
+        long after = dbFile.length();
+        result.put("size_before", before);
+        result.put("size_after", after);
+        result.put("reclaimed_bytes", before - after);
+    }
+
+    private void archiveMovements() throws SQLException {
+        int year;
+        try {
+            year = Integer.parseInt(options.getOrDefault("year", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("archive-movements needs --year <yyyy>");
+        }
+
+        Connection conn = DatabaseManager.getInstance().getConnection();
+        MovementArchive.ArchiveResult archived = MovementArchive.archiveYear(conn, year, (done, total) -> true);
+        result.put("year", year);
+        result.put("moved", archived.getMoved());
+        result.put("opening_balances", archived.getOpeningBalances());
+        result.put("file", MovementArchive.getArchiveFile(year).getPath());
+    }
+
+    private void checkpoint(String mode) throws SQLException {
+        try (Statement stmt = DatabaseManager.getInstance().getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+            if (rs.next() && rs.getInt(1) != 0) {
+                throw new SQLException("WAL checkpoint blocked by another connection");
+            }
+        }
+    }
+
+    private static Date parseDate(String value, Date fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Date.from(LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Dates must be yyyy-MM-dd: " + value);
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: java BatchRunner --job " + String.join("|", JOBS) + " [options]");
+        System.err.println("  reorder            [--create-orders]");
+        System.err.println("  export-invoices    --out <dir> [--from yyyy-MM-dd] [--to yyyy-MM-dd]");
+        System.err.println("  archive-movements  --year <yyyy>");
+        System.exit(EXIT_USAGE);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        String job = null;
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                usage("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            String value = i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "";
+            if (name.equals("job")) {
+                job = value;
+            } else {
+                options.put(name, value);
+            }
+        }
+
+        if (job == null || !JOBS.contains(job)) {
+            usage(job == null ? "Missing --job" : "Unknown job: " + job);
+        }
+
+        System.exit(new BatchRunner(job, options).run());
+    }
+}
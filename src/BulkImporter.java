@@ -0,0 +1,985 @@
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk CSV import for products and supplier price lists
+ * Files are read with a streaming tokenizer in chunks of BATCH_SIZE records;
+ * each chunk is validated in parallel and written in a single transaction.
+ * Products are upserted on products.code, price lists on (supplier_id, product_id,
+ * minimum_quantity, validity_start_date) through a temp table so that
+ * product lookup, upsert and validity overlap resolution are all set-wise.
+ */
+public class BulkImporter {
+    public static final int BATCH_SIZE = 10_000;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_DISPLAYED_REJECTS = 20;
+
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+        DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+        DateTimeFormatter.ISO_LOCAL_DATE
+    };
+
+    public enum Kind { PRODUCTS, PRICE_LIST }
+
+    private enum Type { TEXT, DECIMAL, INTEGER, BOOLEAN, DATE }
+
+    private static class ColumnSpec {
+        final String name;
+        final Type type;
+        final boolean required;
+
+        ColumnSpec(String name, Type type, boolean required) {
+            this.name = name;
+            this.type = type;
+            this.required = required;
+        }
+    }
+
+    // Column names match the database columns; quantity is the initial stock of new products only
+    private static final ColumnSpec[] PRODUCT_COLUMNS = {
+        new ColumnSpec("code", Type.TEXT, true),
+        new ColumnSpec("name", Type.TEXT, true),
+        new ColumnSpec("description", Type.TEXT, false),
+        new ColumnSpec("price", Type.DECIMAL, true),
+        new ColumnSpec("quantity", Type.INTEGER, false),
+        new ColumnSpec("category", Type.TEXT, false),
+        new ColumnSpec("alternative_sku", Type.TEXT, false),
+        new ColumnSpec("weight", Type.DECIMAL, false),
+        new ColumnSpec("unit_of_measure", Type.TEXT, false),
+        new ColumnSpec("minimum_quantity", Type.INTEGER, false),
+        new ColumnSpec("acquisition_cost", Type.DECIMAL, false),
+        new ColumnSpec("active", Type.BOOLEAN, false),
+        new ColumnSpec("supplier_id", Type.INTEGER, false),
+        new ColumnSpec("warehouse_position", Type.TEXT, false),
+        new ColumnSpec("vat_rate", Type.DECIMAL, false)
+    };
+
+    private static final ColumnSpec[] PRICE_LIST_COLUMNS = {
+        new ColumnSpec("product_code", Type.TEXT, true),
+        new ColumnSpec("supplier_product_code", Type.TEXT, false),
+        new ColumnSpec("price", Type.DECIMAL, true),
+        new ColumnSpec("minimum_quantity", Type.INTEGER, false),
+        new ColumnSpec("validity_start_date", Type.DATE, true),
+        new ColumnSpec("validity_end_date", Type.DATE, false),
+        new ColumnSpec("notes", Type.TEXT, false)
+    };
+
+    /**
+     * Receives the number of rows read so far; return false to cancel
+     */
+    public interface ProgressListener {
+        boolean onProgress(long rowsRead);
+    }
+
+    public static class ImportResult {
+        private long rowsRead;
+        private long inserted;
+        private long updated;
+        private long rejected;
+        private long overlapsClosed;
+        private long elapsedMillis;
+        private List<String> sampleRejects = new ArrayList<>();
+        private File rejectsFile;
+
+        public long getRowsRead() { return rowsRead; }
+        public long getInserted() { return inserted; }
+        public long getUpdated() { return updated; }
+        public long getRejected() { return rejected; }
+        public long getOverlapsClosed() { return overlapsClosed; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public List<String> getSampleRejects() { return sampleRejects; }
+        public File getRejectsFile() { return rejectsFile; }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis > 0 ? rowsRead * 1000.0 / elapsedMillis : rowsRead;
+        }
+
+        public String getSummary() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Read %,d rows in %.1f s (%,.0f rows/s)\n",
+                rowsRead, elapsedMillis / 1000.0, getRowsPerSecond()));
+            sb.append(String.format("Inserted: %,d   Updated: %,d   Rejected: %,d\n", inserted, updated, rejected));
+            if (overlapsClosed > 0) {
+                sb.append(String.format("Overlapping validity ranges closed: %,d\n", overlapsClosed));
+            }
+            if (!sampleRejects.isEmpty()) {
+                sb.append("\nRejected rows");
+                if (rejected > sampleRejects.size()) {
+                    sb.append(" (first ").append(sampleRejects.size()).append(")");
+                }
+                sb.append(":\n");
+                for (String reject : sampleRejects) {
+                    sb.append(reject).append('\n');
+                }
+            }
+            if (rejectsFile != null) {
+                sb.append("\nAll rejected rows were written to:\n").append(rejectsFile.getAbsolutePath());
+            }
+            return sb.toString();
+        }
+
+        void reject(long line, String reason, RejectLog log) throws IOException {
+            rejected++;
+            String message = "Line " + line + ": " + reason;
+            if (sampleRejects.size() < MAX_DISPLAYED_REJECTS) {
+                sampleRejects.add(message);
+            }
+            log.write(line, reason);
+        }
+    }
+
+    /**
+     * Import products, inserting new codes and updating existing ones
+     */
+    public static ImportResult importProducts(Connection conn, File file, ProgressListener listener)
+            throws IOException, SQLException {
+        return runImport(conn, file, PRODUCT_COLUMNS, null, listener);
+    }
+
+    /**
+     * Import a supplier price list
+     */
+    public static ImportResult importPriceList(Connection conn, File file, int supplierId, ProgressListener listener)
+            throws IOException, SQLException {
+        try {
+            return runImport(conn, file, PRICE_LIST_COLUMNS, supplierId, listener);
+        } finally {
+            // Chunks may have been committed even if the import stopped halfway
+            PriceResolver.getInstance().invalidateSupplier(supplierId);
+        }
+    }
+
+    private static ImportResult runImport(Connection conn, File file, ColumnSpec[] specs, Integer supplierId,
+                                          ProgressListener listener) throws IOException, SQLException {
+        long startTime = System.currentTimeMillis();
+        ImportResult result = new ImportResult();
+        File rejectsFile = new File(file.getAbsolutePath() + ".rejects.csv");
+
+        try (CsvReader reader = CsvReader.open(file);
+             RejectLog rejectLog = new RejectLog(rejectsFile)) {
+
+            String[] header = reader.next();
+            if (header == null) {
+                throw new IOException("The file is empty");
+            }
+            int[] columnIndexes = mapColumns(header, specs);
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                ChunkWriter writer = supplierId == null
+                    ? new ProductWriter(conn, specs, columnIndexes, file.getName())
+                    : new PriceListWriter(conn, supplierId);
+
+                List<String[]> records = new ArrayList<>(BATCH_SIZE);
+                List<Long> lines = new ArrayList<>(BATCH_SIZE);
+                String[] record;
+                while ((record = reader.next()) != null) {
+                    if (isBlank(record)) {
+                        continue;
+                    }
+                    records.add(record);
+                    lines.add(reader.getRecordLine());
+                    result.rowsRead++;
+
+                    if (records.size() == BATCH_SIZE) {
+                        processChunk(conn, writer, specs, columnIndexes, records, lines, result, rejectLog);
+                        records.clear();
+                        lines.clear();
+                        if (listener != null && !listener.onProgress(result.rowsRead)) {
+                            throw new InterruptedIOException("Import cancelled after " + result.rowsRead
+                                + " rows; the rows already committed were kept");
+                        }
+                    }
+                }
+                if (!records.isEmpty()) {
+                    processChunk(conn, writer, specs, columnIndexes, records, lines, result, rejectLog);
+                }
+                writer.close();
+                if (listener != null) {
+                    listener.onProgress(result.rowsRead);
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+
+            if (result.rejected > 0) {
+                result.rejectsFile = rejectsFile;
+            }
+        }
+
+        result.elapsedMillis = System.currentTimeMillis() - startTime;
+        return result;
+    }
+
+    private static int[] mapColumns(String[] header, ColumnSpec[] specs) throws IOException {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            positions.put(header[i].trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        int[] indexes = new int[specs.length];
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < specs.length; i++) {
+            Integer position = positions.get(specs[i].name);
+            indexes[i] = position != null ? position : -1;
+            if (position == null && specs[i].required) {
+                missing.add(specs[i].name);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            StringBuilder expected = new StringBuilder();
+            for (ColumnSpec spec : specs) {
+                if (expected.length() > 0) expected.append(", ");
+                expected.append(spec.name).append(spec.required ? "*" : "");
+            }
+            throw new IOException("Missing required column(s): " + String.join(", ", missing)
+                + "\nExpected header columns (* = required): " + expected);
+        }
+        return indexes;
+    }
+
+    private static void processChunk(Connection conn, ChunkWriter writer, ColumnSpec[] specs, int[] columnIndexes,
+                                     List<String[]> records, List<Long> lines, ImportResult result,
+                                     RejectLog rejectLog) throws SQLException, IOException {
+        // Validation is pure parsing, so it runs on all cores; order is preserved
+        Object[] parsed = IntStream.range(0, records.size())
+            .parallel()
+            .mapToObj(i -> parseRecord(records.get(i), specs, columnIndexes))
+            .toArray();
+
+        List<Object[]> rows = new ArrayList<>(parsed.length);
+        List<Long> rowLines = new ArrayList<>(parsed.length);
+        for (int i = 0; i < parsed.length; i++) {
+            if (parsed[i] instanceof String) {
+                result.reject(lines.get(i), (String) parsed[i], rejectLog);
+            } else {
+                rows.add((Object[]) parsed[i]);
+                rowLines.add(lines.get(i));
+            }
+        }
+
+        try {
+            writer.write(rows, rowLines, result, rejectLog);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Parse one record into typed values aligned with the specs, or return the reject reason
+     */
+    private static Object parseRecord(String[] record, ColumnSpec[] specs, int[] columnIndexes) {
+        Object[] values = new Object[specs.length];
+        for (int i = 0; i < specs.length; i++) {
+            ColumnSpec spec = specs[i];
+            String raw = columnIndexes[i] >= 0 && columnIndexes[i] < record.length
+                ? record[columnIndexes[i]].trim() : "";
+
+            if (raw.isEmpty()) {
+                if (spec.required) {
+                    return "Missing value for " + spec.name;
+                }
+                continue;
+            }
+
+            try {
+                values[i] = switch (spec.type) {
+                    case TEXT -> raw;
+                    case DECIMAL -> parseDecimal(raw);
+                    case INTEGER -> Integer.parseInt(raw);
+                    case BOOLEAN -> parseBoolean(raw);
+                    case DATE -> parseDate(raw);
+                };
+            } catch (NumberFormatException e) {
+                return "Invalid number for " + spec.name + ": '" + raw + "'";
+            } catch (DateTimeParseException e) {
+                return "Invalid date for " + spec.name + ": '" + raw + "' (use dd/MM/yyyy or yyyy-MM-dd)";
+            } catch (IllegalArgumentException e) {
+                return "Invalid value for " + spec.name + ": '" + raw + "'";
+            }
+        }
+
+        // Rules shared with ProductDialog and SupplierPriceListDialog
+        for (int i = 0; i < specs.length; i++) {
+            if ("price".equals(specs[i].name) && values[i] != null && (Double) values[i] < 0) {
+                return "Price cannot be negative";
+            }
+            if ("validity_end_date".equals(specs[i].name) && values[i] != null) {
+                Timestamp start = (Timestamp) values[indexOf(specs, "validity_start_date")];
+                if (((Timestamp) values[i]).before(start)) {
+                    return "The end validity date must be after the start date";
+                }
+            }
+        }
+        return values;
+    }
+
+    private static int indexOf(ColumnSpec[] specs, String name) {
+        for (int i = 0; i < specs.length; i++) {
+            if (specs[i].name.equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Decimal with either separator; NaN, Infinity and overflowing values are rejected
+     */
+    private static Double parseDecimal(String raw) {
+        double value = Double.parseDouble(raw.replace(",", "."));
+        if (!Double.isFinite(value)) {
+            throw new NumberFormatException(raw);
+        }
+        return value;
+    }
+
+    private static Integer parseBoolean(String raw) {
+        String value = raw.toLowerCase(Locale.ROOT);
+        if (value.equals("1") || value.equals("true") || value.equals("yes")) return 1;
+        if (value.equals("0") || value.equals("false") || value.equals("no")) return 0;
+        throw new IllegalArgumentException(raw);
+    }
+
+    private static Timestamp parseDate(String raw) {
+        DateTimeParseException last = null;
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                LocalDate date = LocalDate.parse(raw, format);
+                // Same instant as the dialogs produce: local midnight
+                return new Timestamp(date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            } catch (DateTimeParseException e) {
+                last = e;
+            }
+        }
+        throw last;
+    }
+
+    private static boolean isBlank(String[] record) {
+        for (String field : record) {
+            if (!field.trim().isEmpty()) return false;
+        }
+        return true;
+    }
+
+    private static void bind(PreparedStatement pstmt, int index, Object value, Type type) throws SQLException {
+        if (value == null) {
+            pstmt.setNull(index, switch (type) {
+                case TEXT -> Types.VARCHAR;
+                case DECIMAL -> Types.REAL;
+                case DATE -> Types.TIMESTAMP;
+                default -> Types.INTEGER;
+            });
+        } else if (value instanceof Timestamp) {
+            pstmt.setTimestamp(index, (Timestamp) value);
+        } else {
+            pstmt.setObject(index, value);
+        }
+    }
+
+    // Writers
+
+    private interface ChunkWriter {
+        void write(List<Object[]> rows, List<Long> lines, ImportResult result, RejectLog rejectLog)
+            throws SQLException, IOException;
+        void close() throws SQLException;
+    }
+
+    /**
+     * Batched INSERT ... ON CONFLICT(code) DO UPDATE over the columns present in the file
+     * Columns missing from the file, and empty cells, keep their current value on
+     * update and get the column default on insert. The stock of a new product is
+     * recorded as an opening INVENTORY movement, so the movement history adds up
+     * to products.quantity.
+     */
+    private static class ProductWriter implements ChunkWriter {
+        private static final int LOOKUP_CHUNK_SIZE = 500;
+
+        private final Connection conn;
+        private final ColumnSpec[] specs;
+        private final List<Integer> present = new ArrayList<>();
+        private final int codeIndex;
+        private final int quantityIndex;
+        private final String source;
+        private final PreparedStatement upsert;
+        private final PreparedStatement openingMovement;
+
+        ProductWriter(Connection conn, ColumnSpec[] specs, int[] columnIndexes, String source) throws SQLException {
+            this.conn = conn;
+            this.specs = specs;
+            this.codeIndex = indexOf(specs, "code");
+            this.quantityIndex = indexOf(specs, "quantity");
+            this.source = source;
+
+            Map<String, String> defaults = columnDefaults(conn);
+            StringBuilder columns = new StringBuilder();
+            StringBuilder placeholders = new StringBuilder();
+            StringBuilder updates = new StringBuilder();
+            for (int i = 0; i < specs.length; i++) {
+                if (columnIndexes[i] < 0) continue;
+                present.add(i);
+                if (columns.length() > 0) {
+                    columns.append(", ");
+                    placeholders.append(", ");
+                }
+                columns.append(specs[i].name);
+                String defaultValue = defaults.get(specs[i].name);
+                placeholders.append(defaultValue != null ? "COALESCE(?, " + defaultValue + ")" : "?");
+
+                // Stock is only set for new products; afterwards it changes through movements.
+                // excluded.<column> already holds the default, so the update binds the value again
+                if (!specs[i].name.equals("code") && !specs[i].name.equals("quantity")) {
+                    if (updates.length() > 0) updates.append(", ");
+                    updates.append(specs[i].name).append(" = COALESCE(?, products.").append(specs[i].name).append(")");
+                }
+            }
+
+            String query = "INSERT INTO products (" + columns + ") VALUES (" + placeholders + ")" +
+                " ON CONFLICT(code) DO UPDATE SET " + updates;
+            this.upsert = conn.prepareStatement(query);
+            this.openingMovement = conn.prepareStatement("""
+                INSERT INTO warehouse_movements
+                (product_id, date, type, quantity, reason, document_number, document_type, notes)
+                SELECT id, datetime('now', 'localtime'), ?, ?, 'INVENTORY', ?, 'INVENTORY', 'Opening stock from import'
+                FROM products WHERE code = ?
+            """);
+        }
+
+        private static Map<String, String> columnDefaults(Connection conn) throws SQLException {
+            Map<String, String> defaults = new HashMap<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA table_info(products)")) {
+                while (rs.next()) {
+                    if (rs.getString("dflt_value") != null) {
+                        defaults.put(rs.getString("name"), rs.getString("dflt_value"));
+                    }
+                }
+            }
+            return defaults;
+        }
+
+        @Override
+        public void write(List<Object[]> rows, List<Long> lines, ImportResult result, RejectLog rejectLog)
+                throws SQLException, IOException {
+            Set<String> existing = findExistingCodes(rows);
+            try {
+                Set<String> known = new HashSet<>(existing);
+                long inserted = 0;
+                for (Object[] row : rows) {
+                    bindRow(row);
+                    upsert.addBatch();
+                    if (known.add((String) row[codeIndex])) {
+                        inserted++;
+                        addOpeningMovement(row);
+                    }
+                }
+                upsert.executeBatch();
+                openingMovement.executeBatch();
+                result.inserted += inserted;
+                result.updated += rows.size() - inserted;
+            } catch (SQLException e) {
+                // A bad row (e.g. unknown supplier_id) fails the whole batch: redo it row by row
+                upsert.clearBatch();
+                openingMovement.clearBatch();
+                conn.rollback();
+                writeRowByRow(rows, lines, existing, result, rejectLog);
+            }
+        }
+
+        private void writeRowByRow(List<Object[]> rows, List<Long> lines, Set<String> existing, ImportResult result,
+                                   RejectLog rejectLog) throws SQLException, IOException {
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                String code = (String) row[codeIndex];
+                boolean isNew = !existing.contains(code);
+                try (Statement savepoint = conn.createStatement()) {
+                    savepoint.execute("SAVEPOINT import_row");
+                    try {
+                        bindRow(row);
+                        upsert.executeUpdate();
+                        if (isNew && addOpeningMovement(row)) {
+                            openingMovement.executeBatch();
+                        }
+                        savepoint.execute("RELEASE import_row");
+                        if (isNew) {
+                            existing.add(code);
+                            result.inserted++;
+                        } else {
+                            result.updated++;
+                        }
+                    } catch (SQLException e) {
+                        openingMovement.clearBatch();
+                        savepoint.execute("ROLLBACK TO import_row");
+                        savepoint.execute("RELEASE import_row");
+                        result.reject(lines.get(i), e.getMessage(), rejectLog);
+                    }
+                }
+            }
+        }
+
+        private void bindRow(Object[] row) throws SQLException {
+            int index = 1;
+            for (int i : present) {
+                bind(upsert, index++, row[i], specs[i].type);
+            }
+            for (int i : present) {
+                if (!specs[i].name.equals("code") && !specs[i].name.equals("quantity")) {
+                    bind(upsert, index++, row[i], specs[i].type);
+                }
+            }
+        }
+
+        /**
+         * Queue the opening movement of a new product; false if it has no stock
+         */
+        private boolean addOpeningMovement(Object[] row) throws SQLException {
+            Integer quantity = quantityIndex >= 0 ? (Integer) row[quantityIndex] : null;
+            if (quantity == null || quantity == 0) {
+                return false;
+            }
+            openingMovement.setString(1, quantity > 0 ? "INWARD" : "OUTWARD");
+            openingMovement.setInt(2, Math.abs(quantity));
+            openingMovement.setString(3, source);
+            openingMovement.setString(4, (String) row[codeIndex]);
+            openingMovement.addBatch();
+            return true;
+        }
+
+        /**
+         * The codes of the chunk that are already in the database
+         */
+        private Set<String> findExistingCodes(List<Object[]> rows) throws SQLException {
+            List<String> codes = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                codes.add((String) row[codeIndex]);
+            }
+
+            Set<String> existing = new HashSet<>();
+            for (int start = 0; start < codes.size(); start += LOOKUP_CHUNK_SIZE) {
+                List<String> chunk = codes.subList(start, Math.min(start + LOOKUP_CHUNK_SIZE, codes.size()));
+                String query = "SELECT code FROM products WHERE code IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            existing.add(rs.getString(1));
+                        }
+                    }
+                }
+            }
+            return existing;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            upsert.close();
+            openingMovement.close();
+        }
+    }
+
+    /**
+     * Loads each chunk into a temp table, then resolves products, upserts and
+     * closes overlapping validity ranges with a handful of set-wise statements
+     */
+    private static class PriceListWriter implements ChunkWriter {
+        private final Connection conn;
+        private final int supplierId;
+        private final PreparedStatement stage;
+
+        PriceListWriter(Connection conn, int supplierId) throws SQLException {
+            this.conn = conn;
+            this.supplierId = supplierId;
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                    CREATE TEMP TABLE IF NOT EXISTS import_price_lists (
+                        line INTEGER NOT NULL,
+                        supplier_id INTEGER NOT NULL,
+                        product_code TEXT NOT NULL,
+                        product_id INTEGER,
+                        supplier_product_code TEXT,
+                        price REAL NOT NULL,
+                        minimum_quantity INTEGER NOT NULL,
+                        validity_start_date DATETIME NOT NULL,
+                        validity_end_date DATETIME,
+                        notes TEXT
+                    )
+                """);
+                stmt.execute("""
+                    CREATE INDEX IF NOT EXISTS temp.idx_import_price_lists_key
+                    ON import_price_lists (supplier_id, product_id, minimum_quantity, validity_start_date)
+                """);
+            }
+
+            this.stage = conn.prepareStatement("""
+                INSERT INTO import_price_lists
+                (line, supplier_id, product_code, supplier_product_code, price,
+                 minimum_quantity, validity_start_date, validity_end_date, notes)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """);
+        }
+
+        @Override
+        public void write(List<Object[]> rows, List<Long> lines, ImportResult result, RejectLog rejectLog)
+                throws SQLException, IOException {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM import_price_lists");
+
+                // Values follow PRICE_LIST_COLUMNS order
+                for (int i = 0; i < rows.size(); i++) {
+                    Object[] row = rows.get(i);
+                    stage.setLong(1, lines.get(i));
+                    stage.setInt(2, supplierId);
+                    stage.setString(3, (String) row[0]);
+                    bind(stage, 4, row[1], Type.TEXT);
+                    stage.setDouble(5, (Double) row[2]);
+                    stage.setInt(6, row[3] != null ? (Integer) row[3] : 1);
+                    stage.setTimestamp(7, (Timestamp) row[4]);
+                    bind(stage, 8, row[5], Type.DATE);
+                    bind(stage, 9, row[6], Type.TEXT);
+                    stage.addBatch();
+                }
+                stage.executeBatch();
+
+                // Resolve product codes in one pass
+                stmt.executeUpdate("""
+                    UPDATE import_price_lists
+                    SET product_id = (SELECT p.id FROM products p WHERE p.code = import_price_lists.product_code)
+                """);
+                rejectWhere(stmt, "product_id IS NULL", "Unknown product code", result, rejectLog);
+
+                // Within one file the last row for a key wins
+                rejectWhere(stmt, """
+                    EXISTS (
+                        SELECT 1 FROM import_price_lists later
+                        WHERE later.supplier_id = import_price_lists.supplier_id
+                          AND later.product_id = import_price_lists.product_id
+                          AND later.minimum_quantity = import_price_lists.minimum_quantity
+                          AND later.validity_start_date = import_price_lists.validity_start_date
+                          AND later.line > import_price_lists.line
+                    )
+                """, "Superseded by a later row with the same product, minimum quantity and start date", result, rejectLog);
+
+                result.updated += stmt.executeUpdate("""
+                    UPDATE supplier_price_lists
+                    SET (supplier_product_code, price, validity_end_date, notes) = (
+                        SELECT i.supplier_product_code, i.price, i.validity_end_date, i.notes
+                        FROM import_price_lists i
+                        WHERE i.supplier_id = supplier_price_lists.supplier_id
+                          AND i.product_id = supplier_price_lists.product_id
+                          AND i.minimum_quantity = supplier_price_lists.minimum_quantity
+                          AND i.validity_start_date = supplier_price_lists.validity_start_date
+                    )
+                    WHERE EXISTS (
+                        SELECT 1 FROM import_price_lists i
+                        WHERE i.supplier_id = supplier_price_lists.supplier_id
+                          AND i.product_id = supplier_price_lists.product_id
+                          AND i.minimum_quantity = supplier_price_lists.minimum_quantity
+                          AND i.validity_start_date = supplier_price_lists.validity_start_date
+                    )
+                """);
+
+                result.inserted += stmt.executeUpdate("""
+                    INSERT INTO supplier_price_lists
+                    (supplier_id, product_id, supplier_product_code, price, minimum_quantity,
+                     validity_start_date, validity_end_date, notes)
+                    SELECT i.supplier_id, i.product_id, i.supplier_product_code, i.price, i.minimum_quantity,
+                           i.validity_start_date, i.validity_end_date, i.notes
+                    FROM import_price_lists i
+                    WHERE NOT EXISTS (
+                        SELECT 1 FROM supplier_price_lists l
+                        WHERE l.supplier_id = i.supplier_id
+                          AND l.product_id = i.product_id
+                          AND l.minimum_quantity = i.minimum_quantity
+                          AND l.validity_start_date = i.validity_start_date
+                    )
+                    ORDER BY i.line
+                """);
+
+                // A range that runs into the next start date of the same product and quantity
+                // tier is closed just before it. Dates are stored as epoch millis by the JDBC driver.
+                result.overlapsClosed += stmt.executeUpdate("""
+                    UPDATE supplier_price_lists
+                    SET validity_end_date = (
+                        SELECT MIN(n.validity_start_date) FROM supplier_price_lists n
+                        WHERE n.supplier_id = supplier_price_lists.supplier_id
+                          AND n.product_id = supplier_price_lists.product_id
+                          AND n.minimum_quantity = supplier_price_lists.minimum_quantity
+                          AND n.validity_start_date > supplier_price_lists.validity_start_date
+                    ) - 1
+                    WHERE (supplier_id, product_id, minimum_quantity) IN (
+                        SELECT DISTINCT supplier_id, product_id, minimum_quantity FROM import_price_lists
+                    )
+                    AND EXISTS (
+                        SELECT 1 FROM supplier_price_lists n
+                        WHERE n.supplier_id = supplier_price_lists.supplier_id
+                          AND n.product_id = supplier_price_lists.product_id
+                          AND n.minimum_quantity = supplier_price_lists.minimum_quantity
+                          AND n.validity_start_date > supplier_price_lists.validity_start_date
+                          AND (supplier_price_lists.validity_end_date IS NULL
+                               OR supplier_price_lists.validity_end_date >= n.validity_start_date)
+                    )
+                """);
+            }
+        }
+
+        private void rejectWhere(Statement stmt, String condition, String reason, ImportResult result,
+                                 RejectLog rejectLog) throws SQLException, IOException {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT line, product_code FROM import_price_lists WHERE " + condition + " ORDER BY line")) {
+                while (rs.next()) {
+                    result.reject(rs.getLong("line"), reason + " (" + rs.getString("product_code") + ")", rejectLog);
+                }
+            }
+            stmt.executeUpdate("DELETE FROM import_price_lists WHERE " + condition);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            stage.close();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE IF EXISTS temp.import_price_lists");
+            }
+        }
+    }
+
+    /**
+     * Rejected rows, written next to the imported file only if there are any
+     */
+    private static class RejectLog implements Closeable {
+        private final File file;
+        private Writer out;
+
+        RejectLog(File file) {
+            this.file = file;
+        }
+
+        void write(long line, String reason) throws IOException {
+            if (out == null) {
+                out = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file), StandardCharsets.UTF_8));
+                out.write("line,reason\n");
+            }
+            out.write(Long.toString(line));
+            out.write(",\"");
+            out.write(reason.replace("\"", "\"\""));
+            out.write("\"\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Streaming RFC 4180 tokenizer with quoted fields and embedded newlines
+     * The delimiter is detected from the header line (',' or ';').
+     */
+    public static class CsvReader implements Closeable {
+        private final Reader in;
+        private final char delimiter;
+        private final char[] buffer = new char[READ_BUFFER_SIZE];
+        private int position = 0;
+        private int limit = 0;
+        private long line = 1;
+        private long recordLine = 1;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+
+        public CsvReader(Reader in, char delimiter) {
+            this.in = in;
+            this.delimiter = delimiter;
+        }
+
+        public static CsvReader open(File file) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+            reader.mark(READ_BUFFER_SIZE);
+            String headerLine = reader.readLine();
+            reader.reset();
+
+            char delimiter = ',';
+            if (headerLine != null && headerLine.indexOf(';') >= 0 && headerLine.indexOf(',') < 0) {
+                delimiter = ';';
+            }
+
+            CsvReader csv = new CsvReader(reader, delimiter);
+            // Skip a UTF-8 byte order mark (files saved by spreadsheet applications)
+            if (csv.peek() == '\uFEFF') {
+                csv.read();
+            }
+            return csv;
+        }
+
+        /**
+         * Line number in the file where the last returned record started
+         */
+        public long getRecordLine() {
+            return recordLine;
+        }
+
+        public String[] next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+
+            recordLine = line;
+            fields.clear();
+            field.setLength(0);
+            boolean inQuotes = false;
+
+            while (true) {
+                if (c == -1) {
+                    fields.add(field.toString());
+                    break;
+                }
+                if (inQuotes) {
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            inQuotes = false;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    inQuotes = true;
+                } else if (c == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    fields.add(field.toString());
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            return fields.toArray(new String[0]);
+        }
+
+        private int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++];
+        }
+
+        private int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position];
+        }
+
+        private boolean fill() throws IOException {
+            int count = in.read(buffer, 0, buffer.length);
+            if (count <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = count;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // UI entry point
+
+    /**
+     * Choose a CSV file and import it in the background with a progress dialog
+     *
+     * @param supplierId Supplier of the price list, ignored for products
+     * @param onFinished Called on the EDT after a successful import (e.g. to reload a table)
+     */
+    public static void importWithDialog(Component parent, Kind kind, int supplierId, Runnable onFinished) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle(kind == Kind.PRODUCTS ? "Import Products" : "Import Price List");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV files (*.csv)", "csv"));
+        if (fileChooser.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+
+        ProgressDialog progressDialog = new ProgressDialog(parent, fileChooser.getDialogTitle(),
+            "Importing " + file.getName() + "...");
+
+        SwingWorker<ImportResult, Void> worker = new SwingWorker<>() {
+            @Override
+            protected ImportResult doInBackground() throws Exception {
+                ProgressListener listener = rows -> {
+                    progressDialog.setMessage(String.format("Importing %s... %,d rows", file.getName(), rows));
+                    return !progressDialog.isCancelled();
+                };
+                try (Connection conn = DatabaseManager.getInstance().openConnection()) {
+                    return kind == Kind.PRODUCTS
+                        ? importProducts(conn, file, listener)
+                        : importPriceList(conn, file, supplierId, listener);
+                }
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    ImportResult result = get();
+                    JTextArea summary = new JTextArea(result.getSummary());
+                    summary.setEditable(false);
+                    summary.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+                    JScrollPane scrollPane = new JScrollPane(summary);
+                    scrollPane.setPreferredSize(new Dimension(560, 260));
+                    JOptionPane.showMessageDialog(parent, scrollPane, "Import Completed",
+                        result.getRejected() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (!progressDialog.isCancelled()) {
+                        cause.printStackTrace();
+                    }
+                    JOptionPane.showMessageDialog(parent,
+                        "Import stopped: " + cause.getMessage(),
+                        "Import", JOptionPane.ERROR_MESSAGE);
+                }
+                if (onFinished != null) {
+                    onFinished.run();
+                }
+            }
+        };
+
+        progressDialog.setVisible(true);
+        worker.execute();
+    }
+}
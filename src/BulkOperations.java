@@ -0,0 +1,221 @@
+import javax.swing.*;
+import java.awt.*;
+import java.sql.*;
+import java.util.*;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Set-based actions on many rows selected by primary key
+ * The ids are loaded into a temporary table in batches and each action is a
+ * single statement joined against it, instead of one lookup and one update
+ * per selected row. Every action runs in one transaction; cancelling while
+ * the ids are loaded rolls it back.
+ */
+public class BulkOperations {
+    private static final int CHUNK_SIZE = 500;
+
+    // Selections larger than this run in the background with a progress dialog
+    public static final int BACKGROUND_THRESHOLD = 1000;
+
+    private BulkOperations() {
+    }
+
+    /**
+     * Receives the number of ids loaded so far; return false to cancel
+     */
+    public interface ProgressListener {
+        boolean onProgress(int done, int total);
+    }
+
+    /**
+     * A bulk action run against a connection
+     */
+    public interface BulkAction<T> {
+        T run(Connection conn, ProgressListener listener) throws SQLException;
+    }
+
+    /**
+     * Set the status of the given warehouse notifications
+     *
+     * @return The number of notifications changed
+     */
+    public static int setNotificationStatus(Connection conn, Collection<Integer> ids, String status,
+                                            ProgressListener listener) throws SQLException {
+        return inTransaction(conn, ids, listener, () -> {
+            String query = """
+                UPDATE warehouse_notifications SET status = ?
+                WHERE id IN (SELECT id FROM temp.bulk_ids)
+                AND status != ?
+            """;
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setString(1, status);
+                pstmt.setString(2, status);
+                return pstmt.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Delete warehouse movements and reverse their effect on product stock
+     *
+     * @return The ids of the products whose stock changed
+     */
+    public static Set<Integer> deleteMovements(Connection conn, Collection<Integer> ids,
+                                               ProgressListener listener) throws SQLException {
+        return inTransaction(conn, ids, listener, () -> {
+            Set<Integer> productIds = new HashSet<>();
+            String productsQuery = """
+                SELECT DISTINCT product_id FROM warehouse_movements
+                WHERE id IN (SELECT id FROM temp.bulk_ids)
+            """;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(productsQuery)) {
+                while (rs.next()) {
+                    productIds.add(rs.getInt("product_id"));
+                }
+            }
+
+            // One pass over products: inward movements are taken back out, the others put back
+            String reverseQuery = """
+                UPDATE products SET quantity = quantity + (
+                    SELECT SUM(CASE WHEN m.type = 'INWARD' THEN -m.quantity ELSE m.quantity END)
+                    FROM warehouse_movements m
+                    WHERE m.product_id = products.id
+                    AND m.id IN (SELECT id FROM temp.bulk_ids)
+                )
+                WHERE id IN (
+                    SELECT product_id FROM warehouse_movements
+                    WHERE id IN (SELECT id FROM temp.bulk_ids)
+                )
+            """;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(reverseQuery);
+                stmt.executeUpdate("DELETE FROM warehouse_movements WHERE id IN (SELECT id FROM temp.bulk_ids)");
+            }
+            return productIds;
+        });
+    }
+
+    /**
+     * Delete supplier price list entries
+     *
+     * @return The number of entries deleted
+     */
+    public static int deletePriceListEntries(Connection conn, Collection<Integer> ids,
+                                             ProgressListener listener) throws SQLException {
+        return inTransaction(conn, ids, listener, () -> {
+            try (Statement stmt = conn.createStatement()) {
+                return stmt.executeUpdate(
+                    "DELETE FROM supplier_price_lists WHERE id IN (SELECT id FROM temp.bulk_ids)");
+            }
+        });
+    }
+
+    /**
+     * Run an action on the shared connection, or in the background with a
+     * progress dialog when the selection is large. onSuccess runs on the EDT.
+     */
+    public static <T> void runWithDialog(Component parent, String title, int count,
+                                         BulkAction<T> action, Consumer<T> onSuccess) {
+        if (count <= BACKGROUND_THRESHOLD) {
+            try {
+                T result = action.run(DatabaseManager.getInstance().getConnection(), (done, total) -> true);
+                onSuccess.accept(result);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(parent,
+                    title + " failed: " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+            return;
+        }
+
+        ProgressDialog progressDialog = new ProgressDialog(parent, title,
+            String.format("%s: %,d rows...", title, count));
+
+        SwingWorker<T, Void> worker = new SwingWorker<>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                ProgressListener listener = (done, total) -> {
+                    progressDialog.setMessage(String.format("%s: %,d of %,d rows...", title, done, total));
+                    return !progressDialog.isCancelled();
+                };
+                try (Connection conn = DatabaseManager.getInstance().openConnection()) {
+                    return action.run(conn, listener);
+                }
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    onSuccess.accept(get());
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (!progressDialog.isCancelled()) {
+                        cause.printStackTrace();
+                    }
+                    JOptionPane.showMessageDialog(parent,
+                        progressDialog.isCancelled() ? title + " cancelled, nothing was changed."
+                            : title + " failed: " + cause.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        progressDialog.setVisible(true);
+        worker.execute();
+    }
+
+    private interface Body<T> {
+        T run() throws SQLException;
+    }
+
+    private static <T> T inTransaction(Connection conn, Collection<Integer> ids, ProgressListener listener,
+                                       Body<T> body) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            loadIds(conn, ids, listener);
+            T result = body.run();
+            clearIds(conn);
+            conn.commit();
+            return result;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void loadIds(Connection conn, Collection<Integer> ids, ProgressListener listener)
+            throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TEMP TABLE IF NOT EXISTS bulk_ids (id INTEGER PRIMARY KEY)");
+        }
+        clearIds(conn);
+
+        List<Integer> list = new ArrayList<>(ids);
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT OR IGNORE INTO temp.bulk_ids (id) VALUES (?)")) {
+            for (int start = 0; start < list.size(); start += CHUNK_SIZE) {
+                int end = Math.min(start + CHUNK_SIZE, list.size());
+                for (Integer id : list.subList(start, end)) {
+                    pstmt.setInt(1, id);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                if (!listener.onProgress(end, list.size())) {
+                    throw new SQLException("Cancelled by user");
+                }
+            }
+        }
+    }
+
+    private static void clearIds(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM temp.bulk_ids");
+        }
+    }
+}
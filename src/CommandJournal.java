@@ -0,0 +1,190 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of commands in a memory-mapped file
+ * A command is durable once append() returns: the record is copied into the
+ * mapping and that range alone is flushed to disk, which costs far less than
+ * waiting for the database write lock. Commands are numbered; markApplied()
+ * moves the "applied through" mark in the header once every earlier command
+ * is applied too, and when nothing is outstanding the file starts over from
+ * the top instead of growing.
+ *
+ * Layout:
+ *   header  [magic int][applied through long]
+ *   record  [length int][crc32 int][sequence long][payload UTF-8]
+ * The last record is followed by a zero length. Reading stops at a zero
+ * length, a bad checksum (a record torn by a crash) or a sequence that does
+ * not increase (a leftover from before the file started over).
+ */
+public class CommandJournal implements AutoCloseable {
+    private static final int MAGIC = 0x574A4E31;
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition = HEADER_SIZE;
+    private long lastSequence;
+    private long appliedThrough;
+    private final List<Entry> recovered = new ArrayList<>();
+    private final TreeSet<Long> outstanding = new TreeSet<>();
+
+    public CommandJournal(File file, int initialSize) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), initialSize));
+
+        if (buffer.getInt(0) == MAGIC) {
+            appliedThrough = buffer.getLong(4);
+            recover();
+        } else {
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(4, 0);
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.force(0, HEADER_SIZE + 4);
+        }
+    }
+
+    private void recover() {
+        lastSequence = appliedThrough;
+        long previous = -1;
+        int position = HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            long sequence = buffer.getLong(position + 8);
+            byte[] payload = new byte[length];
+            buffer.get(position + RECORD_HEADER_SIZE, payload);
+            if (buffer.getInt(position + 4) != checksum(sequence, payload)) {
+                break;
+            }
+            if (sequence <= previous) {
+                break;
+            }
+            previous = sequence;
+
+            position += RECORD_HEADER_SIZE + length;
+            lastSequence = Math.max(lastSequence, sequence);
+            if (sequence > appliedThrough) {
+                recovered.add(new Entry(sequence, new String(payload, StandardCharsets.UTF_8)));
+                outstanding.add(sequence);
+            }
+        }
+        writePosition = position;
+    }
+
+    /**
+     * Commands written before the last shutdown that were never applied, oldest first
+     */
+    public synchronized List<Entry> getPending() {
+        return new ArrayList<>(recovered);
+    }
+
+    /**
+     * Every command up to this sequence has been applied
+     */
+    public synchronized long getAppliedThrough() {
+        return appliedThrough;
+    }
+
+    /**
+     * Write a command and flush it to disk
+     *
+     * @return The command's sequence number
+     */
+    public synchronized long append(String payload) throws IOException {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        int needed = RECORD_HEADER_SIZE + bytes.length + 4;
+        if (writePosition + needed > buffer.capacity()) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(2L * buffer.capacity(), writePosition + needed));
+        }
+
+        long sequence = ++lastSequence;
+        int start = writePosition;
+        buffer.putInt(start + 4, checksum(sequence, bytes));
+        buffer.putLong(start + 8, sequence);
+        buffer.put(start + RECORD_HEADER_SIZE, bytes);
+        buffer.putInt(start + RECORD_HEADER_SIZE + bytes.length, 0);
+        // The length goes last: until then the previous terminator still ends the journal
+        buffer.putInt(start, bytes.length);
+        buffer.force(start, needed);
+
+        writePosition = start + RECORD_HEADER_SIZE + bytes.length;
+        outstanding.add(sequence);
+        return sequence;
+    }
+
+    /**
+     * Record that a command no longer needs to be replayed, whether it was
+     * applied or given up on
+     */
+    public synchronized void markApplied(long sequence) {
+        if (!outstanding.remove(sequence)) {
+            return;
+        }
+        long through = outstanding.isEmpty() ? lastSequence : outstanding.first() - 1;
+        if (through > appliedThrough) {
+            appliedThrough = through;
+            buffer.putLong(4, appliedThrough);
+            buffer.force(0, HEADER_SIZE);
+        }
+        if (outstanding.isEmpty() && writePosition > HEADER_SIZE) {
+            // Everything is applied: start over at the top; sequences keep increasing
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.force(HEADER_SIZE, 4);
+            writePosition = HEADER_SIZE;
+            recovered.clear();
+        }
+    }
+
+    /**
+     * Commands appended or recovered that have not been marked applied yet
+     */
+    public synchronized int getOutstandingCount() {
+        return outstanding.size();
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+        CRC32 crc = new CRC32();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (sequence >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    // Helper classes
+
+    public static class Entry {
+        private final long sequence;
+        private final String payload;
+
+        Entry(long sequence, String payload) {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+
+        public long getSequence() { return sequence; }
+        public String getPayload() { return payload; }
+    }
+}
@@ -1,4 +1,5 @@
 import java.sql.*;
+import java.util.concurrent.CompletableFuture;
 
 public class CompanyData {
     private static CompanyData instance;
@@ -70,56 +71,53 @@ public class CompanyData {
         this.logoPath = "";
     }
     
-    public boolean saveToDatabase() {
-        try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            
-            // Check if record exists
-            String checkQuery = "SELECT COUNT(*) FROM company_data";
-            boolean exists = false;
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(checkQuery)) {
-                if (rs.next() && rs.getInt(1) > 0) {
-                    exists = true;
-                }
-            }
-            
-            String query;
-            if (exists) {
-                query = """
-                    UPDATE company_data SET
-                        company_name = ?, vat_number = ?, tax_code = ?,
-                        address = ?, city = ?, postal_code = ?, country = ?,
-                        phone = ?, email = ?, website = ?, logo_path = ?
-                """;
-            } else {
-                query = """
-                    INSERT INTO company_data (
-                        company_name, vat_number, tax_code, address,
-                        city, postal_code, country, phone, email, website, logo_path
-                    ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """;
+    /**
+     * Queue the save on the shared writer without waiting for it
+     * The values are copied on the calling thread; the future completes once
+     * the write has committed, or exceptionally if it failed.
+     */
+    public CompletableFuture<Void> saveToDatabase() {
+        String[] values = {companyName, vatNumber, taxCode, address, city, postalCode,
+            country, phone, email, website, logoPath};
+        return DatabaseWriter.getInstance().submit(conn -> {
+            write(conn, values);
+            return null;
+        });
+    }
+
+    private static void write(Connection conn, String[] values) throws SQLException {
+        // Check if record exists
+        String checkQuery = "SELECT COUNT(*) FROM company_data";
+        boolean exists = false;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(checkQuery)) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                exists = true;
             }
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, companyName);
-                pstmt.setString(2, vatNumber);
-                pstmt.setString(3, taxCode);
-                pstmt.setString(4, address);
-                pstmt.setString(5, city);
-                pstmt.setString(6, postalCode);
-                pstmt.setString(7, country);
-                pstmt.setString(8, phone);
-                pstmt.setString(9, email);
-                pstmt.setString(10, website);
-                pstmt.setString(11, logoPath);
-                
-                pstmt.executeUpdate();
-                return true;
+        }
+        
+        String query;
+        if (exists) {
+            query = """
+                UPDATE company_data SET
+                    company_name = ?, vat_number = ?, tax_code = ?,
+                    address = ?, city = ?, postal_code = ?, country = ?,
+                    phone = ?, email = ?, website = ?, logo_path = ?
+            """;
+        } else {
+            query = """
+                INSERT INTO company_data (
+                    company_name, vat_number, tax_code, address,
+                    city, postal_code, country, phone, email, website, logo_path
+                ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+        }
+        
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < values.length; i++) {
+                pstmt.setString(i + 1, values[i]);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            pstmt.executeUpdate();
         }
     }
     
@@ -0,0 +1,116 @@
+import java.sql.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-size pool of read-only connections
+ * In WAL mode every reader works on its own snapshot, so concurrent requests
+ * never wait on each other or on the writer. Connections are opened lazily
+ * up to the pool size and reused afterwards.
+ */
+public class ConnectionPool implements AutoCloseable {
+    // Waiting longer than this for a free connection fails the request
+    private static final long ACQUIRE_TIMEOUT_MS = 5000;
+
+    /**
+     * Work done with a pooled connection
+     */
+    public interface SqlFunction<T> {
+        T apply(Connection conn) throws SQLException;
+    }
+
+    private final BlockingQueue<Connection> idle;
+    private final int size;
+    private int opened = 0;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(int size) {
+        this.size = size;
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Run a read with a pooled connection and return it to the pool afterwards
+     */
+    public <T> T withConnection(SqlFunction<T> work) throws SQLException {
+        Connection conn = acquire();
+        boolean broken = false;
+        try {
+            return work.apply(conn);
+        } catch (SQLException e) {
+            broken = !isUsable(conn);
+            throw e;
+        } finally {
+            release(conn, broken);
+        }
+    }
+
+    private Connection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        Connection conn = idle.poll();
+        if (conn != null) {
+            return conn;
+        }
+
+        synchronized (this) {
+            if (opened < size) {
+                conn = DatabaseManager.getInstance().openReadOnlyConnection();
+                opened++;
+                return conn;
+            }
+        }
+
+        try {
+            conn = idle.poll(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection");
+        }
+        if (conn == null) {
+            throw new SQLException("No database connection available within " + ACQUIRE_TIMEOUT_MS + " ms");
+        }
+        return conn;
+    }
+
+    private void release(Connection conn, boolean broken) {
+        if (broken || closed || !idle.offer(conn)) {
+            closeQuietly(conn);
+            synchronized (this) {
+                opened--;
+            }
+        }
+    }
+
+    private static boolean isUsable(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection conn;
+        while ((conn = idle.poll()) != null) {
+            closeQuietly(conn);
+        }
+    }
+}
@@ -137,13 +137,19 @@ public class CustomerDialog extends JDialog {
                     INSERT INTO customers (first_name, last_name, email, phone, address)
                     VALUES (?, ?, ?, ?, ?)
                 """;
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                try (PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
                     pstmt.setString(1, firstName);
                     pstmt.setString(2, lastName);
                     pstmt.setString(3, email);
                     pstmt.setString(4, phone);
                     pstmt.setString(5, address);
                     pstmt.executeUpdate();
+
+                    try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            EventBus.getInstance().publish(new EventBus.CustomerChanged(rs.getInt(1)));
+                        }
+                    }
                 }
             } else { // Edit customer
                 String query = """
@@ -160,6 +166,7 @@ public class CustomerDialog extends JDialog {
                     pstmt.setInt(6, customer.getId());
                     pstmt.executeUpdate();
                 }
+                EventBus.getInstance().publish(new EventBus.CustomerChanged(customer.getId()));
             }
 
             customerSaved = true;
@@ -0,0 +1,116 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Customer queries and mapping to the Customer model
+ * Every read of the customers table from the UI goes through here.
+ */
+public class CustomerRepository {
+    private CustomerRepository() {
+    }
+
+    /**
+     * Load a customer by id, or null if it does not exist
+     */
+    public static Customer findById(Connection conn, int customerId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM customers WHERE id = ?")) {
+            pstmt.setInt(1, customerId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? map(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * All customers not marked as deleted, ordered by last name, first name
+     */
+    public static List<Customer> findAll(Connection conn) throws SQLException {
+        String query = "SELECT * FROM customers WHERE deleted_at IS NULL ORDER BY last_name, first_name";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            return mapAll(rs);
+        }
+    }
+
+    /**
+     * Customers whose first name, last name, email or phone contains the term,
+     * ordered by last name, first name
+     */
+    public static List<Customer> findMatching(Connection conn, String term) throws SQLException {
+        String query = """
+            SELECT * FROM customers
+            WHERE deleted_at IS NULL
+            AND (first_name LIKE ?
+               OR last_name LIKE ?
+               OR email LIKE ?
+               OR phone LIKE ?)
+            ORDER BY last_name, first_name
+        """;
+
+        String searchPattern = "%" + term + "%";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 1; i <= 4; i++) {
+                pstmt.setString(i, searchPattern);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapAll(rs);
+            }
+        }
+    }
+
+    /**
+     * Customers matching the term in name, email, phone or address
+     * Prefix matches on the last name come first, then on the first name.
+     */
+    public static List<Customer> search(Connection conn, String term) throws SQLException {
+        String query = """
+            SELECT * FROM customers
+            WHERE deleted_at IS NULL
+            AND (LOWER(first_name) LIKE LOWER(?)
+               OR LOWER(last_name) LIKE LOWER(?)
+               OR LOWER(email) LIKE LOWER(?)
+               OR phone LIKE ?
+               OR LOWER(address) LIKE LOWER(?))
+            ORDER BY
+                CASE
+                    WHEN LOWER(last_name) LIKE LOWER(?) THEN 1
+                    WHEN LOWER(first_name) LIKE LOWER(?) THEN 2
+                    ELSE 3
+                END,
+                last_name, first_name
+        """;
+
+        String searchPattern = "%" + term + "%";
+        String exactPattern = term + "%";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 1; i <= 5; i++) {
+                pstmt.setString(i, searchPattern);
+            }
+            pstmt.setString(6, exactPattern);
+            pstmt.setString(7, exactPattern);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapAll(rs);
+            }
+        }
+    }
+
+    private static List<Customer> mapAll(ResultSet rs) throws SQLException {
+        List<Customer> customers = new ArrayList<>();
+        while (rs.next()) {
+            customers.add(map(rs));
+        }
+        return customers;
+    }
+
+    private static Customer map(ResultSet rs) throws SQLException {
+        return new Customer(
+            rs.getInt("id"),
+            rs.getString("first_name"),
+            rs.getString("last_name"),
+            rs.getString("email"),
+            rs.getString("phone"),
+            rs.getString("address")
+        );
+    }
+}
@@ -155,17 +155,8 @@ public class CustomerSelectionDialog extends JDialog {
         tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT id, first_name, last_name, email, phone, address
-                FROM customers
-                ORDER BY last_name, first_name
-            """;
-
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    addCustomerRow(rs);
-                }
+            for (Customer customer : CustomerRepository.findAll(conn)) {
+                addCustomerRow(customer);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -185,40 +176,8 @@ public class CustomerSelectionDialog extends JDialog {
         tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT id, first_name, last_name, email, phone, address
-                FROM customers
-                WHERE LOWER(first_name) LIKE LOWER(?)
-                   OR LOWER(last_name) LIKE LOWER(?)
-                   OR LOWER(email) LIKE LOWER(?)
-                   OR phone LIKE ?
-                   OR LOWER(address) LIKE LOWER(?)
-                ORDER BY
-                    CASE
-                        WHEN LOWER(last_name) LIKE LOWER(?) THEN 1
-                        WHEN LOWER(first_name) LIKE LOWER(?) THEN 2
-                        ELSE 3
-                    END,
-                    last_name, first_name
-            """;
-
-            String searchPattern = "%" + searchTerm + "%";
-            String exactPattern = searchTerm + "%";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, searchPattern);
-                pstmt.setString(2, searchPattern);
-                pstmt.setString(3, searchPattern);
-                pstmt.setString(4, searchPattern);
-                pstmt.setString(5, searchPattern);
-                pstmt.setString(6, exactPattern); // For sorting
-                pstmt.setString(7, exactPattern); // For sorting
-
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        addCustomerRow(rs);
-                    }
-                }
+            for (Customer customer : CustomerRepository.search(conn, searchTerm)) {
+                addCustomerRow(customer);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -228,16 +187,16 @@ public class CustomerSelectionDialog extends JDialog {
         }
     }
 
-    private void addCustomerRow(ResultSet rs) throws SQLException {
+    private void addCustomerRow(Customer customer) {
         Vector<Object> row = new Vector<>();
-        row.add(rs.getInt("id")); // Hidden ID
-        row.add(rs.getString("first_name"));
-        row.add(rs.getString("last_name"));
-        row.add(rs.getString("email"));
-        row.add(rs.getString("phone"));
+        row.add(customer.getId()); // Hidden ID
+        row.add(customer.getFirstName());
+        row.add(customer.getLastName());
+        row.add(customer.getEmail());
+        row.add(customer.getPhone());
 
         // Extract the city from the address (take the last part after the comma)
-        String fullAddress = rs.getString("address");
+        String fullAddress = customer.getAddress();
         String city = "";
         if (fullAddress != null && !fullAddress.isEmpty()) {
             String[] parts = fullAddress.split(",");
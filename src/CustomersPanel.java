@@ -1,13 +1,20 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 public class CustomersPanel extends JPanel {
+    // Ids per DELETE statement when removing a multi-row selection
+    private static final int CHUNK_SIZE = 500;
+
     private JTable customersTable;
-    private DefaultTableModel tableModel;
+    private KeyedTableModel tableModel;
     private JTextField searchField;
     private JButton addButton;
     private JButton editButton;
@@ -18,6 +25,8 @@ public class CustomersPanel extends JPanel {
         setupPanel();
         initComponents();
         loadCustomers();
+
+        EventBus.getInstance().subscribe(EventBus.CustomerChanged.class, this::onCustomersChanged);
     }
 
     private void setupPanel() {
@@ -40,14 +49,14 @@ public class CustomersPanel extends JPanel {
 
         // Customers table
         String[] columns = {"ID", "Name", "Surname", "Email", "Phone", "Address"};
-        tableModel = new DefaultTableModel(columns, 0) {
+        tableModel = new KeyedTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
             }
         };
         customersTable = new JTable(tableModel);
-        customersTable.getSelectionModel().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        customersTable.getSelectionModel().setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         customersTable.getSelectionModel().addListSelectionListener(e -> updateButtonStates());
 
         // Add mouse listener for double click
@@ -89,29 +98,20 @@ public class CustomersPanel extends JPanel {
     }
 
     private void updateButtonStates() {
-        boolean isRowSelected = customersTable.getSelectedRow() != -1;
-        editButton.setEnabled(isRowSelected);
-        deleteButton.setEnabled(isRowSelected);
+        int selectedCount = customersTable.getSelectedRowCount();
+        editButton.setEnabled(selectedCount == 1);
+        deleteButton.setEnabled(selectedCount > 0);
     }
 
     private void loadCustomers() {
-        tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT * FROM customers ORDER BY last_name, first_name";
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("id"));
-                    row.add(rs.getString("first_name"));
-                    row.add(rs.getString("last_name"));
-                    row.add(rs.getString("email"));
-                    row.add(rs.getString("phone"));
-                    row.add(rs.getString("address"));
-                    tableModel.addRow(row);
-                }
+            List<Vector<Object>> rows = new ArrayList<>();
+            for (Customer customer : CustomerRepository.findAll(conn)) {
+                rows.add(buildRow(customer));
             }
+            tableModel.replaceRows(rows);
+            tableModel.setRowFilter(null);
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
                 "Error while loading customers: " + e.getMessage(),
@@ -119,6 +119,41 @@ public class CustomersPanel extends JPanel {
         }
     }
 
+    private Vector<Object> buildRow(Customer customer) {
+        Vector<Object> row = new Vector<>();
+        row.add(customer.getId());
+        row.add(customer.getFirstName());
+        row.add(customer.getLastName());
+        row.add(customer.getEmail());
+        row.add(customer.getPhone());
+        row.add(customer.getAddress());
+        return row;
+    }
+
+    private void onCustomersChanged(List<EventBus.CustomerChanged> events) {
+        for (EventBus.CustomerChanged event : events) {
+            if (event.isDeleted()) {
+                tableModel.remove(event.getId());
+            } else {
+                refreshRow(event.getId());
+            }
+        }
+    }
+
+    /**
+     * Re-read a single customer and upsert its row
+     */
+    private void refreshRow(int customerId) {
+        try {
+            Customer customer = CustomerRepository.findById(DatabaseManager.getInstance().getConnection(), customerId);
+            if (customer != null) {
+                tableModel.upsert(buildRow(customer));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     private void searchCustomers() {
         String searchTerm = searchField.getText().trim();
         if (searchTerm.isEmpty()) {
@@ -126,35 +161,14 @@ public class CustomersPanel extends JPanel {
             return;
         }
 
-        tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT * FROM customers
-                WHERE first_name LIKE ? OR last_name LIKE ? OR email LIKE ? OR phone LIKE ?
-                ORDER BY last_name, first_name
-            """;
-            String searchPattern = "%" + searchTerm + "%";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, searchPattern);
-                pstmt.setString(2, searchPattern);
-                pstmt.setString(3, searchPattern);
-                pstmt.setString(4, searchPattern);
-
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        Vector<Object> row = new Vector<>();
-                        row.add(rs.getInt("id"));
-                        row.add(rs.getString("first_name"));
-                        row.add(rs.getString("last_name"));
-                        row.add(rs.getString("email"));
-                        row.add(rs.getString("phone"));
-                        row.add(rs.getString("address"));
-                        tableModel.addRow(row);
-                    }
-                }
+            List<Vector<Object>> rows = new ArrayList<>();
+            for (Customer customer : CustomerRepository.findMatching(conn, searchTerm)) {
+                rows.add(buildRow(customer));
             }
+            tableModel.replaceRows(rows);
+            tableModel.setRowFilter(KeyedTableModel.containsFilter(searchTerm, 1, 2, 3, 4));
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
                 "Error while searching for customers: " + e.getMessage(),
@@ -168,10 +182,8 @@ public class CustomersPanel extends JPanel {
         JFrame parentFrame = (parentWindow instanceof JFrame) ? (JFrame) parentWindow : null;
 
         CustomerDialog dialog = new CustomerDialog(parentFrame, customer);
+        // The saved customer arrives as a CustomerChanged event and patches its row
         dialog.setVisible(true);
-        if (dialog.isCustomerSaved()) {
-            loadCustomers();
-        }
     }
 
     private void editSelectedCustomer() {
@@ -190,6 +202,10 @@ public class CustomersPanel extends JPanel {
     }
 
     private void deleteSelectedCustomer() {
+        if (customersTable.getSelectedRowCount() > 1) {
+            deleteSelectedCustomers();
+            return;
+        }
         int selectedRow = customersTable.getSelectedRow();
         if (selectedRow != -1) {
             int id = (int)tableModel.getValueAt(selectedRow, 0);
@@ -201,15 +217,16 @@ public class CustomersPanel extends JPanel {
                 Connection conn = DatabaseManager.getInstance().getConnection();
 
                 // Check for existing dependencies
-                boolean hasOrders = hasCustomerOrders(conn, id);
-                boolean hasInvoices = hasCustomerInvoices(conn, id);
+                List<String> references = ReferenceChecker.findReferences(conn,
+                    ReferenceChecker.Entity.CUSTOMER, id);
 
-                if (hasOrders || hasInvoices) {
+                if (!references.isEmpty()) {
                     StringBuilder message = new StringBuilder();
                     message.append("Cannot delete customer '").append(fullName).append("' because they have:\n");
 
-                    if (hasOrders) message.append("- Existing orders\n");
-                    if (hasInvoices) message.append("- Invoices\n");
+                    for (String reference : references) {
+                        message.append("- ").append(reference).append("\n");
+                    }
 
                     message.append("\nOptions:\n");
                     message.append("1. Delete/reassign related records first\n");
@@ -241,7 +258,7 @@ public class CustomersPanel extends JPanel {
                     try (PreparedStatement pstmt = conn.prepareStatement(query)) {
                         pstmt.setInt(1, id);
                         pstmt.executeUpdate();
-                        loadCustomers();
+                        EventBus.getInstance().publish(new EventBus.CustomerChanged(id, true));
 
                         JOptionPane.showMessageDialog(this,
                             "Customer deleted successfully",
@@ -258,116 +275,110 @@ public class CustomersPanel extends JPanel {
         }
     }
 
-    private void performCascadeDelete(Connection conn, int id, String fullName) {
-        int confirmResult = JOptionPane.showConfirmDialog(this,
-            "WARNING: This will permanently delete customer '" + fullName + "' and ALL related data:\n" +
-            "- All orders from this customer\n" +
-            "- All invoices\n" +
-            "- All order and invoice details\n\n" +
-            "This action CANNOT be undone!\n\n" +
-            "Are you absolutely sure?",
-            "FORCE DELETE - Final Confirmation",
-            JOptionPane.YES_NO_OPTION,
-            JOptionPane.ERROR_MESSAGE);
-
-        if (confirmResult != JOptionPane.YES_OPTION) {
-            return;
+    private void deleteSelectedCustomers() {
+        int[] selectedRows = customersTable.getSelectedRows();
+        Map<Integer, String> names = new LinkedHashMap<>();
+        for (int row : selectedRows) {
+            names.put((Integer) tableModel.getValueAt(row, 0),
+                tableModel.getValueAt(row, 1) + " " + tableModel.getValueAt(row, 2));
         }
 
         try {
-            conn.setAutoCommit(false);
+            Connection conn = DatabaseManager.getInstance().getConnection();
+            Map<Integer, List<String>> references = ReferenceChecker.findReferences(conn,
+                ReferenceChecker.Entity.CUSTOMER, names.keySet());
+            List<Integer> deletable = new ArrayList<>(names.keySet());
+            deletable.removeAll(references.keySet());
+
+            StringBuilder message = new StringBuilder();
+            if (!references.isEmpty()) {
+                message.append(references.size()).append(" of the selected customers are still referenced and will be kept:\n");
+                message.append(ReferenceChecker.describe(references, names, 10)).append("\n");
+            }
+            if (deletable.isEmpty()) {
+                message.append("None of the selected customers can be deleted.");
+                JOptionPane.showMessageDialog(this, message.toString(),
+                    "Cannot Delete Customers", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            message.append("Are you sure you want to delete ").append(deletable.size()).append(" customers?");
+
+            int result = JOptionPane.showConfirmDialog(this,
+                message.toString(),
+                "Confirm Deletion",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE);
+            if (result != JOptionPane.YES_OPTION) {
+                return;
+            }
 
+            // Chunked to stay under SQLite's bound parameter limit, in one transaction
+            conn.setAutoCommit(false);
             try {
-                // Delete in order to respect foreign key constraints
-
-                // 1. Delete order details for this customer's orders
-                String deleteOrderDetails = """
-                    DELETE FROM order_details
-                    WHERE order_id IN (
-                        SELECT id FROM orders WHERE customer_id = ?
-                    )
-                """;
-                try (PreparedStatement pstmt = conn.prepareStatement(deleteOrderDetails)) {
-                    pstmt.setInt(1, id);
-                    int deleted = pstmt.executeUpdate();
-                    System.out.println("Deleted " + deleted + " order details");
-                }
-
-                // 2. Delete customer orders
-                String deleteOrders = "DELETE FROM orders WHERE customer_id = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(deleteOrders)) {
-                    pstmt.setInt(1, id);
-                    int deleted = pstmt.executeUpdate();
-                    System.out.println("Deleted " + deleted + " orders");
-                }
-
-                // 3. Delete invoice details for this customer's invoices
-                String deleteInvoiceDetails = """
-                    DELETE FROM invoice_details
-                    WHERE invoice_id IN (
-                        SELECT id FROM invoices WHERE customer_id = ?
-                    )
-                """;
-                try (PreparedStatement pstmt = conn.prepareStatement(deleteInvoiceDetails)) {
-                    pstmt.setInt(1, id);
-                    int deleted = pstmt.executeUpdate();
-                    System.out.println("Deleted " + deleted + " invoice details");
-                }
-
-                // 4. Delete customer invoices
-                String deleteInvoices = "DELETE FROM invoices WHERE customer_id = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(deleteInvoices)) {
-                    pstmt.setInt(1, id);
-                    int deleted = pstmt.executeUpdate();
-                    System.out.println("Deleted " + deleted + " invoices");
-                }
-
-                // 5. Finally delete the customer
-                String deleteCustomer = "DELETE FROM customers WHERE id = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(deleteCustomer)) {
-                    pstmt.setInt(1, id);
-                    pstmt.executeUpdate();
-                    System.out.println("Deleted customer");
+                for (int start = 0; start < deletable.size(); start += CHUNK_SIZE) {
+                    List<Integer> chunk = deletable.subList(start, Math.min(start + CHUNK_SIZE, deletable.size()));
+                    String query = "DELETE FROM customers WHERE id IN (%s)"
+                        .formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
+                    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setInt(i + 1, chunk.get(i));
+                        }
+                        pstmt.executeUpdate();
+                    }
                 }
-
                 conn.commit();
-                loadCustomers();
-
-                JOptionPane.showMessageDialog(this,
-                    "Customer '" + fullName + "' and all related records deleted successfully",
-                    "Force Delete Completed",
-                    JOptionPane.INFORMATION_MESSAGE);
-
             } catch (SQLException e) {
                 conn.rollback();
                 throw e;
             } finally {
                 conn.setAutoCommit(true);
             }
+            for (int id : deletable) {
+                EventBus.getInstance().publish(new EventBus.CustomerChanged(id, true));
+            }
 
+            JOptionPane.showMessageDialog(this,
+                deletable.size() + " customers deleted successfully",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
         } catch (SQLException e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
-                "Error during force delete: " + e.getMessage(),
+                "Error while deleting the customers: " + e.getMessage(),
                 "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
-    private boolean hasCustomerOrders(Connection conn, int customerId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM orders WHERE customer_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, customerId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
+    private void performCascadeDelete(Connection conn, int id, String fullName) {
+        int confirmResult = JOptionPane.showConfirmDialog(this,
+            "WARNING: This will permanently delete customer '" + fullName + "' and ALL related data:\n" +
+            "- All orders from this customer\n" +
+            "- All invoices\n" +
+            "- All order and invoice details\n\n" +
+            "This action CANNOT be undone!\n\n" +
+            "Are you absolutely sure?",
+            "FORCE DELETE - Final Confirmation",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.ERROR_MESSAGE);
+
+        if (confirmResult != JOptionPane.YES_OPTION) {
+            return;
         }
-    }
 
-    private boolean hasCustomerInvoices(Connection conn, int customerId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM invoices WHERE customer_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, customerId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
+        try {
+            // Hidden at once; the related records go in small batches in the background
+            PurgeWorker.getInstance().markDeleted(conn, PurgeWorker.Target.CUSTOMER, id);
+            EventBus.getInstance().publish(new EventBus.CustomerChanged(id, true));
+
+            JOptionPane.showMessageDialog(this,
+                "Customer '" + fullName + "' deleted. Related records are being removed in the background.",
+                "Force Delete Completed",
+                JOptionPane.INFORMATION_MESSAGE);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                "Error during force delete: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 }
@@ -0,0 +1,326 @@
+import java.io.File;
+import java.sql.*;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background upkeep of the database file: planner statistics, WAL
+ * checkpoints and incremental vacuum
+ *
+ * SQLite plans queries from the sqlite_stat1 table, which only ANALYZE
+ * fills. A database that was never analyzed gets a full ANALYZE once; after
+ * that PRAGMA optimize re-analyzes just the tables whose statistics the
+ * session's queries showed to be stale, which usually costs nothing. Both run
+ * as units of the shared DatabaseWriter, sampling at most ANALYSIS_LIMIT rows
+ * per index so a large table does not hold the write lock for long.
+ *
+ * The automatic checkpoint cannot finish while a long read keeps old pages
+ * in use, so the WAL file keeps growing. Every check interval the WAL size is
+ * compared with two thresholds: above the first a PASSIVE checkpoint copies
+ * what it can without waiting, above the second a TRUNCATE checkpoint waits
+ * briefly for readers and shrinks the file back to zero.
+ *
+ * Deletes leave free pages inside the file. Once the writer has been idle for
+ * a while, PRAGMA incremental_vacuum returns them to the file system in small
+ * steps, each a unit of the shared writer, and stops as soon as other writes
+ * arrive. A database created before auto vacuum was enabled needs one full
+ * VACUUM to convert, which rewrites the file and blocks every writer until it
+ * ends; BatchRunner --job vacuum does that offline. Setting db_vacuum_convert
+ * lets an idle period of the session do it instead. Checkpoints and vacuum
+ * steps log the bytes reclaimed and how long the write lock was held.
+ *
+ * Settings in app_settings.properties:
+ *   db_optimize_interval_min     default 60 (0 disables)
+ *   db_maintenance_interval_sec  default 30 (0 disables checkpoints and vacuum)
+ *   db_checkpoint_wal_mb         default 16 (PASSIVE checkpoint)
+ *   db_truncate_wal_mb           default 64 (TRUNCATE checkpoint)
+ *   db_vacuum_idle_sec           default 60
+ *   db_vacuum_min_free_pages     default 256
+ *   db_vacuum_step_pages         default 256
+ *   db_vacuum_convert            default false (full VACUUM mid-session)
+ */
+public class DatabaseMaintenance {
+    private static DatabaseMaintenance instance;
+
+    // The first run waits until startup work has settled
+    private static final long INITIAL_DELAY_SECONDS = 120;
+
+    // Rows sampled per index by ANALYZE; enough for the planner's estimates
+    private static final int ANALYSIS_LIMIT = 1000;
+
+    // A TRUNCATE checkpoint blocks writers while it waits for readers
+    private static final int CHECKPOINT_BUSY_TIMEOUT_MS = 1000;
+
+    private final long checkpointBytes = Math.max(1, AppSettings.getInt("db_checkpoint_wal_mb", 16)) * 1024L * 1024L;
+    private final long truncateBytes = Math.max(1, AppSettings.getInt("db_truncate_wal_mb", 64)) * 1024L * 1024L;
+    private final long vacuumIdleMs = Math.max(0, AppSettings.getInt("db_vacuum_idle_sec", 60)) * 1000L;
+    private final int vacuumMinFreePages = Math.max(1, AppSettings.getInt("db_vacuum_min_free_pages", 256));
+    private final int vacuumStepPages = Math.max(1, AppSettings.getInt("db_vacuum_step_pages", 256));
+    private final boolean vacuumConvert = AppSettings.getBoolean("db_vacuum_convert", false);
+
+    private final ScheduledExecutorService executor;
+    // Checkpoints and VACUUM cannot run inside the writer's transaction
+    private Connection maintenanceConnection;
+    private volatile Date lastOptimize;
+    private volatile String lastOptimizeResult = "not run yet";
+    private volatile String lastCheckpointResult = "not run yet";
+    private volatile String lastVacuumResult = "not run yet";
+
+    private DatabaseMaintenance() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized DatabaseMaintenance getInstance() {
+        if (instance == null) {
+            instance = new DatabaseMaintenance();
+        }
+        return instance;
+    }
+
+    /**
+     * Schedule the optimize job and the checkpoint and vacuum checks
+     */
+    public void start() {
+        long intervalMinutes = AppSettings.getInt("db_optimize_interval_min", 60);
+        if (intervalMinutes > 0) {
+            executor.scheduleWithFixedDelay(this::optimize, INITIAL_DELAY_SECONDS,
+                TimeUnit.MINUTES.toSeconds(intervalMinutes), TimeUnit.SECONDS);
+        }
+        long intervalSeconds = AppSettings.getInt("db_maintenance_interval_sec", 30);
+        if (intervalSeconds > 0) {
+            executor.scheduleWithFixedDelay(this::maintain, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Run the optimize job now, outside the schedule
+     */
+    public void optimizeNow() {
+        executor.execute(this::optimize);
+    }
+
+    private void optimize() {
+        long start = System.nanoTime();
+        try {
+            boolean analyzed = DatabaseWriter.getInstance().execute(conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+                    if (hasStatistics(stmt)) {
+                        stmt.execute("PRAGMA optimize");
+                        return false;
+                    }
+                    stmt.execute("ANALYZE");
+                    return true;
+                }
+            });
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            lastOptimize = new Date();
+            lastOptimizeResult = (analyzed ? "ANALYZE" : "PRAGMA optimize") + " in " + millis + " ms";
+            System.out.println("Database statistics: " + lastOptimizeResult);
+        } catch (SQLException e) {
+            lastOptimizeResult = "failed: " + e.getMessage();
+            System.err.println("Error optimizing database: " + e.getMessage());
+        }
+    }
+
+    private static boolean hasStatistics(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_stat1'")) {
+            return rs.next();
+        }
+    }
+
+    private void maintain() {
+        try {
+            checkpointIfNeeded();
+            if (DatabaseWriter.getInstance().getIdleMillis() >= vacuumIdleMs) {
+                vacuumIfNeeded();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error during database maintenance: " + e.getMessage());
+            closeMaintenanceConnection();
+        }
+    }
+
+    private Connection getMaintenanceConnection() throws SQLException {
+        if (maintenanceConnection == null || maintenanceConnection.isClosed()) {
+            maintenanceConnection = DatabaseManager.getInstance().openConnection();
+            try (Statement stmt = maintenanceConnection.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout = " + CHECKPOINT_BUSY_TIMEOUT_MS);
+            }
+        }
+        return maintenanceConnection;
+    }
+
+    private void closeMaintenanceConnection() {
+        if (maintenanceConnection != null) {
+            try {
+                maintenanceConnection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing maintenance connection: " + e.getMessage());
+            }
+            maintenanceConnection = null;
+        }
+    }
+
+    private void checkpointIfNeeded() throws SQLException {
+        long walBytes = walFile().length();
+        if (walBytes >= truncateBytes) {
+            checkpoint("TRUNCATE", walBytes);
+        } else if (walBytes >= checkpointBytes) {
+            checkpoint("PASSIVE", walBytes);
+        }
+    }
+
+    private void checkpoint(String mode, long walBytes) throws SQLException {
+        long start = System.nanoTime();
+        int busy;
+        int logPages;
+        int checkpointedPages;
+        try (Statement stmt = getMaintenanceConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+            rs.next();
+            busy = rs.getInt(1);
+            logPages = rs.getInt(2);
+            checkpointedPages = rs.getInt(3);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long after = walFile().length();
+
+        lastCheckpointResult = String.format(Locale.ROOT, "%s: WAL %s -> %s, %d of %d pages copied%s, %d ms",
+            mode, DatabaseProfile.formatBytes(walBytes), DatabaseProfile.formatBytes(after),
+            checkpointedPages, logPages, busy != 0 ? " (readers still active)" : "", millis);
+        System.out.println("WAL checkpoint " + lastCheckpointResult);
+    }
+
+    private void vacuumIfNeeded() throws SQLException {
+        long autoVacuum;
+        long freePages;
+        long pageSize;
+        try (Statement stmt = getMaintenanceConnection().createStatement()) {
+            autoVacuum = DatabaseProfile.queryLong(stmt, "PRAGMA auto_vacuum");
+            freePages = DatabaseProfile.queryLong(stmt, "PRAGMA freelist_count");
+            pageSize = DatabaseProfile.queryLong(stmt, "PRAGMA page_size");
+        }
+        if (freePages < vacuumMinFreePages) {
+            return;
+        }
+
+        if (autoVacuum == 0) {
+            if (vacuumConvert) {
+                convertToIncremental(freePages * pageSize);
+            }
+        } else if (autoVacuum == 2) {
+            incrementalVacuum(freePages, pageSize);
+        }
+    }
+
+    /**
+     * One full VACUUM switches an existing file to incremental auto vacuum;
+     * it rewrites the whole database and holds the write lock meanwhile
+     */
+    private void convertToIncremental(long freeBytes) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement stmt = getMaintenanceConnection().createStatement()) {
+            stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            stmt.execute("VACUUM");
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lastVacuumResult = String.format(Locale.ROOT, "full VACUUM to incremental auto vacuum: %s reclaimed, paused writes %d ms",
+            DatabaseProfile.formatBytes(freeBytes), millis);
+        System.out.println("Database vacuum " + lastVacuumResult);
+        checkpoint("TRUNCATE", walFile().length());
+    }
+
+    /**
+     * Free pages in steps of vacuumStepPages, each a short unit of the shared
+     * writer; stops when another unit commits in between, and picks up again
+     * at the next idle check
+     */
+    private void incrementalVacuum(long freePages, long pageSize) throws SQLException {
+        DatabaseWriter writer = DatabaseWriter.getInstance();
+        long start = System.nanoTime();
+        long freed = 0;
+        long steps = 0;
+        long maxStepMicros = 0;
+        boolean interrupted = false;
+
+        while (freed < freePages) {
+            long unitsBefore = writer.getUnitCount();
+            long stepStart = System.nanoTime();
+            long stepFreed = writer.execute(this::vacuumStep);
+            maxStepMicros = Math.max(maxStepMicros, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - stepStart));
+            steps++;
+            freed += stepFreed;
+            if (stepFreed == 0) {
+                break;
+            }
+            if (writer.getUnitCount() > unitsBefore + 1) {
+                interrupted = true;
+                break;
+            }
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lastVacuumResult = String.format(Locale.ROOT, "incremental: %s reclaimed in %d steps, %d ms total, longest pause %.1f ms%s",
+            DatabaseProfile.formatBytes(freed * pageSize), steps, millis, maxStepMicros / 1000.0,
+            interrupted ? " (stopped for other writes)" : "");
+        System.out.println("Database vacuum " + lastVacuumResult);
+    }
+
+    /**
+     * Free up to vacuumStepPages pages and return how many were freed
+     */
+    private long vacuumStep(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            long before = DatabaseProfile.queryLong(stmt, "PRAGMA freelist_count");
+            long remaining = Math.min(before, vacuumStepPages);
+            long freelist = before;
+            // Each step of the statement frees one page; a driver that steps
+            // it only once needs it repeated
+            while (remaining > 0) {
+                stmt.execute("PRAGMA incremental_vacuum(" + remaining + ")");
+                long now = DatabaseProfile.queryLong(stmt, "PRAGMA freelist_count");
+                if (now >= freelist) {
+                    break;
+                }
+                remaining -= freelist - now;
+                freelist = now;
+            }
+            return before - freelist;
+        }
+    }
+
+    private static File walFile() {
+        return new File(DatabaseProfile.DB_FILE + "-wal");
+    }
+
+    /**
+     * When the optimize job last finished, or null if it has not run
+     */
+    public Date getLastOptimize() {
+        return lastOptimize;
+    }
+
+    /**
+     * What the last optimize run did and how long it took
+     */
+    public String getLastOptimizeResult() {
+        return lastOptimizeResult;
+    }
+
+    public String getLastCheckpointResult() {
+        return lastCheckpointResult;
+    }
+
+    public String getLastVacuumResult() {
+        return lastVacuumResult;
+    }
+}
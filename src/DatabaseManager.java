@@ -4,7 +4,7 @@ import javax.swing.JOptionPane;
 public class DatabaseManager {
     private static DatabaseManager instance;
     private Connection connection;
-    private static final String DB_URL = "jdbc:sqlite:gestionale.db";
+    private static final String DB_URL = "jdbc:sqlite:" + DatabaseProfile.DB_FILE;
 
     private DatabaseManager() {
         // Private constructor for the Singleton pattern
@@ -19,24 +19,7 @@ public class DatabaseManager {
 
     public void initDatabase() {
         try {
-            // Load the SQLite JDBC driver
-            Class.forName("org.sqlite.JDBC");
-
-            // Create the connection
-            connection = DriverManager.getConnection(DB_URL);
-
-            // Enable foreign keys and set SQLite optimizations
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute("PRAGMA foreign_keys = ON");
-                stmt.execute("PRAGMA journal_mode = WAL");
-                stmt.execute("PRAGMA synchronous = NORMAL");
-            }
-
-            // Create tables if they do not exist
-            createTables();
-
-            System.out.println("Database initialized successfully");
-
+            openDatabase();
         } catch (Exception e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(null,
@@ -46,6 +29,37 @@ public class DatabaseManager {
         }
     }
 
+    /**
+     * Open the shared connection and create the schema, reporting errors to the
+     * caller instead of a dialog; used by the headless entry points
+     */
+    public void openDatabase() throws SQLException {
+        try {
+            // Load the SQLite JDBC driver
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("SQLite JDBC driver not found", e);
+        }
+
+        // Create the connection; statements run through it are timed
+        connection = QueryInstrumentation.wrap(DriverManager.getConnection(DB_URL));
+
+        // Enable foreign keys and set SQLite optimizations; the page size
+        // of a new database must be set before it switches to WAL
+        DatabaseProfile.applyCreateSettings(connection);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = ON");
+            stmt.execute("PRAGMA journal_mode = WAL");
+        }
+        DatabaseProfile.applyProfile(connection);
+
+        // Create tables if they do not exist
+        createTables();
+        attachMovementArchive(connection);
+
+        System.out.println("Database initialized successfully");
+    }
+
     private void createTables() throws SQLException {
         // Customers Table
         String createCustomersTable = """
@@ -55,7 +69,8 @@ public class DatabaseManager {
                 last_name TEXT NOT NULL,
                 email TEXT,
                 phone TEXT,
-                address TEXT
+                address TEXT,
+                deleted_at TEXT
             )
         """;
 
@@ -158,7 +173,8 @@ public class DatabaseManager {
                 email TEXT,
                 certified_email TEXT,
                 website TEXT,
-                notes TEXT
+                notes TEXT,
+                deleted_at TEXT
             )
         """;
 
@@ -285,6 +301,37 @@ public class DatabaseManager {
             )
         """;
 
+        // Invoice Archive Table (content-addressed PDF blobs, see InvoiceArchive)
+        String createInvoiceArchiveTable = """
+            CREATE TABLE IF NOT EXISTS invoice_archive (
+                invoice_id INTEGER PRIMARY KEY,
+                invoice_number TEXT NOT NULL,
+                content_hash TEXT NOT NULL,
+                original_size INTEGER NOT NULL,
+                stored_size INTEGER NOT NULL,
+                compression TEXT NOT NULL DEFAULT 'NONE',
+                archived_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )
+        """;
+
+        // Journaled saves already applied (see DocumentJournal), so a replay skips them
+        String createJournalAppliedTable = """
+            CREATE TABLE IF NOT EXISTS journal_applied (
+                sequence INTEGER PRIMARY KEY,
+                document_id INTEGER NOT NULL
+            )
+        """;
+
+        // Idempotency keys of API writes (see ApiServer), so a retried POST is applied once
+        String createApiRequestsTable = """
+            CREATE TABLE IF NOT EXISTS api_requests (
+                idempotency_key TEXT PRIMARY KEY,
+                document_type TEXT NOT NULL,
+                document_id INTEGER NOT NULL,
+                created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+            )
+        """;
+
         try (Statement stmt = connection.createStatement()) {
             stmt.execute(createCustomersTable);
             stmt.execute(createSuppliersTable); // Create suppliers table first
@@ -302,6 +349,26 @@ public class DatabaseManager {
             stmt.execute(createWarehouseNotificationsTable);
             stmt.execute(createStockReservationsTable);
             stmt.execute(createCompanyDataTable);
+            stmt.execute(createInvoiceArchiveTable);
+            stmt.execute(createJournalAppliedTable);
+            stmt.execute(createApiRequestsTable);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_invoice_archive_hash ON invoice_archive (content_hash)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_api_requests_created ON api_requests (created_at)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_price_lists_key ON supplier_price_lists (supplier_id, product_id, validity_start_date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_notifications_product ON warehouse_notifications (product_id, type)");
+            // The rowid is part of every index, so these also serve (date, id) ordering
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_movements_date ON warehouse_movements (date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_movements_product_date ON warehouse_movements (product_id, date)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_movements_document ON warehouse_movements (document_number)");
+            // Foreign key columns, so reference checks (ReferenceChecker) stop at an index lookup
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_order_details_product ON order_details (product_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_invoice_details_product ON invoice_details (product_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_supplier_order_details_product ON supplier_order_details (product_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_price_lists_product ON supplier_price_lists (product_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_orders_customer ON orders (customer_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_invoices_customer ON invoices (customer_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_supplier_orders_supplier ON supplier_orders (supplier_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_minimum_stock_supplier ON minimum_stock (preferred_supplier_id)");
         }
 
         // Migrate existing data from supplier TEXT to supplier_id INTEGER
@@ -313,6 +380,12 @@ public class DatabaseManager {
         // Migrate existing databases to add warehouse_position and vat_rate columns
         migrateWarehousePositionAndVat();
 
+        // Store every movement date as text so it sorts and compares by time
+        migrateMovementDates();
+
+        // Soft-delete flag for customers and suppliers purged in the background
+        migrateSoftDelete();
+
         // Create triggers for stock reservation synchronization
         createStockReservationTriggers();
     }
@@ -448,6 +521,43 @@ public class DatabaseManager {
         }
     }
 
+    private void migrateMovementDates() throws SQLException {
+        // Older versions bound java.sql.Timestamp, which the driver stores as epoch milliseconds
+        String query = """
+            UPDATE warehouse_movements
+            SET date = strftime('%Y-%m-%d %H:%M:%S', date / 1000, 'unixepoch', 'localtime')
+            WHERE typeof(date) IN ('integer', 'real')
+        """;
+        try (Statement stmt = connection.createStatement()) {
+            int converted = stmt.executeUpdate(query);
+            if (converted > 0) {
+                System.out.println("Converted " + converted + " warehouse movement dates to text");
+            }
+        }
+    }
+
+    private void migrateSoftDelete() throws SQLException {
+        for (String table : new String[] {"customers", "suppliers"}) {
+            boolean hasDeletedAt = false;
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+                while (rs.next()) {
+                    if ("deleted_at".equals(rs.getString("name"))) {
+                        hasDeletedAt = true;
+                        break;
+                    }
+                }
+            }
+
+            if (!hasDeletedAt) {
+                System.out.println("Adding deleted_at column to " + table + " table...");
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("ALTER TABLE " + table + " ADD COLUMN deleted_at TEXT");
+                }
+            }
+        }
+    }
+
     private void createStockReservationTriggers() throws SQLException {
         try (Statement stmt = connection.createStatement()) {
             // Drop existing triggers if they exist
@@ -509,9 +619,56 @@ public class DatabaseManager {
         return connection;
     }
 
+    /**
+     * Open a separate connection for background work (imports, exports)
+     * The caller owns the connection and must close it. It waits for the write
+     * lock (db_busy_timeout_ms) instead of failing while the UI connection is
+     * committing.
+     */
+    public Connection openConnection() throws SQLException {
+        Connection workerConnection = QueryInstrumentation.wrap(DriverManager.getConnection(DB_URL));
+        try (Statement stmt = workerConnection.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = ON");
+        }
+        DatabaseProfile.applyProfile(workerConnection);
+        attachMovementArchive(workerConnection);
+        return workerConnection;
+    }
+
+    /**
+     * Attach the yearly movement archives; a missing or damaged archive only
+     * limits historical queries, so it does not stop the connection from opening
+     */
+    private void attachMovementArchive(Connection conn) {
+        try {
+            MovementArchive.attachAll(conn);
+        } catch (SQLException e) {
+            System.err.println("Error attaching movement archives: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Open a separate read-only connection for long-running reads such as exports
+     * Readers on their own connection see a consistent WAL snapshot and never
+     * block the UI connection.
+     */
+    public Connection openReadOnlyConnection() throws SQLException {
+        Connection readConnection = openConnection();
+        try (Statement stmt = readConnection.createStatement()) {
+            stmt.execute("PRAGMA query_only = ON");
+        }
+        return readConnection;
+    }
+
     public void closeConnection() {
         try {
             if (connection != null && !connection.isClosed()) {
+                // Refresh planner statistics the session has shown to be stale
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("PRAGMA optimize");
+                } catch (SQLException e) {
+                    System.err.println("Error optimizing database: " + e.getMessage());
+                }
                 connection.close();
                 System.out.println("Database connection closed");
             }
@@ -521,41 +678,10 @@ public class DatabaseManager {
     }
 
     public String getNextInvoiceNumber(int year) throws SQLException {
-        String number;
         Connection conn = getConnection(); // Use the safe getConnection method
         conn.setAutoCommit(false);
         try {
-            // Check if a record for the current year already exists
-            String checkQuery = "SELECT last_number FROM invoice_numbering WHERE year = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(checkQuery)) {
-                pstmt.setInt(1, year);
-                ResultSet rs = pstmt.executeQuery();
-
-                int nextNumber;
-                if (rs.next()) {
-                    // Increment the last number
-                    nextNumber = rs.getInt("last_number") + 1;
-                    String updateQuery = "UPDATE invoice_numbering SET last_number = ? WHERE year = ?";
-                    try (PreparedStatement updateStmt = conn.prepareStatement(updateQuery)) {
-                        updateStmt.setInt(1, nextNumber);
-                        updateStmt.setInt(2, year);
-                        updateStmt.executeUpdate();
-                    }
-                } else {
-                    // Create a new record for the year
-                    nextNumber = 1;
-                    String insertQuery = "INSERT INTO invoice_numbering (year, last_number) VALUES (?, ?)";
-                    try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
-                        insertStmt.setInt(1, year);
-                        insertStmt.setInt(2, nextNumber);
-                        insertStmt.executeUpdate();
-                    }
-                }
-
-                // Format the invoice number (e.g., 2024/0001)
-                number = String.format("%d/%04d", year, nextNumber);
-            }
-
+            String number = InvoiceService.allocateNumber(conn, year);
             conn.commit();
             return number;
 
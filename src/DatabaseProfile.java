@@ -0,0 +1,147 @@
+import java.io.File;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * SQLite settings applied to every connection the application opens
+ * The defaults suit a single-user desktop database of a few hundred MB: a
+ * page cache large enough for the hot tables, memory-mapped reads, temporary
+ * b-trees (sorts, DISTINCT, subqueries) kept in memory, and a busy timeout so
+ * a connection waits for the write lock instead of failing while another one
+ * commits. Cache, mmap and busy timeout are per connection; page size and
+ * auto vacuum only take effect on a database file that does not exist yet.
+ * Changing the page size afterwards needs a full VACUUM outside WAL mode;
+ * BatchRunner --job vacuum converts an existing file to incremental auto vacuum.
+ *
+ * Settings in app_settings.properties:
+ *   db_file                default gestionale.db in the working directory
+ *   db_page_size           default 4096   (new databases only)
+ *   db_cache_size_kb       default 32768
+ *   db_mmap_size_mb        default 256    (0 disables memory mapping)
+ *   db_temp_store          default MEMORY (DEFAULT, FILE or MEMORY)
+ *   db_busy_timeout_ms     default 10000
+ *   db_synchronous         default NORMAL (OFF, NORMAL, FULL or EXTRA)
+ *   db_wal_autocheckpoint  default 1000   (pages; 0 disables)
+ */
+public class DatabaseProfile {
+    public static final String DB_FILE = AppSettings.get("db_file", "gestionale.db");
+
+    private static final Set<String> TEMP_STORE_VALUES = Set.of("DEFAULT", "FILE", "MEMORY");
+    private static final Set<String> SYNCHRONOUS_VALUES = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+
+    // PRAGMA synchronous and temp_store report these as numbers
+    private static final String[] SYNCHRONOUS_NAMES = {"OFF", "NORMAL", "FULL", "EXTRA"};
+    private static final String[] TEMP_STORE_NAMES = {"DEFAULT", "FILE", "MEMORY"};
+    private static final String[] AUTO_VACUUM_NAMES = {"NONE", "FULL", "INCREMENTAL"};
+
+    private DatabaseProfile() {
+    }
+
+    /**
+     * Set the page size and incremental auto vacuum if the database is still
+     * empty; must run before journal_mode = WAL, which fixes the page size of
+     * the file
+     */
+    public static void applyCreateSettings(Connection conn) throws SQLException {
+        int pageSize = AppSettings.getInt("db_page_size", 4096);
+        if (pageSize < 512 || pageSize > 65536 || Integer.bitCount(pageSize) != 1) {
+            System.err.println("Ignoring db_page_size " + pageSize + ": not a power of two between 512 and 65536");
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            if (queryLong(stmt, "PRAGMA page_count") == 0) {
+                stmt.execute("PRAGMA page_size = " + pageSize);
+                stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            } else if (queryLong(stmt, "PRAGMA page_size") != pageSize) {
+                System.out.println("db_page_size " + pageSize + " applies to new databases only; keeping "
+                    + queryLong(stmt, "PRAGMA page_size"));
+            }
+        }
+    }
+
+    /**
+     * Apply the per-connection settings
+     */
+    public static void applyProfile(Connection conn) throws SQLException {
+        int cacheKb = Math.max(0, AppSettings.getInt("db_cache_size_kb", 32768));
+        long mmapBytes = Math.max(0, AppSettings.getInt("db_mmap_size_mb", 256)) * 1024L * 1024L;
+        int busyTimeout = Math.max(0, AppSettings.getInt("db_busy_timeout_ms", 10000));
+        int autocheckpoint = Math.max(0, AppSettings.getInt("db_wal_autocheckpoint", 1000));
+        String tempStore = choice("db_temp_store", "MEMORY", TEMP_STORE_VALUES);
+        String synchronous = choice("db_synchronous", "NORMAL", SYNCHRONOUS_VALUES);
+
+        try (Statement stmt = conn.createStatement()) {
+            // A negative cache size is in KiB instead of pages
+            stmt.execute("PRAGMA cache_size = -" + cacheKb);
+            stmt.execute("PRAGMA mmap_size = " + mmapBytes);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeout);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA wal_autocheckpoint = " + autocheckpoint);
+        }
+    }
+
+    private static String choice(String key, String defaultValue, Set<String> allowed) {
+        String value = AppSettings.get(key, defaultValue).trim().toUpperCase(Locale.ROOT);
+        if (!allowed.contains(value)) {
+            System.err.println("Ignoring " + key + " " + value + ": expected one of " + allowed);
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * The settings in effect on a connection and the size of the database and
+     * its WAL file, as label/value pairs for the diagnostics view
+     */
+    public static Map<String, String> describe(Connection conn) throws SQLException {
+        Map<String, String> status = new LinkedHashMap<>();
+        try (Statement stmt = conn.createStatement()) {
+            long pageSize = queryLong(stmt, "PRAGMA page_size");
+            long pageCount = queryLong(stmt, "PRAGMA page_count");
+            long freePages = queryLong(stmt, "PRAGMA freelist_count");
+            long cacheSize = queryLong(stmt, "PRAGMA cache_size");
+            long cacheBytes = cacheSize < 0 ? -cacheSize * 1024 : cacheSize * pageSize;
+            long mmapBytes = queryLong(stmt, "PRAGMA mmap_size");
+            long databaseBytes = pageSize * pageCount;
+
+            status.put("Page size", formatBytes(pageSize));
+            status.put("Database size", formatBytes(databaseBytes) + " (" + pageCount + " pages)");
+            status.put("Free pages", freePages + " (" + formatBytes(freePages * pageSize) + ")");
+            status.put("Auto vacuum", AUTO_VACUUM_NAMES[(int) Math.min(2, Math.max(0, queryLong(stmt, "PRAGMA auto_vacuum")))]);
+            status.put("WAL file", formatBytes(new File(DB_FILE + "-wal").length()));
+            status.put("Journal mode", queryString(stmt, "PRAGMA journal_mode"));
+            status.put("Synchronous", SYNCHRONOUS_NAMES[(int) Math.min(3, Math.max(0, queryLong(stmt, "PRAGMA synchronous")))]);
+            status.put("WAL autocheckpoint", queryLong(stmt, "PRAGMA wal_autocheckpoint") + " pages");
+            status.put("Page cache", formatBytes(cacheBytes));
+            status.put("Cache coverage", databaseBytes == 0 ? "-"
+                : String.format(Locale.ROOT, "%.0f%% of the database", Math.min(100.0, 100.0 * cacheBytes / databaseBytes)));
+            status.put("Memory map", mmapBytes == 0 ? "off" : formatBytes(mmapBytes));
+            status.put("Temp store", TEMP_STORE_NAMES[(int) Math.min(2, Math.max(0, queryLong(stmt, "PRAGMA temp_store")))]);
+            status.put("Busy timeout", queryLong(stmt, "PRAGMA busy_timeout") + " ms");
+        }
+        return status;
+    }
+
+    static long queryLong(Statement stmt, String query) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(query)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static String queryString(Statement stmt, String query) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(query)) {
+            return rs.next() ? rs.getString(1) : "";
+        }
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,267 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer thread that batches write requests into shared transactions
+ * Each unit of work runs inside its own savepoint, so a failing unit is
+ * rolled back alone while the rest of the batch commits together with one
+ * sync to disk.
+ *
+ * getInstance() is the application's writer: background writes (journaled
+ * document saves, stock notifications, purges, settings) all go through it,
+ * so they queue behind one connection instead of competing for the lock.
+ * WriterBenchmark measures the gain over one transaction per write.
+ *
+ * Settings in app_settings.properties:
+ *   writer_batch_window_ms  default 2
+ *   writer_max_batch        default 64
+ */
+public class DatabaseWriter implements AutoCloseable {
+    private static DatabaseWriter instance;
+
+    /**
+     * Opens the writer's connection
+     */
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * A piece of work executed inside the writer's transaction
+     */
+    public interface UnitOfWork<T> {
+        T execute(Connection conn) throws SQLException;
+    }
+
+    private static class Task<T> {
+        final UnitOfWork<T> work;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+
+        Task(UnitOfWork<T> work) {
+            this.work = work;
+        }
+
+        void run(Connection conn) throws SQLException {
+            result = work.execute(conn);
+        }
+
+        void complete() {
+            future.complete(result);
+        }
+    }
+
+    private final BlockingQueue<Task<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private final ConnectionFactory connectionFactory;
+    // Units arriving this soon after the first one join its transaction
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    // Guards running against submit(), so no task is queued after close()
+    private final Object submitLock = new Object();
+    private volatile boolean running = true;
+    private long batches = 0;
+    private long units = 0;
+    private volatile long lastCommitNanos = System.nanoTime();
+
+    public DatabaseWriter(String name) {
+        this(name, () -> DatabaseManager.getInstance().openConnection(),
+            AppSettings.getInt("writer_batch_window_ms", 2), AppSettings.getInt("writer_max_batch", 64));
+    }
+
+    /**
+     * A writer on its own database, e.g. for benchmarks; a batch size of 1
+     * gives one transaction per unit
+     */
+    public DatabaseWriter(String name, ConnectionFactory connectionFactory, long batchWindowMs, int maxBatchSize) {
+        this.connectionFactory = connectionFactory;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, batchWindowMs));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The application's shared writer, started on first use
+     */
+    public static synchronized DatabaseWriter getInstance() {
+        if (instance == null) {
+            instance = new DatabaseWriter("db-writer");
+        }
+        return instance;
+    }
+
+    /**
+     * Queue a unit of work; the future completes after its batch has committed
+     */
+    public <T> CompletableFuture<T> submit(UnitOfWork<T> work) {
+        Task<T> task = new Task<>(work);
+        synchronized (submitLock) {
+            if (running) {
+                queue.add(task);
+                return task.future;
+            }
+        }
+        task.future.completeExceptionally(new SQLException("Database writer is closed"));
+        return task.future;
+    }
+
+    /**
+     * Queue a unit of work and wait for its batch to commit
+     * For callers that need the result before going on; the error of the
+     * unit is rethrown as it was raised.
+     */
+    public <T> T execute(UnitOfWork<T> work) throws SQLException {
+        try {
+            return submit(work).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the database writer", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    public boolean isClosed() {
+        return !running;
+    }
+
+    public synchronized long getBatchCount() {
+        return batches;
+    }
+
+    public synchronized long getUnitCount() {
+        return units;
+    }
+
+    /**
+     * Time since the last batch committed; maintenance waits for a quiet writer
+     */
+    public long getIdleMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastCommitNanos);
+    }
+
+    /**
+     * Average number of units committed per transaction so far
+     */
+    public synchronized double getAverageBatchSize() {
+        return batches == 0 ? 0 : (double) units / batches;
+    }
+
+    private void run() {
+        Connection conn = null;
+        while (running || !queue.isEmpty()) {
+            List<Task<?>> batch = new ArrayList<>();
+            try {
+                Task<?> first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < maxBatchSize) {
+                    Task<?> next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                synchronized (submitLock) {
+                    running = false;
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            try {
+                if (conn == null || conn.isClosed()) {
+                    conn = connectionFactory.open();
+                }
+                executeBatch(conn, batch);
+            } catch (SQLException e) {
+                System.err.println("Error committing write batch: " + e.getMessage());
+                for (Task<?> task : batch) {
+                    task.future.completeExceptionally(e);
+                }
+            }
+        }
+
+        // Only reached once running is false, so nothing can be queued any more
+        Task<?> left;
+        while ((left = queue.poll()) != null) {
+            left.future.completeExceptionally(new SQLException("Database writer is closed"));
+        }
+
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing writer connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void executeBatch(Connection conn, List<Task<?>> batch) throws SQLException {
+        List<Task<?>> succeeded = new ArrayList<>();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (Task<?> task : batch) {
+                stmt.execute("SAVEPOINT unit");
+                try {
+                    task.run(conn);
+                    stmt.execute("RELEASE SAVEPOINT unit");
+                    succeeded.add(task);
+                } catch (Exception e) {
+                    stmt.execute("ROLLBACK TO SAVEPOINT unit");
+                    stmt.execute("RELEASE SAVEPOINT unit");
+                    task.future.completeExceptionally(e);
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        synchronized (this) {
+            batches++;
+            units += batch.size();
+        }
+        lastCommitNanos = System.nanoTime();
+        for (Task<?> task : succeeded) {
+            task.complete();
+        }
+    }
+
+    /**
+     * Stop accepting work and finish what is already queued
+     */
+    @Override
+    public void close() {
+        synchronized (submitLock) {
+            running = false;
+        }
+        try {
+            thread.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+import java.io.File;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Fills an empty gestionale.db with synthetic data for benchmarks
+ * The schema is created by DatabaseManager, so the data always matches the
+ * application's tables and indexes. Every value comes from one seeded
+ * Random and dates are laid out from a fixed start, so the same size and seed
+ * produce the same rows on every run.
+ *
+ * For a size of N there are N products, N customer orders and N warehouse
+ * movements, N / 2 invoices, N / 20 customers and N / 1000 suppliers (at
+ * least 100 and 10), with one to five lines per order and invoice. Orders
+ * and invoices are closed ("Completed", "Cancelled", "Issued", "Paid") and
+ * hold no reservations; product quantities are drawn directly instead of
+ * being replayed from the movements.
+ *
+ * Run it in an empty directory; the database is created there:
+ *
+ * java DatasetGenerator [--size 10k|100k|1m|<rows>] [--seed 42]
+ */
+public class DatasetGenerator {
+    // Rows written per transaction
+    private static final int COMMIT_EVERY = 10000;
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 8, 0);
+    private static final long SPAN_SECONDS = 2L * 365 * 24 * 3600;
+    private static final DateTimeFormatter MOVEMENT_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] CATEGORIES = {"Hardware", "Electrical", "Plumbing", "Garden", "Tools", "Paint", "Office"};
+    private static final String[] UNITS = {"pcs", "kg", "m", "box"};
+    private static final double[] VAT_RATES = {4.0, 10.0, 22.0};
+    private static final String[] FIRST_NAMES = {"Marco", "Giulia", "Luca", "Sara", "Paolo", "Anna", "Davide", "Elena"};
+    private static final String[] LAST_NAMES = {"Rossi", "Bianchi", "Ferrari", "Russo", "Esposito", "Romano", "Colombo", "Ricci"};
+
+    private final int size;
+    private final Random random;
+    private final Connection conn;
+    private int pending = 0;
+
+    private double[] prices;
+    private double[] vatRates;
+
+    public DatasetGenerator(Connection conn, int size, long seed) {
+        this.conn = conn;
+        this.size = size;
+        this.random = new Random(seed);
+    }
+
+    public void generate() throws SQLException {
+        int suppliers = Math.max(10, size / 1000);
+        int customers = Math.max(100, size / 20);
+
+        conn.setAutoCommit(false);
+        try {
+            timed("suppliers", suppliers, () -> insertSuppliers(suppliers));
+            timed("customers", customers, () -> insertCustomers(customers));
+            timed("products", size, () -> insertProducts(size, suppliers));
+            timed("orders", size, () -> insertOrders(size, customers));
+            timed("invoices", size / 2, () -> insertInvoices(size / 2, customers));
+            timed("movements", size, () -> insertMovements(size));
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+            stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+        }
+    }
+
+    private interface Step {
+        void run() throws SQLException;
+    }
+
+    private void timed(String name, int rows, Step step) throws SQLException {
+        long start = System.nanoTime();
+        step.run();
+        System.out.printf("%-10s %9d rows %8d ms%n", name, rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Count a written row and commit every COMMIT_EVERY rows
+     */
+    private void written(PreparedStatement... statements) throws SQLException {
+        if (++pending % COMMIT_EVERY == 0) {
+            for (PreparedStatement pstmt : statements) {
+                pstmt.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+
+    private void insertSuppliers(int count) throws SQLException {
+        String query = "INSERT INTO suppliers (company_name, vat_number, address, phone, email) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 1; i <= count; i++) {
+                pstmt.setString(1, "Supplier " + i + " S.r.l.");
+                pstmt.setString(2, String.format("IT%011d", i));
+                pstmt.setString(3, "Via Industria " + (1 + random.nextInt(200)));
+                pstmt.setString(4, phone());
+                pstmt.setString(5, "orders" + i + "@supplier.example");
+                pstmt.addBatch();
+                written(pstmt);
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private void insertCustomers(int count) throws SQLException {
+        String query = "INSERT INTO customers (first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 1; i <= count; i++) {
+                String firstName = pick(FIRST_NAMES);
+                String lastName = pick(LAST_NAMES);
+                pstmt.setString(1, firstName);
+                pstmt.setString(2, lastName);
+                pstmt.setString(3, (firstName + "." + lastName + i + "@mail.example").toLowerCase(Locale.ROOT));
+                pstmt.setString(4, phone());
+                pstmt.setString(5, "Via Roma " + (1 + random.nextInt(300)));
+                pstmt.addBatch();
+                written(pstmt);
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private void insertProducts(int count, int suppliers) throws SQLException {
+        prices = new double[count + 1];
+        vatRates = new double[count + 1];
+        String query = """
+            INSERT INTO products (code, name, description, price, quantity, category, unit_of_measure,
+                                  minimum_quantity, acquisition_cost, supplier_id, warehouse_position, vat_rate)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+        String minimumQuery = """
+            INSERT INTO minimum_stock (product_id, minimum_quantity, reorder_quantity, lead_time_days, preferred_supplier_id)
+            VALUES (?, ?, ?, ?, ?)
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(query);
+             PreparedStatement minimum = conn.prepareStatement(minimumQuery)) {
+            for (int id = 1; id <= count; id++) {
+                String category = pick(CATEGORIES);
+                int supplierId = 1 + random.nextInt(suppliers);
+                prices[id] = cents(1 + random.nextDouble() * 499);
+                vatRates[id] = VAT_RATES[random.nextInt(VAT_RATES.length)];
+
+                pstmt.setString(1, String.format("P%07d", id));
+                pstmt.setString(2, category + " item " + id);
+                pstmt.setString(3, "Synthetic " + category.toLowerCase(Locale.ROOT) + " product");
+                pstmt.setDouble(4, prices[id]);
+                pstmt.setInt(5, random.nextInt(500));
+                pstmt.setString(6, category);
+                pstmt.setString(7, pick(UNITS));
+                pstmt.setInt(8, random.nextInt(20));
+                pstmt.setDouble(9, cents(prices[id] * 0.6));
+                pstmt.setInt(10, supplierId);
+                pstmt.setString(11, String.format("%c-%02d-%02d", 'A' + random.nextInt(8), random.nextInt(40), random.nextInt(6)));
+                pstmt.setDouble(12, vatRates[id]);
+                pstmt.addBatch();
+
+                // One product in twenty is monitored for minimum stock
+                if (random.nextInt(20) == 0) {
+                    minimum.setInt(1, id);
+                    minimum.setInt(2, 10 + random.nextInt(40));
+                    minimum.setInt(3, 50 + random.nextInt(150));
+                    minimum.setInt(4, 3 + random.nextInt(25));
+                    minimum.setInt(5, supplierId);
+                    minimum.addBatch();
+                }
+                written(pstmt, minimum);
+            }
+            pstmt.executeBatch();
+            minimum.executeBatch();
+        }
+    }
+
+    private void insertOrders(int count, int customers) throws SQLException {
+        String orderQuery = "INSERT INTO orders (id, customer_id, order_date, status, total) VALUES (?, ?, ?, ?, ?)";
+        String detailQuery = "INSERT INTO order_details (order_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement orders = conn.prepareStatement(orderQuery);
+             PreparedStatement details = conn.prepareStatement(detailQuery)) {
+            for (int id = 1; id <= count; id++) {
+                double total = 0;
+                int lines = 1 + random.nextInt(5);
+                for (int line = 0; line < lines; line++) {
+                    int productId = 1 + random.nextInt(size);
+                    int quantity = 1 + random.nextInt(10);
+                    details.setInt(1, id);
+                    details.setInt(2, productId);
+                    details.setInt(3, quantity);
+                    details.setDouble(4, prices[productId]);
+                    details.addBatch();
+                    total += quantity * prices[productId];
+                }
+
+                orders.setInt(1, id);
+                orders.setInt(2, 1 + random.nextInt(customers));
+                orders.setTimestamp(3, Timestamp.valueOf(dateAt(id, count)));
+                orders.setString(4, random.nextInt(10) == 0 ? "Cancelled" : "Completed");
+                orders.setDouble(5, cents(total));
+                orders.addBatch();
+                written(orders, details);
+            }
+            orders.executeBatch();
+            details.executeBatch();
+        }
+    }
+
+    /**
+     * Invoices in date order, numbered per year as InvoiceService would
+     */
+    private void insertInvoices(int count, int customers) throws SQLException {
+        String invoiceQuery = """
+            INSERT INTO invoices (id, number, date, customer_id, taxable_amount, vat, total, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+        String detailQuery = """
+            INSERT INTO invoice_details (invoice_id, product_id, quantity, unit_price, vat_rate, total)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """;
+        Map<Integer, Integer> lastNumbers = new TreeMap<>();
+        try (PreparedStatement invoices = conn.prepareStatement(invoiceQuery);
+             PreparedStatement details = conn.prepareStatement(detailQuery)) {
+            for (int id = 1; id <= count; id++) {
+                double taxable = 0;
+                double vat = 0;
+                int lines = 1 + random.nextInt(5);
+                for (int line = 0; line < lines; line++) {
+                    int productId = 1 + random.nextInt(size);
+                    int quantity = 1 + random.nextInt(10);
+                    double lineTotal = cents(quantity * prices[productId]);
+                    details.setInt(1, id);
+                    details.setInt(2, productId);
+                    details.setInt(3, quantity);
+                    details.setDouble(4, prices[productId]);
+                    details.setDouble(5, vatRates[productId]);
+                    details.setDouble(6, lineTotal);
+                    details.addBatch();
+                    taxable += lineTotal;
+                    vat += lineTotal * vatRates[productId] / 100;
+                }
+
+                LocalDateTime date = dateAt(id, count);
+                int number = lastNumbers.merge(date.getYear(), 1, Integer::sum);
+                invoices.setInt(1, id);
+                invoices.setString(2, String.format("%d/%04d", date.getYear(), number));
+                invoices.setDate(3, new java.sql.Date(Timestamp.valueOf(date).getTime()));
+                invoices.setInt(4, 1 + random.nextInt(customers));
+                invoices.setDouble(5, cents(taxable));
+                invoices.setDouble(6, cents(vat));
+                invoices.setDouble(7, cents(taxable + vat));
+                invoices.setString(8, random.nextInt(4) == 0 ? "Issued" : "Paid");
+                invoices.addBatch();
+                written(invoices, details);
+            }
+            invoices.executeBatch();
+            details.executeBatch();
+        }
+
+        String numberingQuery = "INSERT OR REPLACE INTO invoice_numbering (year, last_number) VALUES (?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(numberingQuery)) {
+            for (Map.Entry<Integer, Integer> entry : lastNumbers.entrySet()) {
+                pstmt.setInt(1, entry.getKey());
+                pstmt.setInt(2, entry.getValue());
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private void insertMovements(int count) throws SQLException {
+        String query = """
+            INSERT INTO warehouse_movements (product_id, date, type, quantity, reason, document_number, document_type, notes)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 1; i <= count; i++) {
+                boolean inward = random.nextInt(3) == 0;
+                pstmt.setInt(1, 1 + random.nextInt(size));
+                pstmt.setString(2, dateAt(i, count).format(MOVEMENT_DATE));
+                pstmt.setString(3, inward ? "INWARD" : "OUTWARD");
+                pstmt.setInt(4, 1 + random.nextInt(inward ? 100 : 10));
+                pstmt.setString(5, inward ? "PURCHASE" : "SALE");
+                pstmt.setString(6, inward ? "SO-" + i : "DOC-" + i);
+                pstmt.setString(7, inward ? "SUPPLIER_ORDER" : "INVOICE");
+                pstmt.setString(8, null);
+                pstmt.addBatch();
+                written(pstmt);
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Rows spread evenly over two years from START, in row order, with working-hour jitter
+     */
+    private LocalDateTime dateAt(int index, int count) {
+        long seconds = SPAN_SECONDS * (index - 1) / Math.max(1, count);
+        return START.plusSeconds(seconds).plusMinutes(random.nextInt(60));
+    }
+
+    private String phone() {
+        return String.format("+39 3%02d %07d", random.nextInt(100), random.nextInt(10_000_000));
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static double cents(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static int parseSize(String value) {
+        String lower = value.trim().toLowerCase(Locale.ROOT);
+        if (lower.endsWith("k")) {
+            return Integer.parseInt(lower.substring(0, lower.length() - 1)) * 1000;
+        }
+        if (lower.endsWith("m")) {
+            return Integer.parseInt(lower.substring(0, lower.length() - 1)) * 1_000_000;
+        }
+        return Integer.parseInt(lower);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+
+        int size = 10_000;
+        long seed = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size": size = parseSize(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        if (new File(DatabaseProfile.DB_FILE).exists()) {
+            System.err.println(DatabaseProfile.DB_FILE + " already exists; run the generator in an empty directory");
+            System.exit(2);
+        }
+
+        DatabaseManager.getInstance().openDatabase();
+        Connection conn = DatabaseManager.getInstance().getConnection();
+        long start = System.nanoTime();
+        System.out.printf("Generating %d rows with seed %d%n", size, seed);
+        new DatasetGenerator(conn, size, seed).generate();
+        System.out.printf("Done in %d ms, %s%n", (System.nanoTime() - start) / 1_000_000,
+            DatabaseProfile.formatBytes(new File(DatabaseProfile.DB_FILE).length()));
+        DatabaseManager.getInstance().closeConnection();
+        System.exit(0);
+    }
+}
@@ -15,6 +15,7 @@ public class DateUtils {
     
     public static final SimpleDateFormat DEFAULT_FORMAT = new SimpleDateFormat("dd/MM/yyyy");
     public static final SimpleDateFormat DATETIME_FORMAT = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+    private static final SimpleDateFormat DB_DATETIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
     
     /**
      * Parse a date from ResultSet handling various formats
@@ -94,6 +95,14 @@ public class DateUtils {
         return date != null ? new java.sql.Date(date.getTime()) : null;
     }
     
+    /**
+     * Format a date as stored in warehouse_movements.date (local time text),
+     * so comparing the text compares the time
+     */
+    public static String toDbDateTime(Date date) {
+        return date != null ? formatDate(date, DB_DATETIME_FORMAT) : null;
+    }
+
     /**
      * Convert Date to SQL Timestamp
      */
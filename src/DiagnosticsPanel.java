@@ -0,0 +1,211 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Shows EDT stalls, panel timings and query statistics collected at runtime,
+ * and the SQLite settings and file sizes of the database
+ */
+public class DiagnosticsPanel extends JPanel {
+    private JTable stallsTable;
+    private DefaultTableModel stallsModel;
+    private JTextArea stackArea;
+    private DefaultTableModel panelsModel;
+    private DefaultTableModel queriesModel;
+    private DefaultTableModel databaseModel;
+    private JLabel summaryLabel;
+    private List<UiDiagnostics.Stall> stalls;
+
+    public DiagnosticsPanel() {
+        setupPanel();
+        initComponents();
+        refresh();
+    }
+
+    private void setupPanel() {
+        setLayout(new BorderLayout(10, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+    }
+
+    private void initComponents() {
+        summaryLabel = new JLabel();
+        JPanel summaryPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        summaryPanel.add(summaryLabel);
+
+        JTabbedPane tabbedPane = new JTabbedPane();
+
+        // EDT stalls with the stack of the selected one
+        stallsModel = createModel(new String[]{"Time", "Duration (ms)", "Event", "Blocked in"});
+        stallsTable = new JTable(stallsModel);
+        stallsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        stallsTable.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                showSelectedStack();
+            }
+        });
+        stackArea = new JTextArea();
+        stackArea.setEditable(false);
+        stackArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JSplitPane stallsSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+            new JScrollPane(stallsTable), new JScrollPane(stackArea));
+        stallsSplit.setResizeWeight(0.5);
+        tabbedPane.addTab("EDT Stalls", stallsSplit);
+
+        panelsModel = createModel(new String[]{"Operation", "Count", "Mean (ms)", "p95 (ms)", "Max (ms)"});
+        tabbedPane.addTab("Panels", new JScrollPane(new JTable(panelsModel)));
+
+        queriesModel = createModel(new String[]{"Statement", "Count", "Total (ms)", "Mean (ms)", "p95 (ms)",
+            "Max (ms)", "Rows", "Called from"});
+        JTable queriesTable = new JTable(queriesModel);
+        queriesTable.getColumnModel().getColumn(0).setPreferredWidth(400);
+        queriesTable.getColumnModel().getColumn(7).setPreferredWidth(300);
+        tabbedPane.addTab("Queries", new JScrollPane(queriesTable));
+
+        // Settings in effect on the UI connection, sizes and the maintenance jobs
+        databaseModel = createModel(new String[]{"Setting", "Value"});
+        JPanel databasePanel = new JPanel(new BorderLayout(5, 5));
+        databasePanel.add(new JScrollPane(new JTable(databaseModel)), BorderLayout.CENTER);
+        JButton optimizeButton = new JButton("Optimize Now");
+        optimizeButton.addActionListener(e -> DatabaseMaintenance.getInstance().optimizeNow());
+        JPanel optimizePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        optimizePanel.add(optimizeButton);
+        databasePanel.add(optimizePanel, BorderLayout.SOUTH);
+        tabbedPane.addTab("Database", databasePanel);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout());
+        JButton refreshButton = new JButton("Refresh");
+        JButton resetButton = new JButton("Reset");
+        JButton dumpButton = new JButton("Write Dump File");
+
+        refreshButton.addActionListener(e -> refresh());
+        resetButton.addActionListener(e -> reset());
+        dumpButton.addActionListener(e -> writeDump());
+
+        buttonPanel.add(refreshButton);
+        buttonPanel.add(resetButton);
+        buttonPanel.add(dumpButton);
+
+        add(summaryPanel, BorderLayout.NORTH);
+        add(tabbedPane, BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    private static DefaultTableModel createModel(String[] columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    public void refresh() {
+        UiDiagnostics diagnostics = UiDiagnostics.getInstance();
+        LatencyHistogram dispatch = diagnostics.getDispatchHistogram();
+        summaryLabel.setText(String.format(Locale.ROOT,
+            "Event dispatch: %d events, p99 %.1f ms, max %.1f ms — stall threshold %d ms",
+            dispatch.getCount(), dispatch.getPercentileMicros(0.99) / 1000.0,
+            dispatch.getMaxMicros() / 1000.0, diagnostics.getThresholdMillis()));
+
+        SimpleDateFormat timeFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+        stalls = diagnostics.getStalls();
+        stallsModel.setRowCount(0);
+        for (UiDiagnostics.Stall stall : stalls) {
+            stallsModel.addRow(new Object[]{
+                timeFormat.format(stall.getTime()),
+                String.format("%.1f", stall.getMillis()),
+                stall.getEvent(),
+                stall.getTopFrame()
+            });
+        }
+        stackArea.setText("");
+
+        panelsModel.setRowCount(0);
+        for (Map.Entry<String, LatencyHistogram> entry : diagnostics.getPanelTimings().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            panelsModel.addRow(new Object[]{
+                entry.getKey(),
+                histogram.getCount(),
+                String.format("%.1f", histogram.getMeanMicros() / 1000.0),
+                String.format("%.1f", histogram.getPercentileMicros(0.95) / 1000.0),
+                String.format("%.1f", histogram.getMaxMicros() / 1000.0)
+            });
+        }
+
+        queriesModel.setRowCount(0);
+        for (QueryStats.StatementStats stats : QueryStats.getInstance().getStatements()) {
+            LatencyHistogram histogram = stats.getHistogram();
+            Vector<Object> row = new Vector<>();
+            row.add(stats.getSql());
+            row.add(histogram.getCount());
+            row.add(String.format("%.1f", histogram.getTotalMicros() / 1000.0));
+            row.add(String.format("%.2f", histogram.getMeanMicros() / 1000.0));
+            row.add(String.format("%.2f", histogram.getPercentileMicros(0.95) / 1000.0));
+            row.add(String.format("%.2f", histogram.getMaxMicros() / 1000.0));
+            row.add(stats.getRows());
+            row.add(String.join(", ", stats.getCallSites().keySet()));
+            queriesModel.addRow(row);
+        }
+
+        refreshDatabase(timeFormat);
+    }
+
+    private void refreshDatabase(SimpleDateFormat timeFormat) {
+        databaseModel.setRowCount(0);
+        try {
+            Map<String, String> status = DatabaseProfile.describe(DatabaseManager.getInstance().getConnection());
+            for (Map.Entry<String, String> entry : status.entrySet()) {
+                databaseModel.addRow(new Object[]{entry.getKey(), entry.getValue()});
+            }
+        } catch (SQLException e) {
+            databaseModel.addRow(new Object[]{"Error", e.getMessage()});
+        }
+
+        DatabaseWriter writer = DatabaseWriter.getInstance();
+        databaseModel.addRow(new Object[]{"Writer commits",
+            String.format(Locale.ROOT, "%d (avg %.1f units each)", writer.getBatchCount(), writer.getAverageBatchSize())});
+
+        DatabaseMaintenance maintenance = DatabaseMaintenance.getInstance();
+        databaseModel.addRow(new Object[]{"Last optimize",
+            maintenance.getLastOptimize() == null ? maintenance.getLastOptimizeResult()
+                : timeFormat.format(maintenance.getLastOptimize()) + " — " + maintenance.getLastOptimizeResult()});
+        databaseModel.addRow(new Object[]{"Last checkpoint", maintenance.getLastCheckpointResult()});
+        databaseModel.addRow(new Object[]{"Last vacuum", maintenance.getLastVacuumResult()});
+    }
+
+    private void showSelectedStack() {
+        int selectedRow = stallsTable.getSelectedRow();
+        if (selectedRow != -1 && stalls != null && selectedRow < stalls.size()) {
+            stackArea.setText(stalls.get(selectedRow).formatStack(""));
+            stackArea.setCaretPosition(0);
+        }
+    }
+
+    private void reset() {
+        UiDiagnostics.getInstance().reset();
+        QueryStats.getInstance().reset();
+        refresh();
+    }
+
+    private void writeDump() {
+        try {
+            File file = UiDiagnostics.getInstance().writeDump();
+            JOptionPane.showMessageDialog(this,
+                "Diagnostics written to:\n" + file.getAbsolutePath(),
+                "Success", JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                "Error writing diagnostics: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
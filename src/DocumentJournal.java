@@ -0,0 +1,407 @@
+import javax.swing.*;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-ahead queue for the order and invoice saves of the dialogs
+ * A save is written to the CommandJournal and acknowledged at once, so the
+ * dialog closes without waiting for SQLite's write lock. The shared
+ * DatabaseWriter then applies the saves in order, several per transaction
+ * together with the other background writes, and publishes
+ * OrderSaved / InvoiceSaved once each one is committed.
+ *
+ * Every applied save records its journal sequence in journal_applied inside
+ * its own transaction, so a command replayed after a crash is applied
+ * exactly once. Saves still in the journal at startup are replayed before
+ * the UI can queue new ones. A save that waits too long for the lock is
+ * retried; one that fails for any other reason is copied with the error to
+ * the failed-commands file and reported, so the input is never lost. Later
+ * saves of the same document are held until the earlier one has committed or
+ * been given up, so a retry never lands on top of a newer save.
+ *
+ * Settings in app_settings.properties:
+ *   command_journal_file     default journal/documents.journal
+ *   command_journal_size_kb  default 1024
+ *   command_journal_failed   default journal/failed_commands.log
+ */
+public class DocumentJournal {
+    private static DocumentJournal instance;
+
+    private static final long RETRY_DELAY_MS = 1000;
+    // SQLITE_BUSY and SQLITE_LOCKED, the primary codes under the extended ones
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    // Last queued save of each existing document, keyed by type and id
+    private final Map<String, CompletableFuture<Integer>> lastSaves = new HashMap<>();
+    private volatile CommandJournal journal;
+    private volatile DatabaseWriter writer;
+    private final ScheduledExecutorService retries;
+
+    private DocumentJournal() {
+        retries = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "document-journal-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized DocumentJournal getInstance() {
+        if (instance == null) {
+            instance = new DocumentJournal();
+        }
+        return instance;
+    }
+
+    /**
+     * Open the journal and replay the saves the previous run did not apply
+     * Without a journal (e.g. a read-only directory) saves are still queued,
+     * only not protected against a crash.
+     */
+    public synchronized void start() {
+        writer = DatabaseWriter.getInstance();
+        File file = new File(AppSettings.get("command_journal_file", "journal/documents.journal"));
+        try {
+            journal = new CommandJournal(file, AppSettings.getInt("command_journal_size_kb", 1024) * 1024);
+        } catch (IOException e) {
+            System.err.println("Error opening the command journal, saves are not journaled: " + e.getMessage());
+            return;
+        }
+
+        List<CommandJournal.Entry> pending = journal.getPending();
+        if (!pending.isEmpty()) {
+            System.out.println("Replaying " + pending.size() + " journaled saves");
+        }
+        for (CommandJournal.Entry entry : pending) {
+            try {
+                submit(entry.getSequence(), Json.parseObject(entry.getPayload()));
+            } catch (RuntimeException e) {
+                giveUp(entry.getSequence(), entry.getPayload(), e);
+            }
+        }
+    }
+
+    /**
+     * Journal an order save and queue it
+     *
+     * @return Completes with the order id once the save is committed
+     */
+    public CompletableFuture<Integer> saveOrder(Order order) throws IOException {
+        Map<String, Object> command = new LinkedHashMap<>();
+        command.put("type", "order");
+        command.put("order", toJson(order));
+        return enqueue(command);
+    }
+
+    /**
+     * Journal an invoice save and queue it
+     *
+     * @return Completes with the invoice id once the save is committed
+     */
+    public CompletableFuture<Integer> saveInvoice(Invoice invoice) throws IOException {
+        Map<String, Object> command = new LinkedHashMap<>();
+        command.put("type", "invoice");
+        command.put("invoice", toJson(invoice));
+        return enqueue(command);
+    }
+
+    /**
+     * Saves journaled or queued but not committed yet
+     */
+    public synchronized int getPendingCount() {
+        return journal != null ? journal.getOutstandingCount() : 0;
+    }
+
+    private synchronized CompletableFuture<Integer> enqueue(Map<String, Object> command) throws IOException {
+        if (writer == null) {
+            throw new IOException("Document journal is not started");
+        }
+        long sequence = journal != null ? journal.append(Json.write(command)) : 0;
+        return submit(sequence, command);
+    }
+
+    /**
+     * Queue a save behind the pending save of the same document, if any
+     */
+    private synchronized CompletableFuture<Integer> submit(long sequence, Map<String, Object> command) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        String key = documentKey(command);
+        CompletableFuture<Integer> previous = key != null ? lastSaves.get(key) : null;
+        if (previous == null) {
+            submit(sequence, command, result);
+        } else {
+            previous.whenComplete((id, error) -> submit(sequence, command, result));
+        }
+        if (key != null) {
+            lastSaves.put(key, result);
+            result.whenComplete((id, error) -> forget(key, result));
+        }
+        return result;
+    }
+
+    private synchronized void forget(String key, CompletableFuture<Integer> save) {
+        lastSaves.remove(key, save);
+    }
+
+    /**
+     * "order:12" or "invoice:7"; null for a new document, which nothing else can refer to yet
+     */
+    private static String documentKey(Map<String, Object> command) {
+        String type = String.valueOf(command.get("type"));
+        int id = intOf(asMap(command.get(type)), "id");
+        return id > 0 ? type + ":" + id : null;
+    }
+
+    private void submit(long sequence, Map<String, Object> command, CompletableFuture<Integer> result) {
+        // Archive entry the save made stale, released once the save is committed
+        String[] staleArchive = new String[1];
+        writer.submit(conn -> apply(conn, sequence, command, staleArchive)).whenComplete((id, error) -> {
+            if (error == null) {
+                markApplied(sequence);
+                // After the commit, so listeners read the saved document
+                if ("order".equals(command.get("type"))) {
+                    EventBus.getInstance().publish(new EventBus.OrderSaved(id));
+                } else {
+                    EventBus.getInstance().publish(new EventBus.InvoiceSaved(id));
+                    // InvoiceArchive re-archives it on InvoiceSaved if it is still issued
+                    if (staleArchive[0] != null) {
+                        InvoiceArchive.getInstance().releaseLater(staleArchive[0]);
+                    }
+                }
+                result.complete(id);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            if (writer.isClosed()) {
+                // Shutting down: the journal still has it for the next start
+                result.completeExceptionally(cause);
+            } else if (isBusy(cause)) {
+                retries.schedule(() -> submit(sequence, command, result), RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+            } else {
+                giveUp(sequence, Json.write(command), cause);
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * Runs on the writer thread, inside its transaction
+     */
+    private Integer apply(Connection conn, long sequence, Map<String, Object> command, String[] staleArchive)
+            throws SQLException {
+        staleArchive[0] = null;
+        if (sequence > 0) {
+            Integer applied = findApplied(conn, sequence);
+            if (applied != null) {
+                return applied;
+            }
+        }
+
+        int id;
+        if ("order".equals(command.get("type"))) {
+            Order order = parseOrder(asMap(command.get("order")));
+            id = OrderService.saveOrder(conn, order);
+        } else if ("invoice".equals(command.get("type"))) {
+            Invoice invoice = parseInvoice(asMap(command.get("invoice")));
+            staleArchive[0] = InvoiceArchive.getInstance().removeIfChanged(conn, invoice);
+            id = InvoiceService.saveInvoice(conn, invoice);
+        } else {
+            throw new IllegalArgumentException("Unknown command " + command.get("type"));
+        }
+
+        if (sequence > 0) {
+            String insert = "INSERT INTO journal_applied (sequence, document_id) VALUES (?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(insert)) {
+                pstmt.setLong(1, sequence);
+                pstmt.setInt(2, id);
+                pstmt.executeUpdate();
+            }
+            // Sequences the journal no longer replays need no marker
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM journal_applied WHERE sequence <= ?")) {
+                pstmt.setLong(1, journal.getAppliedThrough());
+                pstmt.executeUpdate();
+            }
+        }
+        return id;
+    }
+
+    private static Integer findApplied(Connection conn, long sequence) throws SQLException {
+        String query = "SELECT document_id FROM journal_applied WHERE sequence = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setLong(1, sequence);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("document_id") : null;
+            }
+        }
+    }
+
+    private void markApplied(long sequence) {
+        if (sequence > 0) {
+            journal.markApplied(sequence);
+        }
+    }
+
+    private static boolean isBusy(Throwable error) {
+        if (!(error instanceof SQLException)) {
+            return false;
+        }
+        int code = ((SQLException) error).getErrorCode() & 0xff;
+        return code == SQLITE_BUSY || code == SQLITE_LOCKED;
+    }
+
+    /**
+     * Keep a save that cannot be applied out of the replay and tell the user where it went
+     */
+    private void giveUp(long sequence, String payload, Throwable error) {
+        error.printStackTrace();
+        File file = new File(AppSettings.get("command_journal_failed", "journal/failed_commands.log"));
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            directory.mkdirs();
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.println(Instant.now() + " #" + sequence + " " + error);
+            out.println(payload);
+        } catch (IOException e) {
+            System.err.println("Error writing " + file + ": " + e.getMessage() + "\n" + payload);
+        }
+        markApplied(sequence);
+
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+            "A saved document could not be written to the database:\n" + error.getMessage() +
+            "\n\nIts data was kept in " + file.getPath(),
+            "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    /**
+     * Close the journal; close the shared DatabaseWriter first so the queued
+     * saves are applied and marked
+     */
+    public synchronized void close() {
+        retries.shutdownNow();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing the command journal: " + e.getMessage());
+            }
+        }
+    }
+
+    // JSON mapping
+
+    private static Map<String, Object> toJson(Order order) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", order.getId());
+        json.put("customer_id", order.getCustomerId());
+        json.put("date", order.getOrderDate());
+        json.put("status", order.getStatus());
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (OrderItem item : order.getItems()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("product_id", item.getProductId());
+            line.put("product_name", item.getProductName());
+            line.put("quantity", item.getQuantity());
+            line.put("unit_price", item.getUnitPrice());
+            items.add(line);
+        }
+        json.put("items", items);
+        return json;
+    }
+
+    private static Order parseOrder(Map<String, Object> json) {
+        Order order = new Order(intOf(json, "id"), intOf(json, "customer_id"), null,
+            dateOf(json, "date"), (String) json.get("status"), 0);
+        for (Map<String, Object> item : itemsOf(json)) {
+            order.getItems().add(new OrderItem(0, order.getId(), intOf(item, "product_id"),
+                (String) item.get("product_name"), intOf(item, "quantity"), doubleOf(item, "unit_price")));
+        }
+        return order;
+    }
+
+    private static Map<String, Object> toJson(Invoice invoice) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", invoice.getId());
+        json.put("number", invoice.getNumber());
+        json.put("customer_id", invoice.getCustomerId());
+        json.put("date", invoice.getDate());
+        json.put("status", invoice.getStatus());
+        json.put("taxable_amount", invoice.getTaxableAmount());
+        json.put("vat", invoice.getVat());
+        json.put("total", invoice.getTotal());
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (InvoiceItem item : invoice.getItems()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("product_id", item.getProductId());
+            line.put("product_code", item.getProductCode());
+            line.put("product_name", item.getProductName());
+            line.put("quantity", item.getQuantity());
+            line.put("unit_price", item.getUnitPrice());
+            line.put("vat_rate", item.getVatRate());
+            line.put("total", item.getTotal());
+            items.add(line);
+        }
+        json.put("items", items);
+        return json;
+    }
+
+    private static Invoice parseInvoice(Map<String, Object> json) {
+        Invoice invoice = new Invoice(intOf(json, "id"), (String) json.get("number"), dateOf(json, "date"),
+            intOf(json, "customer_id"), null, doubleOf(json, "taxable_amount"), doubleOf(json, "vat"),
+            doubleOf(json, "total"), (String) json.get("status"));
+        for (Map<String, Object> item : itemsOf(json)) {
+            invoice.getItems().add(new InvoiceItem(0, invoice.getId(), intOf(item, "product_id"),
+                (String) item.get("product_name"), (String) item.get("product_code"),
+                intOf(item, "quantity"), doubleOf(item, "unit_price"), doubleOf(item, "vat_rate"),
+                doubleOf(item, "total")));
+        }
+        return invoice;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Malformed journal command");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private static List<Map<String, Object>> itemsOf(Map<String, Object> json) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Object item : (List<?>) json.get("items")) {
+            items.add(asMap(item));
+        }
+        return items;
+    }
+
+    private static int intOf(Map<String, Object> json, String field) {
+        return ((Number) json.get(field)).intValue();
+    }
+
+    private static double doubleOf(Map<String, Object> json, String field) {
+        return ((Number) json.get(field)).doubleValue();
+    }
+
+    private static Date dateOf(Map<String, Object> json, String field) {
+        Object value = json.get(field);
+        if (value == null || value instanceof Date) {
+            // Commands queued in this run still hold the Date they were built with
+            return (Date) value;
+        }
+        return Date.from(Instant.parse(value.toString()));
+    }
+}
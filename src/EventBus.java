@@ -0,0 +1,207 @@
+import javax.swing.SwingUtilities;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process bus for data-change events
+ * publish() may be called from any thread, including inside a transaction.
+ * Events are collected for a short window, duplicates are dropped, and each
+ * subscriber then receives the burst of its event type as one list on the EDT.
+ * An event published by a save on the EDT is delivered after that save's
+ * transaction has finished. Events published from background threads (the
+ * DatabaseWriter, imports, batch jobs) may be delivered before their
+ * transaction commits, or after it rolled back, so listeners must re-read
+ * committed data and tolerate changes that are not there yet.
+ */
+public class EventBus {
+    private static EventBus instance;
+
+    // Bursts published within this window are delivered together
+    private static final long COALESCE_DELAY_MS = 50;
+
+    /**
+     * Receives the coalesced events of one type, in publishing order
+     */
+    public interface Listener<T> {
+        void onEvents(List<T> events);
+    }
+
+    private final Map<Class<?>, List<Listener<?>>> listeners = new HashMap<>();
+    private final Set<Object> pending = new LinkedHashSet<>();
+    private boolean deliveryScheduled = false;
+    private volatile boolean deliverOnEdt = true;
+    private final ScheduledExecutorService scheduler;
+
+    private EventBus() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "event-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized EventBus getInstance() {
+        if (instance == null) {
+            instance = new EventBus();
+        }
+        return instance;
+    }
+
+    /**
+     * Headless processes have no EDT; there listeners run on the bus thread
+     */
+    public void setDeliverOnEdt(boolean deliverOnEdt) {
+        this.deliverOnEdt = deliverOnEdt;
+    }
+
+    public <T> void subscribe(Class<T> type, Listener<T> listener) {
+        synchronized (listeners) {
+            listeners.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>()).add(listener);
+        }
+    }
+
+    public <T> void unsubscribe(Class<T> type, Listener<T> listener) {
+        synchronized (listeners) {
+            List<Listener<?>> list = listeners.get(type);
+            if (list != null) {
+                list.remove(listener);
+            }
+        }
+    }
+
+    public void publish(Object event) {
+        synchronized (pending) {
+            pending.add(event);
+            if (!deliveryScheduled) {
+                deliveryScheduled = true;
+                scheduler.schedule(() -> {
+                    if (deliverOnEdt) {
+                        SwingUtilities.invokeLater(this::deliver);
+                    } else {
+                        deliver();
+                    }
+                }, COALESCE_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void deliver() {
+        List<Object> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending);
+            pending.clear();
+            deliveryScheduled = false;
+        }
+
+        Map<Class<?>, List<Object>> byType = new LinkedHashMap<>();
+        for (Object event : batch) {
+            byType.computeIfAbsent(event.getClass(), k -> new ArrayList<>()).add(event);
+        }
+
+        for (Map.Entry<Class<?>, List<Object>> e : byType.entrySet()) {
+            List<Listener<?>> subscribers;
+            synchronized (listeners) {
+                subscribers = listeners.get(e.getKey());
+            }
+            if (subscribers == null) {
+                continue;
+            }
+            for (Listener<?> listener : subscribers) {
+                try {
+                    dispatch(listener, e.getValue());
+                } catch (Exception ex) {
+                    // One failing panel must not stop the others from updating
+                    ex.printStackTrace();
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void dispatch(Listener<T> listener, List<Object> events) {
+        listener.onEvents((List<T>) events);
+    }
+
+    /**
+     * Ids carried by a list of entity events
+     */
+    public static Set<Integer> idsOf(List<? extends EntityEvent> events) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (EntityEvent event : events) {
+            ids.add(event.getId());
+        }
+        return ids;
+    }
+
+    // Events
+
+    /**
+     * Change of one row of an entity; equal events within a burst are coalesced
+     */
+    public abstract static class EntityEvent {
+        private final int id;
+        private final boolean deleted;
+
+        protected EntityEvent(int id, boolean deleted) {
+            this.id = id;
+            this.deleted = deleted;
+        }
+
+        public int getId() { return id; }
+        public boolean isDeleted() { return deleted; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || o.getClass() != getClass()) return false;
+            EntityEvent other = (EntityEvent) o;
+            return id == other.id && deleted == other.deleted;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getClass(), id, deleted);
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "[" + id + (deleted ? ", deleted" : "") + "]";
+        }
+    }
+
+    public static class ProductChanged extends EntityEvent {
+        public ProductChanged(int productId) { super(productId, false); }
+        public ProductChanged(int productId, boolean deleted) { super(productId, deleted); }
+    }
+
+    /**
+     * Physical or reserved quantity of a product changed
+     */
+    public static class StockMoved extends EntityEvent {
+        public StockMoved(int productId) { super(productId, false); }
+    }
+
+    public static class InvoiceSaved extends EntityEvent {
+        public InvoiceSaved(int invoiceId) { super(invoiceId, false); }
+        public InvoiceSaved(int invoiceId, boolean deleted) { super(invoiceId, deleted); }
+    }
+
+    public static class OrderSaved extends EntityEvent {
+        public OrderSaved(int orderId) { super(orderId, false); }
+        public OrderSaved(int orderId, boolean deleted) { super(orderId, deleted); }
+    }
+
+    public static class CustomerChanged extends EntityEvent {
+        public CustomerChanged(int customerId) { super(customerId, false); }
+        public CustomerChanged(int customerId, boolean deleted) { super(customerId, deleted); }
+    }
+
+    /**
+     * New warehouse notifications were written
+     */
+    public static class NotificationsCreated extends EntityEvent {
+        public NotificationsCreated() { super(0, false); }
+    }
+}
@@ -0,0 +1,422 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Archive of issued invoice PDFs
+ * Each invoice is rendered once when it is issued; the bytes are stored in a
+ * content-addressed blob store next to the database and indexed by hash in
+ * the invoice_archive table, so later requests never depend on live product data.
+ * Editing an archived invoice drops its entry (and re-archives it if it is
+ * still issued); deleting it drops the entry in the same transaction and the
+ * blob file only after the commit.
+ *
+ * Every committed save publishes EventBus.InvoiceSaved, from the dialogs and
+ * the API alike; an issued invoice without an entry is then rendered on the
+ * archive thread and its entry written through the shared DatabaseWriter.
+ */
+public class InvoiceArchive {
+    private static InvoiceArchive instance;
+    private static final String ARCHIVE_DIR = "invoice_archive";
+
+    // Compressed blobs are only kept if they save at least this fraction of the size
+    private static final double MIN_COMPRESSION_GAIN = 0.10;
+
+    public static final String COMPRESSION_NONE = "NONE";
+    public static final String COMPRESSION_DEFLATE = "DEFLATE";
+
+    private final Path archiveDir;
+    private final ExecutorService executor;
+
+    private InvoiceArchive() {
+        this.archiveDir = Paths.get(ARCHIVE_DIR);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "invoice-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized InvoiceArchive getInstance() {
+        if (instance == null) {
+            instance = new InvoiceArchive();
+        }
+        return instance;
+    }
+
+    /**
+     * Archive invoices as their saves commit
+     */
+    public void start() {
+        EventBus.getInstance().subscribe(EventBus.InvoiceSaved.class, events -> {
+            for (EventBus.InvoiceSaved event : events) {
+                if (!event.isDeleted()) {
+                    archiveLater(event.getId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Render and archive the invoice in the background if it is issued and
+     * has no entry yet
+     */
+    public void archiveLater(int invoiceId) {
+        executor.execute(() -> {
+            try (Connection conn = DatabaseManager.getInstance().openReadOnlyConnection()) {
+                Invoice invoice = InvoiceRepository.findById(conn, invoiceId);
+                if (invoice == null || !InvoicePDFGenerator.isArchivable(invoice.getStatus())
+                        || findEntry(conn, invoiceId) != null) {
+                    return;
+                }
+                Customer customer = CustomerRepository.findById(conn, invoice.getCustomerId());
+                archiveInvoice(invoice, customer);
+            } catch (SQLException | IOException e) {
+                // The invoice itself is saved; the PDF gets archived on first generation instead
+                System.err.println("Error archiving invoice " + invoiceId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Release a blob in the background, after the save that dropped its entry has committed
+     */
+    public void releaseLater(String hash) {
+        executor.execute(() -> {
+            try {
+                DatabaseWriter.getInstance().execute(conn -> {
+                    releaseBlob(conn, hash);
+                    return null;
+                });
+            } catch (SQLException e) {
+                System.err.println("Error releasing archived blob " + hash + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Check whether an invoice already has an archived PDF
+     */
+    public boolean isArchived(int invoiceId) throws SQLException {
+        return findEntry(invoiceId) != null;
+    }
+
+    /**
+     * Render the invoice and store it in the archive, replacing any previous entry
+     */
+    public ArchiveEntry archiveInvoice(Invoice invoice, Customer customer) throws IOException, SQLException {
+        byte[] pdf = InvoicePDFGenerator.renderInvoicePDF(invoice, customer);
+        return store(invoice.getId(), invoice.getNumber(), pdf);
+    }
+
+    /**
+     * Store already rendered PDF bytes for an invoice
+     * The blob is written first and the entry through the DatabaseWriter; the
+     * unit writes the file again if a release removed it in between, so a
+     * committed entry always has its file.
+     */
+    public ArchiveEntry store(int invoiceId, String invoiceNumber, byte[] pdf) throws IOException, SQLException {
+        String hash = sha256(pdf);
+        ArchiveEntry blob = writeBlob(hash, pdf);
+
+        String query = """
+            INSERT OR REPLACE INTO invoice_archive
+            (invoice_id, invoice_number, content_hash, original_size, stored_size, compression, archived_at)
+            VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+        """;
+        DatabaseWriter.getInstance().execute(conn -> {
+            ArchiveEntry previous = findEntry(conn, invoiceId);
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, invoiceId);
+                pstmt.setString(2, invoiceNumber);
+                pstmt.setString(3, hash);
+                pstmt.setLong(4, blob.getOriginalSize());
+                pstmt.setLong(5, blob.getStoredSize());
+                pstmt.setString(6, blob.getCompression());
+                pstmt.executeUpdate();
+            }
+            ensureBlob(hash, pdf);
+
+            // Drop the old blob if this invoice was its last reference
+            if (previous != null && !previous.getHash().equals(hash)) {
+                releaseBlob(conn, previous.getHash());
+            }
+            return null;
+        });
+
+        return new ArchiveEntry(invoiceId, hash, blob.getOriginalSize(),
+            blob.getStoredSize(), blob.getCompression());
+    }
+
+    /**
+     * Copy the archived PDF of an invoice to the given file
+     * Uncompressed blobs are copied with FileChannel.transferTo so the bytes
+     * never pass through the Java heap.
+     *
+     * @return false if the invoice is not archived
+     */
+    public boolean exportTo(int invoiceId, File target) throws IOException, SQLException {
+        ArchiveEntry entry = findEntry(invoiceId);
+        if (entry == null) {
+            return false;
+        }
+
+        Path blob = blobPath(entry.getHash());
+        if (!Files.exists(blob)) {
+            System.err.println("Archived blob missing for invoice " + invoiceId + ": " + blob);
+            return false;
+        }
+
+        if (COMPRESSION_NONE.equals(entry.getCompression())) {
+            try (FileChannel in = FileChannel.open(blob, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(target.toPath(),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = 0;
+                long size = in.size();
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
+                }
+            }
+        } else {
+            try (InputStream in = new InflaterInputStream(
+                     new BufferedInputStream(Files.newInputStream(blob)))) {
+                Files.copy(in, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove the archive entry of a deleted invoice
+     */
+    public synchronized void removeInvoice(int invoiceId) throws SQLException {
+        Connection conn = DatabaseManager.getInstance().getConnection();
+        String hash = removeEntry(conn, invoiceId);
+        if (hash != null) {
+            releaseBlob(conn, hash);
+        }
+    }
+
+    /**
+     * Delete the archive entry of an invoice inside the caller's transaction
+     * The blob stays on disk; pass the returned hash to releaseBlob() once the
+     * transaction has committed, so a rollback never loses the file.
+     *
+     * @return The hash of the removed entry, or null if there was none
+     */
+    public String removeEntry(Connection conn, int invoiceId) throws SQLException {
+        ArchiveEntry entry = findEntry(conn, invoiceId);
+        if (entry == null) {
+            return null;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "DELETE FROM invoice_archive WHERE invoice_id = ?")) {
+            pstmt.setInt(1, invoiceId);
+            pstmt.executeUpdate();
+        }
+        return entry.getHash();
+    }
+
+    /**
+     * Remove the archive entry if the invoice about to be saved no longer
+     * matches the archived PDF: its status, date, customer or lines changed
+     * Runs in the save transaction, before InvoiceService.saveInvoice().
+     *
+     * @return The hash to pass to releaseBlob() after the commit, or null
+     */
+    public String removeIfChanged(Connection conn, Invoice invoice) throws SQLException {
+        if (invoice.getId() == 0 || findEntry(conn, invoice.getId()) == null) {
+            return null;
+        }
+        Invoice stored = InvoiceRepository.findById(conn, invoice.getId());
+        if (stored != null && sameContent(stored, invoice)) {
+            return null;
+        }
+        return removeEntry(conn, invoice.getId());
+    }
+
+    private static boolean sameContent(Invoice stored, Invoice invoice) {
+        if (!stored.getStatus().equals(invoice.getStatus())
+                || stored.getCustomerId() != invoice.getCustomerId()
+                || stored.getDate() == null || invoice.getDate() == null
+                || stored.getDate().getTime() != invoice.getDate().getTime()
+                || stored.getItems().size() != invoice.getItems().size()) {
+            return false;
+        }
+        for (int i = 0; i < stored.getItems().size(); i++) {
+            InvoiceItem a = stored.getItems().get(i);
+            InvoiceItem b = invoice.getItems().get(i);
+            if (a.getProductId() != b.getProductId() || a.getQuantity() != b.getQuantity()
+                    || a.getUnitPrice() != b.getUnitPrice() || a.getVatRate() != b.getVatRate()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Delete a blob file no committed entry refers to any more
+     */
+    public synchronized void releaseBlob(Connection conn, String hash) throws SQLException {
+        if (findBlob(conn, hash) != null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(blobPath(hash));
+        } catch (IOException e) {
+            System.err.println("Failed to delete archived blob " + hash + ": " + e.getMessage());
+        }
+    }
+
+    private ArchiveEntry findEntry(int invoiceId) throws SQLException {
+        return findEntry(DatabaseManager.getInstance().getConnection(), invoiceId);
+    }
+
+    private ArchiveEntry findEntry(Connection conn, int invoiceId) throws SQLException {
+        String query = """
+            SELECT invoice_id, content_hash, original_size, stored_size, compression
+            FROM invoice_archive
+            WHERE invoice_id = ?
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, invoiceId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapEntry(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    private ArchiveEntry findBlob(Connection conn, String hash) throws SQLException {
+        String query = """
+            SELECT invoice_id, content_hash, original_size, stored_size, compression
+            FROM invoice_archive
+            WHERE content_hash = ?
+            LIMIT 1
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, hash);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapEntry(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    private ArchiveEntry mapEntry(ResultSet rs) throws SQLException {
+        return new ArchiveEntry(
+            rs.getInt("invoice_id"),
+            rs.getString("content_hash"),
+            rs.getLong("original_size"),
+            rs.getLong("stored_size"),
+            rs.getString("compression")
+        );
+    }
+
+    /**
+     * Write the blob again if a release deleted it since writeBlob; under the same lock as releaseBlob
+     */
+    private synchronized void ensureBlob(String hash, byte[] pdf) throws SQLException {
+        if (Files.exists(blobPath(hash))) {
+            return;
+        }
+        try {
+            writeBlob(hash, pdf);
+        } catch (IOException e) {
+            throw new SQLException("Cannot write archived blob " + hash + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the blob unless the file already exists; deflating the same bytes
+     * always gives the same result, so the returned sizes match an existing file
+     */
+    private ArchiveEntry writeBlob(String hash, byte[] pdf) throws IOException {
+        byte[] compressed = deflate(pdf);
+        boolean useCompression = compressed.length <= pdf.length * (1.0 - MIN_COMPRESSION_GAIN);
+        byte[] stored = useCompression ? compressed : pdf;
+
+        Path blob = blobPath(hash);
+        if (!Files.exists(blob)) {
+            Files.createDirectories(blob.getParent());
+
+            // Write to a temp file first so a crash never leaves a truncated blob under its hash
+            Path temp = Files.createTempFile(blob.getParent(), hash, ".tmp");
+            try {
+                Files.write(temp, stored);
+                Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        return new ArchiveEntry(0, hash, pdf.length, stored.length,
+            useCompression ? COMPRESSION_DEFLATE : COMPRESSION_NONE);
+    }
+
+    private Path blobPath(String hash) {
+        // Shard by the first two hex digits to keep directories small
+        return archiveDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(bos, deflater)) {
+            dos.write(data);
+        } finally {
+            deflater.end();
+        }
+        return bos.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(data);
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Helper classes
+
+    public static class ArchiveEntry {
+        private int invoiceId;
+        private String hash;
+        private long originalSize;
+        private long storedSize;
+        private String compression;
+
+        public ArchiveEntry(int invoiceId, String hash, long originalSize, long storedSize, String compression) {
+            this.invoiceId = invoiceId;
+            this.hash = hash;
+            this.originalSize = originalSize;
+            this.storedSize = storedSize;
+            this.compression = compression;
+        }
+
+        public int getInvoiceId() { return invoiceId; }
+        public String getHash() { return hash; }
+        public long getOriginalSize() { return originalSize; }
+        public long getStoredSize() { return storedSize; }
+        public String getCompression() { return compression; }
+    }
+}
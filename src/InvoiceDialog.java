@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.text.SimpleDateFormat;
 import java.text.ParseException;
 import java.util.Date;
+import java.io.IOException;
 
 public class InvoiceDialog extends JDialog {
     private Invoice invoice;
@@ -431,20 +432,8 @@ public class InvoiceDialog extends JDialog {
     private void loadProducts() {
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT * FROM products ORDER BY name";
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    Product product = new Product(
-                        rs.getInt("id"),
-                        rs.getString("code"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getDouble("price"),
-                        rs.getInt("quantity")
-                    );
-                    productsCache.put(product.getId(), product);
-                }
+            for (Product product : ProductRepository.findAll(conn)) {
+                productsCache.put(product.getId(), product);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -604,12 +593,11 @@ public class InvoiceDialog extends JDialog {
             String newStatus = (String)statusCombo.getSelectedItem();
             String number = numberField.getText();
 
-            // Build list of stock items
-            List<StockManager.StockItem> stockItems = new ArrayList<>();
+            Invoice toSave = new Invoice(invoice != null ? invoice.getId() : 0, number, invoiceDate,
+                selectedCustomer.getId(), selectCustomerButton.getText(),
+                currentTaxableAmount, currentVat, currentTotal, newStatus);
             for (int i = 0; i < itemsTableModel.getRowCount(); i++) {
                 String code = (String)itemsTableModel.getValueAt(i, 0);
-                String productName = (String)itemsTableModel.getValueAt(i, 1);
-                int quantity = parseInteger(itemsTableModel.getValueAt(i, 2));
 
                 // Find product ID by code
                 int productId = -1;
@@ -619,121 +607,46 @@ public class InvoiceDialog extends JDialog {
                         break;
                     }
                 }
-                if (productId != -1) {
-                    stockItems.add(new StockManager.StockItem(productId, productName, quantity));
-                }
+                if (productId == -1) continue;
+
+                int quantity = parseInteger(itemsTableModel.getValueAt(i, 2));
+                double unitPrice = parseDouble(itemsTableModel.getValueAt(i, 3));
+                toSave.getItems().add(new InvoiceItem(0, toSave.getId(), productId,
+                    (String)itemsTableModel.getValueAt(i, 1), code, quantity, unitPrice,
+                    parseDouble(itemsTableModel.getValueAt(i, 4)), quantity * unitPrice));
             }
 
             // Check stock availability for Issued invoices
-            if ("Issued".equals(newStatus) || "Paid".equals(newStatus)) {
-                Map<String, StockManager.StockAvailability> insufficient =
-                    StockManager.checkStockAvailability(
-                        DatabaseManager.getInstance().getConnection(),
-                        stockItems,
-                        invoice != null ? invoice.getId() : null,
-                        "INVOICE"
-                    );
-
-                if (!insufficient.isEmpty()) {
-                    StringBuilder message = new StringBuilder("Insufficient stock for the following products:\n\n");
-                    for (Map.Entry<String, StockManager.StockAvailability> entry : insufficient.entrySet()) {
-                        message.append(String.format("- %s: %s\n",
-                            entry.getKey(), entry.getValue().getFormattedMessage()));
-                    }
-                    message.append("\nDo you want to proceed anyway?\nThis will result in negative stock.");
-
-                    int choice = JOptionPane.showConfirmDialog(this,
-                        message.toString(),
-                        "Insufficient Stock",
-                        JOptionPane.YES_NO_OPTION,
-                        JOptionPane.WARNING_MESSAGE);
-
-                    if (choice != JOptionPane.YES_OPTION) {
-                        return;
-                    }
+            Map<String, StockManager.StockAvailability> insufficient =
+                InvoiceService.checkStock(DatabaseManager.getInstance().getConnection(), toSave);
+
+            if (!insufficient.isEmpty()) {
+                StringBuilder message = new StringBuilder("Insufficient stock for the following products:\n\n");
+                for (Map.Entry<String, StockManager.StockAvailability> entry : insufficient.entrySet()) {
+                    message.append(String.format("- %s: %s\n",
+                        entry.getKey(), entry.getValue().getFormattedMessage()));
                 }
-            }
+                message.append("\nDo you want to proceed anyway?\nThis will result in negative stock.");
 
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            conn.setAutoCommit(false);
-            try {
-                int invoiceId;
-
-                if (invoice == null) {
-                    // New invoice
-                    String invoiceQuery = """
-                        INSERT INTO invoices (number, date, customer_id, taxable_amount, vat, total, status)
-                        VALUES (?, ?, ?, ?, ?, ?, ?)
-                    """;
-                    try (PreparedStatement pstmt = conn.prepareStatement(invoiceQuery, Statement.RETURN_GENERATED_KEYS)) {
-                        pstmt.setString(1, number);
-                        pstmt.setDate(2, new java.sql.Date(invoiceDate.getTime()));
-                        pstmt.setInt(3, selectedCustomer.getId());
-                        pstmt.setDouble(4, currentTaxableAmount);
-                        pstmt.setDouble(5, currentVat);
-                        pstmt.setDouble(6, currentTotal);
-                        pstmt.setString(7, newStatus);
-                        pstmt.executeUpdate();
-
-                        try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                            if (rs.next()) {
-                                invoiceId = rs.getInt(1);
-                            } else {
-                                throw new SQLException("Failed to get invoice ID");
-                            }
-                        }
-                    }
-
-                    insertInvoiceDetails(conn, invoiceId);
-
-                    // Handle stock based on status
-                    handleStockForNewStatus(conn, invoiceId, newStatus, stockItems, invoiceDate, number);
-
-                } else {
-                    // Update existing invoice
-                    invoiceId = invoice.getId();
-
-                    String invoiceQuery = """
-                        UPDATE invoices
-                        SET date = ?, customer_id = ?, taxable_amount = ?, vat = ?, total = ?, status = ?
-                        WHERE id = ?
-                    """;
-                    try (PreparedStatement pstmt = conn.prepareStatement(invoiceQuery)) {
-                        pstmt.setDate(1, new java.sql.Date(invoiceDate.getTime()));
-                        pstmt.setInt(2, selectedCustomer.getId());
-                        pstmt.setDouble(3, currentTaxableAmount);
-                        pstmt.setDouble(4, currentVat);
-                        pstmt.setDouble(5, currentTotal);
-                        pstmt.setString(6, newStatus);
-                        pstmt.setInt(7, invoiceId);
-                        pstmt.executeUpdate();
-                    }
-
-                    // Delete old details
-                    String deleteDetailsQuery = "DELETE FROM invoice_details WHERE invoice_id = ?";
-                    try (PreparedStatement pstmt = conn.prepareStatement(deleteDetailsQuery)) {
-                        pstmt.setInt(1, invoiceId);
-                        pstmt.executeUpdate();
-                    }
-
-                    insertInvoiceDetails(conn, invoiceId);
+                int choice = JOptionPane.showConfirmDialog(this,
+                    message.toString(),
+                    "Insufficient Stock",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.WARNING_MESSAGE);
 
-                    // Handle status change
-                    handleStatusChange(conn, invoiceId, previousStatus, newStatus, stockItems, invoiceDate, number);
+                if (choice != JOptionPane.YES_OPTION) {
+                    return;
                 }
+            }
 
-                conn.commit();
-                invoiceSaved = true;
-                dispose();
+            // Durable once journaled; InvoiceSaved follows when the writer commits it
+            // InvoiceArchive freezes the PDF of an issued invoice once it has committed
+            DocumentJournal.getInstance().saveInvoice(toSave);
+            invoiceSaved = true;
 
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
-            }
+            dispose();
 
-        } catch (SQLException e) {
+        } catch (SQLException | IOException e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
                 "Error while saving the invoice: " + e.getMessage(),
@@ -741,66 +654,6 @@ public class InvoiceDialog extends JDialog {
         }
     }
 
-    private void handleStockForNewStatus(Connection conn, int invoiceId, String status,
-                                        List<StockManager.StockItem> items, Date invoiceDate, String invoiceNumber) throws SQLException {
-        if ("Issued".equals(status) || "Paid".equals(status)) {
-            // Decrement stock directly
-            StockManager.decrementStockDirectly(conn, items, invoiceDate, invoiceNumber, "INVOICE");
-        }
-        // Draft and Canceled: no stock action
-    }
-
-    private void handleStatusChange(Connection conn, int invoiceId, String oldStatus, String newStatus,
-                                    List<StockManager.StockItem> items, Date invoiceDate, String invoiceNumber) throws SQLException {
-        // Handle transition from old status
-        if (("Issued".equals(oldStatus) || "Paid".equals(oldStatus)) &&
-            !("Issued".equals(newStatus) || "Paid".equals(newStatus))) {
-            // Restore stock
-            StockManager.restoreStockFromDocument(conn, invoiceId, "INVOICE");
-        }
-
-        // Handle transition to new status
-        if (("Issued".equals(newStatus) || "Paid".equals(newStatus)) &&
-            !("Issued".equals(oldStatus) || "Paid".equals(oldStatus))) {
-            // Decrement stock
-            StockManager.decrementStockDirectly(conn, items, invoiceDate, invoiceNumber, "INVOICE");
-        }
-    }
-
-    private void insertInvoiceDetails(Connection conn, int invoiceId) throws SQLException {
-        String detailQuery = """
-            INSERT INTO invoice_details
-            (invoice_id, product_id, quantity, unit_price, vat_rate, total)
-            VALUES (?, ?, ?, ?, ?, ?)
-        """;
-        try (PreparedStatement pstmt = conn.prepareStatement(detailQuery)) {
-            for (int i = 0; i < itemsTableModel.getRowCount(); i++) {
-                String code = (String)itemsTableModel.getValueAt(i, 0);
-                int productId = -1;
-                for (Product p : productsCache.values()) {
-                    if (p.getCode().equals(code)) {
-                        productId = p.getId();
-                        break;
-                    }
-                }
-                if (productId == -1) continue;
-
-                int quantity = parseInteger(itemsTableModel.getValueAt(i, 2));
-                double unitPrice = parseDouble(itemsTableModel.getValueAt(i, 3));
-                double vatRate = parseDouble(itemsTableModel.getValueAt(i, 4));
-                double productTotal = quantity * unitPrice;
-
-                pstmt.setInt(1, invoiceId);
-                pstmt.setInt(2, productId);
-                pstmt.setInt(3, quantity);
-                pstmt.setDouble(4, unitPrice);
-                pstmt.setDouble(5, vatRate);
-                pstmt.setDouble(6, productTotal);
-                pstmt.executeUpdate();
-            }
-        }
-    }
-
     public boolean isInvoiceSaved() {
         return invoiceSaved;
     }
@@ -8,8 +8,10 @@ import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -31,41 +33,11 @@ public class InvoicePDFGenerator {
         this.customer = customer;
         this.companyData = CompanyData.getInstance();
         this.invoiceItems = new ArrayList<>();
-        loadInvoiceItems();
     }
 
     private void loadInvoiceItems() {
         try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT id.*, COALESCE(p.code, 'N/A') as product_code,
-                       COALESCE(p.name, 'Product N/A') as product_name,
-                       COALESCE(p.description, '') as product_description
-                FROM invoice_details id
-                LEFT JOIN products p ON id.product_id = p.id
-                WHERE id.invoice_id = ?
-                ORDER BY id.id
-            """;
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, invoice.getId());
-                ResultSet rs = pstmt.executeQuery();
-
-                while (rs.next()) {
-                    InvoiceItem item = new InvoiceItem(
-                        rs.getInt("id"),
-                        rs.getInt("invoice_id"),
-                        rs.getInt("product_id"),
-                        rs.getString("product_name"),
-                        rs.getString("product_code"),
-                        rs.getInt("quantity"),
-                        rs.getDouble("unit_price"),
-                        rs.getDouble("vat_rate"),
-                        rs.getDouble("total")
-                    );
-                    invoiceItems.add(item);
-                }
-            }
+            invoiceItems.addAll(InvoiceRepository.findItems(DatabaseManager.getInstance().getConnection(), invoice.getId()));
         } catch (SQLException e) {
             e.printStackTrace();
             System.err.println("Error loading invoice items: " + e.getMessage());
@@ -73,6 +45,15 @@ public class InvoicePDFGenerator {
     }
 
     public void generateAndSave(Component parent) {
+        generateAndSave(parent, false);
+    }
+
+    /**
+     * Ask for a target file and write the invoice PDF to it
+     *
+     * @param rerender If true, ignore the archived copy and render from current data
+     */
+    public void generateAndSave(Component parent, boolean rerender) {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save Invoice PDF");
         fileChooser.setFileFilter(new FileNameExtensionFilter("PDF Files", "pdf"));
@@ -130,7 +111,7 @@ public class InvoicePDFGenerator {
             saveLastDirectory(file.getParent());
 
             try {
-                generatePDF(file);
+                writePDF(file, rerender);
                 JOptionPane.showMessageDialog(parent,
                     "Invoice PDF generated successfully!\nSaved to: " + file.getAbsolutePath(),
                     "PDF Generated",
@@ -152,7 +133,7 @@ public class InvoicePDFGenerator {
                     }
                 }
 
-            } catch (IOException e) {
+            } catch (IOException | SQLException e) {
                 e.printStackTrace();
                 JOptionPane.showMessageDialog(parent,
                     "Error generating PDF: " + e.getMessage(),
@@ -179,7 +160,36 @@ public class InvoicePDFGenerator {
         }
     }
 
-    private void generatePDF(File outputFile) throws IOException {
+    /**
+     * Write the PDF to a file, serving issued invoices from the archive
+     * Issued invoices are rendered only if they have no archived copy yet
+     * (or a re-render was explicitly requested), and the result is archived.
+     * Drafts and canceled invoices are always rendered from current data.
+     */
+    private void writePDF(File outputFile, boolean rerender) throws IOException, SQLException {
+        InvoiceArchive archive = InvoiceArchive.getInstance();
+        boolean archivable = isArchivable(invoice.getStatus());
+        if (archivable && !rerender && archive.exportTo(invoice.getId(), outputFile)) {
+            return;
+        }
+
+        byte[] pdf = renderPDF();
+        if (archivable) {
+            archive.store(invoice.getId(), invoice.getNumber(), pdf);
+        }
+        Files.write(outputFile.toPath(), pdf);
+    }
+
+    /**
+     * Render the invoice from the current database content
+     */
+    public byte[] renderPDF() throws IOException {
+        AppEvents.PdfRender event = new AppEvents.PdfRender();
+        event.begin();
+
+        invoiceItems.clear();
+        loadInvoiceItems();
+
         try (PDDocument document = new PDDocument()) {
             PDPage page = new PDPage(PDRectangle.A4);
             document.addPage(page);
@@ -210,10 +220,25 @@ public class InvoicePDFGenerator {
                 drawFooter(contentStream, page);
             }
 
-            document.save(outputFile);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+            document.save(out);
+            byte[] pdf = out.toByteArray();
+
+            event.invoiceNumber = invoice.getNumber();
+            event.lines = invoiceItems.size();
+            event.bytes = pdf.length;
+            event.commit();
+            return pdf;
         }
     }
 
+    /**
+     * Only issued or paid invoices are frozen in the archive; drafts keep changing
+     */
+    public static boolean isArchivable(String status) {
+        return "Issued".equals(status) || "Paid".equals(status);
+    }
+
     private float drawHeader(PDPageContentStream contentStream, float yPosition, PDPage page) throws IOException {
         // Invoice title centered and prominent
         contentStream.beginText();
@@ -535,4 +560,13 @@ public class InvoicePDFGenerator {
         InvoicePDFGenerator generator = new InvoicePDFGenerator(invoice, customer);
         generator.generateAndSave(parent);
     }
+
+    public static void regenerateInvoicePDF(Invoice invoice, Customer customer, Component parent) {
+        InvoicePDFGenerator generator = new InvoicePDFGenerator(invoice, customer);
+        generator.generateAndSave(parent, true);
+    }
+
+    public static byte[] renderInvoicePDF(Invoice invoice, Customer customer) throws IOException {
+        return new InvoicePDFGenerator(invoice, customer).renderPDF();
+    }
 }
@@ -0,0 +1,95 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Invoice queries and mapping to the Invoice and InvoiceItem models
+ * Saving goes through InvoiceService, which also handles numbering and stock.
+ */
+public class InvoiceRepository {
+    private static final String SELECT_INVOICES = """
+        SELECT i.*, c.first_name || ' ' || c.last_name as customer_name
+        FROM invoices i
+        LEFT JOIN customers c ON i.customer_id = c.id
+    """;
+
+    private InvoiceRepository() {
+    }
+
+    /**
+     * Load an invoice with its items, or null if it does not exist
+     */
+    public static Invoice findById(Connection conn, int invoiceId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_INVOICES + " WHERE i.id = ?")) {
+            pstmt.setInt(1, invoiceId);
+            return loadOne(conn, pstmt);
+        }
+    }
+
+    /**
+     * Load an invoice with its items by its number, or null if it does not exist
+     */
+    public static Invoice findByNumber(Connection conn, String number) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_INVOICES + " WHERE i.number = ?")) {
+            pstmt.setString(1, number);
+            return loadOne(conn, pstmt);
+        }
+    }
+
+    /**
+     * Lines of an invoice in entry order; lines of deleted products keep a placeholder name
+     */
+    public static List<InvoiceItem> findItems(Connection conn, int invoiceId) throws SQLException {
+        String query = """
+            SELECT d.*, COALESCE(p.code, 'N/A') as product_code,
+                   COALESCE(p.name, 'Product N/A') as product_name
+            FROM invoice_details d
+            LEFT JOIN products p ON d.product_id = p.id
+            WHERE d.invoice_id = ?
+            ORDER BY d.id
+        """;
+
+        List<InvoiceItem> items = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, invoiceId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    items.add(new InvoiceItem(
+                        rs.getInt("id"),
+                        invoiceId,
+                        rs.getInt("product_id"),
+                        rs.getString("product_name"),
+                        rs.getString("product_code"),
+                        rs.getInt("quantity"),
+                        rs.getDouble("unit_price"),
+                        rs.getDouble("vat_rate"),
+                        rs.getDouble("total")
+                    ));
+                }
+            }
+        }
+        return items;
+    }
+
+    private static Invoice loadOne(Connection conn, PreparedStatement pstmt) throws SQLException {
+        Invoice invoice;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            invoice = new Invoice(
+                rs.getInt("id"),
+                rs.getString("number"),
+                DateUtils.parseDate(rs, "date"),
+                rs.getInt("customer_id"),
+                rs.getString("customer_name"),
+                rs.getDouble("taxable_amount"),
+                rs.getDouble("vat"),
+                rs.getDouble("total"),
+                rs.getString("status")
+            );
+        }
+        invoice.getItems().addAll(findItems(conn, invoice.getId()));
+        return invoice;
+    }
+}
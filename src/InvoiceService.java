@@ -0,0 +1,236 @@
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+/**
+ * Invoice business logic shared by InvoiceDialog and the HTTP API
+ * The methods run inside the caller's transaction; the caller commits and
+ * publishes EventBus.InvoiceSaved afterwards.
+ */
+public class InvoiceService {
+    public static final List<String> STATUSES = List.of("Draft", "Issued", "Paid", "Canceled");
+
+    /**
+     * Issued and paid invoices have taken their goods out of stock
+     */
+    public static boolean usesStock(String status) {
+        return "Issued".equals(status) || "Paid".equals(status);
+    }
+
+    public static List<StockManager.StockItem> toStockItems(Invoice invoice) {
+        List<StockManager.StockItem> items = new ArrayList<>();
+        for (InvoiceItem item : invoice.getItems()) {
+            items.add(new StockManager.StockItem(item.getProductId(), item.getProductName(), item.getQuantity()));
+        }
+        return items;
+    }
+
+    /**
+     * Products whose available stock does not cover the invoice, empty if all OK
+     */
+    public static Map<String, StockManager.StockAvailability> checkStock(Connection conn, Invoice invoice)
+            throws SQLException {
+        if (!usesStock(invoice.getStatus())) {
+            return Collections.emptyMap();
+        }
+        return StockManager.checkStockAvailability(conn, toStockItems(invoice),
+            invoice.getId() > 0 ? invoice.getId() : null, "INVOICE");
+    }
+
+    /**
+     * Recompute taxable amount, VAT and total from the items
+     */
+    public static void computeTotals(Invoice invoice) {
+        double taxableAmount = 0;
+        double vat = 0;
+        for (InvoiceItem item : invoice.getItems()) {
+            double subtotal = item.getQuantity() * item.getUnitPrice();
+            taxableAmount += subtotal;
+            vat += subtotal * (item.getVatRate() / 100);
+        }
+        invoice.setTaxableAmount(taxableAmount);
+        invoice.setVat(vat);
+        invoice.setTotal(taxableAmount + vat);
+    }
+
+    /**
+     * Take the next number of the year's sequence, e.g. 2024/0001
+     */
+    public static String allocateNumber(Connection conn, int year) throws SQLException {
+        int nextNumber;
+        String checkQuery = "SELECT last_number FROM invoice_numbering WHERE year = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(checkQuery)) {
+            pstmt.setInt(1, year);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                nextNumber = rs.next() ? rs.getInt("last_number") + 1 : 1;
+            }
+        }
+
+        String upsertQuery = """
+            INSERT INTO invoice_numbering (year, last_number) VALUES (?, ?)
+            ON CONFLICT(year) DO UPDATE SET last_number = excluded.last_number
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(upsertQuery)) {
+            pstmt.setInt(1, year);
+            pstmt.setInt(2, nextNumber);
+            pstmt.executeUpdate();
+        }
+
+        return String.format("%d/%04d", year, nextNumber);
+    }
+
+    /**
+     * Insert a new invoice (id 0) or update an existing one, with its details and
+     * the stock movements of its status change
+     * A new invoice without a number gets the next one of its year.
+     *
+     * @return The invoice id
+     */
+    public static int saveInvoice(Connection conn, Invoice invoice) throws SQLException {
+        AppEvents.InvoiceSave event = new AppEvents.InvoiceSave();
+        event.begin();
+        event.created = invoice.getId() == 0;
+        event.status = invoice.getStatus();
+        event.lines = invoice.getItems().size();
+        try {
+            int invoiceId = writeInvoice(conn, invoice);
+            event.invoiceId = invoiceId;
+            event.number = invoice.getNumber();
+            event.succeeded = true;
+            return invoiceId;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static int writeInvoice(Connection conn, Invoice invoice) throws SQLException {
+        validate(invoice);
+
+        List<StockManager.StockItem> stockItems = toStockItems(invoice);
+        int invoiceId;
+
+        if (invoice.getId() == 0) {
+            if (invoice.getNumber() == null || invoice.getNumber().isEmpty()) {
+                Calendar cal = Calendar.getInstance();
+                cal.setTime(invoice.getDate());
+                invoice.setNumber(allocateNumber(conn, cal.get(Calendar.YEAR)));
+            }
+
+            String invoiceQuery = """
+                INSERT INTO invoices (number, date, customer_id, taxable_amount, vat, total, status)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+            try (PreparedStatement pstmt = conn.prepareStatement(invoiceQuery, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, invoice.getNumber());
+                pstmt.setDate(2, new java.sql.Date(invoice.getDate().getTime()));
+                pstmt.setInt(3, invoice.getCustomerId());
+                pstmt.setDouble(4, invoice.getTaxableAmount());
+                pstmt.setDouble(5, invoice.getVat());
+                pstmt.setDouble(6, invoice.getTotal());
+                pstmt.setString(7, invoice.getStatus());
+                pstmt.executeUpdate();
+
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        invoiceId = rs.getInt(1);
+                    } else {
+                        throw new SQLException("Failed to get invoice ID");
+                    }
+                }
+            }
+
+            insertInvoiceDetails(conn, invoiceId, invoice.getItems());
+
+            if (usesStock(invoice.getStatus())) {
+                StockManager.decrementStockDirectly(conn, stockItems, invoice.getDate(), invoice.getNumber(), "INVOICE");
+            }
+            invoice.setId(invoiceId);
+
+        } else {
+            invoiceId = invoice.getId();
+            String previousStatus = getStatus(conn, invoiceId);
+            if (previousStatus == null) {
+                throw new SQLException("Invoice " + invoiceId + " not found");
+            }
+
+            String invoiceQuery = """
+                UPDATE invoices
+                SET date = ?, customer_id = ?, taxable_amount = ?, vat = ?, total = ?, status = ?
+                WHERE id = ?
+            """;
+            try (PreparedStatement pstmt = conn.prepareStatement(invoiceQuery)) {
+                pstmt.setDate(1, new java.sql.Date(invoice.getDate().getTime()));
+                pstmt.setInt(2, invoice.getCustomerId());
+                pstmt.setDouble(3, invoice.getTaxableAmount());
+                pstmt.setDouble(4, invoice.getVat());
+                pstmt.setDouble(5, invoice.getTotal());
+                pstmt.setString(6, invoice.getStatus());
+                pstmt.setInt(7, invoiceId);
+                pstmt.executeUpdate();
+            }
+
+            String deleteDetailsQuery = "DELETE FROM invoice_details WHERE invoice_id = ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(deleteDetailsQuery)) {
+                pstmt.setInt(1, invoiceId);
+                pstmt.executeUpdate();
+            }
+
+            insertInvoiceDetails(conn, invoiceId, invoice.getItems());
+
+            // Restore stock when leaving Issued/Paid, decrement it when entering them
+            if (usesStock(previousStatus) && !usesStock(invoice.getStatus())) {
+                StockManager.restoreStockFromDocument(conn, invoiceId, "INVOICE");
+            }
+            if (usesStock(invoice.getStatus()) && !usesStock(previousStatus)) {
+                StockManager.decrementStockDirectly(conn, stockItems, invoice.getDate(), invoice.getNumber(), "INVOICE");
+            }
+        }
+
+        return invoiceId;
+    }
+
+    private static void validate(Invoice invoice) {
+        if (invoice.getCustomerId() <= 0) {
+            throw new IllegalArgumentException("A customer is required");
+        }
+        if (invoice.getItems().isEmpty()) {
+            throw new IllegalArgumentException("An invoice needs at least one product");
+        }
+        if (!STATUSES.contains(invoice.getStatus())) {
+            throw new IllegalArgumentException("Invalid invoice status: " + invoice.getStatus());
+        }
+        if (invoice.getDate() == null) {
+            invoice.setDate(new Date());
+        }
+    }
+
+    private static String getStatus(Connection conn, int invoiceId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT status FROM invoices WHERE id = ?")) {
+            pstmt.setInt(1, invoiceId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString("status") : null;
+            }
+        }
+    }
+
+    private static void insertInvoiceDetails(Connection conn, int invoiceId, List<InvoiceItem> items)
+            throws SQLException {
+        String detailQuery = """
+            INSERT INTO invoice_details
+            (invoice_id, product_id, quantity, unit_price, vat_rate, total)
+            VALUES (?, ?, ?, ?, ?, ?)
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(detailQuery)) {
+            for (InvoiceItem item : items) {
+                pstmt.setInt(1, invoiceId);
+                pstmt.setInt(2, item.getProductId());
+                pstmt.setInt(3, item.getQuantity());
+                pstmt.setDouble(4, item.getUnitPrice());
+                pstmt.setDouble(5, item.getVatRate());
+                pstmt.setDouble(6, item.getQuantity() * item.getUnitPrice());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+}
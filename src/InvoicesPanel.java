@@ -14,6 +14,7 @@ public class InvoicesPanel extends JPanel {
     private JButton editButton;
     private JButton deleteButton;
     private JButton generatePDFButton;
+    private JButton rerenderPDFButton;
     private JButton refreshButton;
     private SimpleDateFormat dateFormat;
 
@@ -22,6 +23,9 @@ public class InvoicesPanel extends JPanel {
         setupPanel();
         initComponents();
         loadInvoices();
+
+        // Saves are applied in the background (DocumentJournal) and announced when committed
+        EventBus.getInstance().subscribe(EventBus.InvoiceSaved.class, events -> loadInvoices());
     }
 
     private void setupPanel() {
@@ -72,6 +76,8 @@ public class InvoicesPanel extends JPanel {
         editButton = new JButton("Modify");
         deleteButton = new JButton("Delete");
         generatePDFButton = new JButton("Generate Invoice");
+        rerenderPDFButton = new JButton("Re-render PDF");
+        rerenderPDFButton.setToolTipText("Discard the archived PDF and render it again from current data");
         refreshButton = new JButton("Refresh");
 
         generatePDFButton.setFont(generatePDFButton.getFont().deriveFont(Font.BOLD));
@@ -81,13 +87,15 @@ public class InvoicesPanel extends JPanel {
         addButton.addActionListener(e -> createNewInvoice());
         editButton.addActionListener(e -> editSelectedInvoice());
         deleteButton.addActionListener(e -> deleteSelectedInvoice());
-        generatePDFButton.addActionListener(e -> generateSelectedInvoicePDF());
+        generatePDFButton.addActionListener(e -> generateSelectedInvoicePDF(false));
+        rerenderPDFButton.addActionListener(e -> rerenderSelectedInvoicePDF());
         refreshButton.addActionListener(e -> loadInvoices());
 
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(generatePDFButton);
+        buttonPanel.add(rerenderPDFButton);
         buttonPanel.add(refreshButton);
 
         // Main layout
@@ -103,6 +111,7 @@ public class InvoicesPanel extends JPanel {
         editButton.setEnabled(isRowSelected);
         deleteButton.setEnabled(isRowSelected);
         generatePDFButton.setEnabled(isRowSelected);
+        rerenderPDFButton.setEnabled(isRowSelected);
     }
 
     private void loadInvoices() {
@@ -114,6 +123,7 @@ public class InvoicesPanel extends JPanel {
                        c.first_name || ' ' || c.last_name as customer_name
                 FROM invoices i
                 LEFT JOIN customers c ON i.customer_id = c.id
+                WHERE c.deleted_at IS NULL
                 ORDER BY i.date DESC
             """;
 
@@ -191,10 +201,11 @@ public class InvoicesPanel extends JPanel {
                        c.first_name || ' ' || c.last_name as customer_name
                 FROM invoices i
                 LEFT JOIN customers c ON i.customer_id = c.id
-                WHERE i.number LIKE ?
+                WHERE c.deleted_at IS NULL
+                AND (i.number LIKE ?
                    OR c.first_name LIKE ?
                    OR c.last_name LIKE ?
-                   OR (c.first_name || ' ' || c.last_name) LIKE ?
+                   OR (c.first_name || ' ' || c.last_name) LIKE ?)
                 ORDER BY i.date DESC
             """;
 
@@ -292,7 +303,21 @@ public class InvoicesPanel extends JPanel {
         }
     }
 
-    private void generateSelectedInvoicePDF() {
+    private void rerenderSelectedInvoicePDF() {
+        int result = JOptionPane.showConfirmDialog(this,
+            "The invoice will be rendered again from the current product and company data,\n" +
+            "replacing the archived copy made when it was issued.\n\n" +
+            "Do you want to continue?",
+            "Re-render Invoice PDF",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.WARNING_MESSAGE);
+
+        if (result == JOptionPane.YES_OPTION) {
+            generateSelectedInvoicePDF(true);
+        }
+    }
+
+    private void generateSelectedInvoicePDF(boolean rerender) {
         int selectedRow = invoicesTable.getSelectedRow();
         if (selectedRow != -1) {
             try {
@@ -305,8 +330,12 @@ public class InvoicesPanel extends JPanel {
                     setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
                     try {
-                        // Generate PDF directly without SwingWorker to avoid blocking
-                        InvoicePDFGenerator.generateInvoicePDF(invoice, customer, InvoicesPanel.this);
+                        // Issued invoices are served from the archive unless a re-render is requested
+                        if (rerender) {
+                            InvoicePDFGenerator.regenerateInvoicePDF(invoice, customer, InvoicesPanel.this);
+                        } else {
+                            InvoicePDFGenerator.generateInvoicePDF(invoice, customer, InvoicesPanel.this);
+                        }
                     } finally {
                         // Restore default cursor
                         setCursor(Cursor.getDefaultCursor());
@@ -331,24 +360,7 @@ public class InvoicesPanel extends JPanel {
         if (invoice == null) return null;
 
         try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT * FROM customers WHERE id = ?";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, invoice.getCustomerId());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return new Customer(
-                            rs.getInt("id"),
-                            rs.getString("first_name"),
-                            rs.getString("last_name"),
-                            rs.getString("email"),
-                            rs.getString("phone"),
-                            rs.getString("address")
-                        );
-                    }
-                }
-            }
+            return CustomerRepository.findById(DatabaseManager.getInstance().getConnection(), invoice.getCustomerId());
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -356,74 +368,15 @@ public class InvoicesPanel extends JPanel {
     }
 
     private Invoice loadInvoiceByNumber(String number) throws SQLException {
-        Connection conn = DatabaseManager.getInstance().getConnection();
-        String query = """
-            SELECT i.*, c.first_name || ' ' || c.last_name as customer_name
-            FROM invoices i
-            LEFT JOIN customers c ON i.customer_id = c.id
-            WHERE i.number = ?
-        """;
-
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, number);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Date date = DateUtils.parseDate(rs, "date");
-                    if (date == null) {
-                        date = new Date();
-                    }
-
-                    // Recalculate totals
-                    double[] totals = recalculateInvoiceTotals(number);
-
-                    Invoice invoice = new Invoice(
-                        rs.getInt("id"),
-                        rs.getString("number"),
-                        date,
-                        rs.getInt("customer_id"),
-                        rs.getString("customer_name"),
-                        totals[0], // taxableAmount
-                        totals[1], // vat
-                        totals[2], // total
-                        rs.getString("status")
-                    );
-
-                    loadInvoiceItems(invoice);
-                    return invoice;
-                }
-            }
-        }
-        return null;
-    }
-
-    private void loadInvoiceItems(Invoice invoice) throws SQLException {
-        String query = """
-            SELECT i.*, p.name as product_name, p.code as product_code
-            FROM invoice_details i
-            LEFT JOIN products p ON i.product_id = p.id
-            WHERE i.invoice_id = ?
-        """;
-
-        Connection conn = DatabaseManager.getInstance().getConnection();
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, invoice.getId());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    InvoiceItem item = new InvoiceItem(
-                        rs.getInt("id"),
-                        rs.getInt("invoice_id"),
-                        rs.getInt("product_id"),
-                        rs.getString("product_name"),
-                        rs.getString("product_code"),
-                        rs.getInt("quantity"),
-                        rs.getDouble("unit_price"),
-                        rs.getDouble("vat_rate"),
-                        rs.getDouble("total")
-                    );
-                    invoice.getItems().add(item);
-                }
+        Invoice invoice = InvoiceRepository.findByNumber(DatabaseManager.getInstance().getConnection(), number);
+        if (invoice != null) {
+            if (invoice.getDate() == null) {
+                invoice.setDate(new Date());
             }
+            // Stored totals can be stale on old rows, so they follow the lines
+            InvoiceService.computeTotals(invoice);
         }
+        return invoice;
     }
 
     private void deleteSelectedInvoice() {
@@ -477,7 +430,14 @@ public class InvoicesPanel extends JPanel {
                             pstmt.executeUpdate();
                         }
 
+                        // Drop the archived PDF along with the invoice; the file goes after the commit
+                        String archivedHash = InvoiceArchive.getInstance().removeEntry(conn, invoiceId);
+
                         conn.commit();
+                        if (archivedHash != null) {
+                            InvoiceArchive.getInstance().releaseBlob(conn, archivedHash);
+                        }
+                        EventBus.getInstance().publish(new EventBus.InvoiceSaved(invoiceId, true));
                         loadInvoices();
 
                         JOptionPane.showMessageDialog(this,
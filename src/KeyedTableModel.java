@@ -0,0 +1,177 @@
+import javax.swing.table.DefaultTableModel;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Table model that keeps a primary key → row index map
+ * One column holds the entity id; upsert() and remove() change a single row
+ * and fire row-level events, so the table keeps its selection and scroll
+ * position instead of being rebuilt after every save.
+ * The index is maintained on appends and rebuilt lazily after any other
+ * structural change. While a search is shown, a row filter keeps upsert()
+ * from appending rows the search would not have returned.
+ */
+public class KeyedTableModel extends DefaultTableModel {
+    private final int keyColumn;
+    private final Map<Object, Integer> rowIndex = new HashMap<>();
+    private boolean indexValid = true;
+    private Predicate<Vector<Object>> rowFilter;
+
+    public KeyedTableModel(Object[] columnNames, int keyColumn) {
+        super(columnNames, 0);
+        this.keyColumn = keyColumn;
+    }
+
+    public int getKeyColumn() {
+        return keyColumn;
+    }
+
+    /**
+     * Row index of the given key, or -1 if it is not in the table
+     */
+    public int findRow(Object key) {
+        if (!indexValid) {
+            rebuildIndex();
+        }
+        Integer row = rowIndex.get(key);
+        return row != null ? row : -1;
+    }
+
+    public Object getKeyAt(int row) {
+        return getValueAt(row, keyColumn);
+    }
+
+    /**
+     * Filter applied to upserted rows, matching the search on screen
+     * A row that fails it is removed instead of updated or appended; null
+     * accepts every row. Rows passed to replaceRows() are not filtered.
+     */
+    public void setRowFilter(Predicate<Vector<Object>> rowFilter) {
+        this.rowFilter = rowFilter;
+    }
+
+    /**
+     * Filter for rows where one of the columns contains the term, ignoring case
+     *
+     * @return null for an empty term
+     */
+    public static Predicate<Vector<Object>> containsFilter(String term, int... columns) {
+        if (term == null || term.trim().isEmpty()) {
+            return null;
+        }
+        String needle = term.trim().toLowerCase(Locale.ROOT);
+        return row -> {
+            for (int column : columns) {
+                Object value = row.get(column);
+                if (value != null && value.toString().toLowerCase(Locale.ROOT).contains(needle)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Replace the row with the same key, or append it if the key is new
+     *
+     * @return The index of the updated or appended row, or -1 if the row filter rejected it
+     */
+    @SuppressWarnings("unchecked")
+    public int upsert(Vector<Object> row) {
+        Object key = row.get(keyColumn);
+        if (rowFilter != null && !rowFilter.test(row)) {
+            remove(key);
+            return -1;
+        }
+        int index = findRow(key);
+        if (index == -1) {
+            addRow(row);
+            return getRowCount() - 1;
+        }
+        ((Vector<Vector<Object>>) (Vector<?>) dataVector).set(index, row);
+        fireTableRowsUpdated(index, index);
+        return index;
+    }
+
+    /**
+     * Remove the row with the given key
+     *
+     * @return true if a row was removed
+     */
+    public boolean remove(Object key) {
+        int index = findRow(key);
+        if (index == -1) {
+            return false;
+        }
+        removeRow(index);
+        return true;
+    }
+
+    /**
+     * Replace the whole content with a single table event
+     */
+    @SuppressWarnings("unchecked")
+    public void replaceRows(Collection<Vector<Object>> rows) {
+        dataVector.clear();
+        ((Vector<Vector<Object>>) (Vector<?>) dataVector).addAll(rows);
+        invalidateIndex();
+        fireTableDataChanged();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void insertRow(int row, Vector rowData) {
+        boolean append = row == getRowCount();
+        super.insertRow(row, rowData);
+        if (append && indexValid) {
+            rowIndex.put(getValueAt(row, keyColumn), row);
+        } else {
+            invalidateIndex();
+        }
+    }
+
+    @Override
+    public void removeRow(int row) {
+        super.removeRow(row);
+        invalidateIndex();
+    }
+
+    @Override
+    public void moveRow(int start, int end, int to) {
+        super.moveRow(start, end, to);
+        invalidateIndex();
+    }
+
+    @Override
+    public void setRowCount(int rowCount) {
+        super.setRowCount(rowCount);
+        invalidateIndex();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void setDataVector(Vector<? extends Vector> dataVector, Vector<?> columnIdentifiers) {
+        super.setDataVector(dataVector, columnIdentifiers);
+        invalidateIndex();
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        super.setValueAt(value, row, column);
+        if (column == keyColumn) {
+            invalidateIndex();
+        }
+    }
+
+    private void invalidateIndex() {
+        indexValid = false;
+    }
+
+    private void rebuildIndex() {
+        rowIndex.clear();
+        for (int i = 0; i < getRowCount(); i++) {
+            rowIndex.put(getValueAt(i, keyColumn), i);
+        }
+        indexValid = true;
+    }
+}
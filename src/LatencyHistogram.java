@@ -0,0 +1,84 @@
+/**
+ * Fixed-memory latency histogram in microseconds
+ * Values up to 32 us are counted exactly; above that every power of two is
+ * split into 16 linear buckets, so percentiles are within about 6% of the
+ * true value, like an HdrHistogram with one significant digit.
+ */
+public class LatencyHistogram {
+    private static final int LINEAR_LIMIT = 32;
+    private static final int SUB_BUCKETS = 16;
+    // Covers up to 2^40 us, about 12 days
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (40 - 5) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long totalMicros = 0;
+    private long maxMicros = 0;
+
+    public synchronized void record(long micros) {
+        micros = Math.max(0, micros);
+        counts[indexOf(micros)]++;
+        totalCount++;
+        totalMicros += micros;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    public synchronized long getCount() {
+        return totalCount;
+    }
+
+    public synchronized long getTotalMicros() {
+        return totalMicros;
+    }
+
+    public synchronized long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public synchronized double getMeanMicros() {
+        return totalCount == 0 ? 0 : (double) totalMicros / totalCount;
+    }
+
+    /**
+     * Smallest bucket bound that at least the given fraction (0..1) of values fall under
+     */
+    public synchronized long getPercentileMicros(double fraction) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(fraction * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(maxMicros, highestValueAt(i));
+            }
+        }
+        return maxMicros;
+    }
+
+    public synchronized void reset() {
+        java.util.Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalMicros = 0;
+        maxMicros = 0;
+    }
+
+    private static int indexOf(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (exponent - 4)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKET_COUNT - 1, LINEAR_LIMIT + (exponent - 5) * SUB_BUCKETS + sub);
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + 5;
+        int sub = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1L) << (exponent - 4)) - 1;
+    }
+}
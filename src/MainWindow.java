@@ -40,6 +40,7 @@ public class MainWindow extends JFrame {
     private WarehouseReportPanel warehouseReportPanel;
     private BackupPanel backupPanel;
     private SettingsPanel settingsPanel;
+    private DiagnosticsPanel diagnosticsPanel;
     
     // Current panel name for reference
     private String currentPanel = "HOME";
@@ -47,6 +48,11 @@ public class MainWindow extends JFrame {
     public MainWindow() {
         // Initialize the database FIRST before any UI setup
         DatabaseManager.getInstance().initDatabase();
+        StockMonitor.getInstance().start();
+        PurgeWorker.getInstance().start();
+        DocumentJournal.getInstance().start();
+        InvoiceArchive.getInstance().start();
+        DatabaseMaintenance.getInstance().start();
 
         setupWindow();
         setupMenuBar();
@@ -69,6 +75,10 @@ public class MainWindow extends JFrame {
         addWindowListener(new java.awt.event.WindowAdapter() {
             @Override
             public void windowClosing(java.awt.event.WindowEvent windowEvent) {
+                // Queued saves are applied first; the journal keeps any that are not
+                DatabaseWriter.getInstance().close();
+                DocumentJournal.getInstance().close();
+                PriceResolver.getInstance().close();
                 DatabaseManager.getInstance().closeConnection();
             }
         });
@@ -196,8 +206,17 @@ public class MainWindow extends JFrame {
         JMenuItem performBackupItem = new JMenuItem("Perform Backup Now");
         performBackupItem.addActionListener(e -> performQuickBackup());
         
+        JMenuItem archiveMovementsItem = new JMenuItem("Archive Movements...");
+        archiveMovementsItem.addActionListener(e -> MovementArchive.archiveWithDialog(this));
+
+        JMenuItem diagnosticsItem = new JMenuItem("Diagnostics");
+        diagnosticsItem.addActionListener(e -> showPanel("DIAGNOSTICS"));
+
         toolsMenu.add(backupItem);
         toolsMenu.add(performBackupItem);
+        toolsMenu.add(archiveMovementsItem);
+        toolsMenu.addSeparator();
+        toolsMenu.add(diagnosticsItem);
         
         // View Menu
         JMenu viewMenu = new JMenu("View");
@@ -583,10 +602,22 @@ public class MainWindow extends JFrame {
     }
     
     private void showPanel(String panelName) {
+        long start = System.nanoTime();
+        AppEvents.PanelLoad showEvent = new AppEvents.PanelLoad();
+        showEvent.begin();
         try {
             // Create panel if it doesn't exist
             if (!isPanelCreated(panelName)) {
+                long createStart = System.nanoTime();
+                AppEvents.PanelLoad createEvent = new AppEvents.PanelLoad();
+                createEvent.begin();
                 createPanel(panelName);
+                createEvent.panel = panelName;
+                createEvent.operation = "createPanel";
+                createEvent.commit();
+                UiDiagnostics.getInstance().recordPanelTiming("createPanel", panelName, System.nanoTime() - createStart);
+            } else if ("DIAGNOSTICS".equals(panelName)) {
+                diagnosticsPanel.refresh();
             }
 
             // Switch to the panel
@@ -602,6 +633,10 @@ public class MainWindow extends JFrame {
                 setActiveButton(button);
             }
 
+            showEvent.panel = panelName;
+            showEvent.operation = "showPanel";
+            showEvent.commit();
+            UiDiagnostics.getInstance().recordPanelTiming("showPanel", panelName, System.nanoTime() - start);
         } catch (Exception e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
@@ -700,6 +735,13 @@ public class MainWindow extends JFrame {
                 }
                 panel = settingsPanel;
                 break;
+
+            case "DIAGNOSTICS":
+                if (diagnosticsPanel == null) {
+                    diagnosticsPanel = new DiagnosticsPanel();
+                }
+                panel = diagnosticsPanel;
+                break;
         }
         
         if (panel != null) {
@@ -723,6 +765,7 @@ public class MainWindow extends JFrame {
             case "WAREHOUSE_REPORT": title += "Warehouse Report"; break;
             case "BACKUP": title += "Backup Management"; break;
             case "SETTINGS": title += "Settings"; break;
+            case "DIAGNOSTICS": title += "Diagnostics"; break;
             default: title += "Management System";
         }
         setTitle(title);
@@ -746,6 +789,8 @@ public class MainWindow extends JFrame {
             } catch (Exception e) {
                 e.printStackTrace();
             }
+            // Watch the EDT from the start, so slow startup work is recorded too
+            UiDiagnostics.getInstance().install();
             MainWindow mainWindow = new MainWindow();
             mainWindow.setVisible(true);
         });
@@ -140,16 +140,8 @@ public class MinimumStockDialog extends JDialog {
     private void loadSuppliers() {
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT id, company_name FROM suppliers ORDER BY company_name";
-
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    supplierCombo.addItem(new SupplierComboItem(
-                        rs.getInt("id"),
-                        rs.getString("company_name")
-                    ));
-                }
+            for (Supplier supplier : SupplierRepository.findAll(conn)) {
+                supplierCombo.addItem(new SupplierComboItem(supplier.getId(), supplier.getCompanyName()));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -208,63 +200,14 @@ public class MinimumStockDialog extends JDialog {
 
             Connection conn = DatabaseManager.getInstance().getConnection();
 
-            // Check if record exists
-            String checkQuery = "SELECT COUNT(*) FROM minimum_stock WHERE product_id = ?";
-            boolean exists = false;
-            try (PreparedStatement pstmt = conn.prepareStatement(checkQuery)) {
-                pstmt.setInt(1, minStock.getProductId());
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    exists = rs.getInt(1) > 0;
-                }
-            }
-
             SupplierComboItem selectedSupplier = (SupplierComboItem) supplierCombo.getSelectedItem();
             Integer supplierId = selectedSupplier != null ? selectedSupplier.getId() : null;
 
-            if (exists) {
-                // Update existing record
-                String updateQuery = """
-                    UPDATE minimum_stock SET
-                        minimum_quantity = ?, reorder_quantity = ?,
-                        lead_time_days = ?, preferred_supplier_id = ?, notes = ?
-                    WHERE product_id = ?
-                """;
-                try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
-                    pstmt.setInt(1, minQuantity);
-                    pstmt.setInt(2, reorderQuantity);
-                    pstmt.setInt(3, (Integer) leadTimeSpinner.getValue());
-                    if (supplierId != null) {
-                        pstmt.setInt(4, supplierId);
-                    } else {
-                        pstmt.setNull(4, Types.INTEGER);
-                    }
-                    pstmt.setString(5, notesArea.getText().trim());
-                    pstmt.setInt(6, minStock.getProductId());
-                    pstmt.executeUpdate();
-                }
-            } else {
-                // Insert new record
-                String insertQuery = """
-                    INSERT INTO minimum_stock (
-                        product_id, minimum_quantity, reorder_quantity,
-                        lead_time_days, preferred_supplier_id, notes
-                    ) VALUES (?, ?, ?, ?, ?, ?)
-                """;
-                try (PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
-                    pstmt.setInt(1, minStock.getProductId());
-                    pstmt.setInt(2, minQuantity);
-                    pstmt.setInt(3, reorderQuantity);
-                    pstmt.setInt(4, (Integer) leadTimeSpinner.getValue());
-                    if (supplierId != null) {
-                        pstmt.setInt(5, supplierId);
-                    } else {
-                        pstmt.setNull(5, Types.INTEGER);
-                    }
-                    pstmt.setString(6, notesArea.getText().trim());
-                    pstmt.executeUpdate();
-                }
-            }
+            StockManager.saveMinimumStock(conn, minStock.getProductId(), minQuantity, reorderQuantity,
+                (Integer) leadTimeSpinner.getValue(), supplierId, notesArea.getText().trim());
+
+            StockMonitor.getInstance().setThreshold(minStock.getProductId(), minQuantity);
+            StockMonitor.getInstance().stockChanged(minStock.getProductId());
 
             stockSaved = true;
             dispose();
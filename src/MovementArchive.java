@@ -0,0 +1,504 @@
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Yearly archive files for warehouse movements
+ * The movements of a closed year are moved to archive/movements_<year>.db
+ * and replaced in the main table by one opening-balance movement per
+ * product, dated January 1st of the following year, so stock history keeps
+ * adding up while the hot table only holds open years.
+ *
+ * Every connection attaches the archive files and gets the temporary view
+ * warehouse_movements_all: the detailed history of all years, without the
+ * opening-balance rows that stand in for archived ones.
+ *
+ * Movements are moved in batches. Each batch is first committed to the
+ * archive file and only then deleted from the main table, so an interrupted
+ * run loses nothing and simply continues where it stopped when run again.
+ *
+ * The archive files are the only detailed copy of a closed year, so backups
+ * carry them next to the main database (backupTo / restoreFrom).
+ *
+ * Settings in app_settings.properties:
+ *   movement_archive_dir  default archive
+ */
+public class MovementArchive {
+    public static final String HISTORY_VIEW = "warehouse_movements_all";
+    public static final String OPENING_DOCUMENT_TYPE = "ARCHIVE";
+    public static final String OPENING_REASON = "OPENING BALANCE";
+
+    private static final int BATCH_SIZE = 5000;
+    // SQLite attaches at most 10 databases per connection by default
+    private static final int MAX_ATTACHED = 10;
+
+    private MovementArchive() {
+    }
+
+    public static File getArchiveDirectory() {
+        return new File(AppSettings.get("movement_archive_dir", "archive"));
+    }
+
+    public static File getArchiveFile(int year) {
+        return new File(getArchiveDirectory(), "movements_" + year + ".db");
+    }
+
+    /**
+     * Years that have an archive file, oldest first
+     */
+    public static List<Integer> getArchivedYears() {
+        List<Integer> years = new ArrayList<>();
+        File[] files = getArchiveDirectory().listFiles((dir, name) -> name.matches("movements_\\d{4}\\.db"));
+        if (files != null) {
+            for (File file : files) {
+                years.add(Integer.parseInt(file.getName().substring(10, 14)));
+            }
+        }
+        Collections.sort(years);
+        return years;
+    }
+
+    /**
+     * Attach the archive files and (re)create the history view; called for
+     * every new connection and again after a year has been archived
+     */
+    public static void attachAll(Connection conn) throws SQLException {
+        Set<String> attached = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA database_list")) {
+            while (rs.next()) {
+                attached.add(rs.getString("name"));
+            }
+        }
+
+        List<Integer> years = getArchivedYears();
+        if (years.size() > MAX_ATTACHED) {
+            System.err.println("Only the last " + MAX_ATTACHED + " of " + years.size()
+                + " movement archives are attached");
+            years = years.subList(years.size() - MAX_ATTACHED, years.size());
+        }
+
+        List<String> sources = new ArrayList<>();
+        for (int year : years) {
+            String schema = schemaName(year);
+            if (!attached.contains(schema)) {
+                attach(conn, year);
+            }
+            sources.add(schema + ".warehouse_movements");
+        }
+
+        StringBuilder view = new StringBuilder("CREATE TEMP VIEW " + HISTORY_VIEW + " AS ");
+        view.append("SELECT * FROM main.warehouse_movements WHERE document_type IS NOT '")
+            .append(OPENING_DOCUMENT_TYPE).append("'");
+        for (String source : sources) {
+            view.append(" UNION ALL SELECT * FROM ").append(source)
+                .append(" WHERE document_type IS NOT '").append(OPENING_DOCUMENT_TYPE).append("'");
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP VIEW IF EXISTS temp." + HISTORY_VIEW);
+            stmt.execute(view.toString());
+        }
+    }
+
+    /**
+     * Move the movements of a closed year to its archive file
+     *
+     * @param listener Receives the movements moved so far and the total; return false to stop
+     *                 after the current batch (the next run continues from there)
+     */
+    public static ArchiveResult archiveYear(Connection conn, int year, BulkOperations.ProgressListener listener)
+            throws SQLException {
+        int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+        if (year >= currentYear) {
+            throw new SQLException("Only closed years can be archived: " + year);
+        }
+
+        String schema = schemaName(year);
+        String from = year + "-01-01 00:00:00";
+        String to = (year + 1) + "-01-01 00:00:00";
+
+        File directory = getArchiveDirectory();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new SQLException("Cannot create archive directory: " + directory.getAbsolutePath());
+        }
+        attachAll(conn);
+        if (!isAttached(conn, schema)) {
+            attach(conn, year);
+        }
+
+        int total;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT COUNT(*) FROM main.warehouse_movements WHERE date >= ? AND date < ?")) {
+            pstmt.setString(1, from);
+            pstmt.setString(2, to);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                total = rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TEMP TABLE IF NOT EXISTS archive_batch (id INTEGER PRIMARY KEY)");
+        }
+
+        ArchiveResult result = new ArchiveResult(year);
+        while (true) {
+            int batch = selectBatch(conn, from, to);
+            if (batch == 0) {
+                break;
+            }
+
+            // The archive copy is durable before anything is deleted; a copy left
+            // over from an interrupted run is skipped by OR IGNORE
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("""
+                    INSERT OR IGNORE INTO %s.warehouse_movements
+                    SELECT * FROM main.warehouse_movements
+                    WHERE id IN (SELECT id FROM temp.archive_batch)
+                """.formatted(schema));
+            }
+
+            int removed = removeBatch(conn, schema, year, result);
+            if (removed == 0) {
+                // Nothing reached the archive; stop instead of selecting the same batch forever
+                throw new SQLException("Movements could not be copied to " + getArchiveFile(year).getPath());
+            }
+            result.moved += removed;
+            if (!listener.onProgress(result.moved, total)) {
+                result.stopped = true;
+                break;
+            }
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM temp.archive_batch");
+        }
+        attachAll(conn);
+        return result;
+    }
+
+    /**
+     * Delete a product's movements from the attached archive files, in the
+     * caller's transaction; archives beyond the attach limit are not reached
+     *
+     * @return the number of archived movements deleted
+     */
+    public static int deleteProductHistory(Connection conn, int productId) throws SQLException {
+        int deleted = 0;
+        for (int year : getArchivedYears()) {
+            String schema = schemaName(year);
+            if (!isAttached(conn, schema)) {
+                continue;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM " + schema + ".warehouse_movements WHERE product_id = ?")) {
+                pstmt.setInt(1, productId);
+                deleted += pstmt.executeUpdate();
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Copy every archive file to the directory, for a backup of the main database
+     * Attached archives are copied with VACUUM INTO so a concurrent archiving
+     * run cannot tear the copy; the others are not open and are copied as files.
+     *
+     * @return the number of archive files copied
+     */
+    public static int backupTo(Connection conn, File directory) throws SQLException, IOException {
+        List<Integer> years = getArchivedYears();
+        if (years.isEmpty()) {
+            return 0;
+        }
+        Files.createDirectories(directory.toPath());
+        for (int year : years) {
+            String schema = schemaName(year);
+            Path target = new File(directory, getArchiveFile(year).getName()).toPath();
+            Files.deleteIfExists(target);
+            if (isAttached(conn, schema)) {
+                try (PreparedStatement pstmt = conn.prepareStatement("VACUUM " + schema + " INTO ?")) {
+                    pstmt.setString(1, target.toString());
+                    pstmt.executeUpdate();
+                }
+            } else {
+                Files.copy(getArchiveFile(year).toPath(), target);
+            }
+        }
+        return years.size();
+    }
+
+    /**
+     * Replace the archive files with the ones saved by backupTo
+     * The current files are moved to previousDirectory first. Call it with
+     * the connections closed, as for the main database file.
+     */
+    public static void restoreFrom(File backupDirectory, File previousDirectory) throws IOException {
+        File directory = getArchiveDirectory();
+        File[] current = directory.listFiles((dir, name) -> name.matches("movements_\\d{4}\\.db"));
+        if (current != null && current.length > 0) {
+            Files.createDirectories(previousDirectory.toPath());
+            for (File file : current) {
+                Files.move(file.toPath(), new File(previousDirectory, file.getName()).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        File[] saved = backupDirectory.listFiles((dir, name) -> name.matches("movements_\\d{4}\\.db"));
+        if (saved != null && saved.length > 0) {
+            Files.createDirectories(directory.toPath());
+            for (File file : saved) {
+                Files.copy(file.toPath(), new File(directory, file.getName()).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Ask for a year and archive it in the background
+     */
+    public static void archiveWithDialog(Component parent) {
+        int lastClosedYear = Calendar.getInstance().get(Calendar.YEAR) - 1;
+        String input = (String) JOptionPane.showInputDialog(parent,
+            "Move the warehouse movements of this closed year to an archive file.\n" +
+            "Each product keeps one opening-balance movement on January 1st of the following year.",
+            "Archive Movements", JOptionPane.QUESTION_MESSAGE, null, null, String.valueOf(lastClosedYear));
+        if (input == null) {
+            return;
+        }
+
+        int year;
+        try {
+            year = Integer.parseInt(input.trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(parent, "Invalid year: " + input, "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (year > lastClosedYear) {
+            JOptionPane.showMessageDialog(parent,
+                "Only closed years can be archived (up to " + lastClosedYear + ").",
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        ProgressDialog progressDialog = new ProgressDialog(parent, "Archive Movements",
+            "Archiving movements of " + year + "...");
+
+        SwingWorker<ArchiveResult, Void> worker = new SwingWorker<>() {
+            @Override
+            protected ArchiveResult doInBackground() throws Exception {
+                BulkOperations.ProgressListener listener = (done, total) -> {
+                    progressDialog.setMessage(String.format("Archiving movements of %d... %,d of %,d",
+                        year, done, total));
+                    return !progressDialog.isCancelled();
+                };
+                try (Connection conn = DatabaseManager.getInstance().openConnection()) {
+                    return archiveYear(conn, year, listener);
+                }
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    ArchiveResult result = get();
+                    // The shared connection attaches the new file too
+                    attachAll(DatabaseManager.getInstance().getConnection());
+                    JOptionPane.showMessageDialog(parent,
+                        String.format("%,d movements of %d moved to %s.%s", result.getMoved(), year,
+                            getArchiveFile(year).getPath(),
+                            result.isStopped() ? "\nStopped before the end; run it again to continue." : ""),
+                        "Archive Movements", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    cause.printStackTrace();
+                    JOptionPane.showMessageDialog(parent,
+                        "Error archiving movements: " + cause.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        progressDialog.setVisible(true);
+        worker.execute();
+    }
+
+    private static int selectBatch(Connection conn, String from, String to) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM temp.archive_batch");
+        }
+        String query = """
+            INSERT INTO temp.archive_batch (id)
+            SELECT id FROM main.warehouse_movements
+            WHERE date >= ? AND date < ?
+            ORDER BY date, id
+            LIMIT ?
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, from);
+            pstmt.setString(2, to);
+            pstmt.setInt(3, BATCH_SIZE);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Delete the archived rows of the batch and add their quantities to the
+     * opening balances, in one transaction on the main database
+     */
+    private static int removeBatch(Connection conn, String schema, int year, ArchiveResult result)
+            throws SQLException {
+        String archivedRows = """
+            id IN (SELECT id FROM temp.archive_batch)
+            AND id IN (SELECT id FROM %s.warehouse_movements)
+        """.formatted(schema);
+
+        conn.setAutoCommit(false);
+        try {
+            Map<Integer, Integer> netByProduct = new LinkedHashMap<>();
+            String netQuery = """
+                SELECT product_id, SUM(CASE WHEN type = 'INWARD' THEN quantity ELSE -quantity END) as net
+                FROM main.warehouse_movements
+                WHERE %s
+                GROUP BY product_id
+            """.formatted(archivedRows);
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(netQuery)) {
+                while (rs.next()) {
+                    netByProduct.put(rs.getInt("product_id"), rs.getInt("net"));
+                }
+            }
+
+            for (Map.Entry<Integer, Integer> entry : netByProduct.entrySet()) {
+                if (addToOpeningBalance(conn, year, entry.getKey(), entry.getValue())) {
+                    result.openingBalances++;
+                }
+            }
+
+            int deleted;
+            try (Statement stmt = conn.createStatement()) {
+                deleted = stmt.executeUpdate("DELETE FROM main.warehouse_movements WHERE " + archivedRows);
+            }
+            conn.commit();
+            return deleted;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * @return true if a new opening-balance movement was created
+     */
+    private static boolean addToOpeningBalance(Connection conn, int year, int productId, int net)
+            throws SQLException {
+        String findQuery = """
+            SELECT id, type, quantity FROM main.warehouse_movements
+            WHERE document_type = ? AND document_number = ? AND product_id = ?
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(findQuery)) {
+            pstmt.setString(1, OPENING_DOCUMENT_TYPE);
+            pstmt.setString(2, String.valueOf(year));
+            pstmt.setInt(3, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    int id = rs.getInt("id");
+                    int existing = "INWARD".equals(rs.getString("type")) ? rs.getInt("quantity") : -rs.getInt("quantity");
+                    int combined = existing + net;
+                    try (PreparedStatement update = conn.prepareStatement(
+                            "UPDATE main.warehouse_movements SET type = ?, quantity = ? WHERE id = ?")) {
+                        update.setString(1, combined >= 0 ? "INWARD" : "OUTWARD");
+                        update.setInt(2, Math.abs(combined));
+                        update.setInt(3, id);
+                        update.executeUpdate();
+                    }
+                    return false;
+                }
+            }
+        }
+
+        String insertQuery = """
+            INSERT INTO main.warehouse_movements
+            (product_id, date, type, quantity, reason, document_number, document_type, notes)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
+            pstmt.setInt(1, productId);
+            pstmt.setString(2, (year + 1) + "-01-01 00:00:00");
+            pstmt.setString(3, net >= 0 ? "INWARD" : "OUTWARD");
+            pstmt.setInt(4, Math.abs(net));
+            pstmt.setString(5, OPENING_REASON);
+            pstmt.setString(6, String.valueOf(year));
+            pstmt.setString(7, OPENING_DOCUMENT_TYPE);
+            pstmt.setString(8, "Movements up to " + year + " archived in " + getArchiveFile(year).getName());
+            pstmt.executeUpdate();
+        }
+        return true;
+    }
+
+    private static void attach(Connection conn, int year) throws SQLException {
+        String schema = schemaName(year);
+        try (PreparedStatement pstmt = conn.prepareStatement("ATTACH DATABASE ? AS " + schema)) {
+            pstmt.setString(1, getArchiveFile(year).getPath());
+            pstmt.execute();
+        }
+        // Same columns as the main table; ids are kept, so no AUTOINCREMENT
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS %s.warehouse_movements (
+                    id INTEGER PRIMARY KEY,
+                    product_id INTEGER NOT NULL,
+                    date DATETIME NOT NULL,
+                    type TEXT NOT NULL,
+                    quantity INTEGER NOT NULL,
+                    reason TEXT NOT NULL,
+                    document_number TEXT,
+                    document_type TEXT,
+                    notes TEXT
+                )
+            """.formatted(schema));
+            stmt.execute("CREATE INDEX IF NOT EXISTS %s.idx_movements_product_date ON warehouse_movements (product_id, date)"
+                .formatted(schema));
+        }
+    }
+
+    private static boolean isAttached(Connection conn, String schema) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA database_list")) {
+            while (rs.next()) {
+                if (schema.equals(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String schemaName(int year) {
+        return "movements_" + year;
+    }
+
+    // Helper classes
+
+    public static class ArchiveResult {
+        private final int year;
+        private int moved = 0;
+        private int openingBalances = 0;
+        private boolean stopped = false;
+
+        ArchiveResult(int year) {
+            this.year = year;
+        }
+
+        public int getYear() { return year; }
+        public int getMoved() { return moved; }
+        public int getOpeningBalances() { return openingBalances; }
+        public boolean isStopped() { return stopped; }
+    }
+}
@@ -0,0 +1,261 @@
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+/**
+ * Warehouse movement history read one page at a time
+ * Pages are ordered newest first and continue from the (date, id) of the
+ * last row shown, so a page costs the same wherever it is in the history
+ * instead of growing with an OFFSET. Filters compile to plain comparisons on
+ * indexed columns: product and document go through their indexes, the date
+ * range is a range on the stored text date.
+ *
+ * When the filter selects products, every row also carries the stock left
+ * after that movement. It is computed in the same query with a window sum
+ * over the product's later movements, subtracted from the current stock.
+ */
+public class MovementHistory {
+    private static final String SIGNED_QUANTITY = "CASE WHEN m.type = 'INWARD' THEN m.quantity ELSE -m.quantity END";
+
+    private MovementHistory() {
+    }
+
+    /**
+     * Read the page after the given cursor; pass null for the newest page
+     */
+    public static Page fetchPage(Connection conn, Filter filter, Cursor after, int pageSize) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        // One extra row tells whether another page exists
+        String query = buildQuery(filter, after, pageSize + 1, params);
+
+        List<WarehouseMovement> movements = new ArrayList<>();
+        List<Integer> balances = new ArrayList<>();
+        Cursor last = null;
+        boolean more = false;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (movements.size() == pageSize) {
+                        more = true;
+                        break;
+                    }
+                    // The raw stored value, so the next page compares exactly
+                    last = new Cursor(rs.getString("date"), rs.getInt("id"));
+                    movements.add(map(rs));
+                    int balance = rs.getInt("balance");
+                    balances.add(rs.wasNull() ? null : balance);
+                }
+            }
+        }
+        return new Page(movements, balances, more ? last : null);
+    }
+
+    /**
+     * SQL for the filtered history after a cursor, newest first
+     *
+     * @param after Cursor to continue from, or null to start at the newest movement
+     * @param limit Maximum rows, or -1 for all of them (exports)
+     * @param params Receives the parameters in order
+     */
+    public static String buildQuery(Filter filter, Cursor after, int limit, List<Object> params) {
+        List<String> productConditions = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        List<Object> productParams = new ArrayList<>();
+        List<Object> conditionParams = new ArrayList<>();
+
+        if (filter.getProductId() != null) {
+            productConditions.add("m.product_id = ?");
+            productParams.add(filter.getProductId());
+        }
+        if (filter.getProductName() != null) {
+            // products is small; the movements side then uses the product index
+            productConditions.add("m.product_id IN (SELECT id FROM products WHERE name LIKE ?)");
+            productParams.add("%" + filter.getProductName() + "%");
+        }
+        if (filter.getType() != null) {
+            conditions.add("m.type = ?");
+            conditionParams.add(filter.getType());
+        }
+        if (filter.getReason() != null) {
+            conditions.add("m.reason = ?");
+            conditionParams.add(filter.getReason());
+        }
+        if (filter.getDocumentNumber() != null) {
+            conditions.add("m.document_number = ?");
+            conditionParams.add(filter.getDocumentNumber());
+        }
+        if (filter.getFromDate() != null) {
+            conditions.add("m.date >= ?");
+            conditionParams.add(DateUtils.toDbDateTime(startOfDay(filter.getFromDate(), 0)));
+        }
+        if (filter.getToDate() != null) {
+            conditions.add("m.date < ?");
+            conditionParams.add(DateUtils.toDbDateTime(startOfDay(filter.getToDate(), 1)));
+        }
+        if (after != null) {
+            conditions.add("(m.date, m.id) < (?, ?)");
+            conditionParams.add(after.getDate());
+            conditionParams.add(after.getId());
+        }
+
+        // The archive view has the detail of archived years instead of their opening balances
+        String source = filter.isIncludeArchive() ? MovementArchive.HISTORY_VIEW : "warehouse_movements";
+
+        String query;
+        if (productConditions.isEmpty()) {
+            query = """
+                SELECT m.*, p.name as product_name, NULL as balance
+                FROM %s m
+                LEFT JOIN products p ON m.product_id = p.id
+            """.formatted(source) + where(conditions);
+            params.addAll(conditionParams);
+        } else {
+            // The window runs over the whole history of the selected products, so
+            // the balance is right whatever the other filters and the page are
+            query = """
+                WITH ledger AS (
+                    SELECT m.*,
+                        SUM(%s) OVER (
+                            PARTITION BY m.product_id ORDER BY m.date DESC, m.id DESC
+                            ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING
+                        ) as later_quantity
+                    FROM %s m
+                    %s
+                )
+                SELECT m.*, p.name as product_name,
+                    p.quantity - COALESCE(m.later_quantity, 0) as balance
+                FROM ledger m
+                LEFT JOIN products p ON m.product_id = p.id
+            """.formatted(SIGNED_QUANTITY, source, where(productConditions)) + where(conditions);
+            params.addAll(productParams);
+            params.addAll(conditionParams);
+        }
+
+        query += " ORDER BY m.date DESC, m.id DESC";
+        if (limit >= 0) {
+            query += " LIMIT " + limit;
+        }
+        return query;
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static Date startOfDay(Date date, int daysLater) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+        cal.set(Calendar.HOUR_OF_DAY, 0);
+        cal.set(Calendar.MINUTE, 0);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        cal.add(Calendar.DAY_OF_MONTH, daysLater);
+        return cal.getTime();
+    }
+
+    private static WarehouseMovement map(ResultSet rs) throws SQLException {
+        return new WarehouseMovement(
+            rs.getInt("id"),
+            rs.getInt("product_id"),
+            rs.getString("product_name"),
+            DateUtils.parseDate(rs, "date"),
+            rs.getString("type"),
+            rs.getInt("quantity"),
+            rs.getString("reason"),
+            rs.getString("document_number"),
+            rs.getString("document_type"),
+            rs.getString("notes")
+        );
+    }
+
+    // Helper classes
+
+    /**
+     * Conditions combined with AND; a null field is not filtered on
+     */
+    public static class Filter {
+        private Integer productId;
+        private String productName;
+        private String type;
+        private String reason;
+        private String documentNumber;
+        private Date fromDate;
+        private Date toDate;
+        private boolean includeArchive;
+
+        public Integer getProductId() { return productId; }
+        public String getProductName() { return productName; }
+        public String getType() { return type; }
+        public String getReason() { return reason; }
+        public String getDocumentNumber() { return documentNumber; }
+        public Date getFromDate() { return fromDate; }
+        public Date getToDate() { return toDate; }
+        public boolean isIncludeArchive() { return includeArchive; }
+
+        public void setProductId(Integer productId) { this.productId = productId; }
+        public void setProductName(String productName) { this.productName = blankToNull(productName); }
+        public void setType(String type) { this.type = blankToNull(type); }
+        public void setReason(String reason) { this.reason = blankToNull(reason); }
+        public void setDocumentNumber(String documentNumber) { this.documentNumber = blankToNull(documentNumber); }
+        public void setIncludeArchive(boolean includeArchive) { this.includeArchive = includeArchive; }
+
+        /**
+         * Whole days, both ends included
+         */
+        public void setDateRange(Date fromDate, Date toDate) {
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+        }
+
+        public boolean hasProductFilter() {
+            return productId != null || productName != null;
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.trim().isEmpty() ? null : value.trim();
+        }
+    }
+
+    /**
+     * Position after the last row of a page
+     */
+    public static class Cursor {
+        private final String date;
+        private final int id;
+
+        public Cursor(String date, int id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        public String getDate() { return date; }
+        public int getId() { return id; }
+    }
+
+    public static class Page {
+        private final List<WarehouseMovement> movements;
+        private final List<Integer> balances;
+        private final Cursor next;
+
+        Page(List<WarehouseMovement> movements, List<Integer> balances, Cursor next) {
+            this.movements = movements;
+            this.balances = balances;
+            this.next = next;
+        }
+
+        public List<WarehouseMovement> getMovements() { return movements; }
+
+        /**
+         * Stock after the movement at the same index, or null without a product filter
+         */
+        public Integer getBalance(int index) { return balances.get(index); }
+
+        /**
+         * Cursor for the following page, or null if this was the last one
+         */
+        public Cursor getNext() { return next; }
+    }
+}
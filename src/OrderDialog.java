@@ -27,7 +27,6 @@ public class OrderDialog extends JDialog {
     private volatile boolean updatingTotals = false;
     private TableModelListener tableListener;
     private double currentTotal = 0.0; // Track total instead of parsing from label
-    private String previousStatus = null; // Track previous status for state changes
     
     // Constructor for JFrame parent
     public OrderDialog(JFrame parent, Order order) {
@@ -231,20 +230,8 @@ public class OrderDialog extends JDialog {
     private void loadProducts() {
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT * FROM products ORDER BY name";
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    Product product = new Product(
-                        rs.getInt("id"),
-                        rs.getString("code"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getDouble("price"),
-                        rs.getInt("quantity")
-                    );
-                    productsCache.put(product.getId(), product);
-                }
+            for (Product product : ProductRepository.findAll(conn)) {
+                productsCache.put(product.getId(), product);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -270,7 +257,6 @@ public class OrderDialog extends JDialog {
 
         dateField.setText(DateUtils.formatDate(order.getOrderDate()));
         statusCombo.setSelectedItem(order.getStatus());
-        previousStatus = order.getStatus(); // Store current status as previous
 
         for (OrderItem item : order.getItems()) {
             Vector<Object> row = new Vector<>();
@@ -286,24 +272,7 @@ public class OrderDialog extends JDialog {
     }
     
     private Customer loadCustomerById(int customerId) throws SQLException {
-        Connection conn = DatabaseManager.getInstance().getConnection();
-        String query = "SELECT * FROM customers WHERE id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, customerId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return new Customer(
-                        rs.getInt("id"),
-                        rs.getString("first_name"),
-                        rs.getString("last_name"),
-                        rs.getString("email"),
-                        rs.getString("phone"),
-                        rs.getString("address")
-                    );
-                }
-            }
-        }
-        return null;
+        return CustomerRepository.findById(DatabaseManager.getInstance().getConnection(), customerId);
     }
     
     private void showProductSelectionDialog() {
@@ -441,127 +410,44 @@ public class OrderDialog extends JDialog {
             Date orderDate = DateUtils.parseDate(dateField.getText(), dateFormat);
             String newStatus = (String)statusCombo.getSelectedItem();
 
-            // Build list of stock items
-            List<StockManager.StockItem> stockItems = new ArrayList<>();
+            Order toSave = new Order(order != null ? order.getId() : 0, selectedCustomer.getId(),
+                selectCustomerButton.getText(), orderDate, newStatus, currentTotal);
             for (int i = 0; i < itemsTableModel.getRowCount(); i++) {
-                int productId = (int)itemsTableModel.getValueAt(i, 0);
-                String productName = (String)itemsTableModel.getValueAt(i, 1);
-                int quantity = parseInteger(itemsTableModel.getValueAt(i, 2));
-                stockItems.add(new StockManager.StockItem(productId, productName, quantity));
+                toSave.getItems().add(new OrderItem(0, toSave.getId(),
+                    (int)itemsTableModel.getValueAt(i, 0),
+                    (String)itemsTableModel.getValueAt(i, 1),
+                    parseInteger(itemsTableModel.getValueAt(i, 2)),
+                    parseDouble(itemsTableModel.getValueAt(i, 3))));
             }
 
             // Check stock availability for In Progress and Completed states
-            if ("In Progress".equals(newStatus) || "Completed".equals(newStatus)) {
-                Map<String, StockManager.StockAvailability> insufficient =
-                    StockManager.checkStockAvailability(
-                        DatabaseManager.getInstance().getConnection(),
-                        stockItems,
-                        order != null ? order.getId() : null,
-                        "ORDER"
-                    );
-
-                if (!insufficient.isEmpty()) {
-                    StringBuilder message = new StringBuilder("Insufficient stock for the following products:\n\n");
-                    for (Map.Entry<String, StockManager.StockAvailability> entry : insufficient.entrySet()) {
-                        message.append(String.format("- %s: %s\n",
-                            entry.getKey(), entry.getValue().getFormattedMessage()));
-                    }
-                    message.append("\nDo you want to proceed anyway?\nThis will result in negative stock.");
-
-                    int choice = JOptionPane.showConfirmDialog(this,
-                        message.toString(),
-                        "Insufficient Stock",
-                        JOptionPane.YES_NO_OPTION,
-                        JOptionPane.WARNING_MESSAGE);
-
-                    if (choice != JOptionPane.YES_OPTION) {
-                        return;
-                    }
+            Map<String, StockManager.StockAvailability> insufficient =
+                OrderService.checkStock(DatabaseManager.getInstance().getConnection(), toSave);
+
+            if (!insufficient.isEmpty()) {
+                StringBuilder message = new StringBuilder("Insufficient stock for the following products:\n\n");
+                for (Map.Entry<String, StockManager.StockAvailability> entry : insufficient.entrySet()) {
+                    message.append(String.format("- %s: %s\n",
+                        entry.getKey(), entry.getValue().getFormattedMessage()));
                 }
-            }
-
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            conn.setAutoCommit(false);
-            try {
-                int orderId;
-
-                if (order == null) {
-                    // New order
-                    String orderQuery = """
-                        INSERT INTO orders (customer_id, order_date, status, total)
-                        VALUES (?, ?, ?, ?)
-                    """;
-                    try (PreparedStatement pstmt = conn.prepareStatement(orderQuery, Statement.RETURN_GENERATED_KEYS)) {
-                        pstmt.setInt(1, selectedCustomer.getId());
-                        pstmt.setTimestamp(2, DateUtils.toSqlTimestamp(orderDate));
-                        pstmt.setString(3, newStatus);
-                        pstmt.setDouble(4, currentTotal);
-                        pstmt.executeUpdate();
-
-                        try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                            if (rs.next()) {
-                                orderId = rs.getInt(1);
-                            } else {
-                                throw new SQLException("Failed to get order ID");
-                            }
-                        }
-                    }
+                message.append("\nDo you want to proceed anyway?\nThis will result in negative stock.");
 
-                    // Insert order details
-                    insertOrderDetails(conn, orderId);
-
-                    // Handle stock based on status
-                    handleStockForNewStatus(conn, orderId, newStatus, stockItems, orderDate);
-
-                } else {
-                    // Update existing order
-                    orderId = order.getId();
-
-                    String orderQuery = """
-                        UPDATE orders
-                        SET customer_id = ?, order_date = ?, status = ?, total = ?
-                        WHERE id = ?
-                    """;
-                    try (PreparedStatement pstmt = conn.prepareStatement(orderQuery)) {
-                        pstmt.setInt(1, selectedCustomer.getId());
-                        pstmt.setTimestamp(2, DateUtils.toSqlTimestamp(orderDate));
-                        pstmt.setString(3, newStatus);
-                        pstmt.setDouble(4, currentTotal);
-                        pstmt.setInt(5, orderId);
-                        pstmt.executeUpdate();
-                    }
-
-                    // If order was "In Progress", cancel old reservations before changing details
-                    // This ensures reservations match the NEW quantities, not old ones
-                    if ("In Progress".equals(previousStatus)) {
-                        StockManager.cancelReservation(conn, "ORDER", orderId);
-                    }
+                int choice = JOptionPane.showConfirmDialog(this,
+                    message.toString(),
+                    "Insufficient Stock",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.WARNING_MESSAGE);
 
-                    // Delete old details
-                    String deleteDetailsQuery = "DELETE FROM order_details WHERE order_id = ?";
-                    try (PreparedStatement pstmt = conn.prepareStatement(deleteDetailsQuery)) {
-                        pstmt.setInt(1, orderId);
-                        pstmt.executeUpdate();
-                    }
-
-                    // Insert new details
-                    insertOrderDetails(conn, orderId);
-
-                    // Handle status change (now reservations are clean if they existed)
-                    handleStatusChange(conn, orderId, previousStatus, newStatus, stockItems, orderDate);
+                if (choice != JOptionPane.YES_OPTION) {
+                    return;
                 }
-
-                conn.commit();
-                orderSaved = true;
-                dispose();
-
-            } catch (Exception e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
             }
 
+            // Durable once journaled; OrderSaved follows when the writer commits it
+            DocumentJournal.getInstance().saveOrder(toSave);
+            orderSaved = true;
+            dispose();
+
         } catch (Exception e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
@@ -570,79 +456,6 @@ public class OrderDialog extends JDialog {
         }
     }
 
-    private void insertOrderDetails(Connection conn, int orderId) throws SQLException {
-        String detailQuery = """
-            INSERT INTO order_details (order_id, product_id, quantity, unit_price)
-            VALUES (?, ?, ?, ?)
-        """;
-        try (PreparedStatement pstmt = conn.prepareStatement(detailQuery)) {
-            for (int i = 0; i < itemsTableModel.getRowCount(); i++) {
-                pstmt.setInt(1, orderId);
-                pstmt.setInt(2, (int)itemsTableModel.getValueAt(i, 0));
-                pstmt.setInt(3, parseInteger(itemsTableModel.getValueAt(i, 2)));
-                pstmt.setDouble(4, parseDouble(itemsTableModel.getValueAt(i, 3)));
-                pstmt.executeUpdate();
-            }
-        }
-    }
-
-    private void handleStockForNewStatus(Connection conn, int orderId, String status,
-                                         List<StockManager.StockItem> items, Date orderDate) throws SQLException {
-        switch (status) {
-            case "New":
-                // No stock action
-                break;
-            case "In Progress":
-                // Create reservations
-                for (StockManager.StockItem item : items) {
-                    StockManager.createOrUpdateReservation(conn, item.getProductId(),
-                        "ORDER", orderId, item.getQuantity(), "Order #" + orderId);
-                }
-                break;
-            case "Completed":
-                // Decrement stock directly (no prior reservation)
-                StockManager.decrementStockDirectly(conn, items, orderDate,
-                    String.valueOf(orderId), "ORDER");
-                break;
-            case "Cancelled":
-                // No stock action
-                break;
-        }
-    }
-
-    private void handleStatusChange(Connection conn, int orderId, String oldStatus, String newStatus,
-                                    List<StockManager.StockItem> items, Date orderDate) throws SQLException {
-        // Note: If oldStatus was "In Progress", reservations were already cancelled
-        // before updating details, so we don't need to cancel them here
-
-        if ("Completed".equals(oldStatus) && !"Completed".equals(newStatus)) {
-            // Restore stock
-            StockManager.restoreStockFromDocument(conn, orderId, "ORDER");
-        }
-
-        // Handle transition to new status
-        switch (newStatus) {
-            case "New":
-                // No action needed
-                break;
-            case "In Progress":
-                // Create new reservations with current quantities
-                for (StockManager.StockItem item : items) {
-                    StockManager.createOrUpdateReservation(conn, item.getProductId(),
-                        "ORDER", orderId, item.getQuantity(), "Order #" + orderId);
-                }
-                break;
-            case "Completed":
-                // Always decrement stock directly (reservations were cancelled if they existed)
-                StockManager.decrementStockDirectly(conn, items, orderDate,
-                    String.valueOf(orderId), "ORDER");
-                break;
-            case "Cancelled":
-                // No action needed (reservations already cancelled if they existed)
-                break;
-        }
-    }
-
     public boolean isOrderSaved() {
         return orderSaved;
     }
@@ -0,0 +1,63 @@
+import java.sql.*;
+
+/**
+ * Order queries and mapping to the Order and OrderItem models
+ * Saving goes through OrderService, which also handles stock.
+ */
+public class OrderRepository {
+    private OrderRepository() {
+    }
+
+    /**
+     * Load an order with its items, or null if it does not exist
+     */
+    public static Order findById(Connection conn, int orderId) throws SQLException {
+        String query = """
+            SELECT o.*, c.first_name || ' ' || c.last_name as customer_name
+            FROM orders o
+            LEFT JOIN customers c ON o.customer_id = c.id
+            WHERE o.id = ?
+        """;
+
+        Order order;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, orderId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                order = new Order(
+                    rs.getInt("id"),
+                    rs.getInt("customer_id"),
+                    rs.getString("customer_name"),
+                    DateUtils.parseDate(rs, "order_date"),
+                    rs.getString("status"),
+                    rs.getDouble("total")
+                );
+            }
+        }
+
+        String itemsQuery = """
+            SELECT d.*, p.name as product_name
+            FROM order_details d
+            LEFT JOIN products p ON d.product_id = p.id
+            WHERE d.order_id = ?
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(itemsQuery)) {
+            pstmt.setInt(1, orderId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    order.getItems().add(new OrderItem(
+                        rs.getInt("id"),
+                        orderId,
+                        rs.getInt("product_id"),
+                        rs.getString("product_name"),
+                        rs.getInt("quantity"),
+                        rs.getDouble("unit_price")
+                    ));
+                }
+            }
+        }
+        return order;
+    }
+}
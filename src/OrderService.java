@@ -0,0 +1,227 @@
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+/**
+ * Order business logic shared by OrderDialog and the HTTP API
+ * The methods run inside the caller's transaction; the caller commits and
+ * publishes EventBus.OrderSaved afterwards.
+ */
+public class OrderService {
+    public static final List<String> STATUSES = List.of("New", "In Progress", "Completed", "Cancelled");
+
+    /**
+     * Stock items of an order, in the form StockManager works with
+     */
+    public static List<StockManager.StockItem> toStockItems(Order order) {
+        List<StockManager.StockItem> items = new ArrayList<>();
+        for (OrderItem item : order.getItems()) {
+            items.add(new StockManager.StockItem(item.getProductId(), item.getProductName(), item.getQuantity()));
+        }
+        return items;
+    }
+
+    /**
+     * Products whose available stock does not cover the order, empty if all OK
+     * Only "In Progress" and "Completed" orders use stock.
+     */
+    public static Map<String, StockManager.StockAvailability> checkStock(Connection conn, Order order)
+            throws SQLException {
+        if (!"In Progress".equals(order.getStatus()) && !"Completed".equals(order.getStatus())) {
+            return Collections.emptyMap();
+        }
+        return StockManager.checkStockAvailability(conn, toStockItems(order),
+            order.getId() > 0 ? order.getId() : null, "ORDER");
+    }
+
+    /**
+     * Insert a new order (id 0) or update an existing one, with its details and
+     * the stock reservations or movements its status requires
+     *
+     * @return The order id
+     */
+    public static int saveOrder(Connection conn, Order order) throws SQLException {
+        AppEvents.OrderSave event = new AppEvents.OrderSave();
+        event.begin();
+        event.created = order.getId() == 0;
+        event.status = order.getStatus();
+        event.lines = order.getItems().size();
+        try {
+            int orderId = writeOrder(conn, order);
+            event.orderId = orderId;
+            event.succeeded = true;
+            return orderId;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static int writeOrder(Connection conn, Order order) throws SQLException {
+        validate(order);
+
+        List<StockManager.StockItem> stockItems = toStockItems(order);
+        double total = 0;
+        for (OrderItem item : order.getItems()) {
+            total += item.getTotal();
+        }
+        order.setTotal(total);
+
+        int orderId;
+        if (order.getId() == 0) {
+            String orderQuery = """
+                INSERT INTO orders (customer_id, order_date, status, total)
+                VALUES (?, ?, ?, ?)
+            """;
+            try (PreparedStatement pstmt = conn.prepareStatement(orderQuery, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, order.getCustomerId());
+                pstmt.setTimestamp(2, DateUtils.toSqlTimestamp(order.getOrderDate()));
+                pstmt.setString(3, order.getStatus());
+                pstmt.setDouble(4, total);
+                pstmt.executeUpdate();
+
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        orderId = rs.getInt(1);
+                    } else {
+                        throw new SQLException("Failed to get order ID");
+                    }
+                }
+            }
+
+            insertOrderDetails(conn, orderId, order.getItems());
+            handleStockForNewStatus(conn, orderId, order.getStatus(), stockItems, order.getOrderDate());
+            order.setId(orderId);
+
+        } else {
+            orderId = order.getId();
+            String previousStatus = getStatus(conn, orderId);
+            if (previousStatus == null) {
+                throw new SQLException("Order " + orderId + " not found");
+            }
+
+            String orderQuery = """
+                UPDATE orders
+                SET customer_id = ?, order_date = ?, status = ?, total = ?
+                WHERE id = ?
+            """;
+            try (PreparedStatement pstmt = conn.prepareStatement(orderQuery)) {
+                pstmt.setInt(1, order.getCustomerId());
+                pstmt.setTimestamp(2, DateUtils.toSqlTimestamp(order.getOrderDate()));
+                pstmt.setString(3, order.getStatus());
+                pstmt.setDouble(4, total);
+                pstmt.setInt(5, orderId);
+                pstmt.executeUpdate();
+            }
+
+            // If order was "In Progress", cancel old reservations before changing details
+            // This ensures reservations match the NEW quantities, not old ones
+            if ("In Progress".equals(previousStatus)) {
+                StockManager.cancelReservation(conn, "ORDER", orderId);
+            }
+
+            String deleteDetailsQuery = "DELETE FROM order_details WHERE order_id = ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(deleteDetailsQuery)) {
+                pstmt.setInt(1, orderId);
+                pstmt.executeUpdate();
+            }
+
+            insertOrderDetails(conn, orderId, order.getItems());
+
+            // Handle status change (now reservations are clean if they existed)
+            handleStatusChange(conn, orderId, previousStatus, order.getStatus(), stockItems, order.getOrderDate());
+        }
+
+        return orderId;
+    }
+
+    private static void validate(Order order) {
+        if (order.getCustomerId() <= 0) {
+            throw new IllegalArgumentException("A customer is required");
+        }
+        if (order.getItems().isEmpty()) {
+            throw new IllegalArgumentException("An order needs at least one product");
+        }
+        if (!STATUSES.contains(order.getStatus())) {
+            throw new IllegalArgumentException("Invalid order status: " + order.getStatus());
+        }
+        if (order.getOrderDate() == null) {
+            order.setOrderDate(new Date());
+        }
+    }
+
+    private static String getStatus(Connection conn, int orderId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT status FROM orders WHERE id = ?")) {
+            pstmt.setInt(1, orderId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString("status") : null;
+            }
+        }
+    }
+
+    private static void insertOrderDetails(Connection conn, int orderId, List<OrderItem> items) throws SQLException {
+        String detailQuery = """
+            INSERT INTO order_details (order_id, product_id, quantity, unit_price)
+            VALUES (?, ?, ?, ?)
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(detailQuery)) {
+            for (OrderItem item : items) {
+                pstmt.setInt(1, orderId);
+                pstmt.setInt(2, item.getProductId());
+                pstmt.setInt(3, item.getQuantity());
+                pstmt.setDouble(4, item.getUnitPrice());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void handleStockForNewStatus(Connection conn, int orderId, String status,
+                                                List<StockManager.StockItem> items, Date orderDate) throws SQLException {
+        switch (status) {
+            case "In Progress":
+                // Create reservations
+                for (StockManager.StockItem item : items) {
+                    StockManager.createOrUpdateReservation(conn, item.getProductId(),
+                        "ORDER", orderId, item.getQuantity(), "Order #" + orderId);
+                }
+                break;
+            case "Completed":
+                // Decrement stock directly (no prior reservation)
+                StockManager.decrementStockDirectly(conn, items, orderDate,
+                    String.valueOf(orderId), "ORDER");
+                break;
+            default:
+                // New and Cancelled: no stock action
+                break;
+        }
+    }
+
+    private static void handleStatusChange(Connection conn, int orderId, String oldStatus, String newStatus,
+                                           List<StockManager.StockItem> items, Date orderDate) throws SQLException {
+        // Note: If oldStatus was "In Progress", reservations were already cancelled
+        // before updating details, so we don't need to cancel them here
+
+        if ("Completed".equals(oldStatus) && !"Completed".equals(newStatus)) {
+            // Restore stock
+            StockManager.restoreStockFromDocument(conn, orderId, "ORDER");
+        }
+
+        switch (newStatus) {
+            case "In Progress":
+                // Create new reservations with current quantities
+                for (StockManager.StockItem item : items) {
+                    StockManager.createOrUpdateReservation(conn, item.getProductId(),
+                        "ORDER", orderId, item.getQuantity(), "Order #" + orderId);
+                }
+                break;
+            case "Completed":
+                // Always decrement stock directly (reservations were cancelled if they existed)
+                StockManager.decrementStockDirectly(conn, items, orderDate,
+                    String.valueOf(orderId), "ORDER");
+                break;
+            default:
+                // New and Cancelled: no action needed
+                break;
+        }
+    }
+}
@@ -1,14 +1,18 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.Vector;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
 public class OrdersPanel extends JPanel {
     private JTable ordersTable;
-    private DefaultTableModel tableModel;
+    private KeyedTableModel tableModel;
     private JTextField searchField;
     private JButton addButton;
     private JButton editButton;
@@ -21,6 +25,9 @@ public class OrdersPanel extends JPanel {
         setupPanel();
         initComponents();
         loadOrders();
+
+        EventBus.getInstance().subscribe(EventBus.OrderSaved.class, this::onOrdersSaved);
+        EventBus.getInstance().subscribe(EventBus.CustomerChanged.class, this::onCustomersChanged);
     }
 
     private void setupPanel() {
@@ -43,7 +50,7 @@ public class OrdersPanel extends JPanel {
 
         // Orders table
         String[] columns = {"ID", "Customer", "Date", "Status", "Total €"};
-        tableModel = new DefaultTableModel(columns, 0) {
+        tableModel = new KeyedTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
@@ -98,34 +105,24 @@ public class OrdersPanel extends JPanel {
     }
 
     private void loadOrders() {
-        tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
             String query = """
                 SELECT o.*, c.first_name || ' ' || c.last_name as customer_name
                 FROM orders o
                 LEFT JOIN customers c ON o.customer_id = c.id
+                WHERE c.deleted_at IS NULL
                 ORDER BY o.order_date DESC
             """;
 
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery(query)) {
+                List<Vector<Object>> rows = new ArrayList<>();
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("id"));
-                    row.add(rs.getString("customer_name"));
-
-                    Date date = DateUtils.parseDate(rs, "order_date");
-                    if (date != null) {
-                        row.add(DateUtils.formatDate(date, dateFormat));
-                    } else {
-                        row.add("");
-                    }
-
-                    row.add(rs.getString("status"));
-                    row.add(String.format("%.2f", rs.getDouble("total")));
-                    tableModel.addRow(row);
+                    rows.add(buildRow(rs));
                 }
+                tableModel.replaceRows(rows);
+                tableModel.setRowFilter(null);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -135,6 +132,82 @@ public class OrdersPanel extends JPanel {
         }
     }
 
+    private Vector<Object> buildRow(ResultSet rs) throws SQLException {
+        Vector<Object> row = new Vector<>();
+        row.add(rs.getInt("id"));
+        row.add(rs.getString("customer_name"));
+
+        Date date = DateUtils.parseDate(rs, "order_date");
+        if (date != null) {
+            row.add(DateUtils.formatDate(date, dateFormat));
+        } else {
+            row.add("");
+        }
+
+        row.add(rs.getString("status"));
+        row.add(String.format("%.2f", rs.getDouble("total")));
+        return row;
+    }
+
+    private void onOrdersSaved(List<EventBus.OrderSaved> events) {
+        Set<Integer> changed = new LinkedHashSet<>();
+        for (EventBus.OrderSaved event : events) {
+            if (event.isDeleted()) {
+                tableModel.remove(event.getId());
+            } else {
+                changed.add(event.getId());
+            }
+        }
+        refreshRows("o.id", changed);
+    }
+
+    private void onCustomersChanged(List<EventBus.CustomerChanged> events) {
+        Set<Integer> changed = new LinkedHashSet<>();
+        for (EventBus.CustomerChanged event : events) {
+            if (event.isDeleted()) {
+                // Orders of a deleted customer are hidden, then purged
+                loadOrders();
+                return;
+            }
+            changed.add(event.getId());
+        }
+        refreshRows("o.customer_id", changed);
+    }
+
+    /**
+     * Re-read the orders matching the given ids and upsert their rows
+     */
+    private void refreshRows(String keyColumn, Set<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        try {
+            Connection conn = DatabaseManager.getInstance().getConnection();
+            String query = """
+                SELECT o.*, c.first_name || ' ' || c.last_name as customer_name
+                FROM orders o
+                LEFT JOIN customers c ON o.customer_id = c.id
+                WHERE %s IN (%s)
+                AND c.deleted_at IS NULL
+            """.formatted(keyColumn, String.join(", ", Collections.nCopies(ids.size(), "?")));
+
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                int index = 1;
+                for (int id : ids) {
+                    pstmt.setInt(index++, id);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        tableModel.upsert(buildRow(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     private void searchOrders() {
         String searchTerm = searchField.getText().trim();
         if (searchTerm.isEmpty()) {
@@ -142,14 +215,14 @@ public class OrdersPanel extends JPanel {
             return;
         }
 
-        tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
             String query = """
                 SELECT o.*, c.first_name || ' ' || c.last_name as customer_name
                 FROM orders o
                 LEFT JOIN customers c ON o.customer_id = c.id
-                WHERE c.first_name LIKE ? OR c.last_name LIKE ? OR o.status LIKE ?
+                WHERE c.deleted_at IS NULL
+                AND (c.first_name LIKE ? OR c.last_name LIKE ? OR o.status LIKE ?)
                 ORDER BY o.order_date DESC
             """;
 
@@ -160,22 +233,12 @@ public class OrdersPanel extends JPanel {
                 pstmt.setString(3, searchPattern);
 
                 try (ResultSet rs = pstmt.executeQuery()) {
+                    List<Vector<Object>> rows = new ArrayList<>();
                     while (rs.next()) {
-                        Vector<Object> row = new Vector<>();
-                        row.add(rs.getInt("id"));
-                        row.add(rs.getString("customer_name"));
-
-                        Date date = DateUtils.parseDate(rs, "order_date");
-                        if (date != null) {
-                            row.add(DateUtils.formatDate(date, dateFormat));
-                        } else {
-                            row.add("");
-                        }
-
-                        row.add(rs.getString("status"));
-                        row.add(String.format("%.2f", rs.getDouble("total")));
-                        tableModel.addRow(row);
+                        rows.add(buildRow(rs));
                     }
+                    tableModel.replaceRows(rows);
+                    tableModel.setRowFilter(KeyedTableModel.containsFilter(searchTerm, 1, 3));
                 }
             }
         } catch (SQLException e) {
@@ -196,10 +259,8 @@ public class OrdersPanel extends JPanel {
             dialog = new OrderDialog((JDialog) parentWindow, order);
         }
 
+        // The saved order arrives as an OrderSaved event and patches its row
         dialog.setVisible(true);
-        if (dialog.isOrderSaved()) {
-            loadOrders();
-        }
     }
 
     private void editSelectedOrder() {
@@ -221,65 +282,11 @@ public class OrdersPanel extends JPanel {
     }
 
     private Order loadOrderDetails(int orderId) throws SQLException {
-        Connection conn = DatabaseManager.getInstance().getConnection();
-        String query = """
-            SELECT o.*, c.first_name || ' ' || c.last_name as customer_name
-            FROM orders o
-            LEFT JOIN customers c ON o.customer_id = c.id
-            WHERE o.id = ?
-        """;
-
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, orderId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Date date = DateUtils.parseDate(rs, "order_date");
-                    if (date == null) {
-                        date = new Date();
-                    }
-
-                    Order order = new Order(
-                        rs.getInt("id"),
-                        rs.getInt("customer_id"),
-                        rs.getString("customer_name"),
-                        date,
-                        rs.getString("status"),
-                        rs.getDouble("total")
-                    );
-
-                    loadOrderItems(order);
-                    return order;
-                }
-            }
-        }
-        return null;
-    }
-
-    private void loadOrderItems(Order order) throws SQLException {
-        String query = """
-            SELECT i.*, p.name as product_name
-            FROM order_details i
-            LEFT JOIN products p ON i.product_id = p.id
-            WHERE i.order_id = ?
-        """;
-
-        Connection conn = DatabaseManager.getInstance().getConnection();
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, order.getId());
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    OrderItem item = new OrderItem(
-                        rs.getInt("id"),
-                        rs.getInt("order_id"),
-                        rs.getInt("product_id"),
-                        rs.getString("product_name"),
-                        rs.getInt("quantity"),
-                        rs.getDouble("unit_price")
-                    );
-                    order.getItems().add(item);
-                }
-            }
+        Order order = OrderRepository.findById(DatabaseManager.getInstance().getConnection(), orderId);
+        if (order != null && order.getOrderDate() == null) {
+            order.setOrderDate(new Date());
         }
+        return order;
     }
 
     private void deleteSelectedOrder() {
@@ -323,7 +330,7 @@ public class OrdersPanel extends JPanel {
                         }
 
                         conn.commit();
-                        loadOrders();
+                        EventBus.getInstance().publish(new EventBus.OrderSaved(id, true));
 
                         JOptionPane.showMessageDialog(this,
                             "Order deleted successfully!" +
@@ -0,0 +1,418 @@
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of supplier price list validity ranges
+ * Each supplier is loaded with one query on first use. For every product the
+ * validity ranges are cut into non-overlapping day segments, so the price at a
+ * date is a binary search over segments followed by a binary search over that
+ * segment's quantity breakpoints. Writes rebuild only the affected product.
+ * The index reads through its own read-only connection, because lookups also
+ * come from background threads; writes from other connections only show up
+ * after a refresh or invalidation, so checks that guard a write read the
+ * table itself (findOverlapping).
+ */
+public class PriceResolver {
+    private static PriceResolver instance;
+
+    // supplier id -> product id -> timeline; a missing supplier is loaded on demand
+    private final Map<Integer, Map<Integer, PriceTimeline>> suppliers = new ConcurrentHashMap<>();
+    private Connection connection;
+
+    private PriceResolver() {
+    }
+
+    public static synchronized PriceResolver getInstance() {
+        if (instance == null) {
+            instance = new PriceResolver();
+        }
+        return instance;
+    }
+
+    /**
+     * Best price list entry for a product at a date and quantity
+     * All lists valid at the date compete; a quantity break applies once the
+     * quantity reaches its minimum.
+     *
+     * @return null if the supplier has no valid price for the product
+     */
+    public PriceEntry resolve(int supplierId, int productId, Date date, int quantity) throws SQLException {
+        PriceTimeline timeline = getSupplier(supplierId).get(productId);
+        return timeline != null ? timeline.resolve(toDay(date), quantity) : null;
+    }
+
+    /**
+     * Resolve every product of a supplier at once, keyed by product id
+     */
+    public Map<Integer, PriceEntry> resolveAll(int supplierId, Date date, int quantity) throws SQLException {
+        long day = toDay(date);
+        Map<Integer, PriceEntry> prices = new HashMap<>();
+        for (Map.Entry<Integer, PriceTimeline> e : getSupplier(supplierId).entrySet()) {
+            PriceEntry entry = e.getValue().resolve(day, quantity);
+            if (entry != null) {
+                prices.put(e.getKey(), entry);
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Price a whole order from the price lists as read on the given connection
+     * Bypasses the index, so a caller that reads other tables on its own
+     * connection (the reorder planner) prices from the same data.
+     *
+     * @param quantities Ordered quantity by product id
+     * @return Best entry by product id; products without a valid price are left out
+     */
+    public static Map<Integer, PriceEntry> priceOrder(Connection conn, int supplierId, Date date,
+                                                      Map<Integer, Integer> quantities) throws SQLException {
+        long day = toDay(date);
+        Map<Integer, PriceTimeline> products = loadSupplier(conn, supplierId);
+        Map<Integer, PriceEntry> prices = new HashMap<>();
+        for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+            PriceTimeline timeline = products.get(line.getKey());
+            PriceEntry entry = timeline != null ? timeline.resolve(day, line.getValue()) : null;
+            if (entry != null) {
+                prices.put(line.getKey(), entry);
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Quantity breaks of a product at a date, by increasing minimum quantity
+     * Each entry is the best price from its minimum quantity up to the next one.
+     */
+    public List<PriceEntry> getBreakpoints(int supplierId, int productId, Date date) throws SQLException {
+        PriceTimeline timeline = getSupplier(supplierId).get(productId);
+        return timeline != null ? timeline.getBreakpoints(toDay(date)) : Collections.emptyList();
+    }
+
+    /**
+     * Entries of a product and quantity tier whose validity overlaps the given range
+     * Reads the table on the caller's connection, so that run inside the save
+     * transaction it sees every committed row, not the possibly stale index.
+     * Lists with different minimum quantities are quantity breaks and may overlap.
+     *
+     * @param end Inclusive end date, null for open-ended
+     * @param excludeId Entry to ignore (the one being edited), or 0
+     */
+    public static List<PriceEntry> findOverlapping(Connection conn, int supplierId, int productId, int minimumQuantity,
+                                                   Date start, Date end, int excludeId) throws SQLException {
+        String query = """
+            SELECT id, product_id, supplier_product_code, price, minimum_quantity,
+                   validity_start_date, validity_end_date
+            FROM supplier_price_lists
+            WHERE supplier_id = ? AND product_id = ? AND MAX(1, minimum_quantity) = ? AND id != ?
+        """;
+
+        // Dates are stored both as epoch millis and as text, so days are compared here
+        long startDay = toDay(start);
+        long endDay = end != null ? toDay(end) : Long.MAX_VALUE;
+        List<PriceEntry> overlapping = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, supplierId);
+            pstmt.setInt(2, productId);
+            pstmt.setInt(3, Math.max(1, minimumQuantity));
+            pstmt.setInt(4, excludeId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    PriceEntry entry = mapEntry(rs);
+                    if (entry.startDay <= endDay && entry.endDay >= startDay) {
+                        overlapping.add(entry);
+                    }
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Rebuild the index of one product after its price list rows changed
+     * Reads and updates under the same lock as loading and invalidation.
+     */
+    public synchronized void refresh(int supplierId, int productId) throws SQLException {
+        Map<Integer, PriceTimeline> products = suppliers.get(supplierId);
+        if (products == null) {
+            return; // Not loaded yet, the next lookup reads fresh data
+        }
+
+        Connection conn = getReadConnection();
+        String query = """
+            SELECT id, product_id, supplier_product_code, price, minimum_quantity,
+                   validity_start_date, validity_end_date
+            FROM supplier_price_lists
+            WHERE supplier_id = ? AND product_id = ?
+        """;
+        List<PriceEntry> entries = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, supplierId);
+            pstmt.setInt(2, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(mapEntry(rs));
+                }
+            }
+        } catch (SQLException e) {
+            closeReadConnection();
+            throw e;
+        }
+
+        if (entries.isEmpty()) {
+            products.remove(productId);
+        } else {
+            products.put(productId, new PriceTimeline(entries));
+        }
+    }
+
+    /**
+     * Drop a supplier after bulk changes; it is reloaded on the next lookup
+     * Synchronized with loading, so a load that read the rows before the
+     * change cannot put them back after the drop.
+     */
+    public synchronized void invalidateSupplier(int supplierId) {
+        suppliers.remove(supplierId);
+    }
+
+    /**
+     * Drop a deleted product from every loaded supplier
+     */
+    public synchronized void invalidateProduct(int productId) {
+        for (Map<Integer, PriceTimeline> products : suppliers.values()) {
+            products.remove(productId);
+        }
+    }
+
+    /**
+     * Close the index connection; the next lookup opens a new one
+     */
+    public synchronized void close() {
+        closeReadConnection();
+    }
+
+    private Connection getReadConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DatabaseManager.getInstance().openReadOnlyConnection();
+        }
+        return connection;
+    }
+
+    private void closeReadConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing price index connection: " + e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    // Loaded suppliers are read without the lock; a miss loads and stores under
+    // it, so an invalidation either waits for the store or comes after it
+    private Map<Integer, PriceTimeline> getSupplier(int supplierId) throws SQLException {
+        Map<Integer, PriceTimeline> products = suppliers.get(supplierId);
+        if (products != null) {
+            return products;
+        }
+        synchronized (this) {
+            products = suppliers.get(supplierId);
+            if (products == null) {
+                products = loadSupplier(supplierId);
+                suppliers.put(supplierId, products);
+            }
+            return products;
+        }
+    }
+
+    private synchronized Map<Integer, PriceTimeline> loadSupplier(int supplierId) throws SQLException {
+        try {
+            return loadSupplier(getReadConnection(), supplierId);
+        } catch (SQLException e) {
+            closeReadConnection();
+            throw e;
+        }
+    }
+
+    private static Map<Integer, PriceTimeline> loadSupplier(Connection conn, int supplierId) throws SQLException {
+        Map<Integer, List<PriceEntry>> byProduct = new HashMap<>();
+
+        String query = """
+            SELECT id, product_id, supplier_product_code, price, minimum_quantity,
+                   validity_start_date, validity_end_date
+            FROM supplier_price_lists
+            WHERE supplier_id = ?
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, supplierId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    PriceEntry entry = mapEntry(rs);
+                    byProduct.computeIfAbsent(entry.productId, k -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+
+        Map<Integer, PriceTimeline> products = new ConcurrentHashMap<>();
+        for (Map.Entry<Integer, List<PriceEntry>> e : byProduct.entrySet()) {
+            products.put(e.getKey(), new PriceTimeline(e.getValue()));
+        }
+        return products;
+    }
+
+    private static PriceEntry mapEntry(ResultSet rs) throws SQLException {
+        Date start = DateUtils.parseDate(rs, "validity_start_date");
+        Date end = DateUtils.parseDate(rs, "validity_end_date");
+        return new PriceEntry(
+            rs.getInt("id"),
+            rs.getInt("product_id"),
+            rs.getString("supplier_product_code"),
+            rs.getDouble("price"),
+            Math.max(1, rs.getInt("minimum_quantity")),
+            start != null ? toDay(start) : Long.MIN_VALUE,
+            end != null ? toDay(end) : Long.MAX_VALUE
+        );
+    }
+
+    // Validity is by calendar day, whatever time of day the dates were stored with
+    private static long toDay(Date date) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault()).toEpochDay();
+    }
+
+    // Helper classes
+
+    /**
+     * Day-segmented validity index of one supplier/product pair
+     * Each segment holds a breakpoint table: the best price for every quantity
+     * from which it changes, taken across all lists valid in that segment.
+     */
+    private static class PriceTimeline {
+        private final List<PriceEntry> entries;
+        // segmentStarts[i] is the first day of segment i, which lasts until segmentStarts[i + 1]
+        private final long[] segmentStarts;
+        // breakQuantities[i][k] is the quantity from which breakEntries[i][k] is the best price
+        private final int[][] breakQuantities;
+        private final PriceEntry[][] breakEntries;
+
+        PriceTimeline(List<PriceEntry> entries) {
+            this.entries = entries;
+
+            TreeSet<Long> boundaries = new TreeSet<>();
+            for (PriceEntry entry : entries) {
+                boundaries.add(entry.startDay);
+                if (entry.endDay != Long.MAX_VALUE) {
+                    boundaries.add(entry.endDay + 1);
+                }
+            }
+
+            int segments = boundaries.size();
+            segmentStarts = new long[segments];
+            breakQuantities = new int[segments][];
+            breakEntries = new PriceEntry[segments][];
+            int i = 0;
+            for (long day : boundaries) {
+                segmentStarts[i] = day;
+                List<PriceEntry> valid = new ArrayList<>();
+                for (PriceEntry entry : entries) {
+                    if (entry.startDay <= day && entry.endDay >= day) {
+                        valid.add(entry);
+                    }
+                }
+                buildBreakpoints(i++, valid);
+            }
+        }
+
+        private void buildBreakpoints(int segment, List<PriceEntry> valid) {
+            valid.sort(Comparator.comparingInt((PriceEntry e) -> e.minimumQuantity)
+                .thenComparingDouble(e -> e.price));
+
+            // A higher quantity tier only adds a breakpoint if it beats every lower tier
+            List<PriceEntry> breaks = new ArrayList<>();
+            PriceEntry best = null;
+            for (PriceEntry entry : valid) {
+                if (best == null || entry.price < best.price) {
+                    best = entry;
+                    breaks.add(entry);
+                }
+            }
+
+            breakQuantities[segment] = new int[breaks.size()];
+            for (int k = 0; k < breaks.size(); k++) {
+                breakQuantities[segment][k] = breaks.get(k).minimumQuantity;
+            }
+            breakEntries[segment] = breaks.toArray(new PriceEntry[0]);
+        }
+
+        PriceEntry resolve(long day, int quantity) {
+            int segment = segmentOf(day);
+            if (segment < 0) {
+                return null;
+            }
+            int k = floorIndex(breakQuantities[segment], quantity);
+            return k >= 0 ? breakEntries[segment][k] : null;
+        }
+
+        List<PriceEntry> getBreakpoints(long day) {
+            int segment = segmentOf(day);
+            return segment >= 0 ? Arrays.asList(breakEntries[segment]) : Collections.emptyList();
+        }
+
+        private int segmentOf(long day) {
+            int index = Arrays.binarySearch(segmentStarts, day);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        private static int floorIndex(int[] values, int key) {
+            int index = Arrays.binarySearch(values, key);
+            if (index >= 0) {
+                // Equal minimum quantities cannot repeat in a breakpoint table
+                return index;
+            }
+            return -index - 2;
+        }
+    }
+
+    public static class PriceEntry {
+        private final int id;
+        private final int productId;
+        private final String supplierProductCode;
+        private final double price;
+        private final int minimumQuantity;
+        private final long startDay;
+        private final long endDay;
+
+        PriceEntry(int id, int productId, String supplierProductCode, double price,
+                   int minimumQuantity, long startDay, long endDay) {
+            this.id = id;
+            this.productId = productId;
+            this.supplierProductCode = supplierProductCode;
+            this.price = price;
+            this.minimumQuantity = minimumQuantity;
+            this.startDay = startDay;
+            this.endDay = endDay;
+        }
+
+        public int getId() { return id; }
+        public int getProductId() { return productId; }
+        public String getSupplierProductCode() { return supplierProductCode; }
+        public double getPrice() { return price; }
+        public int getMinimumQuantity() { return minimumQuantity; }
+
+        public Date getValidityStartDate() {
+            return startDay == Long.MIN_VALUE ? null : toDate(startDay);
+        }
+
+        public Date getValidityEndDate() {
+            return endDay == Long.MAX_VALUE ? null : toDate(endDay);
+        }
+
+        private static Date toDate(long day) {
+            return Date.from(LocalDate.ofEpochDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        }
+    }
+}
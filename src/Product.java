@@ -6,6 +6,7 @@ public class Product {
     private String description;
     private double price;
     private int quantity;
+    private int reservedQuantity;
 
     // Category & Management
     private String category;
@@ -78,6 +79,7 @@ public class Product {
     public String getDescription() { return description; }
     public double getPrice() { return price; }
     public int getQuantity() { return quantity; }
+    public int getReservedQuantity() { return reservedQuantity; }
     public String getCategory() { return category; }
     public String getAlternativeSku() { return alternativeSku; }
     public double getWeight() { return weight; }
@@ -97,6 +99,7 @@ public class Product {
     public void setDescription(String description) { this.description = description; }
     public void setPrice(double price) { this.price = price; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
+    public void setReservedQuantity(int reservedQuantity) { this.reservedQuantity = reservedQuantity; }
     public void setCategory(String category) { this.category = category; }
     public void setAlternativeSku(String alternativeSku) { this.alternativeSku = alternativeSku; }
     public void setWeight(double weight) { this.weight = weight; }
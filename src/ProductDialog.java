@@ -262,26 +262,10 @@ public class ProductDialog extends JDialog {
     private void loadSupplierById(Integer supplierId) {
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT * FROM suppliers WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, supplierId);
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        selectedSupplier = new Supplier(
-                            rs.getInt("id"),
-                            rs.getString("company_name"),
-                            rs.getString("vat_number"),
-                            rs.getString("tax_code"),
-                            rs.getString("address"),
-                            rs.getString("phone"),
-                            rs.getString("email"),
-                            rs.getString("certified_email"),
-                            rs.getString("website"),
-                            rs.getString("notes")
-                        );
-                        updateSupplierButton();
-                    }
-                }
+            Supplier supplier = SupplierRepository.findById(conn, supplierId);
+            if (supplier != null) {
+                selectedSupplier = supplier;
+                updateSupplierButton();
             }
         } catch (SQLException e) {
             // If supplier not found, clear the button
@@ -358,7 +342,7 @@ public class ProductDialog extends JDialog {
                         acquisition_cost, active, supplier_id, warehouse_position, vat_rate)
                     VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
                 """;
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                try (PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
                     pstmt.setString(1, code);
                     pstmt.setString(2, name);
                     pstmt.setString(3, description);
@@ -379,6 +363,12 @@ public class ProductDialog extends JDialog {
                     pstmt.setString(14, warehousePosition);
                     pstmt.setDouble(15, vatRate);
                     pstmt.executeUpdate();
+
+                    try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            EventBus.getInstance().publish(new EventBus.ProductChanged(rs.getInt(1)));
+                        }
+                    }
                 }
             } else { // Edit product
                 String query = """
@@ -412,6 +402,8 @@ public class ProductDialog extends JDialog {
                     pstmt.setInt(16, product.getId());
                     pstmt.executeUpdate();
                 }
+                EventBus.getInstance().publish(new EventBus.ProductChanged(product.getId()));
+                EventBus.getInstance().publish(new EventBus.StockMoved(product.getId()));
             }
 
             productSaved = true;
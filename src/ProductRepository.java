@@ -0,0 +1,212 @@
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Product queries and mapping to the Product model
+ */
+public class ProductRepository {
+    private static final String SELECT_PRODUCTS = """
+        SELECT p.*, s.company_name as supplier_name
+        FROM products p
+        LEFT JOIN suppliers s ON p.supplier_id = s.id
+    """;
+
+    private ProductRepository() {
+    }
+
+    /**
+     * Load a product by id, or null if it does not exist
+     */
+    public static Product findById(Connection conn, int productId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_PRODUCTS + " WHERE p.id = ?")) {
+            pstmt.setInt(1, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? map(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Load several products in one query, keyed by id; unknown ids are left out
+     */
+    public static Map<Integer, Product> findByIds(Connection conn, Collection<Integer> productIds) throws SQLException {
+        Map<Integer, Product> products = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return products;
+        }
+
+        String query = (SELECT_PRODUCTS + " WHERE p.id IN (%s)").formatted(String.join(", ", Collections.nCopies(productIds.size(), "?")));
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            int index = 1;
+            for (int id : productIds) {
+                pstmt.setInt(index++, id);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Product product = map(rs);
+                    products.put(product.getId(), product);
+                }
+            }
+        }
+        return products;
+    }
+
+    /**
+     * All products ordered by name
+     */
+    public static List<Product> findAll(Connection conn) throws SQLException {
+        return findAll(conn, -1);
+    }
+
+    /**
+     * Products ordered by name, at most limit rows (negative for no limit)
+     */
+    public static List<Product> findAll(Connection conn, int limit) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_PRODUCTS + " ORDER BY p.name LIMIT ?")) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapAll(rs);
+            }
+        }
+    }
+
+    /**
+     * All products whose code, name or description contains the term, ordered by name
+     */
+    public static List<Product> findMatching(Connection conn, String term) throws SQLException {
+        String query = SELECT_PRODUCTS + """
+            WHERE p.code LIKE ? OR p.name LIKE ? OR p.description LIKE ?
+            ORDER BY p.name
+        """;
+
+        String searchPattern = "%" + term + "%";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, searchPattern);
+            pstmt.setString(2, searchPattern);
+            pstmt.setString(3, searchPattern);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapAll(rs);
+            }
+        }
+    }
+
+    /**
+     * Products matching the term in code, name or description
+     * Prefix matches on the code come first, then on the name.
+     */
+    public static List<Product> search(Connection conn, String term, int limit) throws SQLException {
+        String query = SELECT_PRODUCTS + """
+            WHERE LOWER(p.code) LIKE LOWER(?)
+               OR LOWER(p.name) LIKE LOWER(?)
+               OR LOWER(p.description) LIKE LOWER(?)
+            ORDER BY
+                CASE
+                    WHEN LOWER(p.code) LIKE LOWER(?) THEN 1
+                    WHEN LOWER(p.name) LIKE LOWER(?) THEN 2
+                    ELSE 3
+                END,
+                p.name
+            LIMIT ?
+        """;
+
+        String searchPattern = "%" + term + "%";
+        String exactPattern = term + "%";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, searchPattern);
+            pstmt.setString(2, searchPattern);
+            pstmt.setString(3, searchPattern);
+            pstmt.setString(4, exactPattern);
+            pstmt.setString(5, exactPattern);
+            pstmt.setInt(6, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapAll(rs);
+            }
+        }
+    }
+
+    private static List<Product> mapAll(ResultSet rs) throws SQLException {
+        List<Product> products = new ArrayList<>();
+        while (rs.next()) {
+            products.add(map(rs));
+        }
+        return products;
+    }
+
+    // Legacy rows can hold NULLs or text in numeric columns, so those are read leniently
+    private static Product map(ResultSet rs) throws SQLException {
+        Product product = new Product(
+            rs.getInt("id"),
+            rs.getString("code"),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getDouble("price"),
+            getInteger(rs, "quantity", 0),
+            stringOr(rs.getString("category"), ""),
+            stringOr(rs.getString("alternative_sku"), ""),
+            getDouble(rs, "weight", 0.0),
+            stringOr(rs.getString("unit_of_measure"), "pcs"),
+            getInteger(rs, "minimum_quantity", 0),
+            getDouble(rs, "acquisition_cost", 0.0),
+            getInteger(rs, "active", 1) == 1,
+            getInteger(rs, "supplier_id"),
+            stringOr(rs.getString("supplier_name"), ""),
+            stringOr(rs.getString("warehouse_position"), ""),
+            getDouble(rs, "vat_rate", 0.0)
+        );
+        product.setReservedQuantity(getInteger(rs, "reserved_quantity", 0));
+        return product;
+    }
+
+    private static String stringOr(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static Integer getInteger(ResultSet rs, String columnName) {
+        try {
+            Object value = rs.getObject(columnName);
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof Number) {
+                return ((Number) value).intValue();
+            }
+            if (value instanceof String) {
+                String strValue = ((String) value).trim();
+                if (strValue.isEmpty()) {
+                    return null;
+                }
+                return Integer.parseInt(strValue);
+            }
+            return null;
+        } catch (SQLException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int getInteger(ResultSet rs, String columnName, int defaultValue) {
+        Integer value = getInteger(rs, columnName);
+        return value != null ? value : defaultValue;
+    }
+
+    private static double getDouble(ResultSet rs, String columnName, double defaultValue) {
+        try {
+            Object value = rs.getObject(columnName);
+            if (value == null) {
+                return defaultValue;
+            }
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            if (value instanceof String) {
+                String strValue = ((String) value).trim();
+                if (strValue.isEmpty()) {
+                    return defaultValue;
+                }
+                return Double.parseDouble(strValue);
+            }
+            return defaultValue;
+        } catch (SQLException | NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
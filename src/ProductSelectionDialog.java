@@ -251,18 +251,8 @@ public class ProductSelectionDialog extends JDialog {
         tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT id, code, name, description, price, quantity
-                FROM products
-                ORDER BY name
-                LIMIT 1000
-            """;
-            
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    addProductRow(rs);
-                }
+            for (Product product : ProductRepository.findAll(conn, 1000)) {
+                addProductRow(product);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -282,37 +272,8 @@ public class ProductSelectionDialog extends JDialog {
         tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT id, code, name, description, price, quantity
-                FROM products
-                WHERE LOWER(code) LIKE LOWER(?)
-                   OR LOWER(name) LIKE LOWER(?)
-                   OR LOWER(description) LIKE LOWER(?)
-                ORDER BY
-                    CASE
-                        WHEN LOWER(code) LIKE LOWER(?) THEN 1
-                        WHEN LOWER(name) LIKE LOWER(?) THEN 2
-                        ELSE 3
-                    END,
-                    name
-                LIMIT 500
-            """;
-            
-            String searchPattern = "%" + searchTerm + "%";
-            String exactPattern = searchTerm + "%";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, searchPattern);
-                pstmt.setString(2, searchPattern);
-                pstmt.setString(3, searchPattern);
-                pstmt.setString(4, exactPattern); // For sorting
-                pstmt.setString(5, exactPattern); // For sorting
-                
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        addProductRow(rs);
-                    }
-                }
+            for (Product product : ProductRepository.search(conn, searchTerm, 500)) {
+                addProductRow(product);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -323,22 +284,22 @@ public class ProductSelectionDialog extends JDialog {
     }
 
 
-    private void addProductRow(ResultSet rs) throws SQLException {
+    private void addProductRow(Product product) {
         Vector<Object> row = new Vector<>();
-        row.add(rs.getInt("id")); // Hidden ID
-        row.add(rs.getString("code"));
-        row.add(rs.getString("name"));
+        row.add(product.getId()); // Hidden ID
+        row.add(product.getCode());
+        row.add(product.getName());
 
-        String description = rs.getString("description");
+        String description = product.getDescription();
         // Truncate description if too long
         if (description != null && description.length() > 50) {
             description = description.substring(0, 47) + "...";
         }
         row.add(description);
 
-        row.add(String.format("%.2f", rs.getDouble("price")));
+        row.add(String.format("%.2f", product.getPrice()));
 
-        int stock = rs.getInt("quantity");
+        int stock = product.getQuantity();
         row.add(stock);
 
         // Status based on availability
@@ -368,20 +329,13 @@ public class ProductSelectionDialog extends JDialog {
 
             // Load product VAT rate from database
             try {
-                Connection conn = DatabaseManager.getInstance().getConnection();
-                String query = "SELECT vat_rate FROM products WHERE id = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                    pstmt.setInt(1, productId);
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
-                            double productVatRate = rs.getDouble("vat_rate");
-                            // Use product VAT if set (> 0), otherwise use default
-                            if (productVatRate > 0) {
-                                vatRateField.setText(String.format("%.1f", productVatRate));
-                            } else {
-                                vatRateField.setText(String.valueOf(SettingsPanel.getDefaultVatRate()));
-                            }
-                        }
+                Product product = ProductRepository.findById(DatabaseManager.getInstance().getConnection(), productId);
+                if (product != null) {
+                    // Use product VAT if set (> 0), otherwise use default
+                    if (product.getVatRate() > 0) {
+                        vatRateField.setText(String.format("%.1f", product.getVatRate()));
+                    } else {
+                        vatRateField.setText(String.valueOf(SettingsPanel.getDefaultVatRate()));
                     }
                 }
             } catch (SQLException e) {
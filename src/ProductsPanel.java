@@ -1,23 +1,41 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 public class ProductsPanel extends JPanel {
     private JTable productsTable;
-    private DefaultTableModel tableModel;
+    private KeyedTableModel tableModel;
     private JTextField searchField;
     private JButton addButton;
     private JButton editButton;
     private JButton deleteButton;
     private JButton refreshButton;
+    private JButton importButton;
+
+    // Bursts larger than this reload the whole table instead of patching rows
+    private static final int MAX_PATCHED_ROWS = 200;
+    // Ids per DELETE statement when removing a multi-row selection
+    private static final int CHUNK_SIZE = 500;
+    // Search term of the rows on screen; empty when all products are shown
+    private String activeSearch = "";
     
     public ProductsPanel() {
         setupPanel();
         initComponents();
         loadProducts();
+
+        EventBus.getInstance().subscribe(EventBus.ProductChanged.class, this::onProductsChanged);
+        EventBus.getInstance().subscribe(EventBus.StockMoved.class,
+            events -> refreshRows(EventBus.idsOf(events)));
     }
     
     private void setupPanel() {
@@ -40,14 +58,14 @@ public class ProductsPanel extends JPanel {
         
         // Products table
         String[] columns = {"ID", "Code", "Name", "Description", "Price", "Physical", "Reserved", "Available", "Category", "Unit", "Min Qty", "Active", "Supplier", "Warehouse Pos", "VAT %"};
-        tableModel = new DefaultTableModel(columns, 0) {
+        tableModel = new KeyedTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
             }
         };
         productsTable = new JTable(tableModel);
-        productsTable.getSelectionModel().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        productsTable.getSelectionModel().setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         productsTable.getSelectionModel().addListSelectionListener(e -> updateButtonStates());
         
         // Add mouse listener for double click
@@ -69,16 +87,20 @@ public class ProductsPanel extends JPanel {
         editButton = new JButton("Edit");
         deleteButton = new JButton("Delete");
         refreshButton = new JButton("Refresh");
+        importButton = new JButton("Import CSV");
         
         addButton.addActionListener(e -> showProductDialog(null));
         editButton.addActionListener(e -> editSelectedProduct());
         deleteButton.addActionListener(e -> deleteSelectedProduct());
         refreshButton.addActionListener(e -> loadProducts());
+        importButton.addActionListener(e ->
+            BulkImporter.importWithDialog(this, BulkImporter.Kind.PRODUCTS, 0, this::loadProducts));
         
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(refreshButton);
+        buttonPanel.add(importButton);
         
         // Main layout
         add(searchPanel, BorderLayout.NORTH);
@@ -89,49 +111,21 @@ public class ProductsPanel extends JPanel {
     }
     
     private void updateButtonStates() {
-        boolean isRowSelected = productsTable.getSelectedRow() != -1;
-        editButton.setEnabled(isRowSelected);
-        deleteButton.setEnabled(isRowSelected);
+        int selectedCount = productsTable.getSelectedRowCount();
+        editButton.setEnabled(selectedCount == 1);
+        deleteButton.setEnabled(selectedCount > 0);
     }
     
     private void loadProducts() {
-        tableModel.setRowCount(0);
+        activeSearch = "";
+        tableModel.setRowFilter(null);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT p.*, f.company_name as supplier_name
-                FROM products p
-                LEFT JOIN suppliers f ON p.supplier_id = f.id
-                ORDER BY p.name
-            """;
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("id"));
-                    row.add(rs.getString("code"));
-                    row.add(rs.getString("name"));
-                    row.add(rs.getString("description"));
-                    row.add(rs.getDouble("price"));
-
-                    int physicalStock = rs.getInt("quantity");
-                    int reservedStock = rs.getInt("reserved_quantity");
-                    int availableStock = physicalStock - reservedStock;
-
-                    row.add(physicalStock);
-                    row.add(reservedStock);
-                    row.add(availableStock);
-
-                    row.add(rs.getString("category"));
-                    row.add(rs.getString("unit_of_measure"));
-                    row.add(rs.getInt("minimum_quantity"));
-                    row.add(rs.getInt("active") == 1 ? "Yes" : "No");
-                    row.add(rs.getString("supplier_name") != null ? rs.getString("supplier_name") : "");
-                    row.add(rs.getString("warehouse_position") != null ? rs.getString("warehouse_position") : "");
-                    row.add(rs.getDouble("vat_rate"));
-                    tableModel.addRow(row);
-                }
+            List<Vector<Object>> rows = new ArrayList<>();
+            for (Product product : ProductRepository.findAll(conn)) {
+                rows.add(buildRow(product));
             }
+            tableModel.replaceRows(rows);
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
                 "Error loading products: " + e.getMessage(),
@@ -139,58 +133,95 @@ public class ProductsPanel extends JPanel {
         }
     }
     
+    private Vector<Object> buildRow(Product product) {
+        Vector<Object> row = new Vector<>();
+        row.add(product.getId());
+        row.add(product.getCode());
+        row.add(product.getName());
+        row.add(product.getDescription());
+        row.add(product.getPrice());
+
+        int physicalStock = product.getQuantity();
+        int reservedStock = product.getReservedQuantity();
+        int availableStock = physicalStock - reservedStock;
+
+        row.add(physicalStock);
+        row.add(reservedStock);
+        row.add(availableStock);
+
+        row.add(product.getCategory());
+        row.add(product.getUnitOfMeasure());
+        row.add(product.getMinimumQuantity());
+        row.add(product.isActive() ? "Yes" : "No");
+        row.add(product.getSupplierName());
+        row.add(product.getWarehousePosition());
+        row.add(product.getVatRate());
+        return row;
+    }
+
+    private void onProductsChanged(List<EventBus.ProductChanged> events) {
+        Set<Integer> changed = new LinkedHashSet<>();
+        for (EventBus.ProductChanged event : events) {
+            if (event.isDeleted()) {
+                tableModel.remove(event.getId());
+            } else {
+                changed.add(event.getId());
+            }
+        }
+        refreshRows(changed);
+    }
+
+    /**
+     * Re-read only the given products and patch their rows
+     * The table's row filter keeps a search result filtered; large bursts
+     * fall back to a full reload with the active search.
+     */
+    private void refreshRows(Set<Integer> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        if (productIds.size() > MAX_PATCHED_ROWS) {
+            reloadProducts();
+            return;
+        }
+
+        try {
+            Connection conn = DatabaseManager.getInstance().getConnection();
+            Map<Integer, Product> products = ProductRepository.findByIds(conn, productIds);
+            for (int id : productIds) {
+                Product product = products.get(id);
+                if (product != null) {
+                    tableModel.upsert(buildRow(product));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     private void searchProducts() {
-        String searchTerm = searchField.getText().trim();
+        activeSearch = searchField.getText().trim();
+        reloadProducts();
+    }
+
+    /**
+     * Reload the table with the active search
+     */
+    private void reloadProducts() {
+        String searchTerm = activeSearch;
         if (searchTerm.isEmpty()) {
             loadProducts();
             return;
         }
         
-        tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT p.*, f.company_name as supplier_name
-                FROM products p
-                LEFT JOIN suppliers f ON p.supplier_id = f.id
-                WHERE p.code LIKE ? OR p.name LIKE ? OR p.description LIKE ?
-                ORDER BY p.name
-            """;
-            String searchPattern = "%" + searchTerm + "%";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, searchPattern);
-                pstmt.setString(2, searchPattern);
-                pstmt.setString(3, searchPattern);
-
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        Vector<Object> row = new Vector<>();
-                        row.add(rs.getInt("id"));
-                        row.add(rs.getString("code"));
-                        row.add(rs.getString("name"));
-                        row.add(rs.getString("description"));
-                        row.add(rs.getDouble("price"));
-
-                        int physicalStock = rs.getInt("quantity");
-                        int reservedStock = rs.getInt("reserved_quantity");
-                        int availableStock = physicalStock - reservedStock;
-
-                        row.add(physicalStock);
-                        row.add(reservedStock);
-                        row.add(availableStock);
-
-                        row.add(rs.getString("category"));
-                        row.add(rs.getString("unit_of_measure"));
-                        row.add(rs.getInt("minimum_quantity"));
-                        row.add(rs.getInt("active") == 1 ? "Yes" : "No");
-                        row.add(rs.getString("supplier_name") != null ? rs.getString("supplier_name") : "");
-                        row.add(rs.getString("warehouse_position") != null ? rs.getString("warehouse_position") : "");
-                        row.add(rs.getDouble("vat_rate"));
-                        tableModel.addRow(row);
-                    }
-                }
+            List<Vector<Object>> rows = new ArrayList<>();
+            for (Product product : ProductRepository.findMatching(conn, searchTerm)) {
+                rows.add(buildRow(product));
             }
+            tableModel.replaceRows(rows);
+            tableModel.setRowFilter(KeyedTableModel.containsFilter(searchTerm, 1, 2, 3));
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
                 "Error searching for products: " + e.getMessage(),
@@ -209,10 +240,8 @@ public class ProductsPanel extends JPanel {
             dialog = new ProductDialog((JDialog) parentWindow, product);
         }
         
+        // The saved product arrives as a ProductChanged event and patches its row
         dialog.setVisible(true);
-        if (dialog.isProductSaved()) {
-            loadProducts();
-        }
     }
     
     private void editSelectedProduct() {
@@ -221,50 +250,9 @@ public class ProductsPanel extends JPanel {
             int productId = (int)tableModel.getValueAt(selectedRow, 0);
 
             try {
-                Connection conn = DatabaseManager.getInstance().getConnection();
-                String query = """
-                    SELECT p.*, f.company_name as supplier_name
-                    FROM products p
-                    LEFT JOIN suppliers f ON p.supplier_id = f.id
-                    WHERE p.id = ?
-                """;
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                    pstmt.setInt(1, productId);
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
-                            // Safely read integer and double fields with proper type handling
-                            Integer supplierId = getIntegerFromResultSet(rs, "supplier_id");
-                            String supplierName = rs.getString("supplier_name");
-
-                            int quantity = getIntegerFromResultSet(rs, "quantity", 0);
-                            int minimumQuantity = getIntegerFromResultSet(rs, "minimum_quantity", 0);
-                            int active = getIntegerFromResultSet(rs, "active", 1);
-                            double acquisitionCost = getDoubleFromResultSet(rs, "acquisition_cost", 0.0);
-                            double weight = getDoubleFromResultSet(rs, "weight", 0.0);
-                            double vatRate = getDoubleFromResultSet(rs, "vat_rate", 0.0);
-
-                            Product product = new Product(
-                                rs.getInt("id"),
-                                rs.getString("code"),
-                                rs.getString("name"),
-                                rs.getString("description"),
-                                rs.getDouble("price"),
-                                quantity,
-                                rs.getString("category") != null ? rs.getString("category") : "",
-                                rs.getString("alternative_sku") != null ? rs.getString("alternative_sku") : "",
-                                weight,
-                                rs.getString("unit_of_measure") != null ? rs.getString("unit_of_measure") : "pcs",
-                                minimumQuantity,
-                                acquisitionCost,
-                                active == 1,
-                                supplierId,
-                                supplierName != null ? supplierName : "",
-                                rs.getString("warehouse_position") != null ? rs.getString("warehouse_position") : "",
-                                vatRate
-                            );
-                            showProductDialog(product);
-                        }
-                    }
+                Product product = ProductRepository.findById(DatabaseManager.getInstance().getConnection(), productId);
+                if (product != null) {
+                    showProductDialog(product);
                 }
             } catch (SQLException e) {
                 JOptionPane.showMessageDialog(this,
@@ -275,6 +263,10 @@ public class ProductsPanel extends JPanel {
     }
     
     private void deleteSelectedProduct() {
+        if (productsTable.getSelectedRowCount() > 1) {
+            deleteSelectedProducts();
+            return;
+        }
         int selectedRow = productsTable.getSelectedRow();
         if (selectedRow != -1) {
             int id = (int)tableModel.getValueAt(selectedRow, 0);
@@ -284,23 +276,16 @@ public class ProductsPanel extends JPanel {
                 Connection conn = DatabaseManager.getInstance().getConnection();
                 
                 // Check for existing dependencies
-                boolean hasOrders = hasProductInOrders(conn, id);
-                boolean hasInvoices = hasProductInInvoices(conn, id);
-                boolean hasSupplierOrders = hasProductInSupplierOrders(conn, id);
-                boolean hasPriceLists = hasProductInPriceLists(conn, id);
-                boolean hasWarehouseMovements = hasProductInWarehouseMovements(conn, id);
-                boolean hasMinStock = hasProductInMinStock(conn, id);
-                
-                if (hasOrders || hasInvoices || hasSupplierOrders || hasPriceLists || hasWarehouseMovements || hasMinStock) {
+                List<String> references = ReferenceChecker.findReferences(conn,
+                    ReferenceChecker.Entity.PRODUCT, id);
+
+                if (!references.isEmpty()) {
                     StringBuilder message = new StringBuilder();
                     message.append("Cannot delete product '").append(name).append("' because it has:\n");
-                    
-                    if (hasOrders) message.append("- Customer orders\n");
-                    if (hasInvoices) message.append("- Invoice entries\n");
-                    if (hasSupplierOrders) message.append("- Supplier orders\n");
-                    if (hasPriceLists) message.append("- Price list entries\n");
-                    if (hasWarehouseMovements) message.append("- Warehouse movements\n");
-                    if (hasMinStock) message.append("- Minimum stock settings\n");
+
+                    for (String reference : references) {
+                        message.append("- ").append(reference).append("\n");
+                    }
                     
                     message.append("\nOptions:\n");
                     message.append("1. Delete/reassign related records first\n");
@@ -332,7 +317,7 @@ public class ProductsPanel extends JPanel {
                     try (PreparedStatement pstmt = conn.prepareStatement(query)) {
                         pstmt.setInt(1, id);
                         pstmt.executeUpdate();
-                        loadProducts();
+                        EventBus.getInstance().publish(new EventBus.ProductChanged(id, true));
                         
                         JOptionPane.showMessageDialog(this,
                             "Product deleted successfully",
@@ -349,6 +334,82 @@ public class ProductsPanel extends JPanel {
         }
     }
     
+    /**
+     * Delete several products at once; products that are still referenced are kept
+     */
+    private void deleteSelectedProducts() {
+        int[] selectedRows = productsTable.getSelectedRows();
+        Map<Integer, String> names = new LinkedHashMap<>();
+        for (int row : selectedRows) {
+            names.put((Integer) tableModel.getValueAt(row, 0), (String) tableModel.getValueAt(row, 2));
+        }
+
+        try {
+            Connection conn = DatabaseManager.getInstance().getConnection();
+            Map<Integer, List<String>> references = ReferenceChecker.findReferences(conn,
+                ReferenceChecker.Entity.PRODUCT, names.keySet());
+            List<Integer> deletable = new ArrayList<>(names.keySet());
+            deletable.removeAll(references.keySet());
+
+            StringBuilder message = new StringBuilder();
+            if (!references.isEmpty()) {
+                message.append(references.size()).append(" of the selected products are still referenced and will be kept:\n");
+                message.append(ReferenceChecker.describe(references, names, 10)).append("\n");
+            }
+            if (deletable.isEmpty()) {
+                message.append("None of the selected products can be deleted.");
+                JOptionPane.showMessageDialog(this, message.toString(),
+                    "Cannot Delete Products", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            message.append("Are you sure you want to delete ").append(deletable.size()).append(" products?");
+
+            int result = JOptionPane.showConfirmDialog(this,
+                message.toString(),
+                "Confirm Deletion",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE);
+            if (result != JOptionPane.YES_OPTION) {
+                return;
+            }
+
+            // Chunked to stay under SQLite's bound parameter limit, in one transaction
+            conn.setAutoCommit(false);
+            try {
+                for (int start = 0; start < deletable.size(); start += CHUNK_SIZE) {
+                    List<Integer> chunk = deletable.subList(start, Math.min(start + CHUNK_SIZE, deletable.size()));
+                    String query = "DELETE FROM products WHERE id IN (%s)"
+                        .formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
+                    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setInt(i + 1, chunk.get(i));
+                        }
+                        pstmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            for (int id : deletable) {
+                EventBus.getInstance().publish(new EventBus.ProductChanged(id, true));
+            }
+
+            JOptionPane.showMessageDialog(this,
+                deletable.size() + " products deleted successfully",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                "Error deleting the products: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void performCascadeDelete(Connection conn, int id, String name) {
         int confirmResult = JOptionPane.showConfirmDialog(this,
             "WARNING: This will permanently delete product '" + name + "' and ALL related data:\n" +
@@ -413,6 +474,8 @@ public class ProductsPanel extends JPanel {
                     int deleted = pstmt.executeUpdate();
                     System.out.println("Deleted " + deleted + " warehouse movements");
                 }
+                int archived = MovementArchive.deleteProductHistory(conn, id);
+                System.out.println("Deleted " + archived + " archived warehouse movements");
                 
                 // 6. Delete warehouse notifications
                 String deleteNotifications = "DELETE FROM warehouse_notifications WHERE product_id = ?";
@@ -439,7 +502,8 @@ public class ProductsPanel extends JPanel {
                 }
 
                 conn.commit();
-                loadProducts();
+                PriceResolver.getInstance().invalidateProduct(id);
+                EventBus.getInstance().publish(new EventBus.ProductChanged(id, true));
 
                 JOptionPane.showMessageDialog(this,
                     "Product '" + name + "' and all related records deleted successfully",
@@ -460,108 +524,4 @@ public class ProductsPanel extends JPanel {
                 "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
-    
-    private boolean hasProductInOrders(Connection conn, int productId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM order_details WHERE product_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, productId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
-        }
-    }
-
-    private boolean hasProductInInvoices(Connection conn, int productId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM invoice_details WHERE product_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, productId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
-        }
-    }
-
-    private boolean hasProductInSupplierOrders(Connection conn, int productId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM supplier_order_details WHERE product_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, productId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
-        }
-    }
-
-    private boolean hasProductInPriceLists(Connection conn, int productId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM supplier_price_lists WHERE product_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, productId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
-        }
-    }
-
-    private boolean hasProductInWarehouseMovements(Connection conn, int productId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM warehouse_movements WHERE product_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, productId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
-        }
-    }
-
-    private boolean hasProductInMinStock(Connection conn, int productId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM minimum_stock WHERE product_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, productId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
-        }
-    }
-
-    // Helper methods to safely read integer and double values from ResultSet
-    private Integer getIntegerFromResultSet(ResultSet rs, String columnName) {
-        try {
-            Object value = rs.getObject(columnName);
-            if (value == null) {
-                return null;
-            }
-            if (value instanceof Number) {
-                return ((Number) value).intValue();
-            }
-            if (value instanceof String) {
-                String strValue = ((String) value).trim();
-                if (strValue.isEmpty()) {
-                    return null;
-                }
-                return Integer.parseInt(strValue);
-            }
-            return null;
-        } catch (SQLException | NumberFormatException e) {
-            return null;
-        }
-    }
-
-    private int getIntegerFromResultSet(ResultSet rs, String columnName, int defaultValue) {
-        Integer value = getIntegerFromResultSet(rs, columnName);
-        return value != null ? value : defaultValue;
-    }
-
-    private double getDoubleFromResultSet(ResultSet rs, String columnName, double defaultValue) {
-        try {
-            Object value = rs.getObject(columnName);
-            if (value == null) {
-                return defaultValue;
-            }
-            if (value instanceof Number) {
-                return ((Number) value).doubleValue();
-            }
-            if (value instanceof String) {
-                String strValue = ((String) value).trim();
-                if (strValue.isEmpty()) {
-                    return defaultValue;
-                }
-                return Double.parseDouble(strValue);
-            }
-            return defaultValue;
-        } catch (SQLException | NumberFormatException e) {
-            return defaultValue;
-        }
-    }
-}
\ No newline at end of file
+}
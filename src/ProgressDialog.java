@@ -0,0 +1,56 @@
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Non-modal progress window for long-running background tasks
+ * The task polls isCancelled() and reports progress through setMessage(),
+ * which may be called from any thread.
+ */
+public class ProgressDialog extends JDialog {
+    private JLabel messageLabel;
+    private JButton cancelButton;
+    private volatile boolean cancelled = false;
+
+    public ProgressDialog(Component parent, String title, String message) {
+        super(parent instanceof Window ? (Window) parent
+              : parent != null ? SwingUtilities.getWindowAncestor(parent) : null, title, Dialog.ModalityType.MODELESS);
+        setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+
+        messageLabel = new JLabel(message);
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+
+        cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> {
+            cancelled = true;
+            cancelButton.setEnabled(false);
+            messageLabel.setText("Cancelling...");
+        });
+
+        JPanel content = new JPanel(new BorderLayout(10, 10));
+        content.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        content.add(messageLabel, BorderLayout.NORTH);
+        content.add(progressBar, BorderLayout.CENTER);
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(cancelButton);
+        content.add(buttonPanel, BorderLayout.SOUTH);
+        setContentPane(content);
+
+        setSize(Math.max(400, getPreferredSize().width), getPreferredSize().height + 20);
+        setLocationRelativeTo(parent);
+    }
+
+    public void setMessage(String message) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            if (!cancelled) {
+                messageLabel.setText(message);
+            }
+        } else {
+            SwingUtilities.invokeLater(() -> setMessage(message));
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
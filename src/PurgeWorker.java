@@ -0,0 +1,287 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background removal of customers and suppliers marked as deleted
+ * A forced delete only sets deleted_at, which hides the row from lists and
+ * pickers at once. This worker then removes the dependent documents in small
+ * batches, each a unit of the shared DatabaseWriter followed by a pause, so
+ * the write lock is free for the UI most of the time instead of being held
+ * for the whole account. A customer's open orders release their stock
+ * reservations and its invoices leave the invoice archive with them.
+ *
+ * The deleted_at flag and the rows still left are the only state: a purge
+ * interrupted by a crash or a restart continues at the next start.
+ *
+ * Settings in app_settings.properties:
+ *   purge_batch_size  default 200
+ *   purge_pause_ms    default 50
+ */
+public class PurgeWorker {
+    private static PurgeWorker instance;
+
+    // A failed pass is retried after this delay
+    private static final long RETRY_DELAY_SECONDS = 60;
+
+    /**
+     * Entities purged in the background, with the statements that remove
+     * their dependents in order; each takes the entity id and a row limit
+     */
+    public enum Target {
+        // Orders and invoices go through purgeOrders() and purgeInvoices()
+        CUSTOMER("customers", List.of()),
+        SUPPLIER("suppliers", List.of(
+            """
+                DELETE FROM supplier_order_details WHERE id IN (
+                    SELECT d.id FROM supplier_order_details d JOIN supplier_orders o ON d.order_id = o.id
+                    WHERE o.supplier_id = ? LIMIT ?
+                )
+            """,
+            "DELETE FROM supplier_orders WHERE id IN (SELECT id FROM supplier_orders WHERE supplier_id = ? LIMIT ?)",
+            "DELETE FROM supplier_price_lists WHERE id IN (SELECT id FROM supplier_price_lists WHERE supplier_id = ? LIMIT ?)",
+            """
+                UPDATE minimum_stock SET preferred_supplier_id = NULL WHERE product_id IN (
+                    SELECT product_id FROM minimum_stock WHERE preferred_supplier_id = ? LIMIT ?
+                )
+            """,
+            "UPDATE products SET supplier_id = NULL WHERE id IN (SELECT id FROM products WHERE supplier_id = ? LIMIT ?)"
+        ));
+
+        private final String table;
+        private final List<String> steps;
+
+        Target(String table, List<String> steps) {
+            this.table = table;
+            this.steps = steps;
+        }
+
+        public String getTable() { return table; }
+    }
+
+    private final int batchSize = Math.max(1, AppSettings.getInt("purge_batch_size", 200));
+    private final long pauseMs = Math.max(0, AppSettings.getInt("purge_pause_ms", 50));
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean passQueued = new AtomicBoolean(false);
+
+    private PurgeWorker() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "purge-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized PurgeWorker getInstance() {
+        if (instance == null) {
+            instance = new PurgeWorker();
+        }
+        return instance;
+    }
+
+    /**
+     * Resume purges left over from the previous run
+     */
+    public void start() {
+        wake();
+    }
+
+    /**
+     * Mark a customer or supplier as deleted and queue its purge
+     * The caller publishes the change; the row disappears from every list that
+     * filters on deleted_at as soon as this returns.
+     */
+    public void markDeleted(Connection conn, Target target, int id) throws SQLException {
+        String query = "UPDATE " + target.getTable() + " SET deleted_at = datetime('now', 'localtime') WHERE id = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, id);
+            pstmt.executeUpdate();
+        }
+        wake();
+    }
+
+    /**
+     * Queue a pass over every marked row unless one is already waiting
+     */
+    public void wake() {
+        if (passQueued.compareAndSet(false, true)) {
+            executor.execute(this::runPass);
+        }
+    }
+
+    private void runPass() {
+        passQueued.set(false);
+        DatabaseWriter writer = DatabaseWriter.getInstance();
+        try {
+            for (Target target : Target.values()) {
+                for (int id : writer.execute(conn -> findMarked(conn, target))) {
+                    purge(writer, target, id);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error purging deleted records: " + e.getMessage());
+            executor.schedule(this::wake, RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Integer> findMarked(Connection conn, Target target) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        String query = "SELECT id FROM " + target.getTable() + " WHERE deleted_at IS NOT NULL ORDER BY deleted_at";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            while (rs.next()) {
+                ids.add(rs.getInt("id"));
+            }
+        }
+        return ids;
+    }
+
+    private void purge(DatabaseWriter writer, Target target, int id) throws SQLException, InterruptedException {
+        long start = System.nanoTime();
+        int removed = 0;
+        if (target == Target.CUSTOMER) {
+            removed += purgeOrders(writer, id);
+            removed += purgeInvoices(writer, id);
+        }
+        for (String step : target.steps) {
+            int changed;
+            do {
+                changed = writer.execute(conn -> {
+                    try (PreparedStatement pstmt = conn.prepareStatement(step)) {
+                        pstmt.setInt(1, id);
+                        pstmt.setInt(2, batchSize);
+                        return pstmt.executeUpdate();
+                    }
+                });
+                removed += changed;
+                if (changed > 0 && pauseMs > 0) {
+                    // Let interactive writers take the lock between batches
+                    Thread.sleep(pauseMs);
+                }
+            } while (changed == batchSize);
+        }
+
+        String query = "DELETE FROM " + target.getTable() + " WHERE id = ? AND deleted_at IS NOT NULL";
+        writer.execute(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate();
+            }
+        });
+
+        if (target == Target.SUPPLIER) {
+            PriceResolver.getInstance().invalidateSupplier(id);
+        } else {
+            EventBus.getInstance().publish(new EventBus.CustomerChanged(id, true));
+        }
+        System.out.printf("Purged %s %d: %d related rows in %d ms%n", target.getTable(), id, removed,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Delete the customer's orders a batch at a time
+     * Orders still In Progress hold stock reservations, which are cancelled in
+     * the same unit so the reserved quantity is released with the order.
+     */
+    private int purgeOrders(DatabaseWriter writer, int customerId) throws SQLException, InterruptedException {
+        int removed = 0;
+        int found;
+        do {
+            found = writer.execute(conn -> {
+                Map<Integer, String> orders = new LinkedHashMap<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT id, status FROM orders WHERE customer_id = ? LIMIT ?")) {
+                    pstmt.setInt(1, customerId);
+                    pstmt.setInt(2, batchSize);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            orders.put(rs.getInt("id"), rs.getString("status"));
+                        }
+                    }
+                }
+                for (Map.Entry<Integer, String> order : orders.entrySet()) {
+                    if ("In Progress".equals(order.getValue())) {
+                        StockManager.cancelReservation(conn, "ORDER", order.getKey());
+                    }
+                }
+                deleteIn(conn, "DELETE FROM order_details WHERE order_id IN (%s)", orders.keySet());
+                deleteIn(conn, "DELETE FROM orders WHERE id IN (%s)", orders.keySet());
+                return orders.size();
+            });
+            removed += found;
+            if (found > 0 && pauseMs > 0) {
+                Thread.sleep(pauseMs);
+            }
+        } while (found == batchSize);
+        return removed;
+    }
+
+    /**
+     * Delete the customer's invoices a batch at a time with their archive entries
+     * The archived PDFs are released only after the batch has committed, so a
+     * rolled back batch never loses a file.
+     */
+    private int purgeInvoices(DatabaseWriter writer, int customerId) throws SQLException, InterruptedException {
+        InvoiceArchive archive = InvoiceArchive.getInstance();
+        int removed = 0;
+        int found;
+        do {
+            List<String> hashes = new ArrayList<>();
+            found = writer.execute(conn -> {
+                hashes.clear();
+                List<Integer> invoiceIds = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT id FROM invoices WHERE customer_id = ? LIMIT ?")) {
+                    pstmt.setInt(1, customerId);
+                    pstmt.setInt(2, batchSize);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            invoiceIds.add(rs.getInt("id"));
+                        }
+                    }
+                }
+                for (int invoiceId : invoiceIds) {
+                    String hash = archive.removeEntry(conn, invoiceId);
+                    if (hash != null) {
+                        hashes.add(hash);
+                    }
+                }
+                deleteIn(conn, "DELETE FROM invoice_details WHERE invoice_id IN (%s)", invoiceIds);
+                deleteIn(conn, "DELETE FROM invoices WHERE id IN (%s)", invoiceIds);
+                return invoiceIds.size();
+            });
+            if (!hashes.isEmpty()) {
+                writer.execute(conn -> {
+                    for (String hash : hashes) {
+                        archive.releaseBlob(conn, hash);
+                    }
+                    return null;
+                });
+            }
+            removed += found;
+            if (found > 0 && pauseMs > 0) {
+                Thread.sleep(pauseMs);
+            }
+        } while (found == batchSize);
+        return removed;
+    }
+
+    private static void deleteIn(Connection conn, String query, Collection<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String sql = query.formatted(String.join(", ", Collections.nCopies(ids.size(), "?")));
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int id : ids) {
+                pstmt.setInt(index++, id);
+            }
+            pstmt.executeUpdate();
+        }
+    }
+}
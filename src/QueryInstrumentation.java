@@ -0,0 +1,331 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC wrapper that times every statement run through a connection
+ * DatabaseManager wraps the connections it hands out, so all SQL in the
+ * application is measured without touching the callers. Each execution is
+ * recorded in QueryStats with its latency, the rows read or changed and the
+ * code that ran it; executions over the slow threshold also go to the
+ * SlowQueryLog together with their EXPLAIN QUERY PLAN.
+ *
+ * Settings in app_settings.properties:
+ *   query_instrumentation    true/false (default true)
+ *   slow_query_threshold_ms  default 250
+ *   slow_query_log           default logs/slow_queries.log
+ *   slow_query_log_max_kb    size before rotation, default 1024
+ *   slow_query_log_files     rotated copies kept, default 5
+ *   query_stats_report       report written at exit, default logs/query_stats.txt
+ */
+public class QueryInstrumentation {
+    private static final boolean ENABLED = AppSettings.getBoolean("query_instrumentation", true);
+    private static final long SLOW_THRESHOLD_MICROS = AppSettings.getInt("slow_query_threshold_ms", 250) * 1000L;
+    private static final Set<String> EXPLAINABLE = Set.of("SELECT", "WITH", "INSERT", "UPDATE", "DELETE", "REPLACE");
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    static {
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(QueryInstrumentation::writeReport, "query-stats-report"));
+        }
+    }
+
+    private QueryInstrumentation() {
+    }
+
+    /**
+     * Wrap a connection; returns it unchanged when instrumentation is off
+     */
+    public static Connection wrap(Connection conn) {
+        if (!ENABLED) {
+            return conn;
+        }
+        return (Connection) Proxy.newProxyInstance(QueryInstrumentation.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, new ConnectionHandler(conn));
+    }
+
+    private static void writeReport() {
+        if (QueryStats.getInstance().getStatements().isEmpty()) {
+            return;
+        }
+        try {
+            File report = new File(AppSettings.get("query_stats_report", "logs/query_stats.txt"));
+            QueryStats.getInstance().writeReport(report, 100);
+        } catch (IOException e) {
+            System.err.println("Error writing query statistics: " + e.getMessage());
+        }
+    }
+
+    private static void record(Connection raw, String sql, long startNanos, long rows, String callSite, boolean failed) {
+        long micros = (System.nanoTime() - startNanos) / 1000;
+        QueryStats stats = QueryStats.getInstance();
+        stats.record(sql, micros, rows, callSite, failed);
+
+        if (!failed && micros >= SLOW_THRESHOLD_MICROS) {
+            QueryStats.StatementStats statement = stats.find(sql);
+            String plan = statement != null ? statement.getQueryPlan() : null;
+            if (plan == null) {
+                plan = explain(raw, sql);
+                if (statement != null) {
+                    statement.setQueryPlan(plan);
+                }
+            }
+            SlowQueryLog.getInstance().log(QueryStats.normalize(sql), micros, rows, callSite, plan);
+        }
+    }
+
+    /**
+     * EXPLAIN QUERY PLAN on the unwrapped connection; parameters are left unbound
+     */
+    private static String explain(Connection raw, String sql) {
+        String trimmed = sql.trim();
+        int space = trimmed.indexOf(' ');
+        String verb = (space > 0 ? trimmed.substring(0, space) : trimmed).toUpperCase();
+        if (!EXPLAINABLE.contains(verb)) {
+            return null;
+        }
+
+        StringBuilder plan = new StringBuilder();
+        try (Statement stmt = raw.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + trimmed)) {
+            while (rs.next()) {
+                if (plan.length() > 0) {
+                    plan.append('\n');
+                }
+                plan.append(rs.getString("detail"));
+            }
+        } catch (SQLException e) {
+            return "(plan not available: " + e.getMessage() + ")";
+        }
+        return plan.toString();
+    }
+
+    /**
+     * The first two application frames below the JDBC layer, e.g.
+     * "CustomerRepository.findById:17 < OrderDialog.loadCustomerById:288"
+     */
+    private static String callSite() {
+        return WALKER.walk(frames -> frames
+            .filter(frame -> !isInfrastructure(frame.getClassName()))
+            .limit(2)
+            .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+            .collect(Collectors.joining(" < ")));
+    }
+
+    private static boolean isInfrastructure(String className) {
+        return className.startsWith("java.") || className.startsWith("javax.")
+            || className.startsWith("jdk.") || className.startsWith("sun.")
+            || className.startsWith("com.sun.") || className.startsWith("org.sqlite.")
+            || className.contains("$Proxy") || className.startsWith(QueryInstrumentation.class.getName());
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Helper classes
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection raw;
+
+        ConnectionHandler(Connection raw) {
+            this.raw = raw;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = QueryInstrumentation.invoke(raw, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return wrapStatement(Statement.class, (Statement) result, (Connection) proxy, null, null);
+                case "prepareStatement":
+                    return wrapStatement(PreparedStatement.class, (Statement) result, (Connection) proxy,
+                        (String) args[0], callSite());
+                case "prepareCall":
+                    return wrapStatement(CallableStatement.class, (Statement) result, (Connection) proxy,
+                        (String) args[0], callSite());
+                default:
+                    return result;
+            }
+        }
+
+        private Object wrapStatement(Class<?> type, Statement stmt, Connection proxy, String sql, String callSite) {
+            return Proxy.newProxyInstance(QueryInstrumentation.class.getClassLoader(),
+                new Class<?>[] {type}, new StatementHandler(raw, proxy, stmt, sql, callSite));
+        }
+    }
+
+    /**
+     * Times executions; a query stays open until its result set is exhausted or
+     * closed, so the time spent stepping through rows is included
+     */
+    private static class StatementHandler implements InvocationHandler {
+        private final Connection raw;
+        private final Connection connectionProxy;
+        private final Statement stmt;
+        private final String preparedSql;
+        private final String preparedCallSite;
+
+        // The query whose result set is still being read
+        private String pendingSql;
+        private String pendingCallSite;
+        private long pendingStart;
+        private long pendingRows;
+
+        StatementHandler(Connection raw, Connection connectionProxy, Statement stmt, String sql, String callSite) {
+            this.raw = raw;
+            this.connectionProxy = connectionProxy;
+            this.stmt = stmt;
+            this.preparedSql = sql;
+            this.preparedCallSite = callSite;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "executeQuery":
+                    return executeQuery(proxy, method, args);
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "execute":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return executeUpdate(method, args);
+                case "close":
+                    finishPending();
+                    return QueryInstrumentation.invoke(stmt, method, args);
+                case "getConnection":
+                    return connectionProxy;
+                default:
+                    return QueryInstrumentation.invoke(stmt, method, args);
+            }
+        }
+
+        private Object executeQuery(Object proxy, Method method, Object[] args) throws Throwable {
+            finishPending();
+            String sql = sqlOf(args);
+            String callSite = callSiteOf();
+            long start = System.nanoTime();
+            ResultSet rs;
+            try {
+                rs = (ResultSet) QueryInstrumentation.invoke(stmt, method, args);
+            } catch (Throwable e) {
+                record(raw, sql, start, 0, callSite, true);
+                throw e;
+            }
+
+            pendingSql = sql;
+            pendingCallSite = callSite;
+            pendingStart = start;
+            pendingRows = 0;
+            return Proxy.newProxyInstance(QueryInstrumentation.class.getClassLoader(),
+                new Class<?>[] {ResultSet.class}, new ResultSetHandler(rs, (Statement) proxy, this));
+        }
+
+        private Object executeUpdate(Method method, Object[] args) throws Throwable {
+            finishPending();
+            String sql = sqlOf(args);
+            String callSite = callSiteOf();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryInstrumentation.invoke(stmt, method, args);
+            } catch (Throwable e) {
+                record(raw, sql, start, 0, callSite, true);
+                throw e;
+            }
+            record(raw, sql, start, rowsOf(result), callSite, false);
+            return result;
+        }
+
+        void rowRead() {
+            pendingRows++;
+        }
+
+        void finishPending() {
+            if (pendingSql != null) {
+                String sql = pendingSql;
+                pendingSql = null;
+                record(raw, sql, pendingStart, pendingRows, pendingCallSite, false);
+            }
+        }
+
+        private String sqlOf(Object[] args) {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                return (String) args[0];
+            }
+            return preparedSql != null ? preparedSql : "(batch)";
+        }
+
+        private String callSiteOf() {
+            return preparedCallSite != null ? preparedCallSite : callSite();
+        }
+
+        private long rowsOf(Object result) throws SQLException {
+            if (result instanceof Number) {
+                return ((Number) result).longValue();
+            }
+            if (result instanceof int[]) {
+                long total = 0;
+                for (int count : (int[]) result) {
+                    total += Math.max(0, count);
+                }
+                return total;
+            }
+            if (result instanceof long[]) {
+                long total = 0;
+                for (long count : (long[]) result) {
+                    total += Math.max(0, count);
+                }
+                return total;
+            }
+            if (Boolean.FALSE.equals(result)) {
+                return Math.max(0, stmt.getUpdateCount());
+            }
+            return 0;
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet rs;
+        private final Statement statementProxy;
+        private final StatementHandler owner;
+
+        ResultSetHandler(ResultSet rs, Statement statementProxy, StatementHandler owner) {
+            this.rs = rs;
+            this.statementProxy = statementProxy;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    Object hasRow = QueryInstrumentation.invoke(rs, method, args);
+                    if (Boolean.TRUE.equals(hasRow)) {
+                        owner.rowRead();
+                    } else {
+                        owner.finishPending();
+                    }
+                    return hasRow;
+                case "close":
+                    owner.finishPending();
+                    return QueryInstrumentation.invoke(rs, method, args);
+                case "getStatement":
+                    return statementProxy;
+                default:
+                    return QueryInstrumentation.invoke(rs, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-statement execution statistics collected by QueryInstrumentation
+ * Statements are keyed by their SQL text with whitespace collapsed; each
+ * keeps a latency histogram, row counts, errors and the code locations that
+ * ran it.
+ */
+public class QueryStats {
+    // SQL built by concatenation would otherwise grow the map without bound
+    private static final int MAX_STATEMENTS = 1000;
+    private static final String OVERFLOW_KEY = "(other statements)";
+    private static final int MAX_CALL_SITES = 10;
+
+    private static QueryStats instance;
+
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+
+    private QueryStats() {
+    }
+
+    public static synchronized QueryStats getInstance() {
+        if (instance == null) {
+            instance = new QueryStats();
+        }
+        return instance;
+    }
+
+    /**
+     * Record one execution; rows is the number read or changed
+     */
+    public void record(String sql, long micros, long rows, String callSite, boolean failed) {
+        String key = normalize(sql);
+        StatementStats stats = statements.get(key);
+        if (stats == null) {
+            if (statements.size() >= MAX_STATEMENTS) {
+                key = OVERFLOW_KEY;
+            }
+            stats = statements.computeIfAbsent(key, StatementStats::new);
+        }
+        stats.record(micros, rows, callSite, failed);
+    }
+
+    /**
+     * Statistics ordered by total time spent, highest first
+     */
+    public List<StatementStats> getStatements() {
+        List<StatementStats> list = new ArrayList<>(statements.values());
+        list.sort(Comparator.comparingLong(StatementStats::getTotalMicros).reversed());
+        return list;
+    }
+
+    StatementStats find(String sql) {
+        return statements.get(normalize(sql));
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    /**
+     * Plain-text table of the statements that took the most time in total
+     */
+    public String formatReport(int limit) {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        out.printf("%8s %10s %9s %9s %9s %9s %10s  %s%n",
+            "count", "total ms", "mean ms", "p95 ms", "p99 ms", "max ms", "rows", "statement");
+        List<StatementStats> list = getStatements();
+        for (StatementStats stats : list.subList(0, Math.min(limit, list.size()))) {
+            LatencyHistogram histogram = stats.getHistogram();
+            out.printf(Locale.ROOT, "%8d %10.1f %9.2f %9.2f %9.2f %9.2f %10d  %s%n",
+                histogram.getCount(),
+                histogram.getTotalMicros() / 1000.0,
+                histogram.getMeanMicros() / 1000.0,
+                histogram.getPercentileMicros(0.95) / 1000.0,
+                histogram.getPercentileMicros(0.99) / 1000.0,
+                histogram.getMaxMicros() / 1000.0,
+                stats.getRows(),
+                abbreviate(stats.getSql(), 120));
+            for (Map.Entry<String, Long> site : stats.getCallSites().entrySet()) {
+                out.printf("%60s %d x %s%n", "", site.getValue(), site.getKey());
+            }
+            if (stats.getErrors() > 0) {
+                out.printf("%60s %d errors%n", "", stats.getErrors());
+            }
+        }
+        out.flush();
+        return buffer.toString();
+    }
+
+    public void writeReport(File file, int limit) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Files.writeString(file.toPath(), "Query statistics at " + new Date() + "\n\n" + formatReport(limit));
+    }
+
+    static String normalize(String sql) {
+        return sql == null ? "" : sql.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String abbreviate(String text, int length) {
+        return text.length() <= length ? text : text.substring(0, length - 3) + "...";
+    }
+
+    // Helper classes
+
+    public static class StatementStats {
+        private final String sql;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final Map<String, Long> callSites = new LinkedHashMap<>();
+        private long rows = 0;
+        private long errors = 0;
+        private volatile String queryPlan;
+
+        StatementStats(String sql) {
+            this.sql = sql;
+        }
+
+        synchronized void record(long micros, long rowCount, String callSite, boolean failed) {
+            histogram.record(micros);
+            rows += rowCount;
+            if (failed) {
+                errors++;
+            }
+            if (callSite != null && (callSites.containsKey(callSite) || callSites.size() < MAX_CALL_SITES)) {
+                callSites.merge(callSite, 1L, Long::sum);
+            }
+        }
+
+        public String getSql() { return sql; }
+        public LatencyHistogram getHistogram() { return histogram; }
+        public long getTotalMicros() { return histogram.getTotalMicros(); }
+        public synchronized long getRows() { return rows; }
+        public synchronized long getErrors() { return errors; }
+        public synchronized Map<String, Long> getCallSites() { return new LinkedHashMap<>(callSites); }
+
+        // EXPLAIN QUERY PLAN output, captured the first time the statement was slow
+        public String getQueryPlan() { return queryPlan; }
+        void setQueryPlan(String queryPlan) { this.queryPlan = queryPlan; }
+    }
+}
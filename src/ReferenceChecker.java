@@ -0,0 +1,142 @@
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Answers "is this row still referenced?" before products, customers or
+ * suppliers are deleted
+ * All dependencies of an entity are tested in one query made of EXISTS
+ * subqueries, one per referencing table. Each stops at the first matching
+ * row of an index on the referencing column instead of counting them all.
+ * The batch variant checks many ids with the same query shape.
+ */
+public class ReferenceChecker {
+    private static final int CHUNK_SIZE = 500;
+
+    /**
+     * Entities that can be deleted and the tables that point to them
+     */
+    public enum Entity {
+        PRODUCT("products", List.of(
+            new Dependency("order_details", "product_id", "Customer orders"),
+            new Dependency("invoice_details", "product_id", "Invoice entries"),
+            new Dependency("supplier_order_details", "product_id", "Supplier orders"),
+            new Dependency("supplier_price_lists", "product_id", "Price list entries"),
+            new Dependency("warehouse_movements", "product_id", "Warehouse movements"),
+            new Dependency("minimum_stock", "product_id", "Minimum stock settings")
+        )),
+        CUSTOMER("customers", List.of(
+            new Dependency("orders", "customer_id", "Existing orders"),
+            new Dependency("invoices", "customer_id", "Invoices")
+        )),
+        SUPPLIER("suppliers", List.of(
+            new Dependency("supplier_orders", "supplier_id", "Existing orders"),
+            new Dependency("supplier_price_lists", "supplier_id", "Price list entries"),
+            new Dependency("minimum_stock", "preferred_supplier_id", "Minimum stock references")
+        ));
+
+        private final String table;
+        private final List<Dependency> dependencies;
+
+        Entity(String table, List<Dependency> dependencies) {
+            this.table = table;
+            this.dependencies = dependencies;
+        }
+
+        public String getTable() { return table; }
+        public List<Dependency> getDependencies() { return dependencies; }
+    }
+
+    private ReferenceChecker() {
+    }
+
+    /**
+     * Descriptions of the dependencies that still reference the row, in the
+     * order of Entity.getDependencies(); empty when it can be deleted
+     */
+    public static List<String> findReferences(Connection conn, Entity entity, int id) throws SQLException {
+        return findReferences(conn, entity, List.of(id)).getOrDefault(id, List.of());
+    }
+
+    /**
+     * Batch check: the referenced ids with their dependency descriptions;
+     * ids missing from the map have no references
+     */
+    public static Map<Integer, List<String>> findReferences(Connection conn, Entity entity, Collection<Integer> ids)
+            throws SQLException {
+        Map<Integer, List<String>> references = new LinkedHashMap<>();
+        List<Integer> list = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Dependency> dependencies = entity.getDependencies();
+
+        for (int start = 0; start < list.size(); start += CHUNK_SIZE) {
+            List<Integer> chunk = list.subList(start, Math.min(start + CHUNK_SIZE, list.size()));
+            String query = buildQuery(entity, chunk.size());
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        List<String> found = new ArrayList<>();
+                        for (int i = 0; i < dependencies.size(); i++) {
+                            if (rs.getInt(i + 2) != 0) {
+                                found.add(dependencies.get(i).getDescription());
+                            }
+                        }
+                        if (!found.isEmpty()) {
+                            references.put(rs.getInt("id"), found);
+                        }
+                    }
+                }
+            }
+        }
+        return references;
+    }
+
+    /**
+     * One "- name (dependencies)" line per referenced id of a batch check, at most limit lines
+     */
+    public static String describe(Map<Integer, List<String>> references, Map<Integer, String> names, int limit) {
+        StringBuilder text = new StringBuilder();
+        int listed = 0;
+        for (Map.Entry<Integer, List<String>> entry : references.entrySet()) {
+            if (listed++ == limit) {
+                text.append("- ... and ").append(references.size() - limit).append(" more\n");
+                break;
+            }
+            text.append("- ").append(names.getOrDefault(entry.getKey(), "#" + entry.getKey()))
+                .append(" (").append(String.join(", ", entry.getValue())).append(")\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * SELECT e.id, EXISTS(SELECT 1 FROM t1 WHERE t1.col = e.id), ... FROM entity e WHERE e.id IN (...)
+     */
+    private static String buildQuery(Entity entity, int idCount) {
+        StringBuilder columns = new StringBuilder("e.id");
+        for (Dependency dependency : entity.getDependencies()) {
+            columns.append(",\n    EXISTS (SELECT 1 FROM ").append(dependency.getTable())
+                .append(" r WHERE r.").append(dependency.getColumn()).append(" = e.id)");
+        }
+        return "SELECT " + columns + "\nFROM " + entity.getTable() + " e\nWHERE e.id IN (%s)"
+            .formatted(String.join(", ", Collections.nCopies(idCount, "?")));
+    }
+
+    // Helper classes
+
+    public static class Dependency {
+        private final String table;
+        private final String column;
+        private final String description;
+
+        Dependency(String table, String column, String description) {
+            this.table = table;
+            this.column = column;
+            this.description = description;
+        }
+
+        public String getTable() { return table; }
+        public String getColumn() { return column; }
+        public String getDescription() { return description; }
+    }
+}
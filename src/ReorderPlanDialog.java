@@ -0,0 +1,177 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.sql.*;
+import java.util.List;
+import java.util.Date;
+import java.util.Vector;
+
+/**
+ * Shows the reorder proposals and turns them into draft supplier orders
+ */
+public class ReorderPlanDialog extends JDialog {
+    private JTable proposalsTable;
+    private DefaultTableModel proposalsModel;
+    private JLabel summaryLabel;
+    private JButton createOrdersButton;
+    private List<ReorderPlanner.ReorderProposal> proposals;
+    private boolean ordersCreated = false;
+
+    // Constructor for JFrame parent
+    public ReorderPlanDialog(JFrame parent) {
+        super(parent, "Reorder Planning", true);
+        setupWindow();
+        initComponents();
+    }
+
+    // Constructor for JDialog parent
+    public ReorderPlanDialog(JDialog parent) {
+        super(parent, "Reorder Planning", true);
+        setupWindow();
+        initComponents();
+    }
+
+    private void setupWindow() {
+        setSize(1000, 550);
+        setLocationRelativeTo(getOwner());
+        setLayout(new BorderLayout(10, 10));
+    }
+
+    private void initComponents() {
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        String[] columns = {"Code", "Product", "Available", "Incoming", "Lead Time Demand",
+                            "Projected", "Minimum", "Order Qty", "Supplier", "Unit Price", "Total"};
+        proposalsModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        proposalsTable = new JTable(proposalsModel);
+        proposalsTable.setAutoCreateRowSorter(true);
+
+        summaryLabel = new JLabel("Planning...");
+
+        JPanel buttonPanel = new JPanel();
+        createOrdersButton = new JButton("Create Draft Orders");
+        JButton closeButton = new JButton("Close");
+        createOrdersButton.setEnabled(false);
+
+        createOrdersButton.addActionListener(e -> createDraftOrders());
+        closeButton.addActionListener(e -> dispose());
+
+        buttonPanel.add(createOrdersButton);
+        buttonPanel.add(closeButton);
+
+        mainPanel.add(summaryLabel, BorderLayout.NORTH);
+        mainPanel.add(new JScrollPane(proposalsTable), BorderLayout.CENTER);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+        add(mainPanel);
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible && proposals == null) {
+            runPlanning();
+        }
+        super.setVisible(visible);
+    }
+
+    private void runPlanning() {
+        SwingWorker<List<ReorderPlanner.ReorderProposal>, Void> worker = new SwingWorker<>() {
+            private long elapsed;
+
+            @Override
+            protected List<ReorderPlanner.ReorderProposal> doInBackground() throws Exception {
+                long start = System.currentTimeMillis();
+                try (Connection conn = DatabaseManager.getInstance().openReadOnlyConnection()) {
+                    List<ReorderPlanner.ReorderProposal> result = ReorderPlanner.plan(conn, new Date());
+                    elapsed = System.currentTimeMillis() - start;
+                    return result;
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    proposals = get();
+                    showProposals(elapsed);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    cause.printStackTrace();
+                    summaryLabel.setText("Planning failed");
+                    JOptionPane.showMessageDialog(ReorderPlanDialog.this,
+                        "Error planning reorders: " + cause.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private void showProposals(long elapsed) {
+        proposalsModel.setRowCount(0);
+        int withoutSupplier = 0;
+        for (ReorderPlanner.ReorderProposal proposal : proposals) {
+            Vector<Object> row = new Vector<>();
+            row.add(proposal.getProductCode());
+            row.add(proposal.getProductName());
+            row.add(proposal.getAvailableQuantity());
+            row.add(proposal.getIncomingQuantity());
+            row.add(proposal.getLeadTimeDemand());
+            row.add(proposal.getProjectedQuantity());
+            row.add(proposal.getMinimumQuantity());
+            row.add(proposal.getQuantity());
+            row.add(proposal.getSupplierName() != null ? proposal.getSupplierName() : "-");
+            row.add(String.format("%.2f", proposal.getUnitPrice()));
+            row.add(String.format("%.2f", proposal.getTotal()));
+            proposalsModel.addRow(row);
+            if (proposal.getSupplierId() == 0) {
+                withoutSupplier++;
+            }
+        }
+
+        int suppliers = ReorderPlanner.groupBySupplier(proposals).size();
+        String summary = String.format("%d products to reorder from %d suppliers (planned in %d ms)",
+            proposals.size(), suppliers, elapsed);
+        if (withoutSupplier > 0) {
+            summary += String.format(" - %d without a preferred supplier will be skipped", withoutSupplier);
+        }
+        summaryLabel.setText(summary);
+        createOrdersButton.setEnabled(suppliers > 0);
+    }
+
+    private void createDraftOrders() {
+        int suppliers = ReorderPlanner.groupBySupplier(proposals).size();
+        int result = JOptionPane.showConfirmDialog(this,
+            "Create " + suppliers + " draft supplier orders?",
+            "Confirm", JOptionPane.YES_NO_OPTION);
+        if (result != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        try {
+            Connection conn = DatabaseManager.getInstance().getConnection();
+            List<String> numbers = ReorderPlanner.createDraftOrders(conn, proposals, new Date());
+            ordersCreated = true;
+            createOrdersButton.setEnabled(false);
+
+            String range = numbers.size() <= 10 ? String.join(", ", numbers)
+                : numbers.get(0) + " ... " + numbers.get(numbers.size() - 1);
+            JOptionPane.showMessageDialog(this,
+                "Created " + numbers.size() + " draft orders: " + range,
+                "Success", JOptionPane.INFORMATION_MESSAGE);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                "Error creating supplier orders: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    public boolean isOrdersCreated() {
+        return ordersCreated;
+    }
+}
@@ -0,0 +1,300 @@
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+
+/**
+ * Reorder planning (MRP) over the minimum stock settings
+ * One aggregated query scans every product with a minimum stock; available
+ * stock is projected over the product's lead time from physical stock,
+ * reservations, open supplier orders and recent outward movements. Products
+ * that would fall below their minimum are proposed for reorder and grouped by
+ * preferred supplier into draft supplier orders; a deleted supplier counts as
+ * none. Supplier prices are read on the planner's connection too, so a plan
+ * run on a read-only connection does not touch the UI connection.
+ */
+public class ReorderPlanner {
+    // Outward movements of this many days give the average daily demand
+    public static final int DEMAND_WINDOW_DAYS = 90;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * Statuses of supplier orders whose goods have not been received yet
+     */
+    private static final String OPEN_ORDER_STATUSES = "'Draft', 'Confirmed', 'In Transit'";
+
+    /**
+     * Compute the reorder proposals at the given date
+     */
+    public static List<ReorderProposal> plan(Connection conn, Date date) throws SQLException {
+        String query = """
+            SELECT p.id, p.code, p.name, p.quantity, p.reserved_quantity,
+                   p.price, p.acquisition_cost,
+                   sm.minimum_quantity, sm.reorder_quantity,
+                   COALESCE(sm.lead_time_days, 0) as lead_time_days,
+                   COALESCE(sm.preferred_supplier_id, p.supplier_id) as supplier_id,
+                   s.company_name as supplier_name,
+                   COALESCE(incoming.quantity, 0) as incoming_quantity,
+                   COALESCE(demand.quantity, 0) as outward_quantity
+            FROM minimum_stock sm
+            JOIN products p ON p.id = sm.product_id
+            LEFT JOIN suppliers s ON s.id = COALESCE(sm.preferred_supplier_id, p.supplier_id)
+                AND s.deleted_at IS NULL
+            LEFT JOIN (
+                SELECT d.product_id, SUM(d.quantity) as quantity
+                FROM supplier_order_details d
+                JOIN supplier_orders o ON o.id = d.order_id
+                WHERE o.status IN (%s)
+                GROUP BY d.product_id
+            ) incoming ON incoming.product_id = p.id
+            LEFT JOIN (
+                SELECT product_id, SUM(quantity) as quantity
+                FROM warehouse_movements
+                WHERE type = 'OUTWARD' AND date >= ?
+                GROUP BY product_id
+            ) demand ON demand.product_id = p.id
+            WHERE p.active = 1 AND sm.minimum_quantity > 0
+        """.formatted(OPEN_ORDER_STATUSES);
+
+        List<ReorderProposal> proposals = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, DateUtils.toDbDateTime(new Date(date.getTime() - DEMAND_WINDOW_DAYS * DAY_MILLIS)));
+            pstmt.setFetchSize(1000);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int physical = rs.getInt("quantity");
+                    int reserved = rs.getInt("reserved_quantity");
+                    int incoming = rs.getInt("incoming_quantity");
+                    int leadTime = Math.max(0, rs.getInt("lead_time_days"));
+                    int minimum = rs.getInt("minimum_quantity");
+
+                    double dailyDemand = rs.getDouble("outward_quantity") / DEMAND_WINDOW_DAYS;
+                    int demand = (int) Math.ceil(dailyDemand * leadTime);
+                    int projected = physical - reserved + incoming - demand;
+                    if (projected >= minimum) {
+                        continue;
+                    }
+
+                    // Bring the projection back to the minimum, ordering at least the reorder quantity
+                    int quantity = Math.max(rs.getInt("reorder_quantity"), minimum - projected);
+
+                    int supplierId = rs.getInt("supplier_id");
+                    boolean hasSupplier = !rs.wasNull() && rs.getString("supplier_name") != null;
+                    double cost = rs.getDouble("acquisition_cost");
+
+                    proposals.add(new ReorderProposal(
+                        rs.getInt("id"),
+                        rs.getString("code"),
+                        rs.getString("name"),
+                        physical - reserved,
+                        incoming,
+                        demand,
+                        projected,
+                        minimum,
+                        quantity,
+                        leadTime,
+                        hasSupplier ? supplierId : 0,
+                        hasSupplier ? rs.getString("supplier_name") : null,
+                        cost > 0 ? cost : rs.getDouble("price")
+                    ));
+                }
+            }
+        }
+
+        applySupplierPrices(conn, proposals, date);
+        return proposals;
+    }
+
+    /**
+     * Price the proposals from the supplier price lists, one batch per supplier
+     */
+    private static void applySupplierPrices(Connection conn, List<ReorderProposal> proposals, Date date)
+            throws SQLException {
+        for (Map.Entry<Integer, List<ReorderProposal>> group : groupBySupplier(proposals).entrySet()) {
+            Map<Integer, Integer> quantities = new HashMap<>();
+            for (ReorderProposal proposal : group.getValue()) {
+                quantities.put(proposal.getProductId(), proposal.getQuantity());
+            }
+
+            Map<Integer, PriceResolver.PriceEntry> prices =
+                PriceResolver.priceOrder(conn, group.getKey(), date, quantities);
+            for (ReorderProposal proposal : group.getValue()) {
+                PriceResolver.PriceEntry entry = prices.get(proposal.getProductId());
+                if (entry != null) {
+                    proposal.unitPrice = entry.getPrice();
+                }
+            }
+        }
+    }
+
+    /**
+     * Proposals with a supplier, grouped by supplier id in a stable order
+     */
+    public static Map<Integer, List<ReorderProposal>> groupBySupplier(List<ReorderProposal> proposals) {
+        Map<Integer, List<ReorderProposal>> groups = new TreeMap<>();
+        for (ReorderProposal proposal : proposals) {
+            if (proposal.getSupplierId() > 0) {
+                groups.computeIfAbsent(proposal.getSupplierId(), k -> new ArrayList<>()).add(proposal);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Create one draft supplier order per supplier in a single transaction
+     * Proposals without a supplier are skipped.
+     *
+     * @return The numbers of the created orders
+     */
+    public static List<String> createDraftOrders(Connection conn, List<ReorderProposal> proposals, Date orderDate)
+            throws SQLException {
+        Map<Integer, List<ReorderProposal>> groups = groupBySupplier(proposals);
+        List<String> numbers = new ArrayList<>();
+        if (groups.isEmpty()) {
+            return numbers;
+        }
+
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(orderDate);
+        String yearPrefix = String.format("OF%d", cal.get(Calendar.YEAR));
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            int nextNumber = getNextOrderNumber(conn, yearPrefix);
+
+            String orderQuery = """
+                INSERT INTO supplier_orders (
+                    supplier_id, number, order_date, expected_delivery_date,
+                    status, total, notes
+                ) VALUES (?, ?, ?, ?, 'Draft', ?, ?)
+            """;
+            String detailQuery = """
+                INSERT INTO supplier_order_details (
+                    order_id, product_id, quantity, unit_price,
+                    total, notes
+                ) VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+            try (PreparedStatement orderStmt = conn.prepareStatement(orderQuery, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement detailStmt = conn.prepareStatement(detailQuery)) {
+
+                for (Map.Entry<Integer, List<ReorderProposal>> group : groups.entrySet()) {
+                    double total = 0;
+                    int leadTime = 0;
+                    for (ReorderProposal proposal : group.getValue()) {
+                        total += proposal.getTotal();
+                        leadTime = Math.max(leadTime, proposal.getLeadTimeDays());
+                    }
+
+                    String number = String.format("%s%04d", yearPrefix, nextNumber++);
+                    orderStmt.setInt(1, group.getKey());
+                    orderStmt.setString(2, number);
+                    orderStmt.setTimestamp(3, DateUtils.toSqlTimestamp(orderDate));
+                    orderStmt.setTimestamp(4, new Timestamp(orderDate.getTime() + leadTime * DAY_MILLIS));
+                    orderStmt.setDouble(5, total);
+                    orderStmt.setString(6, "Generated by reorder planning");
+                    orderStmt.executeUpdate();
+
+                    int orderId;
+                    try (ResultSet rs = orderStmt.getGeneratedKeys()) {
+                        if (!rs.next()) {
+                            throw new SQLException("Failed to get order ID");
+                        }
+                        orderId = rs.getInt(1);
+                    }
+
+                    for (ReorderProposal proposal : group.getValue()) {
+                        detailStmt.setInt(1, orderId);
+                        detailStmt.setInt(2, proposal.getProductId());
+                        detailStmt.setInt(3, proposal.getQuantity());
+                        detailStmt.setDouble(4, proposal.getUnitPrice());
+                        detailStmt.setDouble(5, proposal.getTotal());
+                        detailStmt.setString(6, String.format("Projected %d, minimum %d",
+                            proposal.getProjectedQuantity(), proposal.getMinimumQuantity()));
+                        detailStmt.addBatch();
+                    }
+                    detailStmt.executeBatch();
+
+                    numbers.add(number);
+                }
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        return numbers;
+    }
+
+    // Same numbering as SupplierOrderDialog: OF<year><4-digit progressive>
+    private static int getNextOrderNumber(Connection conn, String yearPrefix) throws SQLException {
+        String query = """
+            SELECT COALESCE(MAX(CAST(SUBSTR(number, 7) AS INTEGER)), 0) + 1 as next_num
+            FROM supplier_orders
+            WHERE number LIKE ?
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, yearPrefix + "%");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("next_num") : 1;
+            }
+        }
+    }
+
+    // Helper classes
+
+    public static class ReorderProposal {
+        private int productId;
+        private String productCode;
+        private String productName;
+        private int availableQuantity;
+        private int incomingQuantity;
+        private int leadTimeDemand;
+        private int projectedQuantity;
+        private int minimumQuantity;
+        private int quantity;
+        private int leadTimeDays;
+        private int supplierId;
+        private String supplierName;
+        private double unitPrice;
+
+        public ReorderProposal(int productId, String productCode, String productName,
+                               int availableQuantity, int incomingQuantity, int leadTimeDemand,
+                               int projectedQuantity, int minimumQuantity, int quantity, int leadTimeDays,
+                               int supplierId, String supplierName, double unitPrice) {
+            this.productId = productId;
+            this.productCode = productCode;
+            this.productName = productName;
+            this.availableQuantity = availableQuantity;
+            this.incomingQuantity = incomingQuantity;
+            this.leadTimeDemand = leadTimeDemand;
+            this.projectedQuantity = projectedQuantity;
+            this.minimumQuantity = minimumQuantity;
+            this.quantity = quantity;
+            this.leadTimeDays = leadTimeDays;
+            this.supplierId = supplierId;
+            this.supplierName = supplierName;
+            this.unitPrice = unitPrice;
+        }
+
+        public int getProductId() { return productId; }
+        public String getProductCode() { return productCode; }
+        public String getProductName() { return productName; }
+        public int getAvailableQuantity() { return availableQuantity; }
+        public int getIncomingQuantity() { return incomingQuantity; }
+        public int getLeadTimeDemand() { return leadTimeDemand; }
+        public int getProjectedQuantity() { return projectedQuantity; }
+        public int getMinimumQuantity() { return minimumQuantity; }
+        public int getQuantity() { return quantity; }
+        public int getLeadTimeDays() { return leadTimeDays; }
+        public int getSupplierId() { return supplierId; }
+        public String getSupplierName() { return supplierName; }
+        public double getUnitPrice() { return unitPrice; }
+        public double getTotal() { return quantity * unitPrice; }
+    }
+}
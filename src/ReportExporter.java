@@ -0,0 +1,464 @@
+import javax.swing.*;
+import javax.swing.filechooser.FileFilter;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming export engine for report tables
+ * Rows go straight from the ResultSet to a CSV or XLSX file through a fixed
+ * size write buffer, so memory use does not depend on the number of rows and
+ * no table model is built. Exports run on a background thread with their own
+ * read-only connection.
+ */
+public class ReportExporter {
+    public static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int FETCH_SIZE = 1000;
+    private static final int PROGRESS_INTERVAL = 5000;
+
+    // Excel hard limit per worksheet, including the header row
+    private static final int XLSX_MAX_ROWS = 1_048_576;
+
+    public enum Format { CSV, XLSX }
+
+    /**
+     * Reads one exported value from the current ResultSet row
+     * Return Number for numeric cells, anything else is written as text.
+     */
+    public interface ValueReader {
+        Object read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Receives the number of rows written so far; return false to cancel
+     */
+    public interface ProgressListener {
+        boolean onProgress(long rows);
+    }
+
+    /**
+     * Rows written after the data, computed from the exported rows themselves
+     */
+    public interface Summary {
+        /** Called with every data row as it is written */
+        void accept(Object[] values);
+
+        /** The trailer rows, once all data rows were accepted */
+        List<String[]> rows();
+    }
+
+    public static class Column {
+        private String header;
+        private ValueReader reader;
+
+        public Column(String header, ValueReader reader) {
+            this.header = header;
+            this.reader = reader;
+        }
+
+        public String getHeader() { return header; }
+        public ValueReader getReader() { return reader; }
+    }
+
+    /**
+     * Stream the result of a query to a file
+     * The data goes to a temporary file next to the target, which replaces the
+     * target only when the export is complete; a failed or cancelled export
+     * leaves no partial file behind.
+     *
+     * @param preamble Optional rows written before the header (title, period...)
+     * @param summary Optional rows written after the data, computed from it
+     * @return Number of data rows written
+     */
+    public static long export(Connection conn, String query, List<Object> params, List<Column> columns,
+                              List<String[]> preamble, Summary summary, File target, Format format,
+                              ProgressListener listener) throws SQLException, IOException {
+        File directory = target.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(target.getName() + ".", ".part", directory);
+        boolean complete = false;
+        long rows;
+        try {
+            rows = write(conn, query, params, columns, preamble, summary, temp, format, listener);
+            complete = true;
+        } finally {
+            if (!complete) {
+                temp.delete();
+            }
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    private static long write(Connection conn, String query, List<Object> params, List<Column> columns,
+                              List<String[]> preamble, Summary summary, File target, Format format,
+                              ProgressListener listener) throws SQLException, IOException {
+        Object[] values = new Object[columns.size()];
+        long rows = 0;
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query,
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery();
+                 RowWriter writer = format == Format.XLSX ? new XlsxRowWriter(target) : new CsvRowWriter(target)) {
+
+                if (preamble != null) {
+                    for (String[] line : preamble) {
+                        writer.writeRow(line);
+                    }
+                }
+
+                Object[] headers = new Object[columns.size()];
+                for (int i = 0; i < columns.size(); i++) {
+                    headers[i] = columns.get(i).getHeader();
+                }
+                writer.setHeader(headers);
+
+                while (rs.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = columns.get(i).getReader().read(rs);
+                    }
+                    writer.writeRow(values);
+                    if (summary != null) {
+                        summary.accept(values);
+                    }
+                    rows++;
+
+                    if (listener != null && rows % PROGRESS_INTERVAL == 0 && !listener.onProgress(rows)) {
+                        throw new InterruptedIOException("Export cancelled after " + rows + " rows");
+                    }
+                }
+
+                if (summary != null) {
+                    for (String[] line : summary.rows()) {
+                        writer.writeRow(line);
+                    }
+                }
+            }
+        }
+
+        if (listener != null) {
+            listener.onProgress(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Ask the user for a target file; the format follows the chosen filter or extension
+     */
+    public static File chooseExportFile(Component parent, String title, String defaultBaseName) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle(title);
+        FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("CSV files (*.csv)", "csv");
+        FileNameExtensionFilter xlsxFilter = new FileNameExtensionFilter("Excel workbooks (*.xlsx)", "xlsx");
+        fileChooser.addChoosableFileFilter(csvFilter);
+        fileChooser.addChoosableFileFilter(xlsxFilter);
+        fileChooser.setFileFilter(csvFilter);
+        fileChooser.setSelectedFile(new File(defaultBaseName + ".csv"));
+
+        if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+
+        File file = fileChooser.getSelectedFile();
+        String name = file.getName().toLowerCase();
+        if (!name.endsWith(".csv") && !name.endsWith(".xlsx")) {
+            FileFilter chosen = fileChooser.getFileFilter();
+            file = new File(file.getAbsolutePath() + (chosen == xlsxFilter ? ".xlsx" : ".csv"));
+        } else if (fileChooser.getFileFilter() == xlsxFilter && name.endsWith(".csv")) {
+            // The default name was kept but the XLSX filter was picked
+            String path = file.getAbsolutePath();
+            file = new File(path.substring(0, path.length() - 4) + ".xlsx");
+        }
+        return file;
+    }
+
+    public static Format formatOf(File file) {
+        return file.getName().toLowerCase().endsWith(".xlsx") ? Format.XLSX : Format.CSV;
+    }
+
+    /**
+     * Choose a file and run the export off the EDT with a cancellable progress dialog
+     */
+    public static void exportWithDialog(Component parent, String title, String defaultBaseName,
+                                        String query, List<Object> params, List<Column> columns,
+                                        List<String[]> preamble, Summary summary) {
+        File file = chooseExportFile(parent, title, defaultBaseName);
+        if (file == null) {
+            return;
+        }
+
+        ProgressDialog progressDialog = new ProgressDialog(parent, title, "Exporting to " + file.getName() + "...");
+
+        long startTime = System.currentTimeMillis();
+        SwingWorker<Long, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                try (Connection conn = DatabaseManager.getInstance().openReadOnlyConnection()) {
+                    return export(conn, query, params, columns, preamble, summary, file, formatOf(file), rows -> {
+                        progressDialog.setMessage(String.format("Exporting to %s... %,d rows", file.getName(), rows));
+                        return !progressDialog.isCancelled();
+                    });
+                }
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    long rows = get();
+                    double seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+                    JOptionPane.showMessageDialog(parent,
+                        String.format("Exported %,d rows in %.1f s\nSaved to: %s", rows, seconds, file.getAbsolutePath()),
+                        "Export Completed", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (progressDialog.isCancelled()) {
+                        return;
+                    }
+                    cause.printStackTrace();
+                    JOptionPane.showMessageDialog(parent,
+                        "Error during export: " + cause.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        progressDialog.setVisible(true);
+        worker.execute();
+    }
+
+    /**
+     * Render a date column the same way the report tables do
+     */
+    public static ValueReader dateColumn(String columnName, java.text.SimpleDateFormat format) {
+        return rs -> {
+            java.util.Date date = DateUtils.parseDate(rs, columnName);
+            return date != null ? DateUtils.formatDate(date, format) : "";
+        };
+    }
+
+    public static ValueReader textColumn(String columnName) {
+        return rs -> rs.getString(columnName);
+    }
+
+    public static ValueReader intColumn(String columnName) {
+        return rs -> rs.getLong(columnName);
+    }
+
+    public static ValueReader decimalColumn(String columnName) {
+        return rs -> rs.getDouble(columnName);
+    }
+
+    // Writers
+
+    private interface RowWriter extends Closeable {
+        void setHeader(Object[] headers) throws IOException;
+        void writeRow(Object[] values) throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer out;
+
+        CsvRowWriter(File file) throws IOException {
+            out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+            // BOM so that spreadsheet applications detect UTF-8 (currency symbols)
+            out.write('\uFEFF');
+        }
+
+        @Override
+        public void setHeader(Object[] headers) throws IOException {
+            writeRow(headers);
+        }
+
+        @Override
+        public void writeRow(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) out.write(',');
+                writeValue(values[i]);
+            }
+            out.write('\n');
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value instanceof Double || value instanceof Float) {
+                out.write(String.format(Locale.ROOT, "%.2f", ((Number) value).doubleValue()));
+                return;
+            }
+            String text = value.toString();
+            boolean needsQuotes = false;
+            for (int i = 0; i < text.length() && !needsQuotes; i++) {
+                char c = text.charAt(i);
+                needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!needsQuotes) {
+                out.write(text);
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') out.write('"');
+                out.write(c);
+            }
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Minimal streaming XLSX (SpreadsheetML) writer
+     * Sheet XML is written row by row into the zip stream; when a sheet reaches
+     * the Excel row limit a new one is started with the header repeated.
+     */
+    private static class XlsxRowWriter implements RowWriter {
+        private final ZipOutputStream zip;
+        private final Writer out;
+        private Object[] headers;
+        private int sheetCount = 0;
+        private int sheetRows = 0;
+
+        XlsxRowWriter(File file) throws IOException {
+            zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file), WRITE_BUFFER_SIZE));
+            out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+            startSheet();
+        }
+
+        @Override
+        public void setHeader(Object[] headers) throws IOException {
+            this.headers = headers.clone();
+            writeRow(headers);
+        }
+
+        @Override
+        public void writeRow(Object[] values) throws IOException {
+            if (sheetRows >= XLSX_MAX_ROWS) {
+                endSheet();
+                startSheet();
+                if (headers != null) {
+                    writeCells(headers);
+                }
+            }
+            writeCells(values);
+        }
+
+        private void writeCells(Object[] values) throws IOException {
+            out.write("<row>");
+            for (Object value : values) {
+                if (value == null) {
+                    out.write("<c/>");
+                } else if (value instanceof Number) {
+                    out.write("<c><v>");
+                    out.write(value.toString());
+                    out.write("</v></c>");
+                } else {
+                    out.write("<c t=\"inlineStr\"><is><t>");
+                    writeEscaped(value.toString());
+                    out.write("</t></is></c>");
+                }
+            }
+            out.write("</row>");
+            sheetRows++;
+        }
+
+        private void writeEscaped(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '&' -> out.write("&amp;");
+                    case '<' -> out.write("&lt;");
+                    case '>' -> out.write("&gt;");
+                    case '"' -> out.write("&quot;");
+                    default -> {
+                        // Control characters are not allowed in XML 1.0
+                        if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                            out.write(c);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void startSheet() throws IOException {
+            sheetCount++;
+            sheetRows = 0;
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetCount + ".xml"));
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+            out.write("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        }
+
+        private void endSheet() throws IOException {
+            out.write("</sheetData></worksheet>");
+            out.flush();
+            zip.closeEntry();
+        }
+
+        private void writeEntry(String name, String content) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            out.write(content);
+            out.flush();
+            zip.closeEntry();
+        }
+
+        @Override
+        public void close() throws IOException {
+            endSheet();
+
+            StringBuilder contentTypes = new StringBuilder();
+            contentTypes.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+            StringBuilder sheets = new StringBuilder();
+            StringBuilder workbookRels = new StringBuilder();
+            workbookRels.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+            for (int i = 1; i <= sheetCount; i++) {
+                contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+                sheets.append("<sheet name=\"Sheet").append(i).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+                workbookRels.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+            }
+            contentTypes.append("</Types>");
+            workbookRels.append("</Relationships>");
+
+            writeEntry("[Content_Types].xml", contentTypes.toString());
+            writeEntry("_rels/.rels",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+            writeEntry("xl/workbook.xml",
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+                "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" " +
+                "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">" +
+                "<sheets>" + sheets + "</sheets></workbook>");
+            writeEntry("xl/_rels/workbook.xml.rels", workbookRels.toString());
+
+            out.close();
+        }
+    }
+}
@@ -6,14 +6,12 @@ import java.util.*;
 import java.text.SimpleDateFormat;
 import javax.swing.border.TitledBorder;
 import java.util.Date;
+import java.util.List;
 import java.awt.event.ActionEvent;
 import java.text.ParseException;
-import java.io.FileWriter;
-import java.io.PrintWriter;
-import java.io.IOException;
-import java.io.File;
 import java.awt.Desktop;
-import javax.swing.filechooser.FileNameExtensionFilter;
+import java.time.LocalDate;
+import java.time.ZoneId;
 
 public class SalesReportPanel extends JPanel {
     private JTextField startDateField;
@@ -90,11 +88,11 @@ public class SalesReportPanel extends JPanel {
         // Button panel
         JPanel buttonPanel = new JPanel(new FlowLayout());
         JButton printButton = new JButton("Print Report");
-        JButton exportButton = new JButton("Export CSV");
+        JButton exportButton = new JButton("Export CSV/XLSX");
         JButton detailsButton = new JButton("Order Details");
 
         printButton.addActionListener(e -> printReport());
-        exportButton.addActionListener(e -> exportToCSV());
+        exportButton.addActionListener(e -> exportReport());
         detailsButton.addActionListener(e -> showOrderDetails());
 
         buttonPanel.add(printButton);
@@ -179,10 +177,8 @@ public class SalesReportPanel extends JPanel {
                     pstmt = conn.prepareStatement(query);
 
                     // CONVERT DATES TO ISO STRING FOR COMPARISON
-                    String startDateISO = String.format("%04d-%02d-%02d 00:00:00",
-                        startDate.getYear() + 1900, startDate.getMonth() + 1, startDate.getDate());
-                    String endDateISO = String.format("%04d-%02d-%02d 23:59:59",
-                        endDate.getYear() + 1900, endDate.getMonth() + 1, endDate.getDate());
+                    String startDateISO = dayBound(startDate, "00:00:00");
+                    String endDateISO = dayBound(endDate, "23:59:59");
 
                     pstmt.setString(1, startDateISO);
                     pstmt.setString(2, endDateISO);
@@ -355,56 +351,73 @@ public class SalesReportPanel extends JPanel {
         previewDialog.setVisible(true);
     }
 
-    private void exportToCSV() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Export Report to CSV");
-        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV files (*.csv)", "csv"));
+    /**
+     * The day of a date as the text bound compared with order_date
+     */
+    private static String dayBound(Date date, String time) {
+        LocalDate day = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        return day + " " + time;
+    }
 
-        int userSelection = fileChooser.showSaveDialog(this);
-        if (userSelection == JFileChooser.APPROVE_OPTION) {
-            File fileToSave = fileChooser.getSelectedFile();
-            if (!fileToSave.getAbsolutePath().endsWith(".csv")) {
-                fileToSave = new File(fileToSave + ".csv");
-            }
+    private void exportReport() {
+        // The export streams every order in the period, without the on-screen row limit
+        String query = """
+            SELECT o.id, o.order_date, o.status, o.total,
+                   COALESCE(c.first_name || ' ' || c.last_name, 'N/A') as customer_name
+            FROM orders o
+            LEFT JOIN customers c ON o.customer_id = c.id
+        """;
+        List<Object> params = new ArrayList<>();
+
+        Date startDate = null;
+        Date endDate = null;
+        try {
+            startDate = DateUtils.parseDate(startDateField.getText().trim(), dateFormat);
+            endDate = DateUtils.parseDate(endDateField.getText().trim(), dateFormat);
+        } catch (ParseException e) {
+            // Export all orders, as the table does
+        }
 
-            try (PrintWriter writer = new PrintWriter(new FileWriter(fileToSave))) {
-                // Column headers
-                for (int i = 0; i < tableModel.getColumnCount(); i++) {
-                    if (i > 0) writer.print(",");
-                    writer.print(tableModel.getColumnName(i));
-                }
-                writer.println();
-
-                // Table data
-                for (int i = 0; i < tableModel.getRowCount(); i++) {
-                    StringBuilder line = new StringBuilder();
-                    for (int j = 0; j < tableModel.getColumnCount(); j++) {
-                        if (j > 0) line.append(",");
-                        String value = tableModel.getValueAt(i, j).toString();
-                        if (value.contains(",")) {
-                            value = "\"" + value + "\"";
-                        }
-                        line.append(value);
-                    }
-                    writer.println(line);
-                }
+        if (startDate != null && endDate != null) {
+            query += " WHERE o.order_date >= ? AND o.order_date <= ?";
+            params.add(dayBound(startDate, "00:00:00"));
+            params.add(dayBound(endDate, "23:59:59"));
+        }
+        query += " ORDER BY o.order_date DESC";
 
-                writer.println();
-                writer.println("Summary");
-                writer.println("Total Sales," + totalSalesLabel.getText().replace("Total Sales: ", ""));
-                writer.println("Number of Orders," + totalOrdersLabel.getText().replace("Number of Orders: ", ""));
-                writer.println("Average per Order," + averageOrderLabel.getText().replace("Average per Order: ", ""));
+        List<ReportExporter.Column> columns = List.of(
+            new ReportExporter.Column("Date", ReportExporter.dateColumn("order_date", dateFormat)),
+            new ReportExporter.Column("Order ID", ReportExporter.intColumn("id")),
+            new ReportExporter.Column("Customer", ReportExporter.textColumn("customer_name")),
+            new ReportExporter.Column("Status", ReportExporter.textColumn("status")),
+            new ReportExporter.Column("Total €", ReportExporter.decimalColumn("total"))
+        );
 
-                JOptionPane.showMessageDialog(this,
-                    "Report exported successfully",
-                    "Export complete", JOptionPane.INFORMATION_MESSAGE);
+        // Totals of the exported rows, which are not limited like the table
+        ReportExporter.Summary summary = new ReportExporter.Summary() {
+            private double totalSales = 0;
+            private long totalOrders = 0;
 
-            } catch (IOException e) {
-                e.printStackTrace();
-                JOptionPane.showMessageDialog(this,
-                    "Error during export: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
+            @Override
+            public void accept(Object[] values) {
+                totalSales += ((Number) values[4]).doubleValue();
+                totalOrders++;
             }
-        }
+
+            @Override
+            public List<String[]> rows() {
+                return List.of(
+                    new String[]{},
+                    new String[]{"Summary"},
+                    new String[]{"Total Sales", String.format("€ %.2f", totalSales)},
+                    new String[]{"Number of Orders", String.valueOf(totalOrders)},
+                    new String[]{"Average per Order",
+                        String.format("€ %.2f", totalOrders > 0 ? totalSales / totalOrders : 0.0)}
+                );
+            }
+        };
+
+        ReportExporter.exportWithDialog(this, "Export Sales Report", "sales_report",
+            query, params, columns, null, summary);
     }
 }
@@ -2,6 +2,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.io.*;
 
 public class SettingsPanel extends JPanel {
@@ -358,12 +359,17 @@ public class SettingsPanel extends JPanel {
         logoPathField.setText(companyData.getLogoPath());
     }
 
-    private boolean saveCompanyData() {
+    /**
+     * Validate the company fields and queue the save
+     *
+     * @return The pending save, or null if validation failed
+     */
+    private CompletableFuture<Void> saveCompanyData() {
         if (companyNameField.getText().trim().isEmpty()) {
             JOptionPane.showMessageDialog(this,
                 "Company name is required.",
                 "Validation Error", JOptionPane.ERROR_MESSAGE);
-            return false;
+            return null;
         }
 
         CompanyData companyData = CompanyData.getInstance();
@@ -397,30 +403,40 @@ public class SettingsPanel extends JPanel {
     }
 
     private void saveAllSettings() {
-        boolean success = true;
+        boolean appSettingsSaved = true;
 
         try {
             saveAppSettings();
         } catch (Exception e) {
-            success = false;
+            appSettingsSaved = false;
             JOptionPane.showMessageDialog(this,
                 "Error saving application settings: " + e.getMessage(),
                 "Error", JOptionPane.ERROR_MESSAGE);
         }
 
-        if (!saveCompanyData()) {
-            success = false;
+        CompletableFuture<Void> companySave = saveCompanyData();
+        if (companySave == null) {
             JOptionPane.showMessageDialog(this,
                 "Error saving company data",
                 "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
 
-        if (success) {
-            applySettings();
-            JOptionPane.showMessageDialog(this,
-                "Settings saved successfully!",
-                "Settings", JOptionPane.INFORMATION_MESSAGE);
-        }
+        // The company data is written by the database writer; report when it has committed
+        boolean success = appSettingsSaved;
+        companySave.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(this,
+                    "Error saving company data: " + error.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (success) {
+                applySettings();
+                JOptionPane.showMessageDialog(this,
+                    "Settings saved successfully!",
+                    "Settings", JOptionPane.INFORMATION_MESSAGE);
+            }
+        }));
     }
 
     private void saveAppSettings() {
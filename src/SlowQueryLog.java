@@ -0,0 +1,94 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Size-rotated log of statements slower than the configured threshold
+ * Entries are written by a background thread so the caller, often the EDT,
+ * does not also wait on disk. When the file reaches its size limit it is
+ * renamed to slow_queries.log.1, the older copies shift up and the oldest is
+ * deleted.
+ */
+public class SlowQueryLog {
+    private static SlowQueryLog instance;
+
+    private final File file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final ExecutorService writer;
+    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private SlowQueryLog() {
+        this.file = new File(AppSettings.get("slow_query_log", "logs/slow_queries.log"));
+        this.maxBytes = AppSettings.getInt("slow_query_log_max_kb", 1024) * 1024L;
+        this.maxFiles = Math.max(1, AppSettings.getInt("slow_query_log_files", 5));
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "slow-query-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized SlowQueryLog getInstance() {
+        if (instance == null) {
+            instance = new SlowQueryLog();
+        }
+        return instance;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Queue an entry; the plan may be null when it could not be explained
+     */
+    public void log(String sql, long micros, long rows, String callSite, String queryPlan) {
+        Date now = new Date();
+        writer.execute(() -> write(now, sql, micros, rows, callSite, queryPlan));
+    }
+
+    private void write(Date time, String sql, long micros, long rows, String callSite, String queryPlan) {
+        try {
+            rotateIfNeeded();
+            try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+                out.printf(Locale.ROOT, "%s  %.1f ms  %d rows  %s%n",
+                    timestampFormat.format(time), micros / 1000.0, rows, callSite);
+                out.println("  " + sql);
+                if (queryPlan != null) {
+                    for (String line : queryPlan.split("\n")) {
+                        out.println("    " + line);
+                    }
+                }
+                out.println();
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing slow query log: " + e.getMessage());
+        }
+    }
+
+    private void rotateIfNeeded() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        if (file.length() < maxBytes) {
+            return;
+        }
+
+        new File(file.getPath() + "." + maxFiles).delete();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File older = new File(file.getPath() + "." + i);
+            if (older.exists()) {
+                older.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+        }
+        file.renameTo(new File(file.getPath() + ".1"));
+    }
+}
@@ -22,6 +22,11 @@ public class StockManager {
             Integer existingDocumentId,
             String documentType) throws SQLException {
 
+        AppEvents.StockCheck event = new AppEvents.StockCheck();
+        event.begin();
+        event.documentType = documentType;
+        event.lines = items.size();
+
         Map<String, StockAvailability> insufficientProducts = new HashMap<>();
 
         for (StockItem item : items) {
@@ -41,6 +46,7 @@ public class StockManager {
                 ResultSet rs = pstmt.executeQuery();
 
                 if (rs.next()) {
+                    event.rowsReturned++;
                     int currentStock = rs.getInt("quantity");
                     int reservedStock = rs.getInt("reserved_quantity");
                     int availableStock = currentStock - reservedStock;
@@ -60,6 +66,8 @@ public class StockManager {
             }
         }
 
+        event.shortages = insufficientProducts.size();
+        event.commit();
         return insufficientProducts;
     }
 
@@ -97,6 +105,9 @@ public class StockManager {
             int quantity,
             String note) throws SQLException {
 
+        AppEvents.ReservationChange event = new AppEvents.ReservationChange();
+        event.begin();
+
         // Check if reservation already exists
         String checkQuery = """
             SELECT id, reserved_quantity, status
@@ -123,7 +134,7 @@ public class StockManager {
                     updateStmt.setInt(1, quantity);
                     updateStmt.setString(2, note);
                     updateStmt.setInt(3, reservationId);
-                    updateStmt.executeUpdate();
+                    event.rowsChanged = updateStmt.executeUpdate();
                 }
             } else {
                 // Create new reservation
@@ -139,10 +150,18 @@ public class StockManager {
                     insertStmt.setInt(3, documentId);
                     insertStmt.setInt(4, quantity);
                     insertStmt.setString(5, note);
-                    insertStmt.executeUpdate();
+                    event.rowsChanged = insertStmt.executeUpdate();
                 }
             }
         }
+        EventBus.getInstance().publish(new EventBus.StockMoved(productId));
+
+        event.action = "reserve";
+        event.documentType = documentType;
+        event.documentId = documentId;
+        event.productId = productId;
+        event.quantity = quantity;
+        event.commit();
     }
 
     /**
@@ -153,6 +172,23 @@ public class StockManager {
             String documentType,
             int documentId) throws SQLException {
 
+        AppEvents.ReservationChange event = new AppEvents.ReservationChange();
+        event.begin();
+
+        // Products whose reserved quantity is about to be released
+        String productsQuery = """
+            SELECT product_id FROM stock_reservations
+            WHERE document_type = ? AND document_id = ? AND status = 'ACTIVE'
+        """;
+        try (PreparedStatement pstmt = conn.prepareStatement(productsQuery)) {
+            pstmt.setString(1, documentType);
+            pstmt.setInt(2, documentId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                EventBus.getInstance().publish(new EventBus.StockMoved(rs.getInt("product_id")));
+            }
+        }
+
         String updateQuery = """
             UPDATE stock_reservations
             SET status = 'CANCELLED'
@@ -162,8 +198,13 @@ public class StockManager {
         try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
             pstmt.setString(1, documentType);
             pstmt.setInt(2, documentId);
-            pstmt.executeUpdate();
+            event.rowsChanged = pstmt.executeUpdate();
         }
+
+        event.action = "cancel";
+        event.documentType = documentType;
+        event.documentId = documentId;
+        event.commit();
     }
 
     /**
@@ -177,6 +218,9 @@ public class StockManager {
             Date documentDate,
             String documentNumber) throws SQLException {
 
+        AppEvents.ReservationChange event = new AppEvents.ReservationChange();
+        event.begin();
+
         // Get all active reservations for this document
         String getReservationsQuery = """
             SELECT product_id, reserved_quantity
@@ -192,6 +236,7 @@ public class StockManager {
             while (rs.next()) {
                 int productId = rs.getInt("product_id");
                 int quantity = rs.getInt("reserved_quantity");
+                event.quantity += quantity;
 
                 // Decrement actual stock
                 decrementStock(conn, productId, quantity);
@@ -213,8 +258,13 @@ public class StockManager {
         try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
             pstmt.setString(1, documentType);
             pstmt.setInt(2, documentId);
-            pstmt.executeUpdate();
+            event.rowsChanged = pstmt.executeUpdate();
         }
+
+        event.action = "complete";
+        event.documentType = documentType;
+        event.documentId = documentId;
+        event.commit();
     }
 
     /**
@@ -256,6 +306,7 @@ public class StockManager {
                 pstmt.setInt(2, item.getProductId());
                 pstmt.executeUpdate();
             }
+            EventBus.getInstance().publish(new EventBus.StockMoved(item.getProductId()));
 
             // Create warehouse movement
             createWarehouseMovement(conn, item.getProductId(), documentDate,
@@ -293,6 +344,7 @@ public class StockManager {
                     updatePstmt.setInt(1, quantity);
                     updatePstmt.setInt(2, productId);
                     updatePstmt.executeUpdate();
+                    EventBus.getInstance().publish(new EventBus.StockMoved(productId));
                 }
             }
         }
@@ -308,6 +360,7 @@ public class StockManager {
             pstmt.setInt(2, productId);
             pstmt.executeUpdate();
         }
+        EventBus.getInstance().publish(new EventBus.StockMoved(productId));
     }
 
     /**
@@ -340,7 +393,7 @@ public class StockManager {
 
         try (PreparedStatement pstmt = conn.prepareStatement(movementQuery)) {
             pstmt.setInt(1, productId);
-            pstmt.setTimestamp(2, DateUtils.toSqlTimestamp(documentDate));
+            pstmt.setString(2, DateUtils.toDbDateTime(documentDate));
             pstmt.setString(3, movementType);
             pstmt.setInt(4, quantity);
             pstmt.setString(5, reason);
@@ -374,6 +427,46 @@ public class StockManager {
         return 0;
     }
 
+    /**
+     * Insert or replace the minimum stock settings of a product
+     */
+    public static void saveMinimumStock(
+            Connection conn,
+            int productId,
+            int minimumQuantity,
+            int reorderQuantity,
+            int leadTimeDays,
+            Integer preferredSupplierId,
+            String notes) throws SQLException {
+
+        String query = """
+            INSERT INTO minimum_stock (
+                product_id, minimum_quantity, reorder_quantity,
+                lead_time_days, preferred_supplier_id, notes
+            ) VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT(product_id) DO UPDATE SET
+                minimum_quantity = excluded.minimum_quantity,
+                reorder_quantity = excluded.reorder_quantity,
+                lead_time_days = excluded.lead_time_days,
+                preferred_supplier_id = excluded.preferred_supplier_id,
+                notes = excluded.notes
+        """;
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, productId);
+            pstmt.setInt(2, minimumQuantity);
+            pstmt.setInt(3, reorderQuantity);
+            pstmt.setInt(4, leadTimeDays);
+            if (preferredSupplierId != null) {
+                pstmt.setInt(5, preferredSupplierId);
+            } else {
+                pstmt.setNull(5, Types.INTEGER);
+            }
+            pstmt.setString(6, notes);
+            pstmt.executeUpdate();
+        }
+    }
+
     /**
      * Delete an order and restore stock based on its status
      * Handles: restoring stock if Completed, cancelling reservations if In Progress
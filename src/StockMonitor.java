@@ -0,0 +1,264 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Low-stock detection on the stock-change path
+ * Code that changes a product quantity publishes EventBus.StockMoved, which
+ * ends up in stockChanged(); products without a minimum stock are filtered by
+ * a cached threshold map with no SQL at all.
+ * The others are queued and checked against the committed stock in batches
+ * through the shared DatabaseWriter, inserting at most one open MIN_STOCK
+ * notification per product and day.
+ * Events from background transactions can arrive before their commit, so
+ * every flush, and a periodic sweep, also checks the monitored products with
+ * warehouse movements newer than the last flush: a change that commits late
+ * is still checked once it is visible.
+ */
+public class StockMonitor {
+    private static StockMonitor instance;
+
+    // Changes arriving within this window are written together
+    private static final long FLUSH_DELAY_MS = 500;
+
+    // Products moved by transactions that committed after their flush are picked up by this sweep
+    private static final long RECHECK_INTERVAL_SECONDS = 30;
+
+    // SQLite's default limit on bound parameters is 999
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private final Map<Integer, Integer> thresholds = new ConcurrentHashMap<>();
+    private volatile boolean thresholdsLoaded = false;
+
+    private final Set<Integer> pending = new LinkedHashSet<>();
+    private boolean flushScheduled = false;
+    private final ScheduledExecutorService writer;
+
+    // Used on the stock-monitor thread only: last movement id already checked
+    private Connection readConnection;
+    private long checkedMovementId = -1;
+
+    private StockMonitor() {
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized StockMonitor getInstance() {
+        if (instance == null) {
+            instance = new StockMonitor();
+        }
+        return instance;
+    }
+
+    /**
+     * Subscribe to stock events, load the thresholds in the background and check
+     * every monitored product once, which catches stock that was already low
+     * before the application started
+     */
+    public void start() {
+        EventBus.getInstance().subscribe(EventBus.StockMoved.class,
+            events -> stockChanged(EventBus.idsOf(events)));
+
+        writer.execute(() -> {
+            try {
+                Connection conn = getReadConnection();
+                loadThresholds(conn);
+                checkedMovementId = lastMovementId(conn);
+            } catch (SQLException e) {
+                System.err.println("Error loading minimum stock thresholds: " + e.getMessage());
+                closeReadConnection();
+            }
+            stockChanged(new ArrayList<>(thresholds.keySet()));
+        });
+        writer.scheduleWithFixedDelay(this::flush, RECHECK_INTERVAL_SECONDS, RECHECK_INTERVAL_SECONDS,
+            TimeUnit.SECONDS);
+    }
+
+    /**
+     * Report that the quantity of a product changed
+     * Cheap enough to call inside a transaction: the check runs after a short
+     * delay against committed data, so a rolled back change raises nothing;
+     * a change that commits after the check is caught by its movement.
+     */
+    public void stockChanged(int productId) {
+        if (!hasThreshold(productId)) {
+            return;
+        }
+
+        synchronized (pending) {
+            pending.add(productId);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                writer.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Report a batch of changed products
+     */
+    public void stockChanged(Collection<Integer> productIds) {
+        for (int productId : productIds) {
+            stockChanged(productId);
+        }
+    }
+
+    /**
+     * Keep the threshold cache in sync after the minimum stock of a product is saved
+     * A minimum of 0 stays monitored: the product is still reported once it runs out.
+     */
+    public void setThreshold(int productId, int minimumQuantity) {
+        thresholds.put(productId, minimumQuantity);
+    }
+
+    private boolean hasThreshold(int productId) {
+        if (!thresholdsLoaded) {
+            try {
+                loadThresholds(DatabaseManager.getInstance().getConnection());
+            } catch (SQLException e) {
+                System.err.println("Error loading minimum stock thresholds: " + e.getMessage());
+            }
+        }
+        return thresholds.containsKey(productId);
+    }
+
+    private synchronized void loadThresholds(Connection conn) throws SQLException {
+        if (thresholdsLoaded) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT product_id, minimum_quantity FROM minimum_stock")) {
+            while (rs.next()) {
+                thresholds.putIfAbsent(rs.getInt("product_id"), rs.getInt("minimum_quantity"));
+            }
+        }
+        thresholdsLoaded = true;
+    }
+
+    private void flush() {
+        Set<Integer> products;
+        synchronized (pending) {
+            products = new LinkedHashSet<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+        try {
+            products.addAll(movedSinceLastCheck());
+        } catch (SQLException e) {
+            System.err.println("Error reading recent warehouse movements: " + e.getMessage());
+            closeReadConnection();
+        }
+        if (products.isEmpty()) {
+            return;
+        }
+
+        List<Integer> batch = new ArrayList<>(products);
+        DatabaseWriter.getInstance().submit(conn -> {
+            int created = 0;
+            for (int from = 0; from < batch.size(); from += MAX_BATCH_SIZE) {
+                created += writeNotifications(conn, batch.subList(from, Math.min(batch.size(), from + MAX_BATCH_SIZE)));
+            }
+            return created;
+        }).whenComplete((created, error) -> {
+            if (error != null) {
+                System.err.println("Error writing low stock notifications: " + error.getMessage());
+            } else if (created > 0) {
+                EventBus.getInstance().publish(new EventBus.NotificationsCreated());
+            }
+        });
+    }
+
+    /**
+     * Monitored products with movements committed since the last check
+     * Movement ids are assigned under the write lock, so every movement with
+     * an id up to the new mark is already committed and visible to the flush.
+     */
+    private Set<Integer> movedSinceLastCheck() throws SQLException {
+        Set<Integer> moved = new LinkedHashSet<>();
+        if (checkedMovementId < 0) {
+            return moved; // Not started yet
+        }
+
+        Connection conn = getReadConnection();
+        long lastId = checkedMovementId;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT id, product_id FROM warehouse_movements WHERE id > ? ORDER BY id")) {
+            pstmt.setLong(1, checkedMovementId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    lastId = rs.getLong("id");
+                    int productId = rs.getInt("product_id");
+                    if (thresholds.containsKey(productId)) {
+                        moved.add(productId);
+                    }
+                }
+            }
+        }
+        checkedMovementId = lastId;
+        return moved;
+    }
+
+    private static long lastMovementId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM warehouse_movements")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private Connection getReadConnection() throws SQLException {
+        if (readConnection == null || readConnection.isClosed()) {
+            readConnection = DatabaseManager.getInstance().openReadOnlyConnection();
+        }
+        return readConnection;
+    }
+
+    private void closeReadConnection() {
+        if (readConnection != null) {
+            try {
+                readConnection.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing stock monitor connection: " + e.getMessage());
+            }
+            readConnection = null;
+        }
+    }
+
+    /**
+     * One set-wise insert for a batch; the same rules as the old full scan in
+     * WarehousePanel: quantity at or below minimum, no open notification today
+     */
+    private int writeNotifications(Connection conn, List<Integer> productIds) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+        String query = """
+            INSERT INTO warehouse_notifications (product_id, date, type, message, status)
+            SELECT p.id, CURRENT_TIMESTAMP, 'MIN_STOCK',
+                   printf('Stock is below minimum (%%d). Current quantity: %%d', sm.minimum_quantity, p.quantity),
+                   'NEW'
+            FROM products p
+            JOIN minimum_stock sm ON p.id = sm.product_id
+            WHERE p.id IN (%s)
+            AND p.quantity <= sm.minimum_quantity
+            AND NOT EXISTS (
+                SELECT 1 FROM warehouse_notifications n
+                WHERE n.product_id = p.id
+                AND n.type = 'MIN_STOCK'
+                AND n.status != 'HANDLED'
+                AND DATE(n.date) = DATE('now')
+            )
+        """.formatted(placeholders);
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < productIds.size(); i++) {
+                pstmt.setInt(i + 1, productIds.get(i));
+            }
+            return pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Stock level queries
+ * Writes to stock stay in StockManager, which also publishes the change events.
+ */
+public class StockRepository {
+    private StockRepository() {
+    }
+
+    /**
+     * Physical quantity on hand, 0 for an unknown product
+     */
+    public static int getPhysicalStock(Connection conn, int productId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT quantity FROM products WHERE id = ?")) {
+            pstmt.setInt(1, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("quantity") : 0;
+            }
+        }
+    }
+
+    /**
+     * Physical and reserved quantities for several products in one query
+     */
+    public static List<StockLevel> findLevels(Connection conn, Collection<Integer> productIds) throws SQLException {
+        List<StockLevel> levels = new ArrayList<>();
+        if (productIds.isEmpty()) {
+            return levels;
+        }
+
+        String query = """
+            SELECT id, code, quantity, reserved_quantity
+            FROM products
+            WHERE id IN (%s)
+        """.formatted(String.join(", ", Collections.nCopies(productIds.size(), "?")));
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            int index = 1;
+            for (int id : productIds) {
+                pstmt.setInt(index++, id);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    levels.add(new StockLevel(
+                        rs.getInt("id"),
+                        rs.getString("code"),
+                        rs.getInt("quantity"),
+                        rs.getInt("reserved_quantity")
+                    ));
+                }
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Minimum stock settings of a product by code, with the preferred supplier's name
+     * A product without settings comes back with zero quantities; an unknown code
+     * returns an empty MinimumStock with product id 0.
+     */
+    public static MinimumStock findMinimumStock(Connection conn, String productCode) throws SQLException {
+        String query = """
+            SELECT p.id, p.name, sm.minimum_quantity, sm.reorder_quantity,
+                    sm.lead_time_days, sm.preferred_supplier_id,
+                    s.company_name as supplier_name, sm.notes
+            FROM products p
+            LEFT JOIN minimum_stock sm ON p.id = sm.product_id
+            LEFT JOIN suppliers s ON sm.preferred_supplier_id = s.id
+            WHERE p.code = ?
+        """;
+
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, productCode);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new MinimumStock(
+                        rs.getInt("id"),
+                        rs.getString("name"),
+                        rs.getInt("minimum_quantity"),
+                        rs.getInt("reorder_quantity"),
+                        rs.getInt("lead_time_days"),
+                        rs.getObject("preferred_supplier_id") != null ?
+                            rs.getInt("preferred_supplier_id") : null,
+                        rs.getString("supplier_name"),
+                        rs.getString("notes")
+                    );
+                }
+            }
+        }
+        return new MinimumStock(0, "", 0, 0, 0, null, null, "");
+    }
+
+    // Helper classes
+
+    public static class StockLevel {
+        private final int productId;
+        private final String code;
+        private final int physical;
+        private final int reserved;
+
+        public StockLevel(int productId, String code, int physical, int reserved) {
+            this.productId = productId;
+            this.code = code;
+            this.physical = physical;
+            this.reserved = reserved;
+        }
+
+        public int getProductId() { return productId; }
+        public String getCode() { return code; }
+        public int getPhysical() { return physical; }
+        public int getReserved() { return reserved; }
+        public int getAvailable() { return physical - reserved; }
+    }
+}
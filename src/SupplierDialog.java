@@ -150,22 +150,17 @@ public class SupplierDialog extends JDialog {
     private void loadSupplierData() {
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT * FROM suppliers WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, supplier.getId());
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        companyNameField.setText(rs.getString("company_name"));
-                        vatNumberField.setText(rs.getString("vat_number"));
-                        taxCodeField.setText(rs.getString("tax_code"));
-                        addressField.setText(rs.getString("address"));
-                        phoneField.setText(rs.getString("phone"));
-                        emailField.setText(rs.getString("email"));
-                        certifiedEmailField.setText(rs.getString("certified_email"));
-                        websiteField.setText(rs.getString("website"));
-                        notesArea.setText(rs.getString("notes"));
-                    }
-                }
+            Supplier loaded = SupplierRepository.findById(conn, supplier.getId());
+            if (loaded != null) {
+                companyNameField.setText(loaded.getCompanyName());
+                vatNumberField.setText(loaded.getVatNumber());
+                taxCodeField.setText(loaded.getTaxCode());
+                addressField.setText(loaded.getAddress());
+                phoneField.setText(loaded.getPhone());
+                emailField.setText(loaded.getEmail());
+                certifiedEmailField.setText(loaded.getCertifiedEmail());
+                websiteField.setText(loaded.getWebsite());
+                notesArea.setText(loaded.getNotes());
             }
         } catch (SQLException e) {
             e.printStackTrace();
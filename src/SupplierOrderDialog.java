@@ -10,6 +10,9 @@ import java.util.HashMap;
 import java.util.Vector;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 public class SupplierOrderDialog extends JDialog {
     private int supplierId;
@@ -28,7 +31,12 @@ public class SupplierOrderDialog extends JDialog {
     private JLabel totalLabel;
     private SimpleDateFormat dateFormat;
     private Map<Integer, Product> productsCache;
+    private Map<String, Product> productsByCode;
     private boolean updatingTotals = false; // Flag to prevent recursion
+    private boolean repricing = false;
+    // Day the rows were last priced for, and the rows whose unit price was typed by hand
+    private String pricedDay;
+    private final Set<Vector<?>> manualPriceRows = Collections.newSetFromMap(new IdentityHashMap<>());
 
     public SupplierOrderDialog(JDialog parent, int supplierId, String supplierName, SupplierOrder order) {
         super(parent, order == null ? "New Supplier Order" : "Edit Supplier Order", true);
@@ -37,6 +45,7 @@ public class SupplierOrderDialog extends JDialog {
         this.order = order;
         this.dateFormat = new SimpleDateFormat("dd/MM/yyyy");
         this.productsCache = new HashMap<>();
+        this.productsByCode = new HashMap<>();
 
         setupWindow();
         initComponents();
@@ -90,6 +99,15 @@ public class SupplierOrderDialog extends JDialog {
         gbc.gridx = 1;
         dateField = new JTextField(10);
         dateField.setText(DateUtils.formatDate(new Date(), dateFormat));
+        pricedDay = dateField.getText();
+        // Prices depend on the order date
+        dateField.addActionListener(e -> orderDateChanged());
+        dateField.addFocusListener(new java.awt.event.FocusAdapter() {
+            @Override
+            public void focusLost(java.awt.event.FocusEvent e) {
+                orderDateChanged();
+            }
+        });
         orderPanel.add(dateField, gbc);
 
         // Delivery date
@@ -123,7 +141,7 @@ public class SupplierOrderDialog extends JDialog {
         itemsTableModel = new DefaultTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
-                return column == 2 || column == 5; // Only quantity and notes are editable
+                return column == 2 || column == 3 || column == 5; // Quantity, unit price and notes are editable
             }
         };
         itemsTable = new JTable(itemsTableModel);
@@ -132,7 +150,17 @@ public class SupplierOrderDialog extends JDialog {
         itemsTableModel.addTableModelListener(e -> {
             if (e.getType() == javax.swing.event.TableModelEvent.UPDATE &&
                 e.getColumn() == 2 && !updatingTotals) {
-                SwingUtilities.invokeLater(this::updateTotals);
+                // A new quantity may reach a different quantity break
+                int firstRow = e.getFirstRow();
+                int lastRow = e.getLastRow();
+                SwingUtilities.invokeLater(() -> repriceRows(firstRow, lastRow));
+            } else if (e.getType() == javax.swing.event.TableModelEvent.UPDATE &&
+                e.getColumn() == 3 && !updatingTotals && !repricing) {
+                // A price typed by hand is kept from then on
+                for (int i = e.getFirstRow(); i <= e.getLastRow(); i++) {
+                    manualPriceRows.add(itemsTableModel.getDataVector().get(i));
+                }
+                updateTotals();
             }
         });
 
@@ -207,32 +235,18 @@ public class SupplierOrderDialog extends JDialog {
 
     private void loadProducts() {
         try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT p.*, COALESCE(l.price, p.price) as supplier_price,
-                       l.supplier_product_code
-                FROM products p
-                LEFT JOIN supplier_price_lists l ON p.id = l.product_id
-                    AND l.supplier_id = ?
-                    AND (l.validity_end_date IS NULL OR DATE(l.validity_end_date) >= DATE('now'))
-                ORDER BY p.name
-            """;
+            // Supplier prices come from the in-memory validity index instead of a per-product join
+            Map<Integer, PriceResolver.PriceEntry> supplierPrices =
+                PriceResolver.getInstance().resolveAll(supplierId, new Date(), 1);
 
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, supplierId);
-                ResultSet rs = pstmt.executeQuery();
-
-                while (rs.next()) {
-                    Product product = new Product(
-                        rs.getInt("id"),
-                        rs.getString("code"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getDouble("supplier_price"),
-                        rs.getInt("quantity")
-                    );
-                    productsCache.put(product.getId(), product);
+            Connection conn = DatabaseManager.getInstance().getConnection();
+            for (Product product : ProductRepository.findAll(conn)) {
+                PriceResolver.PriceEntry supplierPrice = supplierPrices.get(product.getId());
+                if (supplierPrice != null) {
+                    product.setPrice(supplierPrice.getPrice());
                 }
+                productsCache.put(product.getId(), product);
+                productsByCode.put(product.getCode(), product);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -264,13 +278,14 @@ public class SupplierOrderDialog extends JDialog {
             itemsTableModel.addRow(row);
         }
 
+        pricedDay = dateField.getText();
         updateTotals();
     }
 
     private void showAddProductDialog() {
         JDialog dialog = new JDialog(this, "Add Product", true);
         dialog.setLayout(new BorderLayout(10, 10));
-        dialog.setSize(500, 200);
+        dialog.setSize(500, 230);
         dialog.setLocationRelativeTo(this);
 
         JPanel panel = new JPanel(new GridBagLayout());
@@ -306,6 +321,18 @@ public class SupplierOrderDialog extends JDialog {
         JTextField noteField = new JTextField(30);
         panel.add(noteField, gbc);
 
+        // Quantity breaks of the selected product
+        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 2;
+        JLabel breaksLabel = new JLabel(" ");
+        panel.add(breaksLabel, gbc);
+        productCombo.addActionListener(e -> {
+            ProductDisplay selected = (ProductDisplay)productCombo.getSelectedItem();
+            breaksLabel.setText(selected != null ? formatBreakpoints(selected.getProduct()) : " ");
+        });
+        if (productCombo.getItemCount() > 0) {
+            breaksLabel.setText(formatBreakpoints(productCombo.getItemAt(0).getProduct()));
+        }
+
         // Buttons
         JPanel buttonPanel = new JPanel();
         JButton addButton = new JButton("Add");
@@ -334,7 +361,7 @@ public class SupplierOrderDialog extends JDialog {
                 }
             }
 
-            // Add to table
+            // Add to table, priced for the ordered quantity
             Vector<Object> row = new Vector<>();
             row.add(selectedProduct.getProduct().getCode());
             row.add(selectedProduct.getProduct().getName());
@@ -344,7 +371,8 @@ public class SupplierOrderDialog extends JDialog {
             row.add(note);
             itemsTableModel.addRow(row);
 
-            updateTotals();
+            int newRow = itemsTableModel.getRowCount() - 1;
+            repriceRows(newRow, newRow);
             dialog.dispose();
         });
 
@@ -374,9 +402,85 @@ public class SupplierOrderDialog extends JDialog {
         }
     }
 
+    /**
+     * Reprice the rows when the order date really changed, not on every focus change
+     */
+    private void orderDateChanged() {
+        String day = DateUtils.formatDate(getPricingDate(), dateFormat);
+        if (!day.equals(pricedDay)) {
+            pricedDay = day;
+            repriceRows(0, itemsTableModel.getRowCount() - 1);
+        }
+    }
+
+    /**
+     * Reprice table rows from the supplier's price lists at the order date and quantity
+     * Rows without a valid supplier price, and rows priced by hand, keep their
+     * current unit price. Each row is priced on its own, so two lines of the
+     * same product may reach different quantity breaks.
+     */
+    private void repriceRows(int firstRow, int lastRow) {
+        lastRow = Math.min(lastRow, itemsTableModel.getRowCount() - 1);
+        if (firstRow < 0 || firstRow > lastRow) {
+            return;
+        }
+
+        Date date = getPricingDate();
+        repricing = true;
+        try {
+            for (int i = firstRow; i <= lastRow; i++) {
+                Product product = productsByCode.get((String)itemsTableModel.getValueAt(i, 0));
+                if (product == null || manualPriceRows.contains(itemsTableModel.getDataVector().get(i))) continue;
+
+                PriceResolver.PriceEntry entry = PriceResolver.getInstance().resolve(
+                    supplierId, product.getId(), date, parseInteger(itemsTableModel.getValueAt(i, 2)));
+                if (entry != null) {
+                    itemsTableModel.setValueAt(String.format("%.2f", entry.getPrice()), i, 3);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            repricing = false;
+        }
+        updateTotals();
+    }
+
+    private Date getPricingDate() {
+        try {
+            Date orderDate = DateUtils.parseDate(dateField.getText(), dateFormat);
+            if (orderDate != null) {
+                return orderDate;
+            }
+        } catch (Exception e) {
+            // Fall back to today while the date is being typed
+        }
+        return new Date();
+    }
+
+    private String formatBreakpoints(Product product) {
+        try {
+            List<PriceResolver.PriceEntry> breaks =
+                PriceResolver.getInstance().getBreakpoints(supplierId, product.getId(), getPricingDate());
+            if (breaks.size() < 2 && (breaks.isEmpty() || breaks.get(0).getMinimumQuantity() <= 1)) {
+                return " ";
+            }
+
+            StringBuilder sb = new StringBuilder("Quantity breaks:");
+            for (PriceResolver.PriceEntry entry : breaks) {
+                sb.append(String.format("  %d+ € %.2f", entry.getMinimumQuantity(), entry.getPrice()));
+            }
+            return sb.toString();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return " ";
+        }
+    }
+
     private void removeSelectedProduct() {
         int selectedRow = itemsTable.getSelectedRow();
         if (selectedRow != -1) {
+            manualPriceRows.remove(itemsTableModel.getDataVector().get(selectedRow));
             itemsTableModel.removeRow(selectedRow);
             updateTotals();
         }
@@ -505,16 +609,9 @@ public class SupplierOrderDialog extends JDialog {
                 String productName = (String)itemsTableModel.getValueAt(i, 1);
                 int quantity = parseInteger(itemsTableModel.getValueAt(i, 2));
 
-                // Find product ID by code
-                int productId = -1;
-                for (Product p : productsCache.values()) {
-                    if (p.getCode().equals(code)) {
-                        productId = p.getId();
-                        break;
-                    }
-                }
-                if (productId != -1) {
-                    stockItems.add(new StockManager.StockItem(productId, productName, quantity));
+                Product product = productsByCode.get(code);
+                if (product != null) {
+                    stockItems.add(new StockManager.StockItem(product.getId(), productName, quantity));
                 }
             }
 
@@ -625,15 +722,8 @@ public class SupplierOrderDialog extends JDialog {
 
         try (PreparedStatement pstmt = conn.prepareStatement(detailQuery)) {
             for (int i = 0; i < itemsTableModel.getRowCount(); i++) {
-                String code = (String)itemsTableModel.getValueAt(i, 0);
-                int productId = -1;
-                for (Product p : productsCache.values()) {
-                    if (p.getCode().equals(code)) {
-                        productId = p.getId();
-                        break;
-                    }
-                }
-                if (productId == -1) continue;
+                Product product = productsByCode.get((String)itemsTableModel.getValueAt(i, 0));
+                if (product == null) continue;
 
                 int quantity = parseInteger(itemsTableModel.getValueAt(i, 2));
                 double unitPrice = parseDouble(itemsTableModel.getValueAt(i, 3));
@@ -641,13 +731,14 @@ public class SupplierOrderDialog extends JDialog {
                 String notes = (String)itemsTableModel.getValueAt(i, 5);
 
                 pstmt.setInt(1, orderId);
-                pstmt.setInt(2, productId);
+                pstmt.setInt(2, product.getId());
                 pstmt.setInt(3, quantity);
                 pstmt.setDouble(4, unitPrice);
                 pstmt.setDouble(5, total);
                 pstmt.setString(6, notes);
-                pstmt.executeUpdate();
+                pstmt.addBatch();
             }
+            pstmt.executeBatch();
         }
     }
 
@@ -664,6 +755,7 @@ public class SupplierOrderDialog extends JDialog {
                     pstmt.setInt(2, item.getProductId());
                     pstmt.executeUpdate();
                 }
+                EventBus.getInstance().publish(new EventBus.StockMoved(item.getProductId()));
             }
         }
 
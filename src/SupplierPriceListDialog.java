@@ -3,6 +3,7 @@ import java.awt.*;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 
 public class SupplierPriceListDialog extends JDialog {
     private int supplierId;
@@ -144,21 +145,8 @@ public class SupplierPriceListDialog extends JDialog {
     private void loadProducts() {
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT * FROM products ORDER BY name";
-
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    Product product = new Product(
-                        rs.getInt("id"),
-                        rs.getString("code"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getDouble("price"),
-                        rs.getInt("quantity")
-                    );
-                    productCombo.addItem(new ProductDisplay(product));
-                }
+            for (Product product : ProductRepository.findAll(conn)) {
+                productCombo.addItem(new ProductDisplay(product));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -302,73 +290,78 @@ public class SupplierPriceListDialog extends JDialog {
             int productId = selectedProduct.getProduct().getId();
 
             Connection conn = DatabaseManager.getInstance().getConnection();
+            conn.setAutoCommit(false);
+            try {
+                // Overlap check in the save transaction; other minimum quantities are breaks
+                int minimumQuantity = (Integer)minimumQuantitySpinner.getValue();
+                List<PriceResolver.PriceEntry> overlapping = PriceResolver.findOverlapping(conn,
+                    supplierId, productId, minimumQuantity, startDate, endDate,
+                    priceList != null ? priceList.getId() : 0);
+                if (!overlapping.isEmpty()) {
+                    conn.rollback();
+                    JOptionPane.showMessageDialog(this,
+                        "A valid price with the same minimum quantity already exists for this product in the specified period",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
 
-            if (priceList == null) {
-                // Check if a valid price already exists for this product
-                String checkQuery = """
-                    SELECT id FROM supplier_price_lists
-                    WHERE supplier_id = ? AND product_id = ?
-                    AND (validity_end_date IS NULL OR DATE(validity_end_date) >= DATE(?))
-                    AND DATE(validity_start_date) <= DATE(?)
-                """;
-
-                try (PreparedStatement pstmt = conn.prepareStatement(checkQuery)) {
-                    pstmt.setInt(1, supplierId);
-                    pstmt.setInt(2, productId);
-                    pstmt.setDate(3, DateUtils.toSqlDate(startDate));
-                    pstmt.setDate(4, endDate != null ? DateUtils.toSqlDate(endDate) : DateUtils.toSqlDate(startDate));
-
-                    ResultSet rs = pstmt.executeQuery();
-                    if (rs.next()) {
-                        JOptionPane.showMessageDialog(this,
-                            "A valid price already exists for this product in the specified period",
-                            "Error", JOptionPane.ERROR_MESSAGE);
-                        return;
+                if (priceList == null) {
+                    // Insert new price
+                    String insertQuery = """
+                        INSERT INTO supplier_price_lists (
+                            supplier_id, product_id, supplier_product_code,
+                            price, minimum_quantity, validity_start_date,
+                            validity_end_date, notes
+                        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                    """;
+
+                    try (PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
+                        pstmt.setInt(1, supplierId);
+                        pstmt.setInt(2, productId);
+                        pstmt.setString(3, supplierCodeField.getText().trim());
+                        pstmt.setDouble(4, price);
+                        pstmt.setInt(5, (Integer)minimumQuantitySpinner.getValue());
+                        pstmt.setTimestamp(6, DateUtils.toSqlTimestamp(startDate));
+                        pstmt.setTimestamp(7, endDate != null ? DateUtils.toSqlTimestamp(endDate) : null);
+                        pstmt.setString(8, notesArea.getText().trim());
+                        pstmt.executeUpdate();
                     }
-                }
 
-                // Insert new price
-                String insertQuery = """
-                    INSERT INTO supplier_price_lists (
-                        supplier_id, product_id, supplier_product_code,
-                        price, minimum_quantity, validity_start_date,
-                        validity_end_date, notes
-                    ) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
-                try (PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
-                    pstmt.setInt(1, supplierId);
-                    pstmt.setInt(2, productId);
-                    pstmt.setString(3, supplierCodeField.getText().trim());
-                    pstmt.setDouble(4, price);
-                    pstmt.setInt(5, (Integer)minimumQuantitySpinner.getValue());
-                    pstmt.setTimestamp(6, DateUtils.toSqlTimestamp(startDate));
-                    pstmt.setTimestamp(7, endDate != null ? DateUtils.toSqlTimestamp(endDate) : null);
-                    pstmt.setString(8, notesArea.getText().trim());
-                    pstmt.executeUpdate();
+                } else {
+                    // Update existing price
+                    String updateQuery = """
+                        UPDATE supplier_price_lists SET
+                            supplier_product_code = ?,
+                            price = ?, minimum_quantity = ?,
+                            validity_start_date = ?, validity_end_date = ?,
+                            notes = ?
+                        WHERE id = ?
+                    """;
+
+                    try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
+                        pstmt.setString(1, supplierCodeField.getText().trim());
+                        pstmt.setDouble(2, price);
+                        pstmt.setInt(3, (Integer)minimumQuantitySpinner.getValue());
+                        pstmt.setTimestamp(4, DateUtils.toSqlTimestamp(startDate));
+                        pstmt.setTimestamp(5, endDate != null ? DateUtils.toSqlTimestamp(endDate) : null);
+                        pstmt.setString(6, notesArea.getText().trim());
+                        pstmt.setInt(7, priceList.getId());
+                        pstmt.executeUpdate();
+                    }
                 }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
 
-            } else {
-                // Update existing price
-                String updateQuery = """
-                    UPDATE supplier_price_lists SET
-                        supplier_product_code = ?,
-                        price = ?, minimum_quantity = ?,
-                        validity_start_date = ?, validity_end_date = ?,
-                        notes = ?
-                    WHERE id = ?
-                """;
-
-                try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
-                    pstmt.setString(1, supplierCodeField.getText().trim());
-                    pstmt.setDouble(2, price);
-                    pstmt.setInt(3, (Integer)minimumQuantitySpinner.getValue());
-                    pstmt.setTimestamp(4, DateUtils.toSqlTimestamp(startDate));
-                    pstmt.setTimestamp(5, endDate != null ? DateUtils.toSqlTimestamp(endDate) : null);
-                    pstmt.setString(6, notesArea.getText().trim());
-                    pstmt.setInt(7, priceList.getId());
-                    pstmt.executeUpdate();
-                }
+            try {
+                PriceResolver.getInstance().refresh(supplierId, productId);
+            } catch (SQLException e) {
+                // The price is saved; the supplier is reloaded on its next lookup
+                PriceResolver.getInstance().invalidateSupplier(supplierId);
             }
 
             priceSaved = true;
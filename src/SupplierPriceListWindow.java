@@ -1,8 +1,8 @@
 // File: SupplierPriceListWindow.java
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Vector;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -11,11 +11,12 @@ public class SupplierPriceListWindow extends JDialog {
     private int supplierId;
     private String supplierName;
     private JTable priceListTable;
-    private DefaultTableModel tableModel;
+    private KeyedTableModel tableModel;
     private JButton addButton;
     private JButton editButton;
     private JButton deleteButton;
     private JButton refreshButton;
+    private JButton importButton;
     private SimpleDateFormat dateFormat;
 
     public SupplierPriceListWindow(JDialog parent, int supplierId, String supplierName) {
@@ -48,16 +49,19 @@ public class SupplierPriceListWindow extends JDialog {
     }
 
     private void initComponents() {
-        // Price list table
-        String[] columns = {"Product", "Supplier Code", "Price €", "Min. Qty.", "Valid From", "Valid Until", "Notes"};
-        tableModel = new DefaultTableModel(columns, 0) {
+        // Price list table (ID hidden in column 0)
+        String[] columns = {"ID", "Product", "Supplier Code", "Price €", "Min. Qty.", "Valid From", "Valid Until", "Notes"};
+        tableModel = new KeyedTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
             }
         };
         priceListTable = new JTable(tableModel);
-        priceListTable.getSelectionModel().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        priceListTable.getSelectionModel().setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        priceListTable.getColumnModel().getColumn(0).setMinWidth(0);
+        priceListTable.getColumnModel().getColumn(0).setMaxWidth(0);
+        priceListTable.getColumnModel().getColumn(0).setWidth(0);
         priceListTable.getSelectionModel().addListSelectionListener(e -> updateButtonStates());
 
         // Buttons panel
@@ -66,16 +70,20 @@ public class SupplierPriceListWindow extends JDialog {
         editButton = new JButton("Edit");
         deleteButton = new JButton("Delete");
         refreshButton = new JButton("Refresh");
+        importButton = new JButton("Import CSV");
 
         addButton.addActionListener(e -> showPriceDialog(null));
         editButton.addActionListener(e -> editSelectedPrice());
         deleteButton.addActionListener(e -> deleteSelectedPrice());
         refreshButton.addActionListener(e -> loadPriceList());
+        importButton.addActionListener(e ->
+            BulkImporter.importWithDialog(this, BulkImporter.Kind.PRICE_LIST, supplierId, this::loadPriceList));
 
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(refreshButton);
+        buttonPanel.add(importButton);
 
         // Main layout
         add(new JScrollPane(priceListTable), BorderLayout.CENTER);
@@ -85,9 +93,9 @@ public class SupplierPriceListWindow extends JDialog {
     }
 
     private void updateButtonStates() {
-        boolean isRowSelected = priceListTable.getSelectedRow() != -1;
-        editButton.setEnabled(isRowSelected);
-        deleteButton.setEnabled(isRowSelected);
+        int selectedCount = priceListTable.getSelectedRowCount();
+        editButton.setEnabled(selectedCount == 1);
+        deleteButton.setEnabled(selectedCount > 0);
     }
 
     private void loadPriceList() {
@@ -108,6 +116,7 @@ public class SupplierPriceListWindow extends JDialog {
 
                 while (rs.next()) {
                     Vector<Object> row = new Vector<>();
+                    row.add(rs.getInt("id"));
                     row.add(rs.getString("product_name"));
                     row.add(rs.getString("supplier_product_code"));
                     row.add(String.format("%.2f", rs.getDouble("price")));
@@ -138,10 +147,9 @@ public class SupplierPriceListWindow extends JDialog {
     private void editSelectedPrice() {
         int selectedRow = priceListTable.getSelectedRow();
         if (selectedRow != -1) {
-            String productName = (String)tableModel.getValueAt(selectedRow, 0);
-            String supplierCode = (String)tableModel.getValueAt(selectedRow, 1);
+            int priceListId = (Integer) tableModel.getKeyAt(selectedRow);
             try {
-                SupplierPriceList priceList = loadPriceListItem(productName, supplierCode);
+                SupplierPriceList priceList = loadPriceListItem(priceListId);
                 if (priceList != null) {
                     showPriceDialog(priceList);
                 }
@@ -154,19 +162,17 @@ public class SupplierPriceListWindow extends JDialog {
         }
     }
 
-    private SupplierPriceList loadPriceListItem(String productName, String supplierCode) throws SQLException {
+    private SupplierPriceList loadPriceListItem(int priceListId) throws SQLException {
         Connection conn = DatabaseManager.getInstance().getConnection();
         String query = """
             SELECT l.*, p.name as product_name
             FROM supplier_price_lists l
             JOIN products p ON l.product_id = p.id
-            WHERE l.supplier_id = ? AND p.name = ? AND l.supplier_product_code = ?
+            WHERE l.id = ?
         """;
 
         try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, supplierId);
-            pstmt.setString(2, productName);
-            pstmt.setString(3, supplierCode);
+            pstmt.setInt(1, priceListId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     return new SupplierPriceList(
@@ -187,41 +193,29 @@ public class SupplierPriceListWindow extends JDialog {
     }
 
     private void deleteSelectedPrice() {
-        int selectedRow = priceListTable.getSelectedRow();
-        if (selectedRow != -1) {
-            String productName = (String)tableModel.getValueAt(selectedRow, 0);
-            String supplierCode = (String)tableModel.getValueAt(selectedRow, 1);
-
-            int result = JOptionPane.showConfirmDialog(this,
-                "Are you sure you want to delete the price for product " + productName + "?",
-                "Confirm Deletion",
-                JOptionPane.YES_NO_OPTION,
-                JOptionPane.WARNING_MESSAGE);
-
-            if (result == JOptionPane.YES_OPTION) {
-                try {
-                    Connection conn = DatabaseManager.getInstance().getConnection();
-                    String query = """
-                        DELETE FROM supplier_price_lists
-                        WHERE supplier_id = ?
-                        AND product_id = (SELECT id FROM products WHERE name = ?)
-                        AND supplier_product_code = ?
-                    """;
-
-                    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                        pstmt.setInt(1, supplierId);
-                        pstmt.setString(2, productName);
-                        pstmt.setString(3, supplierCode);
-                        pstmt.executeUpdate();
-                        loadPriceList();
-                    }
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                    JOptionPane.showMessageDialog(this,
-                        "Error deleting price: " + e.getMessage(),
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                }
-            }
+        int[] selectedRows = priceListTable.getSelectedRows();
+        if (selectedRows.length == 0) return;
+
+        String question = selectedRows.length == 1
+            ? "Are you sure you want to delete the price for product " + tableModel.getValueAt(selectedRows[0], 1) + "?"
+            : "Are you sure you want to delete " + selectedRows.length + " prices?";
+        int result = JOptionPane.showConfirmDialog(this,
+            question,
+            "Confirm Deletion",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.WARNING_MESSAGE);
+        if (result != JOptionPane.YES_OPTION) return;
+
+        java.util.List<Integer> priceListIds = new ArrayList<>();
+        for (int row : selectedRows) {
+            priceListIds.add((Integer) tableModel.getKeyAt(row));
         }
+
+        BulkOperations.runWithDialog(this, "Deleting prices", priceListIds.size(),
+            (conn, listener) -> BulkOperations.deletePriceListEntries(conn, priceListIds, listener),
+            deleted -> {
+                PriceResolver.getInstance().invalidateSupplier(supplierId);
+                loadPriceList();
+            });
     }
 }
@@ -0,0 +1,117 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Supplier queries and mapping to the Supplier model
+ * Every read of the suppliers table from the UI goes through here.
+ */
+public class SupplierRepository {
+    private SupplierRepository() {
+    }
+
+    /**
+     * Load a supplier by id, or null if it does not exist
+     */
+    public static Supplier findById(Connection conn, int supplierId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM suppliers WHERE id = ?")) {
+            pstmt.setInt(1, supplierId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? map(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * All suppliers not marked as deleted, ordered by company name
+     */
+    public static List<Supplier> findAll(Connection conn) throws SQLException {
+        String query = "SELECT * FROM suppliers WHERE deleted_at IS NULL ORDER BY company_name";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            return mapAll(rs);
+        }
+    }
+
+    /**
+     * Suppliers whose company name, VAT number or email contains the term,
+     * ordered by company name
+     */
+    public static List<Supplier> findMatching(Connection conn, String term) throws SQLException {
+        String query = """
+            SELECT * FROM suppliers
+            WHERE deleted_at IS NULL
+            AND (company_name LIKE ?
+               OR vat_number LIKE ?
+               OR email LIKE ?)
+            ORDER BY company_name
+        """;
+
+        String searchPattern = "%" + term + "%";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 1; i <= 3; i++) {
+                pstmt.setString(i, searchPattern);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapAll(rs);
+            }
+        }
+    }
+
+    /**
+     * Suppliers matching the term in company name, VAT number, email, phone or address
+     * Prefix matches on the company name come first.
+     */
+    public static List<Supplier> search(Connection conn, String term) throws SQLException {
+        String query = """
+            SELECT * FROM suppliers
+            WHERE deleted_at IS NULL
+            AND (LOWER(company_name) LIKE LOWER(?)
+               OR LOWER(vat_number) LIKE LOWER(?)
+               OR LOWER(email) LIKE LOWER(?)
+               OR phone LIKE ?
+               OR LOWER(address) LIKE LOWER(?))
+            ORDER BY
+                CASE
+                    WHEN LOWER(company_name) LIKE LOWER(?) THEN 1
+                    ELSE 2
+                END,
+                company_name
+        """;
+
+        String searchPattern = "%" + term + "%";
+        String exactPattern = term + "%";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 1; i <= 5; i++) {
+                pstmt.setString(i, searchPattern);
+            }
+            pstmt.setString(6, exactPattern);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapAll(rs);
+            }
+        }
+    }
+
+    private static List<Supplier> mapAll(ResultSet rs) throws SQLException {
+        List<Supplier> suppliers = new ArrayList<>();
+        while (rs.next()) {
+            suppliers.add(map(rs));
+        }
+        return suppliers;
+    }
+
+    private static Supplier map(ResultSet rs) throws SQLException {
+        return new Supplier(
+            rs.getInt("id"),
+            rs.getString("company_name"),
+            rs.getString("vat_number"),
+            rs.getString("tax_code"),
+            rs.getString("address"),
+            rs.getString("phone"),
+            rs.getString("email"),
+            rs.getString("certified_email"),
+            rs.getString("website"),
+            rs.getString("notes")
+        );
+    }
+}
@@ -155,17 +155,8 @@ public class SupplierSelectionDialog extends JDialog {
         tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT id, company_name, vat_number, email, phone, address
-                FROM suppliers
-                ORDER BY company_name
-            """;
-
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    addSupplierRow(rs);
-                }
+            for (Supplier supplier : SupplierRepository.findAll(conn)) {
+                addSupplierRow(supplier);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -185,38 +176,8 @@ public class SupplierSelectionDialog extends JDialog {
         tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT id, company_name, vat_number, email, phone, address
-                FROM suppliers
-                WHERE LOWER(company_name) LIKE LOWER(?)
-                   OR LOWER(vat_number) LIKE LOWER(?)
-                   OR LOWER(email) LIKE LOWER(?)
-                   OR phone LIKE ?
-                   OR LOWER(address) LIKE LOWER(?)
-                ORDER BY
-                    CASE
-                        WHEN LOWER(company_name) LIKE LOWER(?) THEN 1
-                        ELSE 2
-                    END,
-                    company_name
-            """;
-
-            String searchPattern = "%" + searchTerm + "%";
-            String exactPattern = searchTerm + "%";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, searchPattern);
-                pstmt.setString(2, searchPattern);
-                pstmt.setString(3, searchPattern);
-                pstmt.setString(4, searchPattern);
-                pstmt.setString(5, searchPattern);
-                pstmt.setString(6, exactPattern); // For ordering
-
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        addSupplierRow(rs);
-                    }
-                }
+            for (Supplier supplier : SupplierRepository.search(conn, searchTerm)) {
+                addSupplierRow(supplier);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -226,16 +187,16 @@ public class SupplierSelectionDialog extends JDialog {
         }
     }
 
-    private void addSupplierRow(ResultSet rs) throws SQLException {
+    private void addSupplierRow(Supplier supplier) {
         Vector<Object> row = new Vector<>();
-        row.add(rs.getInt("id")); // Hidden ID
-        row.add(rs.getString("company_name"));
-        row.add(rs.getString("vat_number"));
-        row.add(rs.getString("email"));
-        row.add(rs.getString("phone"));
+        row.add(supplier.getId()); // Hidden ID
+        row.add(supplier.getCompanyName());
+        row.add(supplier.getVatNumber());
+        row.add(supplier.getEmail());
+        row.add(supplier.getPhone());
 
         // Extract city from address (take the last part after comma)
-        String fullAddress = rs.getString("address");
+        String fullAddress = supplier.getAddress();
         String city = "";
         if (fullAddress != null && !fullAddress.isEmpty()) {
             String[] parts = fullAddress.split(",");
@@ -256,27 +217,11 @@ public class SupplierSelectionDialog extends JDialog {
             int supplierId = (int)tableModel.getValueAt(selectedRow, 0);
             try {
                 Connection conn = DatabaseManager.getInstance().getConnection();
-                String query = "SELECT * FROM suppliers WHERE id = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                    pstmt.setInt(1, supplierId);
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
-                            selectedSupplier = new Supplier(
-                                rs.getInt("id"),
-                                rs.getString("company_name"),
-                                rs.getString("vat_number"),
-                                rs.getString("tax_code"),
-                                rs.getString("address"),
-                                rs.getString("phone"),
-                                rs.getString("email"),
-                                rs.getString("certified_email"),
-                                rs.getString("website"),
-                                rs.getString("notes")
-                            );
-                            supplierSelected = true;
-                            dispose();
-                        }
-                    }
+                Supplier supplier = SupplierRepository.findById(conn, supplierId);
+                if (supplier != null) {
+                    selectedSupplier = supplier;
+                    supplierSelected = true;
+                    dispose();
                 }
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -2,9 +2,17 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 public class SuppliersPanel extends JPanel {
+    // Ids per DELETE statement when removing a multi-row selection
+    private static final int CHUNK_SIZE = 500;
+
     private JTable suppliersTable;
     private DefaultTableModel tableModel;
     private JTextField searchField;
@@ -48,7 +56,7 @@ public class SuppliersPanel extends JPanel {
             }
         };
         suppliersTable = new JTable(tableModel);
-        suppliersTable.getSelectionModel().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suppliersTable.getSelectionModel().setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         suppliersTable.getSelectionModel().addListSelectionListener(e -> updateButtonStates());
 
         // Add mouse listener for double click
@@ -96,31 +104,19 @@ public class SuppliersPanel extends JPanel {
     }
 
     private void updateButtonStates() {
-        boolean isRowSelected = suppliersTable.getSelectedRow() != -1;
-        editButton.setEnabled(isRowSelected);
-        deleteButton.setEnabled(isRowSelected);
-        ordersButton.setEnabled(isRowSelected);
-        priceListButton.setEnabled(isRowSelected);
+        int selectedCount = suppliersTable.getSelectedRowCount();
+        editButton.setEnabled(selectedCount == 1);
+        deleteButton.setEnabled(selectedCount > 0);
+        ordersButton.setEnabled(selectedCount == 1);
+        priceListButton.setEnabled(selectedCount == 1);
     }
 
     private void loadSuppliers() {
         tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT * FROM suppliers ORDER BY company_name";
-
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getInt("id"));
-                    row.add(rs.getString("company_name"));
-                    row.add(rs.getString("vat_number"));
-                    row.add(rs.getString("email"));
-                    row.add(rs.getString("phone"));
-                    row.add(rs.getString("address"));
-                    tableModel.addRow(row);
-                }
+            for (Supplier supplier : SupplierRepository.findAll(conn)) {
+                tableModel.addRow(buildRow(supplier));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -140,32 +136,8 @@ public class SuppliersPanel extends JPanel {
         tableModel.setRowCount(0);
         try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT * FROM suppliers
-                WHERE company_name LIKE ?
-                   OR vat_number LIKE ?
-                   OR email LIKE ?
-                ORDER BY company_name
-            """;
-
-            String searchPattern = "%" + searchTerm + "%";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, searchPattern);
-                pstmt.setString(2, searchPattern);
-                pstmt.setString(3, searchPattern);
-
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        Vector<Object> row = new Vector<>();
-                        row.add(rs.getInt("id"));
-                        row.add(rs.getString("company_name"));
-                        row.add(rs.getString("vat_number"));
-                        row.add(rs.getString("email"));
-                        row.add(rs.getString("phone"));
-                        row.add(rs.getString("address"));
-                        tableModel.addRow(row);
-                    }
-                }
+            for (Supplier supplier : SupplierRepository.findMatching(conn, searchTerm)) {
+                tableModel.addRow(buildRow(supplier));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -175,6 +147,17 @@ public class SuppliersPanel extends JPanel {
         }
     }
 
+    private Vector<Object> buildRow(Supplier supplier) {
+        Vector<Object> row = new Vector<>();
+        row.add(supplier.getId());
+        row.add(supplier.getCompanyName());
+        row.add(supplier.getVatNumber());
+        row.add(supplier.getEmail());
+        row.add(supplier.getPhone());
+        row.add(supplier.getAddress());
+        return row;
+    }
+
     private void showSupplierDialog(Supplier supplier) {
         Window parentWindow = SwingUtilities.getWindowAncestor(this);
 
@@ -211,6 +194,10 @@ public class SuppliersPanel extends JPanel {
     }
 
     private void deleteSelectedSupplier() {
+        if (suppliersTable.getSelectedRowCount() > 1) {
+            deleteSelectedSuppliers();
+            return;
+        }
         int selectedRow = suppliersTable.getSelectedRow();
         if (selectedRow != -1) {
             int id = (int)tableModel.getValueAt(selectedRow, 0);
@@ -220,17 +207,16 @@ public class SuppliersPanel extends JPanel {
                 Connection conn = DatabaseManager.getInstance().getConnection();
 
                 // Check for existing dependencies
-                boolean hasOrders = hasSupplierOrders(conn, id);
-                boolean hasPriceList = hasSupplierPriceList(conn, id);
-                boolean hasMinStockReferences = hasMinStockReferences(conn, id);
+                List<String> references = ReferenceChecker.findReferences(conn,
+                    ReferenceChecker.Entity.SUPPLIER, id);
 
-                if (hasOrders || hasPriceList || hasMinStockReferences) {
+                if (!references.isEmpty()) {
                     StringBuilder message = new StringBuilder();
                     message.append("Cannot delete supplier '").append(name).append("' because it has:\n");
 
-                    if (hasOrders) message.append("- Existing orders\n");
-                    if (hasPriceList) message.append("- Price list entries\n");
-                    if (hasMinStockReferences) message.append("- Minimum stock references\n");
+                    for (String reference : references) {
+                        message.append("- ").append(reference).append("\n");
+                    }
 
                     message.append("\nOptions:\n");
                     message.append("1. Delete/reassign related records first\n");
@@ -279,124 +265,107 @@ public class SuppliersPanel extends JPanel {
         }
     }
 
-    private void performCascadeDelete(Connection conn, int id, String name) {
-        int confirmResult = JOptionPane.showConfirmDialog(this,
-            "WARNING: This will permanently delete supplier '" + name + "' and ALL related data:\n" +
-            "- All orders from this supplier\n" +
-            "- All price list entries\n" +
-            "- All references in minimum stock settings\n\n" +
-            "This action CANNOT be undone!\n\n" +
-            "Are you absolutely sure?",
-            "FORCE DELETE - Final Confirmation",
-            JOptionPane.YES_NO_OPTION,
-            JOptionPane.ERROR_MESSAGE);
-
-        if (confirmResult != JOptionPane.YES_OPTION) {
-            return;
+    private void deleteSelectedSuppliers() {
+        int[] selectedRows = suppliersTable.getSelectedRows();
+        Map<Integer, String> names = new LinkedHashMap<>();
+        for (int row : selectedRows) {
+            names.put((Integer) tableModel.getValueAt(row, 0), (String) tableModel.getValueAt(row, 1));
         }
 
         try {
-            conn.setAutoCommit(false);
+            Connection conn = DatabaseManager.getInstance().getConnection();
+            Map<Integer, List<String>> references = ReferenceChecker.findReferences(conn,
+                ReferenceChecker.Entity.SUPPLIER, names.keySet());
+            List<Integer> deletable = new ArrayList<>(names.keySet());
+            deletable.removeAll(references.keySet());
+
+            StringBuilder message = new StringBuilder();
+            if (!references.isEmpty()) {
+                message.append(references.size()).append(" of the selected suppliers are still referenced and will be kept:\n");
+                message.append(ReferenceChecker.describe(references, names, 10)).append("\n");
+            }
+            if (deletable.isEmpty()) {
+                message.append("None of the selected suppliers can be deleted.");
+                JOptionPane.showMessageDialog(this, message.toString(),
+                    "Cannot Delete Suppliers", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            message.append("Are you sure you want to delete ").append(deletable.size()).append(" suppliers?");
+
+            int result = JOptionPane.showConfirmDialog(this,
+                message.toString(),
+                "Confirm Deletion",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.WARNING_MESSAGE);
+            if (result != JOptionPane.YES_OPTION) {
+                return;
+            }
 
+            // Chunked to stay under SQLite's bound parameter limit, in one transaction
+            conn.setAutoCommit(false);
             try {
-                // Delete in order to respect foreign key constraints
-
-                // 1. Delete supplier order details
-                String deleteOrderDetails = """
-                    DELETE FROM supplier_order_details
-                    WHERE order_id IN (
-                        SELECT id FROM supplier_orders WHERE supplier_id = ?
-                    )
-                """;
-                try (PreparedStatement pstmt = conn.prepareStatement(deleteOrderDetails)) {
-                    pstmt.setInt(1, id);
-                    int deleted = pstmt.executeUpdate();
-                    System.out.println("Deleted " + deleted + " order details");
-                }
-
-                // 2. Delete supplier orders
-                String deleteOrders = "DELETE FROM supplier_orders WHERE supplier_id = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(deleteOrders)) {
-                    pstmt.setInt(1, id);
-                    int deleted = pstmt.executeUpdate();
-                    System.out.println("Deleted " + deleted + " orders");
-                }
-
-                // 3. Delete price lists
-                String deletePriceLists = "DELETE FROM supplier_price_lists WHERE supplier_id = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(deletePriceLists)) {
-                    pstmt.setInt(1, id);
-                    int deleted = pstmt.executeUpdate();
-                    System.out.println("Deleted " + deleted + " price list entries");
-                }
-
-                // 4. Remove supplier references from minimum stock
-                String updateMinStock = """
-                    UPDATE minimum_stock
-                    SET preferred_supplier_id = NULL
-                    WHERE preferred_supplier_id = ?
-                """;
-                try (PreparedStatement pstmt = conn.prepareStatement(updateMinStock)) {
-                    pstmt.setInt(1, id);
-                    int updated = pstmt.executeUpdate();
-                    System.out.println("Updated " + updated + " minimum stock references");
-                }
-
-                // 5. Finally delete the supplier
-                String deleteSupplier = "DELETE FROM suppliers WHERE id = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(deleteSupplier)) {
-                    pstmt.setInt(1, id);
-                    pstmt.executeUpdate();
-                    System.out.println("Deleted supplier");
+                for (int start = 0; start < deletable.size(); start += CHUNK_SIZE) {
+                    List<Integer> chunk = deletable.subList(start, Math.min(start + CHUNK_SIZE, deletable.size()));
+                    String query = "DELETE FROM suppliers WHERE id IN (%s)"
+                        .formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
+                    try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setInt(i + 1, chunk.get(i));
+                        }
+                        pstmt.executeUpdate();
+                    }
                 }
-
                 conn.commit();
-                loadSuppliers();
-
-                JOptionPane.showMessageDialog(this,
-                    "Supplier '" + name + "' and all related records deleted successfully",
-                    "Force Delete Completed",
-                    JOptionPane.INFORMATION_MESSAGE);
-
             } catch (SQLException e) {
                 conn.rollback();
                 throw e;
             } finally {
                 conn.setAutoCommit(true);
             }
+            loadSuppliers();
 
+            JOptionPane.showMessageDialog(this,
+                deletable.size() + " suppliers deleted successfully",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
         } catch (SQLException e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
-                "Error during force delete: " + e.getMessage(),
+                "Error deleting suppliers: " + e.getMessage(),
                 "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
-    private boolean hasSupplierOrders(Connection conn, int supplierId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM supplier_orders WHERE supplier_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, supplierId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
-        }
-    }
+    private void performCascadeDelete(Connection conn, int id, String name) {
+        int confirmResult = JOptionPane.showConfirmDialog(this,
+            "WARNING: This will permanently delete supplier '" + name + "' and ALL related data:\n" +
+            "- All orders from this supplier\n" +
+            "- All price list entries\n" +
+            "- All references in minimum stock settings\n\n" +
+            "This action CANNOT be undone!\n\n" +
+            "Are you absolutely sure?",
+            "FORCE DELETE - Final Confirmation",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.ERROR_MESSAGE);
 
-    private boolean hasSupplierPriceList(Connection conn, int supplierId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM supplier_price_lists WHERE supplier_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, supplierId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
+        if (confirmResult != JOptionPane.YES_OPTION) {
+            return;
         }
-    }
 
-    private boolean hasMinStockReferences(Connection conn, int supplierId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM minimum_stock WHERE preferred_supplier_id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setInt(1, supplierId);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.next() && rs.getInt(1) > 0;
+        try {
+            // Hidden at once; the related records go in small batches in the background
+            PurgeWorker.getInstance().markDeleted(conn, PurgeWorker.Target.SUPPLIER, id);
+            loadSuppliers();
+
+            JOptionPane.showMessageDialog(this,
+                "Supplier '" + name + "' deleted. Related records are being removed in the background.",
+                "Force Delete Completed",
+                JOptionPane.INFORMATION_MESSAGE);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                "Error during force delete: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
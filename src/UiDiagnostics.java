@@ -0,0 +1,281 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Watchdog for the Swing event dispatch thread and UI latency metrics
+ * A timing EventQueue measures every event dispatch. A sampler thread takes
+ * the EDT stack trace once a dispatch has run past the stall threshold, so
+ * each recorded stall shows what the EDT was blocked on. MainWindow adds the
+ * time spent creating and showing each panel.
+ *
+ * Settings in app_settings.properties:
+ *   edt_stall_threshold_ms  default 200
+ *   ui_diagnostics_dump     default logs/ui_diagnostics.txt, also written at exit
+ *                           when stalls were recorded
+ */
+public class UiDiagnostics {
+    private static final int MAX_STALLS = 200;
+
+    private static UiDiagnostics instance;
+
+    private final long thresholdNanos;
+    private final LatencyHistogram dispatchHistogram = new LatencyHistogram();
+    private final Deque<Stall> stalls = new ArrayDeque<>();
+    private final Map<String, LatencyHistogram> panelTimings = new TreeMap<>();
+    private volatile Dispatch current;
+    private volatile Thread eventThread;
+    private boolean installed = false;
+
+    private UiDiagnostics() {
+        thresholdNanos = Math.max(10, AppSettings.getInt("edt_stall_threshold_ms", 200)) * 1_000_000L;
+    }
+
+    public static synchronized UiDiagnostics getInstance() {
+        if (instance == null) {
+            instance = new UiDiagnostics();
+        }
+        return instance;
+    }
+
+    /**
+     * Replace the event queue with the timing one and start the sampler; call on the EDT
+     */
+    public synchronized void install() {
+        if (installed) {
+            return;
+        }
+        installed = true;
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new TimingEventQueue());
+
+        Thread sampler = new Thread(this::sample, "edt-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        // Keep the evidence of a session that froze badly enough to be killed
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (!getStalls().isEmpty()) {
+                try {
+                    writeDump();
+                } catch (IOException e) {
+                    System.err.println("Error writing UI diagnostics: " + e.getMessage());
+                }
+            }
+        }, "ui-diagnostics-dump"));
+    }
+
+    public long getThresholdMillis() {
+        return thresholdNanos / 1_000_000;
+    }
+
+    public LatencyHistogram getDispatchHistogram() {
+        return dispatchHistogram;
+    }
+
+    /**
+     * Recorded stalls, newest first
+     */
+    public synchronized List<Stall> getStalls() {
+        return new ArrayList<>(stalls);
+    }
+
+    /**
+     * Record how long a MainWindow operation such as createPanel took for a panel
+     */
+    public synchronized void recordPanelTiming(String operation, String panelName, long nanos) {
+        panelTimings.computeIfAbsent(operation + " " + panelName, k -> new LatencyHistogram()).record(nanos / 1000);
+    }
+
+    public synchronized Map<String, LatencyHistogram> getPanelTimings() {
+        return new TreeMap<>(panelTimings);
+    }
+
+    public synchronized void reset() {
+        stalls.clear();
+        panelTimings.clear();
+        dispatchHistogram.reset();
+    }
+
+    /**
+     * Write stalls with their stacks, panel timings and query statistics to a text file
+     */
+    public File writeDump() throws IOException {
+        File file = new File(AppSettings.get("ui_diagnostics_dump", "logs/ui_diagnostics.txt"));
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Files.writeString(file.toPath(), formatDump());
+        return file;
+    }
+
+    public String formatDump() {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+
+        out.println("UI diagnostics at " + new Date());
+        out.println();
+        out.printf(Locale.ROOT, "Event dispatch: %d events, mean %.2f ms, p99 %.2f ms, max %.2f ms (stall threshold %d ms)%n",
+            dispatchHistogram.getCount(), dispatchHistogram.getMeanMicros() / 1000.0,
+            dispatchHistogram.getPercentileMicros(0.99) / 1000.0, dispatchHistogram.getMaxMicros() / 1000.0,
+            getThresholdMillis());
+        out.println();
+
+        out.println("Panel timings");
+        out.printf("%-32s %6s %9s %9s %9s%n", "operation", "count", "mean ms", "p95 ms", "max ms");
+        for (Map.Entry<String, LatencyHistogram> entry : getPanelTimings().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.printf(Locale.ROOT, "%-32s %6d %9.1f %9.1f %9.1f%n", entry.getKey(), histogram.getCount(),
+                histogram.getMeanMicros() / 1000.0, histogram.getPercentileMicros(0.95) / 1000.0,
+                histogram.getMaxMicros() / 1000.0);
+        }
+        out.println();
+
+        List<Stall> list = getStalls();
+        out.println("EDT stalls (" + list.size() + ", newest first)");
+        for (Stall stall : list) {
+            out.printf(Locale.ROOT, "%s  %.1f ms  %s%n", timeFormat.format(stall.getTime()),
+                stall.getMillis(), stall.getEvent());
+            out.println(stall.formatStack("    "));
+        }
+        out.println();
+
+        out.println("Query statistics");
+        out.print(QueryStats.getInstance().formatReport(50));
+        out.flush();
+        return buffer.toString();
+    }
+
+    private void sample() {
+        long interval = Math.max(5, thresholdNanos / 2_000_000);
+        while (true) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            Dispatch dispatch = current;
+            Thread thread = eventThread;
+            if (dispatch != null && thread != null && dispatch.stack == null
+                    && System.nanoTime() - dispatch.startNanos >= thresholdNanos) {
+                dispatch.stack = thread.getStackTrace();
+            }
+        }
+    }
+
+    private void finished(Dispatch dispatch) {
+        long nanos = System.nanoTime() - dispatch.startNanos;
+        dispatchHistogram.record(nanos / 1000);
+        // A dispatch that opened a modal dialog ran a nested event loop; its time is not a freeze
+        if (nanos < thresholdNanos || dispatch.nested) {
+            return;
+        }
+
+        Stall stall = new Stall(new Date(dispatch.startMillis), nanos / 1_000_000.0,
+            describe(dispatch.event), dispatch.stack);
+        synchronized (this) {
+            stalls.addFirst(stall);
+            while (stalls.size() > MAX_STALLS) {
+                stalls.removeLast();
+            }
+        }
+    }
+
+    private static String describe(AWTEvent event) {
+        Object source = event.getSource();
+        String sourceName = source != null ? source.getClass().getName() : "?";
+        return event.getClass().getSimpleName() + " from " + sourceName;
+    }
+
+    // Helper classes
+
+    private class TimingEventQueue extends EventQueue {
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            Dispatch outer = current;
+            if (outer != null) {
+                outer.nested = true;
+            }
+            eventThread = Thread.currentThread();
+            Dispatch dispatch = new Dispatch(event);
+            current = dispatch;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                // The outer dispatch stays unsampled: its start time includes the nested loop
+                current = null;
+                finished(dispatch);
+            }
+        }
+    }
+
+    private static class Dispatch {
+        final AWTEvent event;
+        final long startNanos = System.nanoTime();
+        final long startMillis = System.currentTimeMillis();
+        volatile boolean nested = false;
+        volatile StackTraceElement[] stack;
+
+        Dispatch(AWTEvent event) {
+            this.event = event;
+        }
+    }
+
+    public static class Stall {
+        private final Date time;
+        private final double millis;
+        private final String event;
+        private final StackTraceElement[] stack;
+
+        Stall(Date time, double millis, String event, StackTraceElement[] stack) {
+            this.time = time;
+            this.millis = millis;
+            this.event = event;
+            this.stack = stack;
+        }
+
+        public Date getTime() { return time; }
+        public double getMillis() { return millis; }
+        public String getEvent() { return event; }
+
+        /**
+         * The first application frame of the sampled stack, e.g. "ProductsPanel.loadProducts:120"
+         */
+        public String getTopFrame() {
+            if (stack == null) {
+                return "";
+            }
+            for (StackTraceElement frame : stack) {
+                String className = frame.getClassName();
+                if (!className.startsWith("java.") && !className.startsWith("javax.")
+                        && !className.startsWith("jdk.") && !className.startsWith("sun.")
+                        && !className.contains("$Proxy") && !className.startsWith("QueryInstrumentation")) {
+                    return className + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+                }
+            }
+            return stack.length > 0 ? stack[0].toString() : "";
+        }
+
+        public String formatStack(String indent) {
+            if (stack == null) {
+                return indent + "(finished before the stack was sampled)";
+            }
+            StringBuilder text = new StringBuilder();
+            for (StackTraceElement frame : stack) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                text.append(indent).append("at ").append(frame);
+            }
+            return text.toString();
+        }
+    }
+}
@@ -301,16 +301,7 @@ public class WarehouseMovementDialog extends JDialog {
     // Method to get current stock from database
     private int getCurrentStock(int productId) {
         try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT quantity FROM products WHERE id = ?";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, productId);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    return rs.getInt("quantity");
-                }
-            }
+            return StockRepository.getPhysicalStock(DatabaseManager.getInstance().getConnection(), productId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -342,23 +333,7 @@ public class WarehouseMovementDialog extends JDialog {
     // Method to load product by ID
     private Product loadProductById(int productId) {
         try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = "SELECT * FROM products WHERE id = ?";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, productId);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    return new Product(
-                        rs.getInt("id"),
-                        rs.getString("code"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getDouble("price"),
-                        rs.getInt("quantity")
-                    );
-                }
-            }
+            return ProductRepository.findById(DatabaseManager.getInstance().getConnection(), productId);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -414,7 +389,7 @@ public class WarehouseMovementDialog extends JDialog {
                         INSERT INTO warehouse_movements (
                             product_id, date, type, quantity, reason,
                             document_number, document_type, notes
-                        ) VALUES (?, CURRENT_TIMESTAMP, ?, ?, ?, ?, ?, ?)
+                        ) VALUES (?, datetime('now', 'localtime'), ?, ?, ?, ?, ?, ?)
                     """;
 
                     try (PreparedStatement pstmt = conn.prepareStatement(insertQuery)) {
@@ -493,6 +468,10 @@ public class WarehouseMovementDialog extends JDialog {
 
                 conn.commit();
                 movementSaved = true;
+                EventBus.getInstance().publish(new EventBus.StockMoved(selectedProduct.getId()));
+                if (movement != null) {
+                    EventBus.getInstance().publish(new EventBus.StockMoved(movement.getProductId()));
+                }
 
                 JOptionPane.showMessageDialog(this,
                     "Movement saved successfully!",
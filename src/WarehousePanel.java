@@ -1,27 +1,47 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.sql.*;
 import java.util.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 
 public class WarehousePanel extends JPanel {
     private JTabbedPane tabbedPane;
     private JTable stockTable;
     private JTable movementsTable;
     private JTable notificationsTable;
-    private DefaultTableModel stockModel;
-    private DefaultTableModel movementsModel;
-    private DefaultTableModel notificationsModel;
+    private KeyedTableModel stockModel;
+    private KeyedTableModel movementsModel;
+    private KeyedTableModel notificationsModel;
     private SimpleDateFormat dateFormat;
 
+    // SQLite's default limit on bound parameters is 999
+    private static final int REFRESH_CHUNK_SIZE = 500;
+
+    // Movement history filters and the position after the last loaded page
+    private static final int MOVEMENTS_PAGE_SIZE = 100;
+    private JTextField movementProductField;
+    private JComboBox<String> movementTypeCombo;
+    private JComboBox<String> movementReasonCombo;
+    private JTextField movementDocumentField;
+    private JButton loadMoreButton;
+    private MovementHistory.Filter movementsFilter = new MovementHistory.Filter();
+    private MovementHistory.Cursor movementsCursor;
+
     public WarehousePanel() {
         dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm");
 
         setupPanel();
         initComponents();
         loadData();
+
+        // Stock changes patch single rows; edited products may change code and
+        // ordering, so those reload the stock table
+        EventBus.getInstance().subscribe(EventBus.StockMoved.class,
+            events -> refreshStockRows(EventBus.idsOf(events)));
+        EventBus.getInstance().subscribe(EventBus.ProductChanged.class, events -> loadStockData());
+        EventBus.getInstance().subscribe(EventBus.NotificationsCreated.class, events -> loadNotificationsData());
     }
 
     private void setupPanel() {
@@ -52,7 +72,7 @@ public class WarehousePanel extends JPanel {
 
         // Stock table
         String[] columns = {"Code", "Product", "Physical", "Reserved", "Available", "Min Stock", "Status", "Preferred Supplier"};
-        stockModel = new DefaultTableModel(columns, 0) {
+        stockModel = new KeyedTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
@@ -64,14 +84,17 @@ public class WarehousePanel extends JPanel {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JButton newMovementButton = new JButton("New Movement");
         JButton setMinStockButton = new JButton("Set Minimum Stock");
+        JButton planReordersButton = new JButton("Plan Reorders");
         JButton refreshButton = new JButton("Refresh");
 
         newMovementButton.addActionListener(e -> showMovementDialog(null));
         setMinStockButton.addActionListener(e -> showMinStockDialog());
+        planReordersButton.addActionListener(e -> showReorderPlanDialog());
         refreshButton.addActionListener(e -> loadStockData());
 
         buttonPanel.add(newMovementButton);
         buttonPanel.add(setMinStockButton);
+        buttonPanel.add(planReordersButton);
         buttonPanel.add(refreshButton);
 
         panel.add(buttonPanel, BorderLayout.NORTH);
@@ -85,16 +108,28 @@ public class WarehousePanel extends JPanel {
 
         // Filters
         JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        JTextField searchField = new JTextField(20);
+        movementProductField = new JTextField(15);
+        movementTypeCombo = new JComboBox<>(new String[]{"All", "INWARD", "OUTWARD"});
+        movementReasonCombo = new JComboBox<>(new String[]{
+            "All", "PURCHASE", "SALE", "CUSTOMER RETURN", "SUPPLIER RETURN",
+            "INVENTORY", "GIFT", "THEFT/LOSS", "OTHER"
+        });
+        movementDocumentField = new JTextField(10);
         JButton searchButton = new JButton("Search");
 
-        filterPanel.add(new JLabel("Search:"));
-        filterPanel.add(searchField);
+        filterPanel.add(new JLabel("Product:"));
+        filterPanel.add(movementProductField);
+        filterPanel.add(new JLabel("Type:"));
+        filterPanel.add(movementTypeCombo);
+        filterPanel.add(new JLabel("Reason:"));
+        filterPanel.add(movementReasonCombo);
+        filterPanel.add(new JLabel("Document N°:"));
+        filterPanel.add(movementDocumentField);
         filterPanel.add(searchButton);
 
-        // Movements table (ID hidden in column 0)
-        String[] columns = {"ID", "Date", "Product", "Type", "Quantity", "Reason", "Document", "Notes"};
-        movementsModel = new DefaultTableModel(columns, 0) {
+        // Movements table (ID hidden in column 0); Stock After needs a product filter
+        String[] columns = {"ID", "Date", "Product", "Type", "Quantity", "Stock After", "Reason", "Document", "Notes"};
+        movementsModel = new KeyedTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
@@ -117,7 +152,9 @@ public class WarehousePanel extends JPanel {
             }
         });
 
-        searchButton.addActionListener(e -> searchMovements(searchField.getText()));
+        searchButton.addActionListener(e -> searchMovements());
+        movementProductField.addActionListener(e -> searchMovements());
+        movementDocumentField.addActionListener(e -> searchMovements());
 
         // Buttons panel
         JPanel buttonPanel = new JPanel(new FlowLayout());
@@ -125,16 +162,19 @@ public class WarehousePanel extends JPanel {
         JButton editButton = new JButton("Edit");
         JButton deleteButton = new JButton("Delete");
         JButton refreshButton = new JButton("Refresh");
+        loadMoreButton = new JButton("Load More");
 
         newButton.addActionListener(e -> showMovementDialog(null));
         editButton.addActionListener(e -> editSelectedMovement());
         deleteButton.addActionListener(e -> deleteSelectedMovement());
         refreshButton.addActionListener(e -> loadMovementsData());
+        loadMoreButton.addActionListener(e -> loadMovementsPage());
 
         buttonPanel.add(newButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(refreshButton);
+        buttonPanel.add(loadMoreButton);
 
         panel.add(filterPanel, BorderLayout.NORTH);
         panel.add(new JScrollPane(movementsTable), BorderLayout.CENTER);
@@ -146,9 +186,9 @@ public class WarehousePanel extends JPanel {
     private JPanel createNotificationsPanel() {
         JPanel panel = new JPanel(new BorderLayout());
 
-        // Notifications table
-        String[] columns = {"Date", "Product", "Type", "Message", "Status"};
-        notificationsModel = new DefaultTableModel(columns, 0) {
+        // Notifications table (ID hidden in column 0)
+        String[] columns = {"ID", "Date", "Product", "Type", "Message", "Status"};
+        notificationsModel = new KeyedTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
@@ -156,6 +196,11 @@ public class WarehousePanel extends JPanel {
         };
         notificationsTable = new JTable(notificationsModel);
 
+        // Hide ID column
+        notificationsTable.getColumnModel().getColumn(0).setMinWidth(0);
+        notificationsTable.getColumnModel().getColumn(0).setMaxWidth(0);
+        notificationsTable.getColumnModel().getColumn(0).setWidth(0);
+
         // Notification buttons
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JButton markReadButton = new JButton("Mark as Read");
@@ -180,7 +225,6 @@ public class WarehousePanel extends JPanel {
         loadStockData();
         loadMovementsData();
         loadNotificationsData();
-        checkLowStock();
     }
 
     private void loadStockData() {
@@ -199,38 +243,7 @@ public class WarehousePanel extends JPanel {
             try (Statement stmt = conn.createStatement();
                  ResultSet rs = stmt.executeQuery(query)) {
                 while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-                    row.add(rs.getString("code"));
-                    row.add(rs.getString("name"));
-
-                    int physicalStock = rs.getInt("quantity");
-                    int reservedStock = rs.getInt("reserved_quantity");
-                    int availableStock = physicalStock - reservedStock;
-
-                    row.add(physicalStock);
-                    row.add(reservedStock);
-                    row.add(availableStock);
-
-                    int minQuantity = rs.getInt("minimum_quantity");
-                    row.add(minQuantity > 0 ? minQuantity : "-");
-
-                    // Determine stock status based on available stock
-                    String status;
-                    if (minQuantity > 0) {
-                        if (availableStock <= 0) {
-                            status = "OUT OF STOCK";
-                        } else if (availableStock < minQuantity) {
-                            status = "LOW STOCK";
-                        } else {
-                            status = "OK";
-                        }
-                    } else {
-                        status = availableStock <= 0 ? "OUT OF STOCK" : "OK";
-                    }
-                    row.add(status);
-
-                    row.add(rs.getString("supplier_name"));
-                    stockModel.addRow(row);
+                    stockModel.addRow(buildStockRow(rs));
                 }
             }
         } catch (SQLException e) {
@@ -241,48 +254,125 @@ public class WarehousePanel extends JPanel {
         }
     }
 
-    private void loadMovementsData() {
-        movementsModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT m.*, p.name as product_name
-                FROM warehouse_movements m
-                JOIN products p ON m.product_id = p.id
-                ORDER BY m.date DESC
-                LIMIT 100
-            """;
+    private Vector<Object> buildStockRow(ResultSet rs) throws SQLException {
+        Vector<Object> row = new Vector<>();
+        row.add(rs.getString("code"));
+        row.add(rs.getString("name"));
+
+        int physicalStock = rs.getInt("quantity");
+        int reservedStock = rs.getInt("reserved_quantity");
+        int availableStock = physicalStock - reservedStock;
+
+        row.add(physicalStock);
+        row.add(reservedStock);
+        row.add(availableStock);
+
+        int minQuantity = rs.getInt("minimum_quantity");
+        row.add(minQuantity > 0 ? minQuantity : "-");
+
+        // Determine stock status based on available stock
+        String status;
+        if (minQuantity > 0) {
+            if (availableStock <= 0) {
+                status = "OUT OF STOCK";
+            } else if (availableStock < minQuantity) {
+                status = "LOW STOCK";
+            } else {
+                status = "OK";
+            }
+        } else {
+            status = availableStock <= 0 ? "OUT OF STOCK" : "OK";
+        }
+        row.add(status);
 
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
+        row.add(rs.getString("supplier_name"));
+        return row;
+    }
 
-                    // ID (hidden column)
-                    row.add(rs.getInt("id"));
+    /**
+     * Patch the stock rows of the moved products, matched by product code
+     * The ids are read in chunks to stay under SQLite's bound parameter limit.
+     */
+    private void refreshStockRows(Set<Integer> productIds) {
+        List<Integer> ids = new ArrayList<>(productIds);
+        try {
+            Connection conn = DatabaseManager.getInstance().getConnection();
+            for (int start = 0; start < ids.size(); start += REFRESH_CHUNK_SIZE) {
+                List<Integer> chunk = ids.subList(start, Math.min(start + REFRESH_CHUNK_SIZE, ids.size()));
+                String query = """
+                    SELECT p.*, sm.minimum_quantity, sm.reorder_quantity,
+                            s.company_name as supplier_name
+                    FROM products p
+                    LEFT JOIN minimum_stock sm ON p.id = sm.product_id
+                    LEFT JOIN suppliers s ON sm.preferred_supplier_id = s.id
+                    WHERE p.id IN (%s)
+                """.formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
 
-                    Date movementDate = DateUtils.parseDate(rs, "date");
-                    if (movementDate != null) {
-                        row.add(DateUtils.formatDate(movementDate, dateFormat));
-                    } else {
-                        row.add("");
+                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
                     }
-
-                    row.add(rs.getString("product_name"));
-                    row.add(rs.getString("type"));
-                    row.add(rs.getInt("quantity"));
-                    row.add(rs.getString("reason"));
-
-                    String document = rs.getString("document_type");
-                    if (document != null && !document.isEmpty()) {
-                        document += " " + rs.getString("document_number");
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Vector<Object> row = buildStockRow(rs);
+                            if (stockModel.findRow(row.get(0)) != -1) {
+                                stockModel.upsert(row);
+                            }
+                        }
                     }
-                    row.add(document);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reload the movement history from the newest movement with the current filters
+     */
+    private void loadMovementsData() {
+        movementsModel.setRowCount(0);
+        movementsCursor = null;
+        loadMovementsPage();
+    }
 
-                    row.add(rs.getString("notes"));
-                    movementsModel.addRow(row);
+    /**
+     * Append the next page of movements after the last one loaded
+     */
+    private void loadMovementsPage() {
+        try {
+            Connection conn = DatabaseManager.getInstance().getConnection();
+            MovementHistory.Page page = MovementHistory.fetchPage(conn, movementsFilter, movementsCursor,
+                MOVEMENTS_PAGE_SIZE);
+
+            java.util.List<WarehouseMovement> movements = page.getMovements();
+            for (int i = 0; i < movements.size(); i++) {
+                WarehouseMovement movement = movements.get(i);
+                Vector<Object> row = new Vector<>();
+
+                // ID (hidden column)
+                row.add(movement.getId());
+                row.add(movement.getDate() != null ? DateUtils.formatDate(movement.getDate(), dateFormat) : "");
+                row.add(movement.getProductName());
+                row.add(movement.getType());
+                row.add(movement.getQuantity());
+
+                Integer balance = page.getBalance(i);
+                row.add(balance != null ? balance : "");
+                row.add(movement.getReason());
+
+                String document = movement.getDocumentType();
+                if (document != null && !document.isEmpty()) {
+                    document += " " + movement.getDocumentNumber();
                 }
+                row.add(document);
+
+                row.add(movement.getNotes());
+                movementsModel.addRow(row);
             }
+
+            movementsCursor = page.getNext();
+            loadMoreButton.setEnabled(movementsCursor != null);
         } catch (SQLException e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
@@ -308,6 +398,9 @@ public class WarehousePanel extends JPanel {
                 while (rs.next()) {
                     Vector<Object> row = new Vector<>();
 
+                    // ID (hidden column)
+                    row.add(rs.getInt("id"));
+
                     Date notificationDate = DateUtils.parseDate(rs, "date");
                     if (notificationDate != null) {
                         row.add(DateUtils.formatDate(notificationDate, dateFormat));
@@ -330,226 +423,31 @@ public class WarehousePanel extends JPanel {
         }
     }
 
-    private void checkLowStock() {
-        try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT p.id, p.name, p.quantity, sm.minimum_quantity, sm.reorder_quantity
-                FROM products p
-                JOIN minimum_stock sm ON p.id = sm.product_id
-                WHERE p.quantity <= sm.minimum_quantity
-                AND NOT EXISTS (
-                    SELECT 1 FROM warehouse_notifications n
-                    WHERE n.product_id = p.id
-                    AND n.type = 'MIN_STOCK'
-                    AND n.status != 'HANDLED'
-                    AND DATE(n.date) = DATE('now')
-                )
-            """;
-
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                while (rs.next()) {
-                    int productId = rs.getInt("id");
-                    String productName = rs.getString("name");
-                    int quantity = rs.getInt("quantity");
-                    int minQuantity = rs.getInt("minimum_quantity");
-
-                    // Create notification
-                    String message = String.format(
-                        "Stock is below minimum (%d). Current quantity: %d",
-                        minQuantity, quantity
-                    );
-
-                    createNotification(productId, "MIN_STOCK", message);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error checking minimum stock: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
-    private void createNotification(int productId, String type, String message) {
-        try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                INSERT INTO warehouse_notifications
-                (product_id, date, type, message, status)
-                VALUES (?, CURRENT_TIMESTAMP, ?, ?, 'NEW')
-            """;
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, productId);
-                pstmt.setString(2, type);
-                pstmt.setString(3, message);
-                pstmt.executeUpdate();
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void searchMovements(String searchTerm) {
-        if (searchTerm.trim().isEmpty()) {
-            loadMovementsData();
-            return;
-        }
-
-        movementsModel.setRowCount(0);
-        try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT m.*, p.name as product_name
-                FROM warehouse_movements m
-                JOIN products p ON m.product_id = p.id
-                WHERE p.name LIKE ?
-                    OR m.reason LIKE ?
-                    OR m.document_number LIKE ?
-                ORDER BY m.date DESC
-            """;
-
-            String searchPattern = "%" + searchTerm + "%";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, searchPattern);
-                pstmt.setString(2, searchPattern);
-                pstmt.setString(3, searchPattern);
-
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    while (rs.next()) {
-                        Vector<Object> row = new Vector<>();
-
-                        Date movementDate = DateUtils.parseDate(rs, "date");
-                        if (movementDate != null) {
-                            row.add(DateUtils.formatDate(movementDate, dateFormat));
-                        } else {
-                            row.add("");
-                        }
-
-                        row.add(rs.getString("product_name"));
-                        row.add(rs.getString("type"));
-                        row.add(rs.getInt("quantity"));
-                        row.add(rs.getString("reason"));
-
-                        String document = rs.getString("document_type");
-                        if (document != null && !document.isEmpty()) {
-                            document += " " + rs.getString("document_number");
-                        }
-                        row.add(document);
+    private void searchMovements() {
+        MovementHistory.Filter filter = new MovementHistory.Filter();
+        filter.setProductName(movementProductField.getText());
+        String type = (String) movementTypeCombo.getSelectedItem();
+        filter.setType("All".equals(type) ? null : type);
+        String reason = (String) movementReasonCombo.getSelectedItem();
+        filter.setReason("All".equals(reason) ? null : reason);
+        filter.setDocumentNumber(movementDocumentField.getText());
 
-                        row.add(rs.getString("notes"));
-                        movementsModel.addRow(row);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error searching for movements: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        movementsFilter = filter;
+        loadMovementsData();
     }
 
     private void markSelectedNotifications(String newStatus) {
         int[] selectedRows = notificationsTable.getSelectedRows();
         if (selectedRows.length == 0) return;
 
-        try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            conn.setAutoCommit(false);
-
-            try {
-                String updateQuery = "UPDATE warehouse_notifications SET status = ? WHERE id = ?";
-                try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
-                    for (int row : selectedRows) {
-                        // Find notification ID by matching data
-                        String dateStr = (String)notificationsModel.getValueAt(row, 0);
-                        String product = (String)notificationsModel.getValueAt(row, 1);
-                        String type = (String)notificationsModel.getValueAt(row, 2);
-                        String message = (String)notificationsModel.getValueAt(row, 3);
-
-                        int notificationId = findNotificationId(dateStr, product, type, message);
-                        if (notificationId > 0) {
-                            pstmt.setString(1, newStatus);
-                            pstmt.setInt(2, notificationId);
-                            pstmt.executeUpdate();
-                        }
-                    }
-                }
-
-                conn.commit();
-                loadNotificationsData();
-
-            } catch (Exception e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error updating notifications: " + e.getMessage(),
-                "Error", JOptionPane.ERROR_MESSAGE);
+        java.util.List<Integer> notificationIds = new ArrayList<>();
+        for (int row : selectedRows) {
+            notificationIds.add((Integer) notificationsModel.getKeyAt(row));
         }
-    }
-
-    private int findNotificationId(String dateStr, String productName, String type, String message) {
-        try {
-            Connection conn = DatabaseManager.getInstance().getConnection();
-
-            // Try to parse the date string to match against database
-            SimpleDateFormat displayFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm");
-            Date parsedDate = null;
-            try {
-                parsedDate = displayFormat.parse(dateStr);
-            } catch (Exception e) {
-                // If parsing fails, we'll search without date
-            }
 
-            String query;
-            if (parsedDate != null) {
-                // Include date in search for more precision
-                query = """
-                    SELECT n.id
-                    FROM warehouse_notifications n
-                    JOIN products p ON n.product_id = p.id
-                    WHERE p.name = ? AND n.type = ? AND n.message = ?
-                    AND datetime(n.date) = datetime(?)
-                    LIMIT 1
-                """;
-            } else {
-                // Fallback to original query without date
-                query = """
-                    SELECT n.id
-                    FROM warehouse_notifications n
-                    JOIN products p ON n.product_id = p.id
-                    WHERE p.name = ? AND n.type = ? AND n.message = ?
-                    ORDER BY n.date DESC
-                    LIMIT 1
-                """;
-            }
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, productName);
-                pstmt.setString(2, type);
-                pstmt.setString(3, message);
-                if (parsedDate != null) {
-                    pstmt.setTimestamp(4, new java.sql.Timestamp(parsedDate.getTime()));
-                }
-
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getInt("id");
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+        BulkOperations.runWithDialog(this, "Updating notifications", notificationIds.size(),
+            (conn, listener) -> BulkOperations.setNotificationStatus(conn, notificationIds, newStatus, listener),
+            updated -> loadNotificationsData());
     }
 
     private void showMovementDialog(WarehouseMovement movement) {
@@ -568,6 +466,22 @@ public class WarehousePanel extends JPanel {
         }
     }
 
+    private void showReorderPlanDialog() {
+        Window parentWindow = SwingUtilities.getWindowAncestor(this);
+
+        ReorderPlanDialog dialog;
+        if (parentWindow instanceof JFrame) {
+            dialog = new ReorderPlanDialog((JFrame) parentWindow);
+        } else {
+            dialog = new ReorderPlanDialog((JDialog) parentWindow);
+        }
+
+        dialog.setVisible(true);
+        if (dialog.isOrdersCreated()) {
+            loadData();
+        }
+    }
+
     private void showMinStockDialog() {
         int selectedRow = stockTable.getSelectedRow();
         if (selectedRow == -1) {
@@ -579,7 +493,8 @@ public class WarehousePanel extends JPanel {
 
         String code = (String)stockModel.getValueAt(selectedRow, 0);
         try {
-            MinimumStock minStock = loadMinimumStock(code);
+            MinimumStock minStock = StockRepository.findMinimumStock(
+                DatabaseManager.getInstance().getConnection(), code);
             Window parentWindow = SwingUtilities.getWindowAncestor(this);
 
             MinimumStockDialog dialog;
@@ -601,41 +516,6 @@ public class WarehousePanel extends JPanel {
         }
     }
 
-    private MinimumStock loadMinimumStock(String code) throws SQLException {
-        Connection conn = DatabaseManager.getInstance().getConnection();
-        String query = """
-            SELECT p.id, p.name, sm.minimum_quantity, sm.reorder_quantity,
-                    sm.lead_time_days, sm.preferred_supplier_id,
-                    s.company_name as supplier_name, sm.notes
-            FROM products p
-            LEFT JOIN minimum_stock sm ON p.id = sm.product_id
-            LEFT JOIN suppliers s ON sm.preferred_supplier_id = s.id
-            WHERE p.code = ?
-        """;
-
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, code);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return new MinimumStock(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getInt("minimum_quantity"),
-                        rs.getInt("reorder_quantity"),
-                        rs.getInt("lead_time_days"),
-                        rs.getObject("preferred_supplier_id") != null ?
-                            rs.getInt("preferred_supplier_id") : null,
-                        rs.getString("supplier_name"),
-                        rs.getString("notes")
-                    );
-            }
-        }
-        // Return a default object if the product has no minimum stock settings
-        return new MinimumStock(
-            0, "", 0, 0, 0, null, null, ""
-        );
-    }
-
     private void editSelectedMovement() {
         int selectedRow = movementsTable.getSelectedRow();
         if (selectedRow != -1) {
@@ -681,84 +561,51 @@ public class WarehousePanel extends JPanel {
     }
 
     private void deleteSelectedMovement() {
-        int selectedRow = movementsTable.getSelectedRow();
-        if (selectedRow != -1) {
-            int movementId = (int)movementsModel.getValueAt(selectedRow, 0);
+        int[] selectedRows = movementsTable.getSelectedRows();
+        if (selectedRows.length == 0) return;
+
+        String question;
+        if (selectedRows.length == 1) {
+            int selectedRow = selectedRows[0];
             String product = (String)movementsModel.getValueAt(selectedRow, 2);
             String type = (String)movementsModel.getValueAt(selectedRow, 3);
             int quantity = (int)movementsModel.getValueAt(selectedRow, 4);
-
-            int result = JOptionPane.showConfirmDialog(this,
-                "Are you sure you want to delete this movement?\n\n" +
+            question = "Are you sure you want to delete this movement?\n\n" +
                 "Product: " + product + "\n" +
                 "Type: " + type + "\n" +
                 "Quantity: " + quantity + "\n\n" +
-                "Stock will be adjusted accordingly.",
-                "Confirm Deletion",
-                JOptionPane.YES_NO_OPTION,
-                JOptionPane.WARNING_MESSAGE);
-
-            if (result == JOptionPane.YES_OPTION) {
-                try {
-                    Connection conn = DatabaseManager.getInstance().getConnection();
-                    conn.setAutoCommit(false);
-
-                    try {
-                        // Get movement details to restore stock
-                        int productId = 0;
-                        String movementType = "";
-                        int movementQuantity = 0;
-
-                        String getMovementQuery = "SELECT product_id, type, quantity FROM warehouse_movements WHERE id = ?";
-                        try (PreparedStatement pstmt = conn.prepareStatement(getMovementQuery)) {
-                            pstmt.setInt(1, movementId);
-                            ResultSet rs = pstmt.executeQuery();
-                            if (rs.next()) {
-                                productId = rs.getInt("product_id");
-                                movementType = rs.getString("type");
-                                movementQuantity = rs.getInt("quantity");
-                            }
-                        }
-
-                        // Reverse the stock movement
-                        if (productId > 0) {
-                            String updateStockQuery = "UPDATE products SET quantity = quantity + ? WHERE id = ?";
-                            try (PreparedStatement pstmt = conn.prepareStatement(updateStockQuery)) {
-                                int quantityDelta = "INWARD".equals(movementType) ? -movementQuantity : movementQuantity;
-                                pstmt.setInt(1, quantityDelta);
-                                pstmt.setInt(2, productId);
-                                pstmt.executeUpdate();
-                            }
-                        }
-
-                        // Delete the movement
-                        String deleteQuery = "DELETE FROM warehouse_movements WHERE id = ?";
-                        try (PreparedStatement pstmt = conn.prepareStatement(deleteQuery)) {
-                            pstmt.setInt(1, movementId);
-                            pstmt.executeUpdate();
-                        }
+                "Stock will be adjusted accordingly.";
+        } else {
+            question = "Are you sure you want to delete " + selectedRows.length + " movements?\n\n" +
+                "Stock will be adjusted accordingly.";
+        }
 
-                        conn.commit();
-                        loadMovementsData();
-                        loadStockData();
+        int result = JOptionPane.showConfirmDialog(this,
+            question,
+            "Confirm Deletion",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.WARNING_MESSAGE);
+        if (result != JOptionPane.YES_OPTION) return;
 
-                        JOptionPane.showMessageDialog(this,
-                            "Movement deleted successfully!\nStock has been adjusted.",
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
+        java.util.List<Integer> movementIds = new ArrayList<>();
+        for (int row : selectedRows) {
+            movementIds.add((Integer) movementsModel.getKeyAt(row));
+        }
 
-                    } catch (SQLException e) {
-                        conn.rollback();
-                        throw e;
-                    } finally {
-                        conn.setAutoCommit(true);
-                    }
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                    JOptionPane.showMessageDialog(this,
-                        "Error deleting movement: " + e.getMessage(),
-                        "Error", JOptionPane.ERROR_MESSAGE);
+        BulkOperations.runWithDialog(this, "Deleting movements", movementIds.size(),
+            (conn, listener) -> BulkOperations.deleteMovements(conn, movementIds, listener),
+            productIds -> {
+                for (int productId : productIds) {
+                    EventBus.getInstance().publish(new EventBus.StockMoved(productId));
                 }
-            }
-        }
+                loadMovementsData();
+                loadStockData();
+
+                JOptionPane.showMessageDialog(this,
+                    (movementIds.size() == 1 ? "Movement deleted successfully!"
+                        : movementIds.size() + " movements deleted successfully!") +
+                    "\nStock has been adjusted.",
+                    "Success", JOptionPane.INFORMATION_MESSAGE);
+            });
     }
 }
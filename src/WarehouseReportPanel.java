@@ -5,9 +5,10 @@ import java.awt.print.PrinterException;
 import java.sql.*;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 import java.util.Date;
-import java.io.*;
 
 public class WarehouseReportPanel extends JPanel {
     private JTabbedPane tabbedPane;
@@ -19,6 +20,14 @@ public class WarehouseReportPanel extends JPanel {
     private JTextField startDateField;
     private JTextField endDateField;
     private JComboBox<String> typeCombo;
+    private JTextField productField;
+    private JCheckBox archiveCheckBox;
+    private JButton loadMoreButton;
+
+    // The movements table loads one page at a time; export reads the whole filtered history
+    private static final int MOVEMENTS_PAGE_SIZE = 1000;
+    private MovementHistory.Filter movementsFilter;
+    private MovementHistory.Cursor movementsCursor;
 
     public WarehouseReportPanel() {
         dateFormat = new SimpleDateFormat("dd/MM/yyyy");
@@ -77,11 +86,11 @@ public class WarehouseReportPanel extends JPanel {
         // Buttons
         JPanel buttonPanel = new JPanel();
         JButton printButton = new JButton("Print Report");
-        JButton exportButton = new JButton("Export CSV");
+        JButton exportButton = new JButton("Export CSV/XLSX");
         JButton refreshButton = new JButton("Refresh");
 
         printButton.addActionListener(e -> printProductsReport());
-        exportButton.addActionListener(e -> exportProductsToCSV());
+        exportButton.addActionListener(e -> exportProducts());
         refreshButton.addActionListener(e -> loadProductsData());
 
         buttonPanel.add(printButton);
@@ -105,6 +114,8 @@ public class WarehouseReportPanel extends JPanel {
         startDateField = new JTextField(10);
         endDateField = new JTextField(10);
         typeCombo = new JComboBox<>(new String[]{"All", "INWARD", "OUTWARD"});
+        productField = new JTextField(12);
+        archiveCheckBox = new JCheckBox("Include archived years");
 
         // Set default dates (last month)
         java.util.Calendar cal = java.util.Calendar.getInstance();
@@ -118,13 +129,16 @@ public class WarehouseReportPanel extends JPanel {
         filterPanel.add(endDateField);
         filterPanel.add(new JLabel("Type:"));
         filterPanel.add(typeCombo);
+        filterPanel.add(new JLabel("Product:"));
+        filterPanel.add(productField);
+        filterPanel.add(archiveCheckBox);
 
         JButton applyButton = new JButton("Apply");
         applyButton.addActionListener(e -> loadMovementsData());
         filterPanel.add(applyButton);
 
         // Movements Table
-        String[] columns = {"Date", "Product", "Type", "Quantity", "Reason", "Document"};
+        String[] columns = {"Date", "Product", "Type", "Quantity", "Stock After", "Reason", "Document"};
         movementsModel = new DefaultTableModel(columns, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
@@ -136,13 +150,16 @@ public class WarehouseReportPanel extends JPanel {
         // Buttons
         JPanel buttonPanel = new JPanel();
         JButton printButton = new JButton("Print Report");
-        JButton exportButton = new JButton("Export CSV");
+        JButton exportButton = new JButton("Export CSV/XLSX");
+        loadMoreButton = new JButton("Load More");
 
         printButton.addActionListener(e -> printMovementsReport());
-        exportButton.addActionListener(e -> exportMovementsToCSV());
+        exportButton.addActionListener(e -> exportMovements());
+        loadMoreButton.addActionListener(e -> loadMovementsPage());
 
         buttonPanel.add(printButton);
         buttonPanel.add(exportButton);
+        buttonPanel.add(loadMoreButton);
 
         panel.add(filterPanel, BorderLayout.NORTH);
         panel.add(new JScrollPane(movementsTable), BorderLayout.CENTER);
@@ -236,91 +253,81 @@ public class WarehouseReportPanel extends JPanel {
         }
     }
 
+    /**
+     * Filter for the current filter fields
+     */
+    private MovementHistory.Filter buildMovementsFilter() {
+        MovementHistory.Filter filter = new MovementHistory.Filter();
+        String startDateText = startDateField.getText().trim();
+        String endDateText = endDateField.getText().trim();
+        String selectedType = (String) typeCombo.getSelectedItem();
+
+        if (!startDateText.isEmpty() && !endDateText.isEmpty()) {
+            try {
+                Date startDate = DateUtils.parseDate(startDateText, dateFormat);
+                Date endDate = DateUtils.parseDate(endDateText, dateFormat);
+                if (startDate != null && endDate != null) {
+                    filter.setDateRange(startDate, endDate);
+                }
+            } catch (Exception e) {
+                // Ignore date parsing errors and load all data
+            }
+        }
+
+        if (selectedType != null && !"All".equals(selectedType)) {
+            filter.setType(selectedType);
+        }
+        filter.setProductName(productField.getText());
+        filter.setIncludeArchive(archiveCheckBox.isSelected());
+        return filter;
+    }
+
     private void loadMovementsData() {
         movementsModel.setRowCount(0);
-        try {
-            String startDateText = startDateField.getText().trim();
-            String endDateText = endDateField.getText().trim();
-            String selectedType = (String) typeCombo.getSelectedItem();
+        movementsFilter = buildMovementsFilter();
+        movementsCursor = null;
+        loadMovementsPage();
+    }
 
+    private void loadMovementsPage() {
+        try {
             Connection conn = DatabaseManager.getInstance().getConnection();
-            String query = """
-                SELECT m.*, p.name as product_name
-                FROM warehouse_movements m
-                LEFT JOIN products p ON m.product_id = p.id
-                WHERE 1=1
-            """;
-
-            // Build query based on filters
-            boolean hasDateFilter = false;
-            boolean hasTypeFilter = false;
-            Date startDate = null;
-            Date endDate = null;
-
-            if (!startDateText.isEmpty() && !endDateText.isEmpty()) {
-                try {
-                    startDate = DateUtils.parseDate(startDateText, dateFormat);
-                    endDate = DateUtils.parseDate(endDateText, dateFormat);
-                    if (startDate != null && endDate != null) {
-                        query += " AND DATE(m.date) >= DATE(?) AND DATE(m.date) <= DATE(?)";
-                        hasDateFilter = true;
+            MovementHistory.Page page = MovementHistory.fetchPage(conn, movementsFilter, movementsCursor,
+                MOVEMENTS_PAGE_SIZE);
+
+            List<WarehouseMovement> movements = page.getMovements();
+            for (int i = 0; i < movements.size(); i++) {
+                WarehouseMovement movement = movements.get(i);
+                Vector<Object> row = new Vector<>();
+
+                Date movementDate = movement.getDate();
+                row.add(movementDate != null ? DateUtils.formatDate(movementDate, dateFormat) : "N/A");
+
+                String productName = movement.getProductName();
+                row.add(productName != null ? productName : "Product N/A");
+                row.add(movement.getType());
+                row.add(movement.getQuantity());
+
+                Integer balance = page.getBalance(i);
+                row.add(balance != null ? balance : "");
+                row.add(movement.getReason());
+
+                String document = movement.getDocumentType();
+                if (document != null && !document.isEmpty()) {
+                    String docNumber = movement.getDocumentNumber();
+                    if (docNumber != null && !docNumber.isEmpty()) {
+                        document += " " + docNumber;
                     }
-                } catch (Exception e) {
-                    // Ignore date parsing errors and load all data
+                } else {
+                    document = "";
                 }
-            }
+                row.add(document);
 
-            if (selectedType != null && !"All".equals(selectedType)) {
-                query += " AND m.type = ?";
-                hasTypeFilter = true;
+                movementsModel.addRow(row);
             }
 
-            query += " ORDER BY m.date DESC";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                int paramIndex = 1;
-
-                if (hasDateFilter && startDate != null && endDate != null) {
-                    pstmt.setString(paramIndex++, DateUtils.formatDate(startDate, new SimpleDateFormat("yyyy-MM-dd")));
-                    pstmt.setString(paramIndex++, DateUtils.formatDate(endDate, new SimpleDateFormat("yyyy-MM-dd")));
-                }
-
-                if (hasTypeFilter) {
-                    pstmt.setString(paramIndex, selectedType);
-                }
-
-                ResultSet rs = pstmt.executeQuery();
-
-                while (rs.next()) {
-                    Vector<Object> row = new Vector<>();
-
-                    Date movementDate = DateUtils.parseDate(rs, "date");
-                    if (movementDate != null) {
-                        row.add(DateUtils.formatDate(movementDate, dateFormat));
-                    } else {
-                        row.add("N/A");
-                    }
-
-                    String productName = rs.getString("product_name");
-                    row.add(productName != null ? productName : "Product N/A");
-                    row.add(rs.getString("type"));
-                    row.add(rs.getInt("quantity"));
-                    row.add(rs.getString("reason"));
-
-                    String document = rs.getString("document_type");
-                    if (document != null && !document.isEmpty()) {
-                        String docNumber = rs.getString("document_number");
-                        if (docNumber != null && !docNumber.isEmpty()) {
-                            document += " " + docNumber;
-                        }
-                    } else {
-                        document = "";
-                    }
-                    row.add(document);
-
-                    movementsModel.addRow(row);
-                }
-            }
+            movementsCursor = page.getNext();
+            loadMoreButton.setEnabled(movementsCursor != null);
         } catch (Exception e) {
             e.printStackTrace();
             JOptionPane.showMessageDialog(this,
@@ -355,86 +362,65 @@ public class WarehouseReportPanel extends JPanel {
         }
     }
 
-    private void exportProductsToCSV() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Save CSV Report");
-        fileChooser.setSelectedFile(new File("warehouse_report.csv"));
-
-        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (PrintWriter writer = new PrintWriter(new FileWriter(fileChooser.getSelectedFile()))) {
-                // Headers
-                for (int i = 0; i < productsModel.getColumnCount(); i++) {
-                    writer.print(productsModel.getColumnName(i));
-                    writer.print(i < productsModel.getColumnCount() - 1 ? "," : "\n");
-                }
-
-                // Data
-                for (int row = 0; row < productsModel.getRowCount(); row++) {
-                    for (int col = 0; col < productsModel.getColumnCount(); col++) {
-                        String value = productsModel.getValueAt(row, col).toString();
-                        if (value.contains(",")) {
-                            value = "\"" + value + "\"";
-                        }
-                        writer.print(value);
-                        writer.print(col < productsModel.getColumnCount() - 1 ? "," : "\n");
-                    }
-                }
-
-                JOptionPane.showMessageDialog(this,
-                    "Report exported successfully",
-                    "Export Completed",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-            } catch (IOException e) {
-                e.printStackTrace();
-                JOptionPane.showMessageDialog(this,
-                    "Error during export: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
+    private void exportProducts() {
+        String query = """
+            SELECT p.code, p.name, p.quantity, p.price,
+                   p.quantity * p.price as total_value,
+                   CASE
+                       WHEN p.quantity <= 0 THEN 'OUT OF STOCK'
+                       WHEN COALESCE(sm.minimum_quantity, 0) > 0
+                            AND p.quantity < sm.minimum_quantity THEN 'LOW STOCK'
+                       ELSE 'OK'
+                   END as status
+            FROM products p
+            LEFT JOIN minimum_stock sm ON p.id = sm.product_id
+            ORDER BY p.name
+        """;
+
+        List<ReportExporter.Column> columns = List.of(
+            new ReportExporter.Column("Code", ReportExporter.textColumn("code")),
+            new ReportExporter.Column("Product", ReportExporter.textColumn("name")),
+            new ReportExporter.Column("Quantity", ReportExporter.intColumn("quantity")),
+            new ReportExporter.Column("Unit Value", ReportExporter.decimalColumn("price")),
+            new ReportExporter.Column("Total Value", ReportExporter.decimalColumn("total_value")),
+            new ReportExporter.Column("Status", ReportExporter.textColumn("status"))
+        );
+
+        ReportExporter.exportWithDialog(this, "Save Warehouse Report", "warehouse_report",
+            query, List.of(), columns, null, null);
     }
 
-    private void exportMovementsToCSV() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Save Movements CSV Report");
-        fileChooser.setSelectedFile(new File("warehouse_movements_report.csv"));
-
-        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            try (PrintWriter writer = new PrintWriter(new FileWriter(fileChooser.getSelectedFile()))) {
-                // Headers
-                writer.println("Warehouse Movements Report");
-                writer.println("Period: " + startDateField.getText() + " - " + endDateField.getText());
-                writer.println();
-
-                // Column headers
-                for (int i = 0; i < movementsModel.getColumnCount(); i++) {
-                    writer.print(movementsModel.getColumnName(i));
-                    writer.print(i < movementsModel.getColumnCount() - 1 ? "," : "\n");
-                }
-
-                // Data
-                for (int row = 0; row < movementsModel.getRowCount(); row++) {
-                    for (int col = 0; col < movementsModel.getColumnCount(); col++) {
-                        String value = movementsModel.getValueAt(row, col).toString();
-                        if (value.contains(",")) {
-                            value = "\"" + value + "\"";
-                        }
-                        writer.print(value);
-                        writer.print(col < movementsModel.getColumnCount() - 1 ? "," : "\n");
-                    }
+    private void exportMovements() {
+        List<Object> params = new ArrayList<>();
+        String query = MovementHistory.buildQuery(buildMovementsFilter(), null, -1, params);
+
+        List<ReportExporter.Column> columns = List.of(
+            new ReportExporter.Column("Date", ReportExporter.dateColumn("date", dateFormat)),
+            new ReportExporter.Column("Product", rs -> {
+                String productName = rs.getString("product_name");
+                return productName != null ? productName : "Product N/A";
+            }),
+            new ReportExporter.Column("Type", ReportExporter.textColumn("type")),
+            new ReportExporter.Column("Quantity", ReportExporter.intColumn("quantity")),
+            new ReportExporter.Column("Stock After", ReportExporter.textColumn("balance")),
+            new ReportExporter.Column("Reason", ReportExporter.textColumn("reason")),
+            new ReportExporter.Column("Document", rs -> {
+                String document = rs.getString("document_type");
+                if (document == null || document.isEmpty()) {
+                    return "";
                 }
-
-                JOptionPane.showMessageDialog(this,
-                    "Movements report exported successfully",
-                    "Export Completed",
-                    JOptionPane.INFORMATION_MESSAGE);
-
-            } catch (IOException e) {
-                e.printStackTrace();
-                JOptionPane.showMessageDialog(this,
-                    "Error during export: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        }
+                String docNumber = rs.getString("document_number");
+                return docNumber != null && !docNumber.isEmpty() ? document + " " + docNumber : document;
+            })
+        );
+
+        List<String[]> preamble = List.of(
+            new String[]{"Warehouse Movements Report"},
+            new String[]{"Period: " + startDateField.getText() + " - " + endDateField.getText()},
+            new String[]{}
+        );
+
+        ReportExporter.exportWithDialog(this, "Save Movements Report", "warehouse_movements_report",
+            query, params, columns, preamble, null);
     }
 }